@@ -60,6 +60,13 @@ public interface BlockEntityBaseComponent extends BlockEntityComponent, Persiste
      */
     void loadNBT(NbtMap nbt);
 
+    /**
+     * Marks the data of the block entity as changed, so that it will be written when the chunk is saved next time.
+     * The built-in block entities call this method by themselves, it should be called after changing the data that
+     * is saved by {@link #saveNBT()} in other ways, for example the persistent data container.
+     */
+    void setDirty();
+
     /**
      * Gets the block state of the block entity.
      *
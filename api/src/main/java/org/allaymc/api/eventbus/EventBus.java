@@ -72,7 +72,18 @@ public interface EventBus {
     <E extends Event> void unregisterListenerFor(Class<E> eventClass, Consumer<E> eventConsumer);
 
     /**
-     * Call an event.
+     * Check if there are any listeners for a specific event class, including the listeners that are
+     * registered for the super classes of the event class. This method is cheap, and can be used to
+     * skip creating an event that no one listens to.
+     *
+     * @param eventClass the class of the event
+     * @return {@code true} if there are any listeners for the event class, otherwise {@code false}
+     */
+    boolean hasListeners(Class<? extends Event> eventClass);
+
+    /**
+     * Call an event. The event will be passed to the listeners registered for the class of the event
+     * and the listeners registered for the super classes of the event class.
      *
      * @param event the event to call
      * @param <E>   the type of the event
@@ -7,7 +7,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.allaymc.api.utils.SemVersion;
 
 import java.nio.ByteBuffer;
-import java.security.MessageDigest;
 import java.util.Locale;
 import java.util.UUID;
 
@@ -23,21 +22,21 @@ public abstract class Pack implements AutoCloseable {
     // Will be empty if this is not an encrypted pack
     private final String contentKey;
     private final byte[] hash;
-    private final ByteBuffer buffer;
+    private final int size;
+    // May be a mapped file, the reference is dropped when the pack is closed so that the mapping can be released
+    private volatile ByteBuffer buffer;
 
     public Pack(PackLoader loader, PackManifest manifest, String contentKey) {
         this.loader = loader;
         this.manifest = manifest;
         this.contentKey = contentKey;
-        var bytes = loader.readAllBytes();
+        this.buffer = loader.mapAllBytes().asReadOnlyBuffer();
+        this.size = this.buffer.limit();
         try {
-            this.hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            this.hash = loader.computeHash(this.buffer);
         } catch (Exception exception) {
             throw new IllegalStateException("Unable to calculate the hash of pack " + getName(), exception);
         }
-        this.buffer = ByteBuffer.allocateDirect(bytes.length);
-        this.buffer.put(bytes);
-        this.buffer.flip();
     }
 
     public String getName() {
@@ -63,13 +62,49 @@ public abstract class Pack implements AutoCloseable {
     }
 
     public int getSize() {
-        return this.buffer.limit();
+        return this.size;
+    }
+
+    /**
+     * @return the content of the pack
+     * @throws IllegalStateException if the pack is closed
+     */
+    public ByteBuffer getBuffer() {
+        var buffer = this.buffer;
+        if (buffer == null) {
+            throw new IllegalStateException("Pack " + getName() + " is closed");
+        }
+        return buffer;
     }
 
     public byte[] getHash() {
         return this.hash;
     }
 
+    /**
+     * Get a chunk of the pack without copying it.
+     *
+     * @param offset the offset of the chunk
+     * @param length the max length of the chunk
+     *
+     * @return a read-only buffer that shares the content with this pack
+     */
+    public ByteBuffer sliceChunk(int offset, int length) {
+        if (offset < 0 || offset > this.getSize()) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " is out of the bounds of pack " + getName());
+        }
+
+        return this.getBuffer().slice(offset, Math.min(length, this.getSize() - offset));
+    }
+
+    /**
+     * Get a copy of a chunk of the pack, see {@link #sliceChunk(int, int)} for the version that doesn't copy.
+     *
+     * @param offset the offset of the chunk
+     * @param length the max length of the chunk
+     *
+     * @return the bytes of the chunk
+     */
     public byte[] getChunk(int offset, int length) {
         byte[] chunk;
         if ((this.getSize() - offset) > length) {
@@ -79,7 +114,7 @@ public abstract class Pack implements AutoCloseable {
         }
 
         try {
-            buffer.get(offset, chunk);
+            getBuffer().get(offset, chunk);
         } catch (Exception exception) {
             log.error("An error occurred while processing the resource pack {} at offset {} and length {}", getName(), offset, length, exception);
         }
@@ -89,8 +124,13 @@ public abstract class Pack implements AutoCloseable {
 
     public abstract Type getType();
 
+    /**
+     * Close the loader of the pack and drop the content of the pack. The chunks that are
+     * already sliced are still valid, and the content will be released once they are unused.
+     */
     @Override
     public void close() throws Exception {
+        this.buffer = null;
         this.loader.close();
     }
 
@@ -4,7 +4,10 @@ import org.jetbrains.annotations.ApiStatus;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * Represents a loader for pack.
@@ -54,6 +57,34 @@ public interface PackLoader extends AutoCloseable {
      */
     byte[] readAllBytes();
 
+    /**
+     * Get all bytes of the pack as a buffer. The default implementation wraps the result of
+     * {@link #readAllBytes()}, and implementations that are backed by a file should map the
+     * file into memory instead, so that the pack doesn't need to be copied to the heap.
+     *
+     * @return a buffer that contains all bytes of the pack
+     */
+    default ByteBuffer mapAllBytes() {
+        return ByteBuffer.wrap(readAllBytes());
+    }
+
+    /**
+     * Calculate the SHA-256 hash of the pack. Implementations may cache the hash.
+     *
+     * @param content the content of the pack, returned by {@link #mapAllBytes()}
+     *
+     * @return the hash of the pack
+     */
+    default byte[] computeHash(ByteBuffer content) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content.duplicate());
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * The factory for creating pack loaders.
      */
@@ -1,8 +1,13 @@
 package org.allaymc.api.player;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
+ * PlayerStorage stores the data of players. Reads and saves are asynchronous, and saves may be
+ * coalesced and written later in batches. A read always sees the data of the latest save of the
+ * same player, even if the data hasn't been written yet.
+ *
  * @author daoge_cmd
  */
 public interface PlayerStorage {
@@ -11,17 +16,17 @@ public interface PlayerStorage {
      * Reads the player data for the given UUID.
      *
      * @param uuid The UUID of the player
-     * @return The player data for the given UUID
+     * @return A future that completes with the player data for the given UUID
      */
-    PlayerData readPlayerData(UUID uuid);
+    CompletableFuture<PlayerData> readPlayerData(UUID uuid);
 
     /**
      * Reads the player data for the given player.
      *
      * @param player The player
-     * @return The player data for the given player
+     * @return A future that completes with the player data for the given player
      */
-    default PlayerData readPlayerData(Player player) {
+    default CompletableFuture<PlayerData> readPlayerData(Player player) {
         return readPlayerData(player.getLoginData().getUuid());
     }
 
@@ -29,17 +34,19 @@ public interface PlayerStorage {
      * Saves the player data for the given UUID.
      *
      * @param uuid       The UUID of the player
-     * @param playerData The player data to save
+     * @param playerData The player data to save, which should not be modified after being passed to this method
+     * @return A future that completes once the player data is written
      */
-    void savePlayerData(UUID uuid, PlayerData playerData);
+    CompletableFuture<Void> savePlayerData(UUID uuid, PlayerData playerData);
 
     /**
-     * Saves the player data for the given player.
+     * Saves the player data for the given player. The data is taken from the player immediately.
      *
      * @param player The player
+     * @return A future that completes once the player data is written
      */
-    default void savePlayerData(Player player) {
-        savePlayerData(player.getLoginData().getUuid(), PlayerData.save(player));
+    default CompletableFuture<Void> savePlayerData(Player player) {
+        return savePlayerData(player.getLoginData().getUuid(), PlayerData.save(player));
     }
 
     /**
@@ -1,5 +1,6 @@
 package org.allaymc.api.utils;
 
+import com.google.common.base.Preconditions;
 import lombok.experimental.UtilityClass;
 
 import java.io.*;
@@ -9,6 +10,8 @@ import java.util.Collection;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Consumer;
 
 /**
@@ -80,9 +83,15 @@ public class Utils {
         return Objects.requireNonNull(Utils.class.getClassLoader().getResourceAsStream(resourceName));
     }
 
+    /**
+     * The default count of elements that are processed by a single task in {@link #forEachInParallel}.
+     */
+    public static final int DEFAULT_PARALLEL_GRAIN_SIZE = 64;
+
     /**
      * Processes each element in the provided collection in parallel using the specified executor
-     * and consumer function.
+     * and consumer function, see {@link #forEachInParallel(Collection, Executor, int, Consumer)}.
+     * The {@link #DEFAULT_PARALLEL_GRAIN_SIZE default grain size} is used.
      *
      * @param <T>        the type of elements in the collection
      * @param collection the collection of elements to be processed
@@ -92,15 +101,129 @@ public class Utils {
      * have been processed
      */
     public static <T> CompletableFuture<Void> forEachInParallel(Collection<T> collection, Executor executor, Consumer<T> consumer) {
-        CompletableFuture<?>[] futures = collection.stream()
-                .map(element ->
-                        CompletableFuture.runAsync(
-                                () -> consumer.accept(element),
-                                executor
-                        )
-                )
-                .toArray(CompletableFuture[]::new);
+        return forEachInParallel(collection, executor, DEFAULT_PARALLEL_GRAIN_SIZE, consumer);
+    }
 
+    /**
+     * Processes each element in the provided collection in parallel using the specified executor
+     * and consumer function.
+     * <p>
+     * The elements are split into ranges that contain at most {@code grainSize} elements, and each
+     * range is processed by a single task. If the executor is a {@link ForkJoinPool}, the ranges are
+     * split recursively by fork-join tasks, so only one task is submitted to the executor. If the
+     * collection doesn't contain more than {@code grainSize} elements, the elements are processed
+     * directly in the caller thread and the returned future is already completed.
+     * <p>
+     * An exception thrown by the consumer won't stop the other elements from being processed. The
+     * returned future completes exceptionally with the first exception, and the others are added to
+     * it as suppressed exceptions.
+     *
+     * @param <T>        the type of elements in the collection
+     * @param collection the collection of elements to be processed
+     * @param executor   the executor to run the asynchronous tasks
+     * @param grainSize  the max count of elements that are processed by a single task
+     * @param consumer   the function to process each element in the collection
+     * @return a {@code CompletableFuture<Void>} that completes when all elements in the collection
+     * have been processed
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> CompletableFuture<Void> forEachInParallel(Collection<T> collection, Executor executor, int grainSize, Consumer<T> consumer) {
+        Preconditions.checkArgument(grainSize > 0, "grainSize must be positive");
+        var elements = (T[]) collection.toArray();
+        if (elements.length <= grainSize) {
+            try {
+                forEachInRange(elements, 0, elements.length, consumer);
+                return CompletableFuture.completedFuture(null);
+            } catch (Throwable t) {
+                return CompletableFuture.failedFuture(t);
+            }
+        }
+
+        if (executor instanceof ForkJoinPool) {
+            var task = new ForEachTask<>(elements, 0, elements.length, grainSize, consumer);
+            return CompletableFuture.runAsync(task::invoke, executor);
+        }
+
+        var futures = new CompletableFuture<?>[(elements.length + grainSize - 1) / grainSize];
+        for (int i = 0; i < futures.length; i++) {
+            var from = i * grainSize;
+            var to = Math.min(from + grainSize, elements.length);
+            futures[i] = CompletableFuture.runAsync(() -> forEachInRange(elements, from, to, consumer), executor);
+        }
         return CompletableFuture.allOf(futures);
     }
+
+    private static <T> void forEachInRange(T[] elements, int from, int to, Consumer<T> consumer) {
+        Throwable exception = null;
+        for (int i = from; i < to; i++) {
+            try {
+                consumer.accept(elements[i]);
+            } catch (Throwable t) {
+                if (exception == null) {
+                    exception = t;
+                } else {
+                    exception.addSuppressed(t);
+                }
+            }
+        }
+
+        if (exception != null) {
+            sneakyThrow(exception);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> void sneakyThrow(Throwable t) throws E {
+        throw (E) t;
+    }
+
+    private static final class ForEachTask<T> extends RecursiveAction {
+
+        private final T[] elements;
+        private final int from;
+        private final int to;
+        private final int grainSize;
+        private final Consumer<T> consumer;
+
+        ForEachTask(T[] elements, int from, int to, int grainSize, Consumer<T> consumer) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+            this.grainSize = grainSize;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grainSize) {
+                forEachInRange(elements, from, to, consumer);
+                return;
+            }
+
+            var middle = (from + to) >>> 1;
+            var right = new ForEachTask<>(elements, middle, to, grainSize, consumer);
+            right.fork();
+            // Always wait for the right half, so that the returned future won't
+            // complete before all elements are processed
+            Throwable exception = null;
+            try {
+                new ForEachTask<>(elements, from, middle, grainSize, consumer).compute();
+            } catch (Throwable t) {
+                exception = t;
+            }
+            try {
+                right.join();
+            } catch (Throwable t) {
+                if (exception == null) {
+                    exception = t;
+                } else {
+                    exception.addSuppressed(t);
+                }
+            }
+
+            if (exception != null) {
+                sneakyThrow(exception);
+            }
+        }
+    }
 }
@@ -578,6 +578,55 @@ public interface Dimension extends TaskCreator {
         }
     }
 
+    /**
+     * Set the block states at the specified region in bulk, which is much faster than calling
+     * {@link #setBlockState(int, int, int, BlockState, int, boolean, boolean, boolean, PlayerInteractInfo)}
+     * for each block. The blocks are written section by section, and compared to that method:
+     * <ul>
+     *     <li>{@code BlockPlaceEvent} won't be called, and the block behaviors are only called for the blocks
+     *     that have or will have block entities</li>
+     *     <li>If {@code update} is {@code true}, the blocks on both sides of the boundary of the region will be
+     *     updated. Inside the region, a changed block and its neighbor are only updated if they are different
+     *     block states, instead of updating the neighbors of every changed block</li>
+     *     <li>The chunk will be resent to the viewers instead of the block updates if most of a section is changed</li>
+     * </ul>
+     * Blocks in unloaded chunks won't be set.
+     *
+     * @param x                  the start x coordinate of the region
+     * @param y                  the start y coordinate of the region
+     * @param z                  the start z coordinate of the region
+     * @param sizeX              the size of the region in the x-axis
+     * @param sizeY              the size of the region in the y-axis
+     * @param sizeZ              the size of the region in the z-axis
+     * @param layer              the layer which the block will be set
+     * @param update             whether to update the blocks on the boundary of the region and the changed blocks in the region
+     * @param blockStateSupplier the block state supplier. The supplier will be called with the global x, y, z coordinates of the pos,
+     *                           and it should return the block state to set. If the supplier returns {@code null}, the block state will keep unchanged.
+     *                           The supplier is called for all the positions in a chunk before the chunk is changed, and the chunk is not locked
+     *                           at that time, so the supplier can read the blocks in this dimension. However, the supplier shouldn't change the
+     *                           blocks in the region, since the changes may be overwritten.
+     * @return the count of the changed blocks
+     */
+    int setBlockStatesInBulk(int x, int y, int z, int sizeX, int sizeY, int sizeZ, int layer, boolean update, TriFunction<Integer, Integer, Integer, BlockState> blockStateSupplier);
+
+    /**
+     * Fill the specified region with the block state in bulk.
+     *
+     * @param x          the start x coordinate of the region
+     * @param y          the start y coordinate of the region
+     * @param z          the start z coordinate of the region
+     * @param sizeX      the size of the region in the x-axis
+     * @param sizeY      the size of the region in the y-axis
+     * @param sizeZ      the size of the region in the z-axis
+     * @param blockState the block state to fill
+     * @param layer      the layer which the block will be set
+     * @return the count of the changed blocks
+     * @see #setBlockStatesInBulk(int, int, int, int, int, int, int, boolean, TriFunction)
+     */
+    default int fillBlockStates(int x, int y, int z, int sizeX, int sizeY, int sizeZ, BlockState blockState, int layer) {
+        return setBlockStatesInBulk(x, y, z, sizeX, sizeY, sizeZ, layer, true, (globalX, globalY, globalZ) -> blockState);
+    }
+
     /**
      * @see #updateBlockProperty(BlockPropertyType, Object, int, int, int, int)
      */
@@ -305,7 +305,7 @@ public class Explosion {
             // Skip the entity that caused the explosion
             affectedEntities.remove(entity);
             var impactMap = new ConcurrentHashMap<Entity, Double>();
-            Utils.forEachInParallel(affectedEntities, Server.getInstance().getComputeThreadPool(), affectedEntity -> {
+            Utils.forEachInParallel(affectedEntities, Server.getInstance().getComputeThreadPool(), 1, affectedEntity -> {
                 var pos = affectedEntity.getLocation();
                 var dist = pos.sub(x, y, z, new Vector3d()).length();
                 if (dist > d || dist == 0) {
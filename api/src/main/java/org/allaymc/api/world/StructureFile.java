@@ -36,6 +36,7 @@ public record StructureFile(
 ) {
     private static final int FORMAT_VERSION = 1;
     private static final BlockState STRUCTURE_VOID_DEFAULT_STATE = BlockTypes.STRUCTURE_VOID.getDefaultState();
+    private static final BlockState AIR_DEFAULT_STATE = BlockTypes.AIR.getDefaultState();
 
     /**
      * @see #pick(Dimension, int, int, int, int, int, int, boolean)
@@ -58,22 +59,28 @@ public record StructureFile(
      * @return the picked structure
      */
     public static StructureFile pick(Dimension dimension, int x, int y, int z, int sizeX, int sizeY, int sizeZ, boolean saveEntities) {
-        var blockStates = new BlockState[2][sizeX][sizeY][sizeZ];
+        var blockStates = new BlockState[][][][]{pickBlockStates(dimension, x, y, z, sizeX, sizeY, sizeZ, 0), pickBlockStates(dimension, x, y, z, sizeX, sizeY, sizeZ, 1)};
         var blockEntities = new HashMap<Vector3ic, NbtMap>();
         var entities = new ArrayList<NbtMap>();
 
-        for (int lx = 0; lx < sizeX; lx++) {
-            for (int ly = 0; ly < sizeY; ly++) {
-                for (int lz = 0; lz < sizeZ; lz++) {
-                    blockStates[0][lx][ly][lz] = dimension.getBlockState(x + lx, y + ly, z + lz, 0);
-                    blockStates[1][lx][ly][lz] = dimension.getBlockState(x + lx, y + ly, z + lz, 1);
-                    var blockEntity = dimension.getBlockEntity(x + lx, y + ly, z + lz);
-                    if (blockEntity != null) {
+        // Look up the block entities in each chunk instead of each block
+        for (int chunkX = x >> 4; chunkX <= (x + sizeX - 1) >> 4; chunkX++) {
+            for (int chunkZ = z >> 4; chunkZ <= (z + sizeZ - 1) >> 4; chunkZ++) {
+                var chunk = dimension.getChunkManager().getChunk(chunkX, chunkZ);
+                if (chunk == null) {
+                    continue;
+                }
+
+                for (var blockEntity : chunk.getBlockEntities().values()) {
+                    var pos = blockEntity.getPosition();
+                    if (x <= pos.x() && x + sizeX > pos.x() &&
+                        y <= pos.y() && y + sizeY > pos.y() &&
+                        z <= pos.z() && z + sizeZ > pos.z()) {
                         // Vanilla save the original position data for block entity (and entity),
                         // which is useless as when we place the structure in different position,
                         // the old position data is not useful anymore. However, we still save it
                         // to follow the vanilla behavior for best compatibility.
-                        blockEntities.put(new Vector3i(lx, ly, lz), blockEntity.saveNBT());
+                        blockEntities.put(new Vector3i(pos.x() - x, pos.y() - y, pos.z() - z), blockEntity.saveNBT());
                     }
                 }
             }
@@ -98,6 +105,25 @@ public record StructureFile(
         return new StructureFile(blockStates, blockEntities, entities, sizeX, sizeY, sizeZ, x, y, z);
     }
 
+    private static BlockState[][][] pickBlockStates(Dimension dimension, int x, int y, int z, int sizeX, int sizeY, int sizeZ, int layer) {
+        var blockStates = dimension.getBlockStates(x, y, z, sizeX, sizeY, sizeZ, layer);
+        if (blockStates == null) {
+            return new BlockState[Math.max(sizeX, 0)][Math.max(sizeY, 0)][Math.max(sizeZ, 0)];
+        }
+
+        // The blocks in unloaded chunks or out of the world are not set by getBlockStates()
+        for (var plane : blockStates) {
+            for (var column : plane) {
+                for (int i = 0; i < column.length; i++) {
+                    if (column[i] == null) {
+                        column[i] = AIR_DEFAULT_STATE;
+                    }
+                }
+            }
+        }
+        return blockStates;
+    }
+
     /**
      * Load structure data from nbt.
      *
@@ -196,17 +222,13 @@ public record StructureFile(
      * @param z         the z coordinate to place the structure
      */
     public void place(Dimension dimension, int x, int y, int z) {
-        for (int lx = 0; lx < sizeX; lx++) {
-            for (int ly = 0; ly < sizeY; ly++) {
-                for (int lz = 0; lz < sizeZ; lz++) {
-                    if (!blockStates[0][lx][ly][lz].equals(STRUCTURE_VOID_DEFAULT_STATE)) {
-                        dimension.setBlockState(x + lx, y + ly, z + lz, blockStates[0][lx][ly][lz], 0, true, false);
-                    }
-                    if (!blockStates[1][lx][ly][lz].equals(STRUCTURE_VOID_DEFAULT_STATE)) {
-                        dimension.setBlockState(x + lx, y + ly, z + lz, blockStates[1][lx][ly][lz], 1, true, false);
-                    }
-                }
-            }
+        for (int layer = 0; layer < 2; layer++) {
+            var layerBlockStates = blockStates[layer];
+            dimension.setBlockStatesInBulk(x, y, z, sizeX, sizeY, sizeZ, layer, false, (globalX, globalY, globalZ) -> {
+                var blockState = layerBlockStates[globalX - x][globalY - y][globalZ - z];
+                // Structure void keeps the block unchanged
+                return blockState.equals(STRUCTURE_VOID_DEFAULT_STATE) ? null : blockState;
+            });
         }
 
         for (var entry : blockEntities.entrySet()) {
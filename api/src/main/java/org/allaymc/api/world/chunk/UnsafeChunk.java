@@ -121,6 +121,30 @@ public interface UnsafeChunk {
      */
     int getZ();
 
+    /**
+     * Get the version of this chunk. The version is increased every time a block or biome in
+     * this chunk is changed, so it can be used to check whether the chunk has been changed
+     * since some point in time. The version is not persisted and starts from {@code 0} every
+     * time the chunk is loaded.
+     * <p>
+     * This method is thread-safe.
+     *
+     * @return the version of this chunk
+     */
+    long getVersion();
+
+    /**
+     * Get the version of a section in this chunk. The version is increased every time a block
+     * or biome in the section is changed. See {@link #getVersion()} for more details.
+     * <p>
+     * This method is thread-safe.
+     *
+     * @param sectionY the y value of the section
+     * @return the version of the section
+     * @throws IllegalArgumentException if the section y is out of range
+     */
+    long getSectionVersion(int sectionY);
+
     /**
      * Remove the block entity in this chunk.
      *
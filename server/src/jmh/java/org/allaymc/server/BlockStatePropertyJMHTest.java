@@ -0,0 +1,78 @@
+package org.allaymc.server;
+
+import org.allaymc.api.block.property.enums.WallConnectionType;
+import org.allaymc.api.block.property.type.BlockPropertyType;
+import org.allaymc.api.block.property.type.BlockPropertyTypes;
+import org.allaymc.api.block.type.BlockState;
+import org.allaymc.api.block.type.BlockTypes;
+import org.allaymc.server.block.type.AllayBlockState;
+import org.allaymc.server.block.type.AllayBlockType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares changing a property of a block state through the transition table with the
+ * old implementation, which copies the property values and looks up the new state by its
+ * special value. Property reads are also measured.
+ *
+ * @author daoge_cmd
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BlockStatePropertyJMHTest {
+    private static final WallConnectionType[] CONNECTION_TYPES = WallConnectionType.values();
+
+    private BlockState wall;
+    private int counter;
+
+    @Setup
+    public void init() {
+        Allay.initI18n();
+        Allay.initAllay();
+        wall = BlockTypes.COBBLED_DEEPSLATE_WALL.getDefaultState();
+    }
+
+    @Benchmark
+    public BlockState transitionTable() {
+        var connectionType = CONNECTION_TYPES[counter++ % CONNECTION_TYPES.length];
+        wall = wall.setPropertyValue(BlockPropertyTypes.WALL_CONNECTION_TYPE_EAST, connectionType);
+        wall = wall.setPropertyValue(BlockPropertyTypes.WALL_POST_BIT, (counter & 1) == 0);
+        return wall;
+    }
+
+    @Benchmark
+    public BlockState specialValueLookup() {
+        var connectionType = CONNECTION_TYPES[counter++ % CONNECTION_TYPES.length];
+        wall = oldSetPropertyValue(wall, BlockPropertyTypes.WALL_CONNECTION_TYPE_EAST.createValue(connectionType));
+        wall = oldSetPropertyValue(wall, BlockPropertyTypes.WALL_POST_BIT.createValue((counter & 1) == 0));
+        return wall;
+    }
+
+    @Benchmark
+    public void getPropertyValue(Blackhole blackhole) {
+        blackhole.consume(wall.getPropertyValue(BlockPropertyTypes.WALL_CONNECTION_TYPE_WEST));
+        blackhole.consume(wall.getPropertyValue(BlockPropertyTypes.WALL_POST_BIT));
+    }
+
+    @Benchmark
+    public void getPropertyValues(Blackhole blackhole) {
+        blackhole.consume(wall.getPropertyValues());
+    }
+
+    private static BlockState oldSetPropertyValue(BlockState state, BlockPropertyType.BlockPropertyValue<?, ?, ?> propertyValue) {
+        var oldValues = ((AllayBlockState) state).blockPropertyValues();
+        var newValues = new BlockPropertyType.BlockPropertyValue<?, ?, ?>[oldValues.length];
+        for (int i = 0; i < oldValues.length; i++) {
+            newValues[i] = oldValues[i].getPropertyType() == propertyValue.getPropertyType() ? propertyValue : oldValues[i];
+        }
+
+        var blockType = state.getBlockType();
+        return blockType.getSpecialValueMap().get(AllayBlockType.computeSpecialValue(blockType.getSpecialValueBits(), newValues));
+    }
+}
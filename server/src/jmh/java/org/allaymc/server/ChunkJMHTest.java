@@ -1,7 +1,10 @@
 package org.allaymc.server;
 
+import org.allaymc.api.block.type.BlockState;
+import org.allaymc.api.registry.Registries;
 import org.allaymc.api.world.chunk.Chunk;
 import org.allaymc.api.world.data.DimensionInfo;
+import org.allaymc.server.datastruct.palette.Palette;
 import org.allaymc.server.world.chunk.AllayUnsafeChunk;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
@@ -22,6 +25,10 @@ import static org.allaymc.api.block.type.BlockTypes.STONE;
 @OutputTimeUnit(TimeUnit.MILLISECONDS)
 public class ChunkJMHTest {
     private Chunk chunk;
+    // A palette with many different block states, which is common in player builds and generated caves
+    private Palette<BlockState> largePalette;
+    private BlockState[] largePaletteStates;
+    private int largePaletteCursor;
 
     @Setup
     public void init() {
@@ -35,6 +42,12 @@ public class ChunkJMHTest {
                 }
             }
         }
+
+        largePaletteStates = Registries.BLOCK_STATE_PALETTE.getContent().values().stream().limit(256).toArray(BlockState[]::new);
+        largePalette = new Palette<>(largePaletteStates[0]);
+        for (int i = 0; i < 4096; i++) {
+            largePalette.set(i, largePaletteStates[i % largePaletteStates.length]);
+        }
     }
 
     @Benchmark
@@ -58,4 +71,15 @@ public class ChunkJMHTest {
     public void test4(Blackhole blackhole) {
         blackhole.consume(chunk.getBlockState(0, 0, 0));
     }
+
+    @Benchmark
+    public void testLargePaletteSet() {
+        var index = largePaletteCursor++ & 4095;
+        largePalette.set(index, largePaletteStates[index % largePaletteStates.length]);
+    }
+
+    @Benchmark
+    public void testLargePaletteCompact() {
+        largePalette.compact();
+    }
 }
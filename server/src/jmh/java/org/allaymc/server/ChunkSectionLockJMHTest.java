@@ -0,0 +1,85 @@
+package org.allaymc.server;
+
+import org.allaymc.api.block.type.BlockState;
+import org.allaymc.api.world.chunk.Chunk;
+import org.allaymc.api.world.data.DimensionInfo;
+import org.allaymc.server.world.chunk.AllayUnsafeChunk;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.allaymc.api.block.type.BlockTypes.OAK_WOOD;
+import static org.allaymc.api.block.type.BlockTypes.STONE;
+
+/**
+ * Measures the throughput of mixed block reads and writes on the same chunk from multiple threads,
+ * which is the access pattern of physics, light and generation threads working on loaded chunks.
+ *
+ * @author daoge_cmd
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChunkSectionLockJMHTest {
+    private Chunk chunk;
+    private BlockState[] states;
+
+    @Setup
+    public void init() {
+        Allay.initI18n();
+        Allay.initAllay();
+        chunk = AllayUnsafeChunk.builder().voidChunk(0, 0, DimensionInfo.OVERWORLD).toSafeChunk();
+        for (int i = 0; i < 16; i++) {
+            for (int j = 0; j < 16; j++) {
+                for (int k = -64; k < 320; k++) {
+                    chunk.setBlockState(i, k, j, OAK_WOOD.getDefaultState());
+                }
+            }
+        }
+        states = new BlockState[]{OAK_WOOD.getDefaultState(), STONE.getDefaultState()};
+    }
+
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(4)
+    public void readOnly(Blackhole blackhole) {
+        var random = ThreadLocalRandom.current();
+        blackhole.consume(chunk.getBlockState(random.nextInt(16), random.nextInt(-64, 320), random.nextInt(16)));
+    }
+
+    @Benchmark
+    @Group("mostlyRead")
+    @GroupThreads(4)
+    public void mostlyReadRead(Blackhole blackhole) {
+        var random = ThreadLocalRandom.current();
+        blackhole.consume(chunk.getBlockState(random.nextInt(16), random.nextInt(-64, 320), random.nextInt(16)));
+    }
+
+    @Benchmark
+    @Group("mostlyRead")
+    @GroupThreads(1)
+    public void mostlyReadWrite() {
+        var random = ThreadLocalRandom.current();
+        chunk.setBlockState(random.nextInt(16), random.nextInt(-64, 320), random.nextInt(16), states[random.nextInt(2)]);
+    }
+
+    @Benchmark
+    @Group("sameSection")
+    @GroupThreads(4)
+    public void sameSectionRead(Blackhole blackhole) {
+        var random = ThreadLocalRandom.current();
+        blackhole.consume(chunk.getBlockState(random.nextInt(16), random.nextInt(16), random.nextInt(16)));
+    }
+
+    @Benchmark
+    @Group("sameSection")
+    @GroupThreads(1)
+    public void sameSectionWrite() {
+        var random = ThreadLocalRandom.current();
+        chunk.setBlockState(random.nextInt(16), random.nextInt(16), random.nextInt(16), states[random.nextInt(2)]);
+    }
+}
@@ -0,0 +1,70 @@
+package org.allaymc.server;
+
+import org.allaymc.api.utils.Utils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old one-future-per-element fan-out with the chunked fork-join implementation
+ * of {@link Utils#forEachInParallel}. The work of each element simulates the physics of an entity.
+ *
+ * @author daoge_cmd
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ForEachInParallelJMHTest {
+
+    @Param({"100", "1000", "10000"})
+    private int entityCount;
+
+    @Param({"100"})
+    private int workPerEntity;
+
+    private ForkJoinPool pool;
+    private List<Integer> entities;
+
+    @Setup
+    public void setup() {
+        // The same as the compute thread pool of the server
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        entities = new ArrayList<>(entityCount);
+        for (int i = 0; i < entityCount; i++) {
+            entities.add(i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void futurePerElement() {
+        var futures = entities.stream()
+                .map(entity -> CompletableFuture.runAsync(() -> Blackhole.consumeCPU(workPerEntity), pool))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+    }
+
+    @Benchmark
+    public void chunkedForkJoin() {
+        Utils.forEachInParallel(entities, pool, entity -> Blackhole.consumeCPU(workPerEntity)).join();
+    }
+
+    @Benchmark
+    public void serial() {
+        for (var ignored : entities) {
+            Blackhole.consumeCPU(workPerEntity);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.allaymc.server;
+
+import org.allaymc.api.component.Component;
+import org.allaymc.api.item.type.ItemTypes;
+import org.allaymc.server.component.ComponentClass;
+import org.allaymc.server.component.ComponentInjectionBaseline;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of item stack creation, which is dominated by the component injection in
+ * {@link ComponentClass}. The {@code inject*} benchmarks only measure wiring an existing item stack again,
+ * through the cached injection plan and through the per-instance reflection pass used before, so that
+ * both paths can be compared directly.
+ *
+ * @author daoge_cmd
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ItemStackCreationJMHTest {
+
+    private ComponentClass toolItemStack;
+    private Component[] toolItemStackComponents;
+
+    @Setup
+    public void init() {
+        Allay.initI18n();
+        Allay.initAllay();
+        toolItemStack = (ComponentClass) ItemTypes.DIAMOND_SWORD.createItemStack();
+        toolItemStackComponents = ComponentInjectionBaseline.getComponents(toolItemStack);
+    }
+
+    @Benchmark
+    public void createSimpleItemStack(Blackhole blackhole) {
+        blackhole.consume(ItemTypes.DIRT.createItemStack());
+    }
+
+    @Benchmark
+    public void createToolItemStack(Blackhole blackhole) {
+        blackhole.consume(ItemTypes.DIAMOND_SWORD.createItemStack());
+    }
+
+    @Benchmark
+    public void createFoodItemStack(Blackhole blackhole) {
+        blackhole.consume(ItemTypes.APPLE.createItemStack(64));
+    }
+
+    @Benchmark
+    public void injectToolItemStackWithPlan() {
+        ComponentInjectionBaseline.injectWithPlan(toolItemStack, toolItemStackComponents);
+    }
+
+    @Benchmark
+    public void injectToolItemStackReflectively() {
+        ComponentInjectionBaseline.injectReflectively(toolItemStack, toolItemStackComponents);
+    }
+}
@@ -0,0 +1,81 @@
+package org.allaymc.server;
+
+import org.allaymc.api.scheduler.TaskCreator;
+import org.allaymc.server.scheduler.AllayScheduler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the timing wheel of {@link AllayScheduler} with the old priority queue based scheduling. Each benchmark
+ * invocation is a tick of the scheduler with 100k repeating tasks, like the per-entity tasks of plugins.
+ *
+ * @author daoge_cmd
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SchedulerJMHTest {
+
+    private static final TaskCreator TASK_CREATOR = () -> true;
+
+    @Param({"100000"})
+    private int taskCount;
+
+    @Param({"1", "20", "200"})
+    private int maxPeriod;
+
+    private ExecutorService asyncTaskExecutor;
+    private AllayScheduler scheduler;
+    private PriorityBlockingQueue<QueuedTask> queue;
+    private long queueTick;
+
+    @Setup
+    public void setup() {
+        asyncTaskExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        scheduler = new AllayScheduler(asyncTaskExecutor);
+        queue = new PriorityBlockingQueue<>(11, Comparator.comparingLong(QueuedTask::nextRunTick));
+        var random = new Random(0);
+        for (int i = 0; i < taskCount; i++) {
+            var period = 1 + random.nextInt(maxPeriod);
+            scheduler.scheduleRepeating(TASK_CREATOR, () -> {
+                Blackhole.consumeCPU(1);
+                return true;
+            }, period);
+            queue.offer(new QueuedTask(period, period));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdown();
+        asyncTaskExecutor.shutdown();
+    }
+
+    @Benchmark
+    public void timingWheel() {
+        scheduler.tick();
+    }
+
+    @Benchmark
+    public void priorityQueue() {
+        queueTick++;
+        while (!queue.isEmpty() && queue.peek().nextRunTick() <= queueTick) {
+            var task = queue.poll();
+            Blackhole.consumeCPU(1);
+            queue.offer(new QueuedTask(queueTick + task.period(), task.period()));
+        }
+    }
+
+    private record QueuedTask(long nextRunTick, int period) {
+    }
+}
@@ -0,0 +1,188 @@
+package org.allaymc.server.component;
+
+import org.allaymc.api.component.Component;
+import org.allaymc.api.eventbus.EventBus;
+import org.allaymc.api.eventbus.event.Event;
+import org.allaymc.server.component.annotation.ComponentObject;
+import org.allaymc.server.component.annotation.Dependency;
+import org.allaymc.server.component.annotation.Manager;
+import org.allaymc.server.component.annotation.OnInitFinish;
+import org.allaymc.server.eventbus.AllayEventBus;
+import org.allaymc.server.utils.ComponentInjectException;
+import org.allaymc.server.utils.ReflectionUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Wires an existing {@link ComponentClass} instance and its components again, either through the cached
+ * {@link ComponentInjectionPlan} or through the per-instance reflection pass that was used before the plans
+ * were introduced, so that the benchmarks can compare both paths on the same objects.
+ * <p>
+ * The {@link OnInitFinish} methods are looked up in the reflective path but not called in either path,
+ * since calling them again would re-initialize the components.
+ *
+ * @author daoge_cmd
+ */
+public final class ComponentInjectionBaseline {
+
+    private ComponentInjectionBaseline() {
+    }
+
+    /**
+     * Get the components of an instance created by the server. Should be called before injecting
+     * the instance again, since the reflective path replaces the component manager of the instance.
+     *
+     * @param instance the instance created by the server
+     * @return the components of the instance
+     */
+    public static Component[] getComponents(ComponentClass instance) {
+        return ((ComponentClass.AllayComponentManager) instance.getManager()).components;
+    }
+
+    /**
+     * Inject the components through the cached injection plan.
+     *
+     * @param instance   the instance
+     * @param components the components of the instance
+     */
+    public static void injectWithPlan(ComponentClass instance, Component[] components) {
+        var plan = ComponentInjectionPlan.of(instance, components);
+        var manager = new ComponentClass.AllayComponentManager(plan, components);
+        instance.setManager(manager);
+        plan.inject(instance, manager, components);
+    }
+
+    /**
+     * Inject the components through the reflection pass and the event bus registration that
+     * were done for every new instance before the injection plans were cached.
+     *
+     * @param instance   the instance
+     * @param components the components of the instance
+     */
+    public static void injectReflectively(ComponentClass instance, Component[] components) {
+        var componentList = Arrays.asList(components);
+        var manager = new ReflectiveComponentManager();
+        instance.setManager(manager);
+        injectComponentInstances(instance, componentList);
+        injectComponentManagerAndSetUpEventHandlers(manager, componentList);
+        injectComponentObject(instance, componentList);
+        componentList.forEach(ComponentInjectionBaseline::findOnInitFinishMethods);
+    }
+
+    private static void findOnInitFinishMethods(Component component) {
+        Arrays.stream(component.getClass().getMethods())
+                .filter(method ->
+                        method.isAnnotationPresent(OnInitFinish.class) &&
+                        method.getReturnType() == void.class &&
+                        method.getParameterCount() == 1)
+                .forEach(method -> method.setAccessible(true));
+    }
+
+    private static void injectComponentObject(ComponentClass instance, List<? extends Component> componentList) {
+        for (var component : componentList) {
+            ReflectionUtils.getAllFields(component.getClass()).stream()
+                    .filter(field -> field.isAnnotationPresent(ComponentObject.class))
+                    .forEach(field -> {
+                        try {
+                            field.setAccessible(true);
+                            field.set(component, instance);
+                        } catch (IllegalAccessException e) {
+                            throw new ComponentInjectException("Cannot inject componented object to component: " + component.getClass().getName(), e);
+                        }
+                    });
+        }
+    }
+
+    private static void injectComponentManagerAndSetUpEventHandlers(ReflectiveComponentManager manager, List<? extends Component> componentList) {
+        for (var component : componentList) {
+            ReflectionUtils.getAllFields(component.getClass()).stream()
+                    .filter(field -> field.isAnnotationPresent(Manager.class))
+                    .forEach(field -> {
+                        try {
+                            field.setAccessible(true);
+                            field.set(component, manager);
+                        } catch (IllegalAccessException e) {
+                            throw new ComponentInjectException("Cannot inject component manager to component: " + component.getClass().getName(), e);
+                        }
+                    });
+
+            manager.eventBus.registerListener(component);
+        }
+    }
+
+    private static void injectComponentInstances(ComponentClass instance, List<? extends Component> componentList) {
+        for (var field : ReflectionUtils.getAllFields(instance.getClass())) {
+            var type = field.getType();
+            if (!Component.class.isAssignableFrom(type)) {
+                continue;
+            }
+
+            var components = componentList.stream().filter(type::isInstance).toList();
+            if (components.size() != 1) {
+                throw new ComponentInjectException("Cannot find a single component " + type.getName() + " for " + instance.getClass().getName());
+            }
+
+            try {
+                field.setAccessible(true);
+                field.set(instance, components.getFirst());
+            } catch (IllegalAccessException e) {
+                throw new ComponentInjectException("Cannot inject component " + type.getName() + " to " + instance.getClass().getName(), e);
+            }
+        }
+
+        for (var component : componentList) {
+            injectDependency(componentList, component);
+        }
+    }
+
+    private static void injectDependency(List<? extends Component> components, Component component) {
+        for (var field : ReflectionUtils.getAllFields(component.getClass())) {
+            var annotation = field.getAnnotation(Dependency.class);
+            if (annotation == null) {
+                continue;
+            }
+
+            var type = field.getType();
+            if (!Component.class.isAssignableFrom(type)) {
+                continue;
+            }
+
+            List<Component> dependencies = new ArrayList<>(components);
+            var requireCompId = annotation.identifier();
+            if (!requireCompId.isBlank()) {
+                dependencies = dependencies.stream().filter(dependency ->
+                        Objects.requireNonNull(ComponentProvider.findComponentIdentifier(dependency.getClass())).toString().equals(requireCompId)
+                ).toList();
+            } else {
+                dependencies = dependencies.stream().filter(type::isInstance).toList();
+            }
+
+            if (dependencies.size() != 1) {
+                if (dependencies.isEmpty() && annotation.optional()) {
+                    continue;
+                }
+                throw new ComponentInjectException("Cannot find a single dependency " + type.getName() + " for " + component.getClass().getName());
+            }
+
+            try {
+                field.setAccessible(true);
+                field.set(component, dependencies.getFirst());
+            } catch (IllegalAccessException e) {
+                throw new ComponentInjectException("Cannot inject dependency " + type.getName() + " to " + component.getClass().getName(), e);
+            }
+        }
+    }
+
+    private static final class ReflectiveComponentManager implements ComponentManager {
+
+        private final EventBus eventBus = new AllayEventBus();
+
+        @Override
+        public <E extends Event> E callEvent(E event) {
+            return eventBus.callEvent(event);
+        }
+    }
+}
@@ -41,6 +41,7 @@ import org.allaymc.server.message.AllayI18nLoader;
 import org.allaymc.server.network.ProtocolInfo;
 import org.allaymc.server.pdc.AllayPersistentDataTypeRegistry;
 import org.allaymc.server.registry.AllayCommandRegistry;
+import org.allaymc.server.registry.AllayRecipeRegistry;
 import org.allaymc.server.registry.InternalRegistries;
 import org.allaymc.server.registry.loader.*;
 import org.allaymc.server.registry.populator.*;
@@ -241,7 +242,7 @@ public final class Allay {
         Registries.CREATIVE_ITEMS = new AllayCreativeItemRegistry();
 
         // Recipe
-        Registries.RECIPES = SimpleMappedRegistry.create(new RecipeRegistryLoader());
+        Registries.RECIPES = new AllayRecipeRegistry();
 
         // Trim Data
         InternalRegistries.TRIM_PATTERNS = SimpleMappedRegistry.create(new TrimPatternRegistryLoader());
@@ -25,8 +25,10 @@ import org.allaymc.api.utils.TextFormat;
 import org.allaymc.server.eventbus.AllayEventBus;
 import org.allaymc.server.network.AllayNetworkInterface;
 import org.allaymc.server.player.AllayEmptyPlayerStorage;
+import org.allaymc.server.player.AllayLevelDBPlayerStorage;
 import org.allaymc.server.player.AllayNBTFilePlayerStorage;
 import org.allaymc.server.player.AllayPlayerManager;
+import org.allaymc.server.player.AllayPlayerStorage;
 import org.allaymc.server.plugin.AllayPluginManager;
 import org.allaymc.server.scheduler.AllayScheduler;
 import org.allaymc.server.scroreboard.JsonScoreboardStorage;
@@ -89,7 +91,7 @@ public final class AllayServer implements Server {
 
     private AllayServer() {
         this.state = new AtomicReference<>(ServerState.STARTING);
-        this.playerManager = new AllayPlayerManager(SETTINGS.storageSettings().savePlayerData() ? new AllayNBTFilePlayerStorage(Path.of("players")) : AllayEmptyPlayerStorage.INSTANCE, new AllayNetworkInterface(this));
+        this.playerManager = new AllayPlayerManager(createPlayerStorage(), new AllayNetworkInterface(this));
         this.worldPool = new AllayWorldPool();
         this.computeThreadPool = createComputeThreadPool();
         this.virtualThreadPool = Executors.newVirtualThreadPerTaskExecutor();
@@ -146,6 +148,18 @@ public final class AllayServer implements Server {
         }
     }
 
+    private static AllayPlayerStorage createPlayerStorage() {
+        var settings = SETTINGS.storageSettings();
+        if (!settings.savePlayerData()) {
+            return AllayEmptyPlayerStorage.INSTANCE;
+        }
+
+        return switch (settings.playerDataStorageType()) {
+            case NBT_FILE -> new AllayNBTFilePlayerStorage(Path.of("players"));
+            case LEVELDB -> new AllayLevelDBPlayerStorage(Path.of("players_db"));
+        };
+    }
+
     private ExecutorService createComputeThreadPool() {
         return new ForkJoinPool(
                 SETTINGS.genericSettings().maxComputeThreadCount() <= 0 ?
@@ -186,6 +186,12 @@ public class ServerSettings extends OkaeriConfig {
         @CustomKey("use-sub-chunk-sending-system")
         private boolean useSubChunkSendingSystem = false;
 
+        @Comment("The memory budget (unit: MB) of the encoded chunk packet cache in each dimension")
+        @Comment("Chunks are encoded once per change and shared by all viewers instead of being encoded for each viewer")
+        @Comment("Set this to 0 to disable the cache")
+        @CustomKey("chunk-packet-cache-size")
+        private int chunkPacketCacheSize = 64;
+
         @Comment("Possible values: ASYNC, SYNC")
         @CustomKey("chunk-sending-strategy")
         private ChunkSendingStrategy chunkSendingStrategy = ChunkSendingStrategy.ASYNC;
@@ -222,6 +228,11 @@ public class ServerSettings extends OkaeriConfig {
         @CustomKey("max-light-update-count")
         private int maxLightUpdateCountPerDimension = 1280000;
 
+        @Comment("Determines how often (gt) the lit time of furnaces is sent to the players who are viewing them")
+        @Comment("The client interpolates the flame between the updates, so a larger value saves packets without visible difference")
+        @CustomKey("furnace-lit-time-update-interval")
+        private int furnaceLitTimeUpdateInterval = 10;
+
         public enum ChunkSendingStrategy {
             ASYNC,
             SYNC
@@ -232,6 +243,17 @@ public class ServerSettings extends OkaeriConfig {
     @Accessors(fluent = true)
     public static class EntitySettings extends OkaeriConfig {
 
+        @Comment("If set to true, the entities in a dimension will be ticked in parallel by regions")
+        @Comment("Regions are ticked in a checkerboard pattern, so adjacent regions are never ticked at the same time")
+        @Comment("Players are still ticked in the world thread. Plugins that tick entities must be thread-safe")
+        @CustomKey("tick-entities-in-parallel")
+        private boolean tickEntitiesInParallel = false;
+
+        @Comment("The side length of a region in chunks when ticking entities in parallel")
+        @Comment("Entities should not interact with the entities that are farther than a region")
+        @CustomKey("parallel-tick-region-size")
+        private int parallelTickRegionSize = 4;
+
         @Comment("Entity physics engine settings")
         @Comment("Do not change them if you don't know what you are doing!")
         @CustomKey("physics-engine-settings")
@@ -261,6 +283,11 @@ public class ServerSettings extends OkaeriConfig {
             @Comment("Delta move packet will reduce the network pressure if there are a lot of entities")
             @CustomKey("use-delta-move-packet")
             private boolean useDeltaMovePacket = false;
+
+            @Comment("The max count of entities that are computed by a single task when computing physics in parallel")
+            @Comment("The physics of the dimensions that contain fewer entities are computed in the world thread directly")
+            @CustomKey("parallel-grain-size")
+            private int parallelGrainSize = 64;
         }
     }
 
@@ -275,14 +302,39 @@ public class ServerSettings extends OkaeriConfig {
         @Comment("Determines the cycle of player data auto saving")
         private int playerDataAutoSaveCycle = 20 * 60 * 5;
 
+        @CustomKey("player-data-storage-type")
+        @Comment("Determines how the player data is stored. Possible values: NBT_FILE, LEVELDB")
+        @Comment("NBT_FILE - the data of each player is stored in a nbt file in the players folder")
+        @Comment("LEVELDB - the data of all players is stored in a single database in the players_db folder")
+        private PlayerDataStorageType playerDataStorageType = PlayerDataStorageType.NBT_FILE;
+
+        @CustomKey("player-data-write-interval")
+        @Comment("Determines the interval (in ticks) between the writes of the player data. The player data")
+        @Comment("saved within an interval is written in a single batch, and only the latest data of each player is written")
+        private int playerDataWriteInterval = 20;
+
         @CustomKey("chunk-auto-save-cycle")
         @Comment("Determines the cycle of chunk auto saving")
         private int chunkAutoSaveCycle = 20 * 60 * 5;
 
+        @CustomKey("chunk-save-spread-ticks")
+        @Comment("Determines how many ticks the chunk auto saves are spread across. The chunks that need")
+        @Comment("to be saved are queued, and a part of the queue is written in a single batch every tick")
+        private int chunkSaveSpreadTicks = 20;
+
+        @CustomKey("max-chunks-per-save-batch")
+        @Comment("Determines the max count of chunks that are written in a single batch")
+        private int maxChunksPerSaveBatch = 64;
+
         @CustomKey("entity-auto-save-cycle")
         @Comment("Determines the cycle of entity auto saving. When entity auto saving is triggered, the")
         @Comment("entity manager will find all savable entities in unloaded chunks and save them")
         private int entityAutoSaveCycle = 20 * 60;
+
+        public enum PlayerDataStorageType {
+            NBT_FILE,
+            LEVELDB
+        }
     }
 
     @Getter
@@ -1,5 +1,6 @@
 package org.allaymc.server.block.type;
 
+import com.google.common.collect.ImmutableMap;
 import org.allaymc.api.block.property.type.BlockPropertyType;
 import org.allaymc.api.block.type.BlockState;
 import org.allaymc.api.block.type.BlockType;
@@ -12,6 +13,9 @@ import org.jetbrains.annotations.UnmodifiableView;
 import java.util.*;
 
 /**
+ * @param stateIndex       the index of this state among all states of the block type, which is computed from the
+ *                         indices of the property values and is used to look up the transition table of the block type
+ * @param propertyValueMap the unmodifiable map of the property values, which is built once when the state is created
  * @author daoge_cmd
  */
 public record AllayBlockState(
@@ -19,13 +23,17 @@ public record AllayBlockState(
         BlockPropertyType.BlockPropertyValue<?, ?, ?>[] blockPropertyValues,
         NbtMap blockStateTag,
         int blockStateHash,
-        long specialValue
+        long specialValue,
+        int stateIndex,
+        Map<BlockPropertyType<?>, BlockPropertyType.BlockPropertyValue<?, ?, ?>> propertyValueMap
 ) implements BlockState {
     public AllayBlockState(BlockType<?> blockType, BlockPropertyType.BlockPropertyValue<?, ?, ?>[] propertyValues) {
         this(
                 blockType, propertyValues, buildBlockStateTag(blockType, propertyValues),
                 HashUtils.computeBlockStateHash(blockType.getIdentifier(), Arrays.stream(propertyValues).toList()),
-                AllayBlockType.computeSpecialValue(propertyValues)
+                AllayBlockType.computeSpecialValue(propertyValues),
+                computeStateIndex(propertyValues),
+                buildPropertyValueMap(propertyValues)
         );
     }
 
@@ -42,6 +50,22 @@ public record AllayBlockState(
                 .build();
     }
 
+    private static int computeStateIndex(BlockPropertyType.BlockPropertyValue<?, ?, ?>[] propertyValues) {
+        var stateIndex = 0;
+        for (var value : propertyValues) {
+            stateIndex = stateIndex * value.getPropertyType().getValidValues().size() + value.getIndex();
+        }
+        return stateIndex;
+    }
+
+    private static Map<BlockPropertyType<?>, BlockPropertyType.BlockPropertyValue<?, ?, ?>> buildPropertyValueMap(BlockPropertyType.BlockPropertyValue<?, ?, ?>[] propertyValues) {
+        var builder = ImmutableMap.<BlockPropertyType<?>, BlockPropertyType.BlockPropertyValue<?, ?, ?>>builderWithExpectedSize(propertyValues.length);
+        for (var value : propertyValues) {
+            builder.put(value.getPropertyType(), value);
+        }
+        return builder.build();
+    }
+
     @Override
     public NbtMap getBlockStateNBT() {
         return blockStateTag;
@@ -59,44 +83,28 @@ public record AllayBlockState(
 
     @Override
     public @UnmodifiableView Map<BlockPropertyType<?>, BlockPropertyType.BlockPropertyValue<?, ?, ?>> getPropertyValues() {
-        var hashMap = new LinkedHashMap<BlockPropertyType<?>, BlockPropertyType.BlockPropertyValue<?, ?, ?>>();
-        for (var blockPropertyValue : blockPropertyValues) {
-            hashMap.put(blockPropertyValue.getPropertyType(), blockPropertyValue);
-        }
-
-        return Collections.unmodifiableMap(hashMap);
+        return propertyValueMap;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <DATATYPE, PROPERTY extends BlockPropertyType<DATATYPE>> DATATYPE getPropertyValue(PROPERTY p) {
-        for (var property : blockPropertyValues) {
-            if (property.getPropertyType() == p) {
-                return (DATATYPE) property.getValue();
-            }
+        var index = indexOfProperty(p);
+        if (index == -1) {
+            throw new IllegalArgumentException("Property " + p + " is not supported by this block");
         }
 
-        throw new IllegalArgumentException("Property " + p + " is not supported by this block");
+        return (DATATYPE) blockPropertyValues[index].getValue();
     }
 
     @Override
     public BlockState setPropertyValue(BlockPropertyType.BlockPropertyValue<?, ?, ?> propertyValue) {
-        var newPropertyValues = new BlockPropertyType.BlockPropertyValue<?, ?, ?>[this.blockPropertyValues.length];
-        var succeed = false;
-        for (int i = 0; i < blockPropertyValues.length; i++) {
-            if (blockPropertyValues[i].getPropertyType() == propertyValue.getPropertyType()) {
-                succeed = true;
-                newPropertyValues[i] = propertyValue;
-            } else {
-                newPropertyValues[i] = blockPropertyValues[i];
-            }
-        }
-
-        if (!succeed) {
+        var index = indexOfProperty(propertyValue.getPropertyType());
+        if (index == -1) {
             throw new IllegalArgumentException("Property " + propertyValue.getPropertyType() + " is not supported by block " + blockType.getIdentifier());
         }
 
-        return getNewBlockState(newPropertyValues);
+        return getTransition(index, propertyValue);
     }
 
     @Override
@@ -106,45 +114,44 @@ public record AllayBlockState(
 
     @Override
     public BlockState setPropertyValues(List<BlockPropertyType.BlockPropertyValue<?, ?, ?>> propertyValues) {
-        var newPropertyValues = new BlockPropertyType.BlockPropertyValue<?, ?, ?>[this.blockPropertyValues.length];
-        var succeedCount = 0;
-        var succeed = new boolean[propertyValues.size()];
-        for (int i = 0; i < blockPropertyValues.length; i++) {
-            int index;
-            if ((index = propertyValues.indexOf(blockPropertyValues[i])) != -1) {
-                succeedCount++;
-                succeed[index] = true;
-                newPropertyValues[i] = propertyValues.get(index);
-            } else newPropertyValues[i] = blockPropertyValues[i];
-        }
-
-        if (succeedCount != propertyValues.size()) {
-            var errorMsgBuilder = new StringBuilder("Properties ");
-            for (int i = 0; i < propertyValues.size(); i++) {
-                if (!succeed[i]) {
-                    errorMsgBuilder.append(propertyValues.get(i).getPropertyType().getName());
-                    if (i != propertyValues.size() - 1)
-                        errorMsgBuilder.append(", ");
+        var state = this;
+        StringJoiner unsupported = null;
+        for (var propertyValue : propertyValues) {
+            // The order of the properties is the same for all states of a block type
+            var index = indexOfProperty(propertyValue.getPropertyType());
+            if (index == -1) {
+                if (unsupported == null) {
+                    unsupported = new StringJoiner(", ", "Properties ", " are not supported by this block");
                 }
+                unsupported.add(propertyValue.getPropertyType().getName());
+                continue;
             }
 
-            errorMsgBuilder.append(" are not supported by this block");
-            throw new IllegalArgumentException(errorMsgBuilder.toString());
+            state = (AllayBlockState) state.getTransition(index, propertyValue);
+        }
+
+        if (unsupported != null) {
+            throw new IllegalArgumentException(unsupported.toString());
         }
 
-        return getNewBlockState(newPropertyValues);
+        return state;
     }
 
-    private BlockState getNewBlockState(BlockPropertyType.BlockPropertyValue<?, ?, ?>[] values) {
-        var bits = blockType.getSpecialValueBits();
-        if (bits <= 64) {
-            var specialValueMap = blockType.getSpecialValueMap();
-            Objects.requireNonNull(specialValueMap);
-            return specialValueMap.get(AllayBlockType.computeSpecialValue(bits, values));
-        } else {
-            // If the special value is greater than 64 bits, fallback to compute the block state hash
-            return blockType.getBlockStateHashMap().get(HashUtils.computeBlockStateHash(this.blockType.getIdentifier(), values));
+    private int indexOfProperty(BlockPropertyType<?> propertyType) {
+        for (int i = 0; i < blockPropertyValues.length; i++) {
+            if (blockPropertyValues[i].getPropertyType() == propertyType) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private BlockState getTransition(int propertyIndex, BlockPropertyType.BlockPropertyValue<?, ?, ?> propertyValue) {
+        if (blockPropertyValues[propertyIndex] == propertyValue) {
+            return this;
         }
+
+        return ((AllayBlockType<?>) blockType).getTransition(stateIndex, propertyIndex, propertyValue.getIndex());
     }
 
     @Override
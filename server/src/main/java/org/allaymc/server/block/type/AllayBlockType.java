@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableList;
 import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.allaymc.api.block.BlockBehavior;
@@ -49,6 +50,12 @@ public final class AllayBlockType<T extends BlockBehavior> implements BlockType<
     private final Map<Integer, BlockState> blockStateHashMap;
     private final byte specialValueBits;
     private final Map<Long, BlockState> specialValueMap;
+    /**
+     * The state that a state turns into when one of its properties is changed, indexed by
+     * [stateIndex][propertyIndex][valueIndex]. See {@link AllayBlockState#stateIndex()}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final BlockState[][][] transitionTable;
 
     private BlockState defaultState;
     private T blockBehavior;
@@ -65,6 +72,7 @@ public final class AllayBlockType<T extends BlockBehavior> implements BlockType<
         this.blockTags = blockTags;
         this.blockItemType = blockItemType;
         this.blockStateHashMap = initStates(defaultStateSupplier);
+        this.transitionTable = buildTransitionTable(this.properties.values().stream().toList(), blockStateHashMap.values());
 
         byte specialValueBits = 0;
         for (var value : properties.values()) specialValueBits += value.getBitSize();
@@ -101,6 +109,53 @@ public final class AllayBlockType<T extends BlockBehavior> implements BlockType<
         return specialValue;
     }
 
+    private static BlockState[][][] buildTransitionTable(List<BlockPropertyType<?>> propertyTypes, Collection<BlockState> states) {
+        var size = propertyTypes.size();
+        // The stride of the state index for each property, the last property has a stride of 1
+        var strides = new int[size];
+        var stride = 1;
+        for (int i = size - 1; i >= 0; i--) {
+            strides[i] = stride;
+            stride *= propertyTypes.get(i).getValidValues().size();
+        }
+
+        var statesByIndex = new BlockState[stride];
+        for (var state : states) {
+            statesByIndex[((AllayBlockState) state).stateIndex()] = state;
+        }
+
+        var table = new BlockState[stride][][];
+        for (var state : states) {
+            var allayState = (AllayBlockState) state;
+            var stateIndex = allayState.stateIndex();
+            var values = allayState.blockPropertyValues();
+            var transitions = new BlockState[size][];
+            for (int i = 0; i < size; i++) {
+                var valueCount = propertyTypes.get(i).getValidValues().size();
+                var baseIndex = stateIndex - values[i].getIndex() * strides[i];
+                transitions[i] = new BlockState[valueCount];
+                for (int j = 0; j < valueCount; j++) {
+                    transitions[i][j] = statesByIndex[baseIndex + j * strides[i]];
+                }
+            }
+            table[stateIndex] = transitions;
+        }
+
+        return table;
+    }
+
+    /**
+     * Get the state that the given state turns into when one of its properties is changed.
+     *
+     * @param stateIndex    the index of the state
+     * @param propertyIndex the index of the property in the state's property values
+     * @param valueIndex    the index of the new value, see {@link BlockPropertyType.BlockPropertyValue#getIndex()}
+     * @return the target state
+     */
+    BlockState getTransition(int stateIndex, int propertyIndex, int valueIndex) {
+        return transitionTable[stateIndex][propertyIndex][valueIndex];
+    }
+
     public static <T extends BlockBehavior> Builder builder(Class<T> clazz) {
         return new Builder(clazz);
     }
@@ -19,6 +19,8 @@ import org.allaymc.server.component.annotation.ComponentObject;
 import org.allaymc.server.component.annotation.Manager;
 import org.allaymc.server.component.annotation.OnInitFinish;
 import org.allaymc.server.pdc.AllayPersistentDataContainer;
+import org.allaymc.server.world.AllayDimension;
+import org.allaymc.server.world.chunk.AllayUnsafeChunk;
 import org.cloudburstmc.nbt.NbtMap;
 
 import java.util.Objects;
@@ -39,6 +41,18 @@ public class BlockEntityBaseComponentImpl implements BlockEntityBaseComponent {
     protected static final String TAG_CUSTOM_NAME = "CustomName";
     protected static final String TAG_PDC = "PDC";
 
+    // Whether the class overrides tick(long), computed once per class
+    private static final ClassValue<Boolean> TICK_OVERRIDDEN = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("tick", long.class).getDeclaringClass() != BlockEntityBaseComponentImpl.class;
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
     @Manager
     protected ComponentManager manager;
     @ComponentObject
@@ -49,7 +63,6 @@ public class BlockEntityBaseComponentImpl implements BlockEntityBaseComponent {
     @Getter
     protected Position3ic position;
     @Getter
-    @Setter
     protected String customName;
     @Getter
     @Setter
@@ -69,6 +82,57 @@ public class BlockEntityBaseComponentImpl implements BlockEntityBaseComponent {
     public void tick(long currentTick) {
     }
 
+    /**
+     * Checks whether the block entity needs to be ticked. Block entities that are not tickable are never
+     * added to the awake block entities of the chunk, so they cost nothing when the chunk is ticked.
+     * <p>
+     * By default, a block entity is tickable if its base component overrides {@link #tick(long)}. Override
+     * this method to return {@code false} if the block entity doesn't need to be ticked anyway.
+     *
+     * @return {@code true} if {@link #tick(long)} should be called
+     */
+    public boolean isTickable() {
+        return TICK_OVERRIDDEN.get(getClass());
+    }
+
+    /**
+     * Stop ticking the block entity until it is woken up by {@link #wakeUp()}. A sleeping block entity is woken
+     * up when its block state or container changes, the container of a neighbor block entity changes, or a
+     * neighbor update happens at its position.
+     */
+    public void sleep() {
+        var chunk = position.dimension().getChunkManager().getChunkByDimensionPos(position.x(), position.z());
+        if (chunk != null) {
+            ((AllayUnsafeChunk) chunk.toUnsafeChunk()).sleepBlockEntity(position.x() & 15, position.y(), position.z() & 15);
+        }
+    }
+
+    /**
+     * Wake up the block entity if it is sleeping.
+     */
+    public void wakeUp() {
+        ((AllayDimension) position.dimension()).wakeUpBlockEntity(position.x(), position.y(), position.z());
+    }
+
+    @Override
+    public void setDirty() {
+        var dimension = position.dimension();
+        if (dimension == null) {
+            return;
+        }
+
+        var chunk = dimension.getChunkManager().getChunkByDimensionPos(position.x(), position.z());
+        if (chunk != null) {
+            ((AllayUnsafeChunk) chunk.toUnsafeChunk()).markBlockEntitiesChanged();
+        }
+    }
+
+    @Override
+    public void setCustomName(String customName) {
+        this.customName = customName;
+        setDirty();
+    }
+
     @Override
     public NbtMap saveNBT() {
         var builder = NbtMap.builder();
@@ -137,6 +201,8 @@ public class BlockEntityBaseComponentImpl implements BlockEntityBaseComponent {
      *                    entity will be sent in the next tick of the chunk that the block entity is currently in.
      */
     public void sendBlockEntityToViewers(boolean immediately) {
+        // The data sent to the viewers is saved as well
+        setDirty();
         var pos = getPosition();
         var chunk = pos.dimension().getChunkManager().getChunkByDimensionPos(pos.x(), pos.z());
         Objects.requireNonNull(chunk, "The chunk located at pos " + pos + " is not loaded!");
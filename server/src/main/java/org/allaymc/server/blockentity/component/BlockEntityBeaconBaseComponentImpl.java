@@ -1,7 +1,6 @@
 package org.allaymc.server.blockentity.component;
 
 import lombok.Getter;
-import lombok.Setter;
 import org.allaymc.api.block.data.BlockTags;
 import org.allaymc.api.blockentity.BlockEntityInitInfo;
 import org.allaymc.api.blockentity.component.BlockEntityBeaconBaseComponent;
@@ -23,9 +22,7 @@ public class BlockEntityBeaconBaseComponentImpl extends BlockEntityBaseComponent
     protected static final String TAG_SECONDARY = "Secondary";
 
     protected int level;
-    @Setter
     protected EffectType primaryEffect;
-    @Setter
     protected EffectType secondaryEffect;
 
     public BlockEntityBeaconBaseComponentImpl(BlockEntityInitInfo initInfo) {
@@ -50,6 +47,18 @@ public class BlockEntityBeaconBaseComponentImpl extends BlockEntityBaseComponent
         nbt.listenForInt(TAG_SECONDARY, value -> secondaryEffect = Registries.EFFECTS.getByK1(value));
     }
 
+    @Override
+    public void setPrimaryEffect(EffectType primaryEffect) {
+        this.primaryEffect = primaryEffect;
+        setDirty();
+    }
+
+    @Override
+    public void setSecondaryEffect(EffectType secondaryEffect) {
+        this.secondaryEffect = secondaryEffect;
+        setDirty();
+    }
+
     @Override
     public void tick(long currentTick) {
         super.tick(currentTick);
@@ -21,6 +21,7 @@ import org.allaymc.server.component.annotation.ComponentObject;
 import org.allaymc.server.component.annotation.Dependency;
 import org.allaymc.server.component.annotation.OnInitFinish;
 import org.allaymc.server.container.impl.BrewingStandContainerImpl;
+import org.allaymc.server.registry.AllayRecipeRegistry;
 import org.cloudburstmc.nbt.NbtMap;
 import org.cloudburstmc.protocol.bedrock.packet.ContainerSetDataPacket;
 
@@ -77,9 +78,15 @@ public class BlockEntityBrewingStandBaseComponentImpl extends BlockEntityBaseCom
     @Override
     public void tick(long currentTick) {
         BrewingStandContainerImpl container = containerHolderComponent.getContainer();
+        var lastBrewTime = brewTime;
+        var lastFuelAmount = fuelAmount;
+        var lastFuelTotal = fuelTotal;
         tickBrewingStand(container);
-        container.sendContainerData(ContainerSetDataPacket.BREWING_STAND_FUEL_AMOUNT, fuelAmount);
-        container.sendContainerData(ContainerSetDataPacket.BREWING_STAND_FUEL_TOTAL, fuelTotal);
+        if (brewTime != lastBrewTime || fuelAmount != lastFuelAmount || fuelTotal != lastFuelTotal) {
+            setDirty();
+        }
+        container.updateContainerData(ContainerSetDataPacket.BREWING_STAND_FUEL_AMOUNT, fuelAmount);
+        container.updateContainerData(ContainerSetDataPacket.BREWING_STAND_FUEL_TOTAL, fuelTotal);
     }
 
     protected void tickBrewingStand(BrewingStandContainerImpl container) {
@@ -94,7 +101,7 @@ public class BlockEntityBrewingStandBaseComponentImpl extends BlockEntityBaseCom
 
         if (a == null && b == null && c == null) {
             brewTime = MAX_BREW_TIME;
-            container.sendContainerData(ContainerSetDataPacket.BREWING_STAND_BREW_TIME, 0); // We should reset brew animation
+            container.updateContainerData(ContainerSetDataPacket.BREWING_STAND_BREW_TIME, 0); // We should reset brew animation
             return;
         }
 
@@ -109,7 +116,7 @@ public class BlockEntityBrewingStandBaseComponentImpl extends BlockEntityBaseCom
 
         if (brewTime > 0) {
             if (brewTime % 40 == 0) {
-                container.sendContainerData(ContainerSetDataPacket.BREWING_STAND_BREW_TIME, brewTime);
+                container.updateContainerData(ContainerSetDataPacket.BREWING_STAND_BREW_TIME, brewTime);
             }
 
             brewTime--;
@@ -176,7 +183,7 @@ public class BlockEntityBrewingStandBaseComponentImpl extends BlockEntityBaseCom
     }
 
     protected PotionRecipe findRecipe(ItemStack ingredient, ItemStack reagent) {
-        return (PotionRecipe) Registries.RECIPES.get(PotionRecipe.buildIdentifier(ingredient, reagent));
+        return ((AllayRecipeRegistry) Registries.RECIPES).getPotionRecipe(ingredient, reagent);
     }
 
     @Override
@@ -1,6 +1,6 @@
 package org.allaymc.server.blockentity.component;
 
-import lombok.Setter;
+import org.allaymc.api.block.data.BlockFace;
 import org.allaymc.api.blockentity.component.BlockEntityBaseComponent;
 import org.allaymc.api.blockentity.component.BlockEntityContainerHolderComponent;
 import org.allaymc.api.container.Container;
@@ -14,6 +14,8 @@ import org.allaymc.server.block.component.event.CBlockOnReplaceEvent;
 import org.allaymc.server.blockentity.component.event.CBlockEntityLoadNBTEvent;
 import org.allaymc.server.blockentity.component.event.CBlockEntitySaveNBTEvent;
 import org.allaymc.server.component.annotation.Dependency;
+import org.allaymc.server.container.impl.BaseContainer;
+import org.allaymc.server.world.AllayDimension;
 import org.cloudburstmc.nbt.NbtType;
 import org.joml.Vector3d;
 
@@ -30,11 +32,39 @@ public class BlockEntityContainerHolderComponentImpl implements BlockEntityConta
     @Dependency
     protected BlockEntityBaseComponent baseComponent;
 
-    @Setter
     protected Container container;
 
     public BlockEntityContainerHolderComponentImpl(Supplier<Container> containerSupplier) {
-        this.container = containerSupplier.get();
+        setContainer(containerSupplier.get());
+    }
+
+    @Override
+    public void setContainer(Container container) {
+        if (this.container instanceof BaseContainer baseContainer) {
+            baseContainer.setChangeListener(null);
+        }
+        this.container = container;
+        if (container instanceof BaseContainer baseContainer) {
+            baseContainer.setChangeListener(this::onContainerChange);
+        }
+    }
+
+    /**
+     * Called when any slot of the container is changed. Marks this block entity as dirty and wakes up it
+     * and the neighbor block entities, since hoppers may be waiting for the change to move items.
+     */
+    protected void onContainerChange() {
+        baseComponent.setDirty();
+        var position = baseComponent.getPosition();
+        if (!(position.dimension() instanceof AllayDimension dimension)) {
+            return;
+        }
+
+        dimension.wakeUpBlockEntity(position.x(), position.y(), position.z());
+        for (var face : BlockFace.values()) {
+            var offset = face.getOffset();
+            dimension.wakeUpBlockEntity(position.x() + offset.x(), position.y() + offset.y(), position.z() + offset.z());
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -26,6 +26,10 @@ import org.joml.primitives.AABBd;
 import org.joml.primitives.AABBdc;
 
 /**
+ * The hopper goes to sleep when it is disabled or nothing can be transferred, and is woken up when its
+ * container or the container of a neighbor block entity changes, its block state changes, a neighbor
+ * update happens at its position, or an item entity moves into its pickup area.
+ *
  * @author ClexaGod | daoge_cmd
  */
 public class BlockEntityHopperBaseComponentImpl extends BlockEntityBaseComponentImpl implements BlockEntityHopperBaseComponent {
@@ -63,6 +67,8 @@ public class BlockEntityHopperBaseComponentImpl extends BlockEntityBaseComponent
     public void tick(long currentTick) {
         super.tick(currentTick);
         if (isDisabled()) {
+            // Woken up when the hopper is enabled again
+            sleep();
             return;
         }
 
@@ -73,6 +79,9 @@ public class BlockEntityHopperBaseComponentImpl extends BlockEntityBaseComponent
 
         if (tryTransfer()) {
             transferCooldown = TRANSFER_COOLDOWN;
+        } else {
+            // Nothing can be moved until the containers around change or an item entity enters the pickup area
+            sleep();
         }
     }
 
@@ -1,7 +1,6 @@
 package org.allaymc.server.blockentity.component;
 
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.allaymc.api.blockentity.BlockEntityInitInfo;
 import org.allaymc.api.blockentity.component.BlockEntityJukeboxBaseComponent;
@@ -24,13 +23,18 @@ public class BlockEntityJukeboxBaseComponentImpl extends BlockEntityBaseComponen
     protected static final String TAG_RECORD_ITEM = "RecordItem";
 
     @Getter
-    @Setter
     private ItemMusicDiscStack musicDiscItem;
 
     public BlockEntityJukeboxBaseComponentImpl(BlockEntityInitInfo initInfo) {
         super(initInfo);
     }
 
+    @Override
+    public void setMusicDiscItem(ItemMusicDiscStack musicDiscItem) {
+        this.musicDiscItem = musicDiscItem;
+        setDirty();
+    }
+
     @Override
     public void play() {
         this.getDimension().addSound(this.getPosition(), new MusicDiscPlaySound(this.musicDiscItem.getDiscType()));
@@ -1,7 +1,6 @@
 package org.allaymc.server.blockentity.component;
 
 import lombok.Getter;
-import lombok.Setter;
 import org.allaymc.api.block.data.BlockFace;
 import org.allaymc.api.block.data.BlockTags;
 import org.allaymc.api.block.data.Instrument;
@@ -23,7 +22,6 @@ public class BlockEntityNoteblockBaseComponentImpl extends BlockEntityBaseCompon
     protected static final String TAG_NOTE = "note";
 
     @Getter
-    @Setter
     protected int pitch;
 
     public BlockEntityNoteblockBaseComponentImpl(BlockEntityInitInfo initInfo) {
@@ -111,8 +109,14 @@ public class BlockEntityNoteblockBaseComponentImpl extends BlockEntityBaseCompon
         return Instrument.PIANO;
     }
 
+    @Override
+    public void setPitch(int pitch) {
+        this.pitch = pitch;
+        setDirty();
+    }
+
     protected int getNextPitch() {
-        this.pitch = (this.pitch + 1) % 25;
+        setPitch((this.pitch + 1) % 25);
         return this.pitch;
     }
 
@@ -19,12 +19,14 @@ import org.allaymc.api.item.recipe.FurnaceRecipe;
 import org.allaymc.api.item.recipe.input.FurnaceRecipeInput;
 import org.allaymc.api.item.type.ItemTypes;
 import org.allaymc.api.registry.Registries;
+import org.allaymc.server.AllayServer;
 import org.allaymc.server.block.component.event.CBlockOnReplaceEvent;
 import org.allaymc.server.blockentity.component.BlockEntityBaseComponentImpl;
 import org.allaymc.server.component.annotation.ComponentObject;
 import org.allaymc.server.component.annotation.Dependency;
 import org.allaymc.server.component.annotation.OnInitFinish;
 import org.allaymc.server.container.impl.FurnaceContainerImpl;
+import org.allaymc.server.registry.AllayRecipeRegistry;
 import org.cloudburstmc.nbt.NbtMap;
 import org.cloudburstmc.protocol.bedrock.packet.ContainerSetDataPacket;
 import org.joml.Vector3d;
@@ -148,10 +150,13 @@ public class BlockEntityFurnaceBaseComponentImpl extends BlockEntityBaseComponen
     @Override
     public void tick(long currentTick) {
         var lastBurnTime = burnTime;
+        var lastCookTime = cookTime;
+        var lastBurnDuration = burnDuration;
         tickFurnace();
         if (lastBurnTime == 1 && burnTime == 0) setLit(false);
         if (lastBurnTime == 0 && burnTime > 0) setLit(true);
-        sendFurnaceContainerData();
+        if (burnTime != lastBurnTime || cookTime != lastCookTime || burnDuration != lastBurnDuration) setDirty();
+        sendFurnaceContainerData(currentTick);
     }
 
     protected void tickFurnace() {
@@ -260,13 +265,18 @@ public class BlockEntityFurnaceBaseComponentImpl extends BlockEntityBaseComponen
         return false;
     }
 
-    protected void sendFurnaceContainerData() {
-        var container = containerHolderComponent.getContainer();
+    protected void sendFurnaceContainerData(long currentTick) {
+        FurnaceContainerImpl container = containerHolderComponent.getContainer();
         // NOTICE: This is not an error, ask mojang for the reason why you should "/ getIdealSpeed()"
-        container.sendContainerData(ContainerSetDataPacket.FURNACE_TICK_COUNT, (int) (cookTime / getIdealSpeed()));
-        container.sendContainerData(ContainerSetDataPacket.FURNACE_LIT_TIME, burnTime);
-        container.sendContainerData(ContainerSetDataPacket.FURNACE_LIT_DURATION, burnDuration);
-        container.sendContainerData(ContainerSetDataPacket.FURNACE_STORED_XP, storedXP);
+        container.updateContainerData(ContainerSetDataPacket.FURNACE_TICK_COUNT, (int) (cookTime / getIdealSpeed()));
+        // The lit time changes every tick when the furnace is burning, and the client interpolates it. The
+        // start and the end of burning are always sent, so that the flame won't be left in a wrong state
+        var litTimeUpdateInterval = Math.max(AllayServer.getSettings().worldSettings().furnaceLitTimeUpdateInterval(), 1);
+        if (burnTime == 0 || burnTime == burnDuration || currentTick % litTimeUpdateInterval == 0) {
+            container.updateContainerData(ContainerSetDataPacket.FURNACE_LIT_TIME, burnTime);
+        }
+        container.updateContainerData(ContainerSetDataPacket.FURNACE_LIT_DURATION, burnDuration);
+        container.updateContainerData(ContainerSetDataPacket.FURNACE_STORED_XP, storedXP);
     }
 
     protected boolean checkFuel() {
@@ -307,13 +317,14 @@ public class BlockEntityFurnaceBaseComponentImpl extends BlockEntityBaseComponen
     }
 
     protected FurnaceRecipe matchFurnaceRecipe(ItemStack ingredient) {
-        var furnaceRecipe = (FurnaceRecipe) Registries.RECIPES.get(FurnaceRecipe.buildIdentifier(ingredient, getFurnaceRecipeType()));
+        var recipes = (AllayRecipeRegistry) Registries.RECIPES;
+        var furnaceRecipe = recipes.getFurnaceRecipe(ingredient.getItemType(), getFurnaceRecipeType());
         if (furnaceRecipe != null) {
             return furnaceRecipe;
         }
 
         // Blast furnace and smoker can also use a normal furnace recipe
-        return (FurnaceRecipe) Registries.RECIPES.get(FurnaceRecipe.buildIdentifier(ingredient, FurnaceRecipe.Type.FURNACE));
+        return recipes.getFurnaceRecipe(ingredient.getItemType(), FurnaceRecipe.Type.FURNACE);
     }
 
     protected boolean isFuel(ItemStack itemStack) {
@@ -10,6 +10,7 @@ import org.allaymc.api.permission.Permissions;
 import org.allaymc.api.server.Server;
 import org.allaymc.api.utils.TextFormat;
 import org.allaymc.api.world.Dimension;
+import org.allaymc.server.world.storage.leveldb.AllayLevelDBWorldStorage;
 import oshi.SystemInfo;
 import oshi.util.platform.windows.WmiQueryHandler;
 
@@ -193,6 +194,11 @@ public class StatusCommand extends Command {
             sender.sendMessage("  Chunks: " + TextFormat.GREEN + chunks);
             sender.sendMessage("  Entities: " + TextFormat.GREEN + entities);
             sender.sendMessage("  BlockEntities: " + TextFormat.GREEN + blockEntities);
+            if (world.getWorldStorage() instanceof AllayLevelDBWorldStorage levelDBWorldStorage) {
+                var scheduler = levelDBWorldStorage.getChunkSaveScheduler();
+                sender.sendMessage("  ChunkSaveQueue: " + TextFormat.GREEN + scheduler.getQueueDepth());
+                sender.sendMessage("  ChunkSaveRate: " + TextFormat.GREEN + round(scheduler.getBytesWrittenPerSecond() / 1024d, 2) + " KB/s");
+            }
             sender.sendMessage("\n");
         }
     }
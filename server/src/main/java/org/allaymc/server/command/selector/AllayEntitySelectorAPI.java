@@ -2,21 +2,16 @@ package org.allaymc.server.command.selector;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.google.common.collect.Lists;
 import org.allaymc.api.command.CommandSender;
 import org.allaymc.api.command.selector.EntitySelectorAPI;
 import org.allaymc.api.command.selector.SelectorArgument;
 import org.allaymc.api.command.selector.SelectorSyntaxException;
 import org.allaymc.api.entity.Entity;
-import org.allaymc.api.entity.interfaces.EntityPlayer;
-import org.allaymc.api.math.location.Location3d;
 import org.allaymc.api.utils.AllayStringUtils;
 import org.allaymc.server.command.selector.args.*;
 
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Predicate;
 
 import static org.allaymc.api.command.selector.SelectorType.*;
 
@@ -25,14 +20,15 @@ import static org.allaymc.api.command.selector.SelectorType.*;
  */
 public class AllayEntitySelectorAPI implements EntitySelectorAPI {
 
-    /**
-     * Pre-parsing cache for target selector text
-     */
-    private static final Cache<String, Map<String, List<String>>> ARGS_CACHE = Caffeine.newBuilder()
+    private static final Cache<String, Boolean> MATCHES_CACHE = Caffeine.newBuilder()
             .maximumSize(65535)
             .expireAfterAccess(1, TimeUnit.MINUTES)
             .build();
-    private static final Cache<String, Boolean> MATCHES_CACHE = Caffeine.newBuilder()
+
+    /**
+     * Compiled plans of the target selector text, which depend on the registered arguments
+     */
+    private final Cache<String, CompiledSelector> plans = Caffeine.newBuilder()
             .maximumSize(65535)
             .expireAfterAccess(1, TimeUnit.MINUTES)
             .build();
@@ -67,9 +63,19 @@ public class AllayEntitySelectorAPI implements EntitySelectorAPI {
         registerArgument(new Scores());
     }
 
-    // TODO: refactor this
     @Override
     public List<Entity> matchEntities(CommandSender sender, String token) throws SelectorSyntaxException {
+        // Query if there is a compiled plan. If not, parse and compile
+        var plan = plans.getIfPresent(token);
+        if (plan == null) {
+            plan = compile(token);
+            plans.put(token, plan);
+        }
+
+        return plan.match(sender);
+    }
+
+    private CompiledSelector compile(String token) throws SelectorSyntaxException {
         var cachedMatches = MATCHES_CACHE.getIfPresent(token);
         // First confirm from the cache that it is not an illegal selector
         if (cachedMatches != null && !cachedMatches)
@@ -83,92 +89,7 @@ public class AllayEntitySelectorAPI implements EntitySelectorAPI {
             throw new SelectorSyntaxException("Malformed entity selector token");
         }
 
-        // Query if there is a pre-parsing result. If not, parse
-        var arguments = ARGS_CACHE.getIfPresent(token);
-        if (arguments == null) {
-            arguments = parseArgumentMap(matcher.group(2));
-            ARGS_CACHE.put(token, arguments);
-        }
-
-        // Get the cloned location information of the executor
-        var senderLocation = new Location3d(sender.getCommandExecuteLocation());
-        // Get the selector type
-        var selectorType = parseSelectorType(matcher.group(1));
-        // Determine the entity detection range according to the selector type first
-        List<Entity> entities;
-        if (selectorType != SELF) {
-            entities = Lists.newArrayList(senderLocation.dimension().getEntities().values());
-        } else {
-            if (sender.isEntity())
-                entities = Lists.newArrayList(sender.asEntity());
-                // There is no entity that meets the condition.
-            else return Lists.newArrayList();
-        }
-
-        // For the player type selector that is determined, exclude entities that are not players
-        switch (selectorType) {
-            case ALL_PLAYERS, NEAREST_PLAYER -> entities.removeIf(e -> !(e instanceof EntityPlayer));
-            default -> {
-            }
-        }
-
-        // There is no entity that meets the condition, return
-        if (entities.isEmpty()) return entities;
-        // Refer to the coordinates
-        for (var arg : orderedArgs) {
-            try {
-                if (!arg.isFilter()) {
-                    Predicate<Entity> predicate;
-                    if (arguments.containsKey(arg.getKeyName()))
-                        predicate = arg.getPredicate(selectorType, sender, senderLocation, arguments.get(arg.getKeyName()).toArray(new String[0]));
-                    else if (arg.getDefaultValue(arguments, selectorType, sender) != null)
-                        predicate = arg.getPredicate(selectorType, sender, senderLocation, arg.getDefaultValue(arguments, selectorType, sender));
-                    else continue;
-                    if (predicate == null) continue;
-                    entities.removeIf(entity -> !predicate.test(entity));
-                } else {
-                    if (arguments.containsKey(arg.getKeyName()))
-                        entities = arg.getFilter(selectorType, sender, senderLocation, arguments.get(arg.getKeyName()).toArray(new String[0])).apply(entities);
-                    else continue;
-                }
-            } catch (Throwable t) {
-                throw new SelectorSyntaxException("Error while parsing selector argument: " + arg.getKeyName(), t);
-            }
-            // There is no entity that meets the condition, return
-            if (entities.isEmpty()) return entities;
-        }
-
-        // Randomly select one
-        if (selectorType == RANDOM_PLAYER && !entities.isEmpty()) {
-            var index = ThreadLocalRandom.current().nextInt(entities.size()) + 1;
-            Entity currentEntity = null;
-            int i = 1;
-            for (var localCurrent : entities) {
-                if (i == index) {
-                    currentEntity = localCurrent;
-                    break;
-                }
-                i++;
-            }
-
-            return Lists.newArrayList(currentEntity);
-        }
-        // Select the closest player
-        if (selectorType == NEAREST_PLAYER && entities.size() != 1) {
-            Entity nearest = null;
-            var min = Double.MAX_VALUE;
-            for (var entity : entities) {
-                var distanceSquared = 0.0;
-                if ((distanceSquared = senderLocation.distanceSquared(entity.getLocation())) < min) {
-                    min = distanceSquared;
-                    nearest = entity;
-                }
-            }
-
-            entities = Lists.newArrayList(nearest);
-        }
-
-        return entities;
+        return new CompiledSelector(parseSelectorType(matcher.group(1)), parseArgumentMap(matcher.group(2)), orderedArgs);
     }
 
     @Override
@@ -185,6 +106,8 @@ public class AllayEntitySelectorAPI implements EntitySelectorAPI {
         registry.put(argument.getKeyName(), argument);
         orderedArgs.add(argument);
         Collections.sort(orderedArgs);
+        // The compiled plans don't include the new argument
+        plans.invalidateAll();
         return true;
     }
 
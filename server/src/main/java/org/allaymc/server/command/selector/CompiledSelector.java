@@ -0,0 +1,226 @@
+package org.allaymc.server.command.selector;
+
+import org.allaymc.api.command.CommandSender;
+import org.allaymc.api.command.selector.SelectorArgument;
+import org.allaymc.api.command.selector.SelectorSyntaxException;
+import org.allaymc.api.command.selector.SelectorType;
+import org.allaymc.api.entity.Entity;
+import org.allaymc.api.entity.interfaces.EntityPlayer;
+import org.allaymc.api.math.location.Location3d;
+import org.allaymc.server.command.selector.args.*;
+import org.allaymc.server.world.manager.AllayEntityManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.allaymc.api.command.selector.SelectorType.*;
+
+/**
+ * CompiledSelector is the parsed plan of a target selector token, which is cached by the token so that
+ * the token is only parsed once.
+ * <p>
+ * When matching entities, the candidates are taken from the chunks that intersect with the area limited
+ * by {@code r}, {@code dx} and {@code dz} instead of all entities in the dimension. All predicates are
+ * tested in a single pass over the candidates, with the cheap and selective ones tested first, and the
+ * arguments in filter mode (for example {@code c}) are applied to the result at last.
+ *
+ * @author daoge_cmd
+ */
+final class CompiledSelector {
+
+    private final SelectorType selectorType;
+    private final Map<String, List<String>> arguments;
+    // The arguments that are not in filter mode, in parsing priority order, and their values
+    // in the token. The value is null if the argument is not present in the token
+    private final SelectorArgument[] predicateArgs;
+    private final String[][] predicateValues;
+    // The indexes of the predicate arguments, in the order their predicates are tested
+    private final int[] testOrder;
+    private final SelectorArgument[] filterArgs;
+    private final String[][] filterValues;
+    // The area extracted from the token, NaN if not limited
+    private final double radius;
+    private final double dx;
+    private final double dz;
+
+    CompiledSelector(SelectorType selectorType, Map<String, List<String>> arguments, List<SelectorArgument> orderedArgs) {
+        this.selectorType = selectorType;
+        this.arguments = arguments;
+
+        var predicateArgs = new ArrayList<SelectorArgument>();
+        var filterArgs = new ArrayList<SelectorArgument>();
+        for (var arg : orderedArgs) {
+            if (!arg.isFilter()) {
+                predicateArgs.add(arg);
+            } else if (arguments.containsKey(arg.getKeyName())) {
+                filterArgs.add(arg);
+            }
+        }
+        this.predicateArgs = predicateArgs.toArray(SelectorArgument[]::new);
+        this.predicateValues = valuesOf(this.predicateArgs, arguments);
+        this.filterArgs = filterArgs.toArray(SelectorArgument[]::new);
+        this.filterValues = valuesOf(this.filterArgs, arguments);
+        this.testOrder = IntStream.range(0, this.predicateArgs.length)
+                .boxed()
+                .sorted(Comparator.comparingInt(i -> selectivityRank(this.predicateArgs[i])))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        this.radius = Math.abs(parseAreaValue(arguments, "r", Double.NaN));
+        var hasScope = arguments.containsKey("dx") || arguments.containsKey("dy") || arguments.containsKey("dz");
+        // The missing one of dx, dy and dz defaults to 0, see ScopeArgument
+        this.dx = hasScope ? parseAreaValue(arguments, "dx", 0) : Double.NaN;
+        this.dz = hasScope ? parseAreaValue(arguments, "dz", 0) : Double.NaN;
+    }
+
+    private static String[][] valuesOf(SelectorArgument[] args, Map<String, List<String>> arguments) {
+        var values = new String[args.length][];
+        for (int i = 0; i < args.length; i++) {
+            var value = arguments.get(args[i].getKeyName());
+            values[i] = value != null ? value.toArray(String[]::new) : null;
+        }
+        return values;
+    }
+
+    private static int selectivityRank(SelectorArgument arg) {
+        // Spatial arguments are the cheapest and usually filter out the most entities, while
+        // scores need to look up the scoreboards. Unknown arguments are tested before scores
+        if (arg instanceof R || arg instanceof RM || arg instanceof ScopeArgument) return 0;
+        if (arg instanceof Type || arg instanceof Name || arg instanceof M) return 1;
+        if (arg instanceof Scores) return 3;
+        return 2;
+    }
+
+    private static double parseAreaValue(Map<String, List<String>> arguments, String key, double defaultValue) {
+        var values = arguments.get(key);
+        if (values == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Double.parseDouble(values.getFirst());
+        } catch (NumberFormatException e) {
+            // The error will be reported by the argument itself
+            return Double.NaN;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Entity> match(CommandSender sender) throws SelectorSyntaxException {
+        if (selectorType == SELF && !sender.isEntity()) {
+            // There is no entity that meets the condition
+            return new ArrayList<>();
+        }
+
+        // Get the cloned location information of the executor, which may be
+        // modified by the coordinate arguments
+        var senderLocation = new Location3d(sender.getCommandExecuteLocation());
+        var predicates = new Predicate[predicateArgs.length];
+        for (int i = 0; i < predicateArgs.length; i++) {
+            var arg = predicateArgs[i];
+            try {
+                var values = predicateValues[i];
+                if (values == null) {
+                    var defaultValue = arg.getDefaultValue(arguments, selectorType, sender);
+                    if (defaultValue == null) continue;
+                    values = new String[]{defaultValue};
+                }
+                predicates[i] = arg.getPredicate(selectorType, sender, senderLocation, values);
+            } catch (Throwable t) {
+                throw new SelectorSyntaxException("Error while parsing selector argument: " + arg.getKeyName(), t);
+            }
+        }
+
+        var candidates = new ArrayList<Entity>();
+        Consumer<Entity> collector = entity -> {
+            if (test(predicates, entity)) candidates.add(entity);
+        };
+        if (selectorType == SELF) {
+            collector.accept(sender.asEntity());
+        } else {
+            var dimension = senderLocation.dimension();
+            if (hasArea() && dimension.getEntityManager() instanceof AllayEntityManager entityManager) {
+                // The base position has been modified by the coordinate arguments here
+                var x = senderLocation.x();
+                var z = senderLocation.z();
+                var halfSize = Double.isNaN(radius) ? Double.POSITIVE_INFINITY : radius;
+                var minX = x - halfSize;
+                var maxX = x + halfSize;
+                var minZ = z - halfSize;
+                var maxZ = z + halfSize;
+                if (!Double.isNaN(dx) && !Double.isNaN(dz)) {
+                    minX = Math.max(minX, Math.min(x, x + dx));
+                    maxX = Math.min(maxX, Math.max(x, x + dx));
+                    minZ = Math.max(minZ, Math.min(z, z + dz));
+                    maxZ = Math.min(maxZ, Math.max(z, z + dz));
+                }
+                entityManager.forEachEntitiesInAreaImmediately(minX, minZ, maxX, maxZ, collector);
+            } else {
+                dimension.getEntities().values().forEach(collector);
+            }
+        }
+
+        List<Entity> entities = candidates;
+
+        for (int i = 0; i < filterArgs.length && !entities.isEmpty(); i++) {
+            var arg = filterArgs[i];
+            try {
+                Function<List<Entity>, List<Entity>> filter = arg.getFilter(selectorType, sender, senderLocation, filterValues[i]);
+                if (filter != null) entities = filter.apply(entities);
+            } catch (Throwable t) {
+                throw new SelectorSyntaxException("Error while parsing selector argument: " + arg.getKeyName(), t);
+            }
+        }
+
+        if (entities.isEmpty()) {
+            return entities;
+        }
+
+        // Randomly select one
+        if (selectorType == RANDOM_PLAYER) {
+            return new ArrayList<>(List.of(entities.get(ThreadLocalRandom.current().nextInt(entities.size()))));
+        }
+        // Select the closest player
+        if (selectorType == NEAREST_PLAYER && entities.size() != 1) {
+            Entity nearest = null;
+            var min = Double.MAX_VALUE;
+            for (var entity : entities) {
+                var distanceSquared = senderLocation.distanceSquared(entity.getLocation());
+                if (distanceSquared < min) {
+                    min = distanceSquared;
+                    nearest = entity;
+                }
+            }
+
+            return new ArrayList<>(List.of(nearest));
+        }
+
+        return entities;
+    }
+
+    private boolean hasArea() {
+        return !Double.isNaN(radius) || (!Double.isNaN(dx) && !Double.isNaN(dz));
+    }
+
+    private boolean test(Predicate<Entity>[] predicates, Entity entity) {
+        // For the player type selector that is determined, exclude entities that are not players
+        if ((selectorType == ALL_PLAYERS || selectorType == NEAREST_PLAYER) && !(entity instanceof EntityPlayer)) {
+            return false;
+        }
+
+        for (var index : testOrder) {
+            var predicate = predicates[index];
+            if (predicate != null && !predicate.test(entity)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
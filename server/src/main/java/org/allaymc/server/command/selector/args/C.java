@@ -1,23 +1,24 @@
 package org.allaymc.server.command.selector.args;
 
 import org.allaymc.api.command.CommandSender;
+import org.allaymc.api.command.selector.SelectorArgument;
 import org.allaymc.api.command.selector.SelectorSyntaxException;
 import org.allaymc.api.command.selector.SelectorType;
 import org.allaymc.api.entity.Entity;
 import org.allaymc.api.math.location.Location3dc;
 import org.allaymc.server.command.selector.ParseUtils;
 
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Function;
 
 /**
  * @author daoge_cmd
  */
-public class C extends CachedFilterSelectorArgument {
+public class C implements SelectorArgument {
     @Override
-    public Function<List<Entity>, List<Entity>> cache(SelectorType selectorType, CommandSender sender, Location3dc basePos, String... arguments) throws SelectorSyntaxException {
+    public Function<List<Entity>, List<Entity>> getFilter(SelectorType selectorType, CommandSender sender, Location3dc basePos, String... arguments) throws SelectorSyntaxException {
         ParseUtils.singleArgument(arguments, getKeyName());
         ParseUtils.cannotReversed(arguments[0]);
 
@@ -26,11 +27,85 @@ public class C extends CachedFilterSelectorArgument {
             throw new SelectorSyntaxException("'c' argument cannot be zero");
         }
 
-        return entities -> {
-            entities.sort(Comparator.comparingDouble(e -> e.getLocation().distanceSquared(basePos)));
-            if (c < 0) Collections.reverse(entities);
-            return entities.subList(0, Math.abs(c));
-        };
+        // The filter captures the base position, so it can't be cached across senders
+        return entities -> selectNearest(entities, basePos, Math.abs(c), c < 0);
+    }
+
+    /**
+     * Select the entities that are nearest to the base position, or the farthest ones if {@code farthest}
+     * is {@code true}. Only a heap of at most {@code count} entities is kept instead of sorting all the
+     * entities, so this runs in O(n log count).
+     *
+     * @param entities the entities to select from
+     * @param basePos  the base position
+     * @param count    the max count of the selected entities
+     * @param farthest whether to select the farthest entities
+     * @return the selected entities, sorted from the nearest (or the farthest) one
+     */
+    public static List<Entity> selectNearest(List<Entity> entities, Location3dc basePos, int count, boolean farthest) {
+        count = Math.min(count, entities.size());
+        if (count == 0) {
+            return new ArrayList<>();
+        }
+
+        // A max-heap on the keys, so the top is the entity that is dropped first
+        var heapEntities = new Entity[count];
+        var heapKeys = new double[count];
+        var size = 0;
+        for (var entity : entities) {
+            var key = entity.getLocation().distanceSquared(basePos);
+            if (farthest) key = -key;
+
+            if (size < count) {
+                siftUp(heapEntities, heapKeys, size++, entity, key);
+            } else if (key < heapKeys[0]) {
+                siftDown(heapEntities, heapKeys, size, entity, key);
+            }
+        }
+
+        // Pop the largest key each time and fill the result from the end
+        var result = new Entity[size];
+        while (size > 0) {
+            result[size - 1] = heapEntities[0];
+            size--;
+            if (size > 0) {
+                siftDown(heapEntities, heapKeys, size, heapEntities[size], heapKeys[size]);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    private static void siftUp(Entity[] entities, double[] keys, int index, Entity entity, double key) {
+        while (index > 0) {
+            var parent = (index - 1) >>> 1;
+            if (keys[parent] >= key) break;
+            entities[index] = entities[parent];
+            keys[index] = keys[parent];
+            index = parent;
+        }
+        entities[index] = entity;
+        keys[index] = key;
+    }
+
+    private static void siftDown(Entity[] entities, double[] keys, int size, Entity entity, double key) {
+        var index = 0;
+        var half = size >>> 1;
+        while (index < half) {
+            var child = 2 * index + 1;
+            var right = child + 1;
+            if (right < size && keys[right] > keys[child]) child = right;
+            if (key >= keys[child]) break;
+            entities[index] = entities[child];
+            keys[index] = keys[child];
+            index = child;
+        }
+        entities[index] = entity;
+        keys[index] = key;
+    }
+
+    @Override
+    public boolean isFilter() {
+        return true;
     }
 
     @Override
@@ -0,0 +1,377 @@
+package org.allaymc.server.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.allaymc.api.component.Component;
+import org.allaymc.api.component.ComponentInitInfo;
+import org.allaymc.api.eventbus.EventException;
+import org.allaymc.api.eventbus.EventHandler;
+import org.allaymc.api.eventbus.event.Event;
+import org.allaymc.api.server.Server;
+import org.allaymc.server.component.annotation.ComponentObject;
+import org.allaymc.server.component.annotation.Dependency;
+import org.allaymc.server.component.annotation.Manager;
+import org.allaymc.server.component.annotation.OnInitFinish;
+import org.allaymc.server.utils.ComponentInjectException;
+import org.allaymc.server.utils.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ComponentInjectionPlan describes how a {@link ComponentClass} and its components should be wired together.
+ * <p>
+ * Resolving the injection points requires a full reflection pass over the component class and all of its
+ * components. Since the layout only depends on the classes involved, the result is computed once per
+ * combination of component class and component classes, and then reused for every new instance, so that
+ * constructing an instance only takes a few field writes.
+ *
+ * @author daoge_cmd
+ */
+@Slf4j
+final class ComponentInjectionPlan {
+
+    private static final Map<Key, ComponentInjectionPlan> PLANS = new ConcurrentHashMap<>();
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType ON_INIT_FINISH_TYPE = MethodType.methodType(void.class, Object.class, ComponentInitInfo.class);
+    private static final Injection[] EMPTY_INJECTIONS = new Injection[0];
+    private static final MethodHandle[] EMPTY_METHOD_HANDLES = new MethodHandle[0];
+    private static final Handler[] EMPTY_HANDLERS = new Handler[0];
+
+    // Injections into the instance, the source of which is always a component
+    private final Injection[] instanceInjections;
+    // Injections into each component, indexed by the component index
+    private final Injection[][] componentInjections;
+    // @OnInitFinish methods of each component, indexed by the component index
+    private final MethodHandle[][] onInitFinishMethods;
+    // Event handlers of all components, sorted by priority
+    private final Map<Class<?>, Handler[]> handlers;
+
+    private ComponentInjectionPlan(Class<?> instanceClass, Class<?>[] componentClasses) {
+        this.instanceInjections = resolveInstanceInjections(instanceClass, componentClasses);
+        this.componentInjections = new Injection[componentClasses.length][];
+        this.onInitFinishMethods = new MethodHandle[componentClasses.length][];
+        for (int i = 0; i < componentClasses.length; i++) {
+            this.componentInjections[i] = resolveComponentInjections(componentClasses, i);
+            this.onInitFinishMethods[i] = resolveOnInitFinishMethods(componentClasses[i]);
+        }
+        this.handlers = resolveHandlers(componentClasses);
+    }
+
+    /**
+     * Get the injection plan for the given instance and components, computing it if it is not cached yet.
+     *
+     * @param instance   the component class instance
+     * @param components the components of the instance
+     * @return the injection plan
+     */
+    static ComponentInjectionPlan of(ComponentClass instance, Component[] components) {
+        var componentClasses = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            componentClasses[i] = components[i].getClass();
+        }
+
+        var key = new Key(instance.getClass(), componentClasses);
+        var plan = PLANS.get(key);
+        if (plan == null) {
+            // Do not compute the plan inside computeIfAbsent(), since resolving it may
+            // load other classes which create their own plans during class initialization
+            plan = new ComponentInjectionPlan(instance.getClass(), componentClasses);
+            var old = PLANS.putIfAbsent(key, plan);
+            if (old != null) {
+                plan = old;
+            }
+        }
+
+        return plan;
+    }
+
+    /**
+     * Inject the components, the component manager and the instance into their fields.
+     *
+     * @param instance   the component class instance
+     * @param manager    the component manager
+     * @param components the components of the instance
+     */
+    void inject(ComponentClass instance, ComponentManager manager, Component[] components) {
+        for (var injection : instanceInjections) {
+            injection.inject(instance, instance, manager, components);
+        }
+
+        for (int i = 0; i < components.length; i++) {
+            for (var injection : componentInjections[i]) {
+                injection.inject(components[i], instance, manager, components);
+            }
+        }
+    }
+
+    /**
+     * Call the {@link OnInitFinish} methods of the components.
+     *
+     * @param components the components of the instance
+     * @param initInfo   the init info
+     */
+    void callOnInitFinishMethods(Component[] components, ComponentInitInfo initInfo) {
+        for (int i = 0; i < components.length; i++) {
+            var component = components[i];
+            for (var method : onInitFinishMethods[i]) {
+                try {
+                    method.invokeExact((Object) component, initInfo);
+                } catch (Throwable t) {
+                    throw new ComponentInjectException("Cannot call onInitFinish method on component: " + component.getClass().getName(), t);
+                }
+            }
+        }
+    }
+
+    /**
+     * Call the event handlers of the components which listen to the given event.
+     *
+     * @param event      the event
+     * @param components the components of the instance
+     */
+    void callEvent(Event event, Component[] components) {
+        var eventHandlers = handlers.get(event.getClass());
+        if (eventHandlers == null) {
+            return;
+        }
+
+        for (var handler : eventHandlers) {
+            var component = components[handler.componentIndex];
+            if (!handler.async) {
+                handler.invoke(component, event);
+            } else {
+                Server.getInstance().getVirtualThreadPool().submit(() -> handler.invoke(component, event));
+            }
+        }
+    }
+
+    private static Injection[] resolveInstanceInjections(Class<?> instanceClass, Class<?>[] componentClasses) {
+        List<Injection> injections = new ArrayList<>();
+        for (var field : ReflectionUtils.getAllFields(instanceClass)) {
+            var type = field.getType();
+            if (!Component.class.isAssignableFrom(type)) {
+                continue;
+            }
+
+            var matched = findComponentsByType(componentClasses, type);
+            // Matches to multiple components
+            if (matched.size() > 1) {
+                throw new ComponentInjectException("Found multiple components " + type.getName() + " for " + instanceClass.getName());
+            }
+            // No component available
+            if (matched.isEmpty()) {
+                throw new ComponentInjectException("Cannot find component " + type.getName() + " for " + instanceClass.getName());
+            }
+
+            var componentIndex = matched.getFirst();
+            injections.add(new Injection(
+                    createSetter(field, "Cannot inject component " + type.getName() + " to " + componentClasses[componentIndex].getName()),
+                    componentIndex
+            ));
+        }
+
+        return injections.toArray(EMPTY_INJECTIONS);
+    }
+
+    private static Injection[] resolveComponentInjections(Class<?>[] componentClasses, int index) {
+        var componentClass = componentClasses[index];
+        List<Injection> injections = new ArrayList<>();
+        for (var field : ReflectionUtils.getAllFields(componentClass)) {
+            var dependency = field.getAnnotation(Dependency.class);
+            if (dependency != null && Component.class.isAssignableFrom(field.getType())) {
+                var injection = resolveDependency(componentClasses, componentClass, field, dependency);
+                if (injection != null) {
+                    injections.add(injection);
+                }
+            }
+        }
+        for (var field : ReflectionUtils.getAllFields(componentClass)) {
+            if (field.isAnnotationPresent(Manager.class)) {
+                injections.add(new Injection(
+                        createSetter(field, "Cannot inject component manager to component: " + componentClass.getName()),
+                        Injection.SOURCE_MANAGER
+                ));
+            }
+        }
+        for (var field : ReflectionUtils.getAllFields(componentClass)) {
+            if (field.isAnnotationPresent(ComponentObject.class)) {
+                injections.add(new Injection(
+                        createSetter(field, "Cannot inject componented object to component: " + componentClass.getName()),
+                        Injection.SOURCE_INSTANCE
+                ));
+            }
+        }
+
+        return injections.toArray(EMPTY_INJECTIONS);
+    }
+
+    private static Injection resolveDependency(Class<?>[] componentClasses, Class<?> componentClass, Field field, Dependency annotation) {
+        var type = field.getType();
+        var requireCompId = annotation.identifier();
+        List<Integer> matched;
+        // Try to find dependencies through inheritance
+        // Try to match by namespace ID
+        if (!requireCompId.isBlank()) {
+            matched = new ArrayList<>();
+            for (int i = 0; i < componentClasses.length; i++) {
+                if (Objects.requireNonNull(ComponentProvider.findComponentIdentifier(componentClasses[i])).toString().equals(requireCompId)) {
+                    matched.add(i);
+                }
+            }
+        } else {
+            matched = findComponentsByType(componentClasses, type);
+        }
+        // Matches to multiple dependencies
+        if (matched.size() > 1) {
+            throw new ComponentInjectException("Found multiple dependencies " + type.getName() + " for " + componentClass.getName());
+        }
+        // No dependencies available
+        if (matched.isEmpty()) {
+            if (!annotation.optional()) {
+                throw new ComponentInjectException("Cannot find dependency " + type.getName() + " for " + componentClass.getName());
+            }
+            return null;
+        }
+
+        return new Injection(
+                createSetter(field, "Cannot inject dependency " + type.getName() + " to " + componentClass.getName()),
+                matched.getFirst()
+        );
+    }
+
+    private static MethodHandle[] resolveOnInitFinishMethods(Class<?> componentClass) {
+        List<MethodHandle> methods = new ArrayList<>();
+        for (var method : componentClass.getMethods()) {
+            if (method.isAnnotationPresent(OnInitFinish.class) &&
+                method.getReturnType() == void.class &&
+                method.getParameterCount() == 1) {
+                try {
+                    method.setAccessible(true);
+                    methods.add(MethodHandles.lookup().unreflect(method).asType(ON_INIT_FINISH_TYPE));
+                } catch (Exception e) {
+                    throw new ComponentInjectException("Cannot call onInitFinish method on component: " + componentClass.getName(), e);
+                }
+            }
+        }
+
+        return methods.toArray(EMPTY_METHOD_HANDLES);
+    }
+
+    private static Map<Class<?>, Handler[]> resolveHandlers(Class<?>[] componentClasses) {
+        Map<Class<?>, List<Handler>> handlers = new HashMap<>();
+        for (int i = 0; i < componentClasses.length; i++) {
+            var componentClass = componentClasses[i];
+            for (var method : ReflectionUtils.getAllMethods(componentClass)) {
+                var annotation = method.getAnnotation(EventHandler.class);
+                if (annotation == null) continue;
+                checkEventHandler(componentClass, method);
+
+                var eventClass = method.getParameterTypes()[0];
+                handlers.computeIfAbsent(eventClass, k -> new ArrayList<>()).add(new Handler(
+                        i, annotation.priority(), annotation.async(), createEventHandler(componentClass, method)
+                ));
+            }
+        }
+
+        Map<Class<?>, Handler[]> result = new HashMap<>(handlers.size());
+        handlers.forEach((eventClass, list) -> {
+            // The sort is stable, so handlers with the same priority keep the order of components
+            list.sort((h1, h2) -> Integer.compare(h2.priority, h1.priority));
+            result.put(eventClass, list.toArray(EMPTY_HANDLERS));
+        });
+        return result;
+    }
+
+    private static void checkEventHandler(Class<?> componentClass, Method method) {
+        if (method.getReturnType() != void.class) {
+            throw new EventException("Event handler method must return void: " + method.getName() + " in listener " + componentClass.getName());
+        }
+
+        if (method.getParameterCount() != 1) {
+            throw new EventException("Event handler method must have only one parameter: " + method.getName() + " in listener " + componentClass.getName());
+        }
+
+        if (!Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+            throw new EventException("Event handler method parameter must be a subclass of Event: " + method.getName() + " in listener " + componentClass.getName());
+        }
+    }
+
+    private static MethodHandle createEventHandler(Class<?> componentClass, Method method) {
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method).asType(HANDLER_TYPE);
+        } catch (Exception e) {
+            throw new EventException("Cannot access event handler method: " + method.getName() + " in listener " + componentClass.getName(), e);
+        }
+    }
+
+    private static List<Integer> findComponentsByType(Class<?>[] componentClasses, Class<?> type) {
+        List<Integer> matched = new ArrayList<>(1);
+        for (int i = 0; i < componentClasses.length; i++) {
+            if (type.isAssignableFrom(componentClasses[i])) {
+                matched.add(i);
+            }
+        }
+        return matched;
+    }
+
+    private static MethodHandle createSetter(Field field, String errorMessage) {
+        try {
+            field.setAccessible(true);
+            return MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+        } catch (Exception e) {
+            throw new ComponentInjectException(errorMessage, e);
+        }
+    }
+
+    private record Key(Class<?> instanceClass, Class<?>[] componentClasses) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other &&
+                   instanceClass == other.instanceClass &&
+                   Arrays.equals(componentClasses, other.componentClasses);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * instanceClass.hashCode() + Arrays.hashCode(componentClasses);
+        }
+    }
+
+    /**
+     * A field write. The source is either the index of a component, or one of the special sources.
+     */
+    private record Injection(MethodHandle setter, int source) {
+        static final int SOURCE_MANAGER = -1;
+        static final int SOURCE_INSTANCE = -2;
+
+        void inject(Object target, ComponentClass instance, ComponentManager manager, Component[] components) {
+            Object value = switch (source) {
+                case SOURCE_MANAGER -> manager;
+                case SOURCE_INSTANCE -> instance;
+                default -> components[source];
+            };
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw new ComponentInjectException("Cannot inject " + value.getClass().getName() + " to " + target.getClass().getName(), t);
+            }
+        }
+    }
+
+    private record Handler(int componentIndex, int priority, boolean async, MethodHandle method) {
+        void invoke(Component component, Event event) {
+            try {
+                method.invokeExact((Object) component, (Object) event);
+            } catch (Throwable t) {
+                log.error("An error occurred while handling event", t);
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.google.common.collect.HashBiMap;
 import it.unimi.dsi.fastutil.bytes.Byte2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.allaymc.api.container.Container;
 import org.allaymc.api.container.ContainerType;
@@ -37,6 +38,9 @@ public class BaseContainer implements Container {
     protected final Set<Consumer<ContainerViewer>> openListeners;
     protected final Set<Consumer<ContainerViewer>> closeListeners;
     protected final Int2ObjectMap<Set<Consumer<ItemStack>>> slotChangeListeners;
+    // Called after any slot is changed, used by the holder of the container
+    @Setter
+    protected Runnable changeListener;
 
     public BaseContainer(ContainerType<? extends Container> containerType) {
         this.containerType = containerType;
@@ -127,6 +131,10 @@ public class BaseContainer implements Container {
             }
         }
 
+        if (changeListener != null) {
+            changeListener.run();
+        }
+
         var listeners = slotChangeListeners.get(slot);
         if (listeners == null || listeners.isEmpty()) {
             return;
@@ -1,9 +1,12 @@
 package org.allaymc.server.container.impl;
 
+import it.unimi.dsi.fastutil.ints.Int2IntArrayMap;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import lombok.Getter;
 import lombok.Setter;
 import org.allaymc.api.container.Container;
 import org.allaymc.api.container.ContainerType;
+import org.allaymc.api.container.ContainerViewer;
 import org.allaymc.api.container.interfaces.BlockContainer;
 import org.allaymc.api.math.position.Position3ic;
 
@@ -14,8 +17,34 @@ public class BlockContainerImpl extends BaseContainer implements BlockContainer
     @Getter
     @Setter
     protected Position3ic blockPos;
+    // The latest values of the container data, which are sent to the viewers once they open the container
+    protected final Int2IntMap containerData;
 
     public BlockContainerImpl(ContainerType<? extends Container> containerType) {
         super(containerType);
+        this.containerData = new Int2IntArrayMap();
+    }
+
+    /**
+     * Update the container data and send it to the viewers only if the value is changed.
+     *
+     * @param property the property
+     * @param value    the value
+     */
+    public void updateContainerData(int property, int value) {
+        if (containerData.containsKey(property) && containerData.get(property) == value) {
+            return;
+        }
+
+        containerData.put(property, value);
+        sendContainerData(property, value);
+    }
+
+    @Override
+    protected void onOpen(ContainerViewer viewer) {
+        super.onOpen(viewer);
+        for (var entry : containerData.int2IntEntrySet()) {
+            viewer.viewContainerData(this, entry.getIntKey(), entry.getIntValue());
+        }
     }
 }
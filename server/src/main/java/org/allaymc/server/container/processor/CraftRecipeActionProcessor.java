@@ -47,7 +47,10 @@ public class CraftRecipeActionProcessor implements ContainerActionProcessor<Craf
         }
 
         // The network id for the recipe start from 1, so we need to subtract 1 to get the index in indexedRecipes
-        var recipe = NetworkData.INDEXED_RECIPES.get(recipeNetworkId - 1);
+        var indexedRecipes = NetworkData.INDEXED_RECIPES;
+        var recipeIndex = recipeNetworkId - 1;
+        // The slot is null if the recipe was removed, and the recipe will be rejected below
+        var recipe = recipeIndex >= 0 && recipeIndex < indexedRecipes.size() ? indexedRecipes.get(recipeIndex) : null;
         var isCraftingRecipe = recipe instanceof ShapedRecipe ||
                                recipe instanceof ShapelessRecipe ||
                                recipe instanceof ComplexRecipe;
@@ -29,10 +29,16 @@ public final class ChunkSectionNibbleArray {
         if (bytes == null) {
             return;
         }
-        this.bytes = bytes;
         if (bytes.length != BYTES_LENGTH) {
             throw new IllegalArgumentException("Provided byte array should be " + BYTES_LENGTH + " long instead of " + bytes.length);
         }
+        for (var b : bytes) {
+            checkSum += (b & 15) + (b >> 4 & 15);
+        }
+        // Keep the same representation as the one built by set()
+        if (checkSum != 0 && checkSum != CHECK_SUM_MAX) {
+            this.bytes = bytes;
+        }
     }
 
     public static int calculateIndex(@Range(from = 0, to = 15) int x, @Range(from = 0, to = 15) int y, @Range(from = 0, to = 15) int z) {
@@ -73,6 +79,56 @@ public final class ChunkSectionNibbleArray {
         return bytes;
     }
 
+    /**
+     * @return {@code true} if all the nibbles are {@code 0}
+     */
+    public boolean isEmpty() {
+        return checkSum == 0;
+    }
+
+    /**
+     * Get a copy of the backing array.
+     *
+     * @return a copy of the backing array, or {@code null} if all the nibbles are {@code 0}
+     */
+    public byte[] toByteArray() {
+        if (checkSum == 0) {
+            return null;
+        }
+        if (checkSum == CHECK_SUM_MAX) {
+            var result = new byte[BYTES_LENGTH];
+            Arrays.fill(result, (byte) 0xFF);
+            return result;
+        }
+        return bytes.clone();
+    }
+
+    /**
+     * Create a copy of this array.
+     *
+     * @return the copy
+     */
+    public ChunkSectionNibbleArray copy() {
+        return new ChunkSectionNibbleArray(toByteArray());
+    }
+
+    /**
+     * Set each nibble to the larger one between the nibble in this array and the nibble in the other array.
+     *
+     * @param other the other array
+     */
+    public void mergeMax(ChunkSectionNibbleArray other) {
+        if (other.checkSum == 0) {
+            return;
+        }
+        for (int i = 0; i < 4096; i++) {
+            var value = other.get(i);
+            if (value > get(i)) {
+                set(i, value);
+            }
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder stringBuilder = new StringBuilder();
@@ -111,7 +167,7 @@ public final class ChunkSectionNibbleArray {
             }
             bytes = new byte[BYTES_LENGTH];
             if (checkSum == CHECK_SUM_MAX) {
-                Arrays.fill(bytes, (byte) 15);
+                Arrays.fill(bytes, (byte) 0xFF);
             }
         }
         int i = getArrayIndex(index);
@@ -0,0 +1,105 @@
+package org.allaymc.server.datastruct.collections.queue;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded lock-free multi-producer single-consumer ring buffer of primitive longs.
+ * <p>
+ * Producers claim a slot by advancing the tail, and publish the value into the claimed
+ * slot afterward. The consumer waits for the value to be published if it reaches a slot
+ * that is claimed but not published yet. Value {@link #EMPTY} is used to mark empty slots
+ * and can't be offered.
+ *
+ * @author daoge_cmd
+ */
+public final class MpscLongRingBuffer {
+
+    /**
+     * The value that marks an empty slot, which can't be offered into the buffer.
+     */
+    public static final long EMPTY = -1L;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final AtomicLong tail;
+    // Only written by the consumer
+    private volatile long head;
+
+    /**
+     * Create a new ring buffer.
+     *
+     * @param capacity the capacity, must be a power of two
+     */
+    public MpscLongRingBuffer(int capacity) {
+        Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1, "capacity must be a power of two");
+        this.slots = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots.lazySet(i, EMPTY);
+        }
+        this.mask = capacity - 1;
+        this.tail = new AtomicLong();
+    }
+
+    /**
+     * Add a value into the buffer. This method can be called from any thread.
+     *
+     * @param value the value, must not be {@link #EMPTY}
+     * @return {@code true} if the value is added, or {@code false} if the buffer is full
+     */
+    public boolean offer(long value) {
+        Preconditions.checkArgument(value != EMPTY, "EMPTY can't be offered");
+        long index;
+        do {
+            index = tail.get();
+            if (index - head > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(index, index + 1));
+
+        slots.lazySet((int) index & mask, value);
+        return true;
+    }
+
+    /**
+     * Remove the first value from the buffer. This method should only be called from the consumer thread.
+     *
+     * @return the first value, or {@link #EMPTY} if the buffer is empty
+     */
+    public long poll() {
+        var index = head;
+        if (index == tail.get()) {
+            return EMPTY;
+        }
+
+        var slot = (int) index & mask;
+        long value;
+        // The slot is claimed, wait for the producer to publish the value
+        while ((value = slots.get(slot)) == EMPTY) {
+            Thread.onSpinWait();
+        }
+
+        slots.lazySet(slot, EMPTY);
+        head = index + 1;
+        return value;
+    }
+
+    /**
+     * Get the count of values in the buffer. The result may be inaccurate if producers are
+     * adding values at the same time.
+     *
+     * @return the count of values
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    /**
+     * @return the capacity of the buffer
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufOutputStream;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
 import lombok.Getter;
 import lombok.Setter;
@@ -26,8 +27,19 @@ public final class Palette<V> {
 
     private static final int SECTION_SIZE = 16 * 16 * 16;
     private static final BitArrayVersion INITIAL_VERSION = BitArrayVersion.V0;
+    /**
+     * Palettes with no more entries than this value are searched linearly, which is
+     * faster than a hash lookup for small palettes and does not need extra memory.
+     */
+    private static final int LINEAR_SCAN_THRESHOLD = 16;
+    private static final ThreadLocal<CompactScratch> COMPACT_SCRATCH = ThreadLocal.withInitial(CompactScratch::new);
 
     private List<V> palette;
+    /**
+     * Maps the entries to their indexes in the palette (by identity). Only
+     * available when the palette is larger than {@link #LINEAR_SCAN_THRESHOLD}.
+     */
+    private Reference2IntOpenHashMap<V> reverseIndex;
     private BitArray bitArray;
     /**
      * Determines whether this palette have been changed since last save.
@@ -48,6 +60,7 @@ public final class Palette<V> {
         this.palette = palette;
         // Please note that the first entry shouldn't be changed
         this.palette.add(first);
+        this.rebuildReverseIndex();
         this.bitArray = version.createArray(SECTION_SIZE);
         this.dirty = true;
     }
@@ -89,6 +102,29 @@ public final class Palette<V> {
         this.dirty = true;
     }
 
+    /**
+     * Get the palette index of the value, the value will be added to the palette if it is not in the palette.
+     * The returned index stays valid until the palette is compacted, so it can be written to many entries
+     * through {@link #setPaletteIndex(int, int)} without looking up the palette again.
+     *
+     * @param value the value
+     * @return the palette index of the value
+     */
+    public int getOrAddPaletteIndex(V value) {
+        return this.paletteIndexFor(value);
+    }
+
+    /**
+     * Set the entry at the index to the value at the palette index.
+     *
+     * @param index        the index of the entry
+     * @param paletteIndex the palette index returned by {@link #getOrAddPaletteIndex(Object)}
+     */
+    public void setPaletteIndex(int index, int paletteIndex) {
+        this.bitArray.set(index, paletteIndex);
+        this.dirty = true;
+    }
+
     public void writeToNetwork(ByteBuf byteBuf, IntSerializer<V> serializer, Palette<V> last) {
         if (last != null && last.equals(this)) {
             byteBuf.writeByte(createCopyLastFlag(false));
@@ -125,6 +161,7 @@ public final class Palette<V> {
         }
 
         this.palette.clear();
+        this.reverseIndex = null;
         var version = getVersionFromPaletteHeader(header);
         readWords(byteBuf, version);
         if (version == BitArrayVersion.V0) {
@@ -137,6 +174,7 @@ public final class Palette<V> {
         for (int i = 0; i < paletteSize; i++) {
             this.palette.add(deserializer.deserialize(VarInts.readInt(byteBuf)));
         }
+        this.rebuildReverseIndex();
     }
 
     // TODO: Maybe we can convert and cache the byte array of every block state tag, which will make chunk saving faster
@@ -173,6 +211,7 @@ public final class Palette<V> {
 
         this.dirty = true;
         this.palette.clear();
+        this.reverseIndex = null;
         var version = getVersionFromPaletteHeader(header);
         readWords(byteBuf, version);
         if (version == BitArrayVersion.V0) {
@@ -185,6 +224,7 @@ public final class Palette<V> {
         for (int i = 0; i < paletteSize; i++) {
             this.palette.add(deserializer.deserialize(byteBuf));
         }
+        this.rebuildReverseIndex();
     }
 
     public void writeToStorage(ByteBuf byteBuf, IntSerializer<V> serializer, Palette<V> last) {
@@ -225,6 +265,7 @@ public final class Palette<V> {
         }
 
         this.palette.clear();
+        this.reverseIndex = null;
         var version = getVersionFromPaletteHeader(header);
         readWords(byteBuf, version);
         if (version == BitArrayVersion.V0) {
@@ -237,6 +278,7 @@ public final class Palette<V> {
         for (int i = 0; i < paletteSize; i++) {
             this.palette.add(deserializer.deserialize(byteBuf.readIntLE()));
         }
+        this.rebuildReverseIndex();
     }
 
     public boolean oneEntryOnly() {
@@ -276,6 +318,7 @@ public final class Palette<V> {
         palette.bitArray = this.bitArray.copy();
         palette.palette.clear();
         palette.palette.addAll(this.palette);
+        palette.rebuildReverseIndex();
         palette.dirty = true;
     }
 
@@ -283,30 +326,50 @@ public final class Palette<V> {
         return bitArray.version();
     }
 
+    /**
+     * Remove the unused entries from the palette and shrink the bit array if possible. The new palette,
+     * reverse index and bit array are built aside and assigned at the end, but the fields are still not
+     * replaced atomically, so this method must not be called while other threads may read this palette
+     * (for example, it should be called with the write lock of the section).
+     */
     public void compact() {
+        var oldPalette = this.palette;
+        var oldReverseIndex = this.reverseIndex;
+        var oldBitArray = this.bitArray;
+        var scratch = COMPACT_SCRATCH.get();
+        var indexes = scratch.indexes;
+        var indexMapping = scratch.indexMapping(oldPalette.size());
+
         var newPalette = new ReferenceArrayList<V>();
         // Make sure the first entry won't be changed
-        newPalette.add(palette.getFirst());
-        var indexMapping = new int[SECTION_SIZE];
-        var paletteIndex = 1;
-
+        newPalette.add(oldPalette.getFirst());
+        indexMapping[0] = 0;
         for (int index = 0; index < SECTION_SIZE; index++) {
-            var entry = get(index);
-            var newIndex = newPalette.indexOf(entry);
+            var oldIndex = oldBitArray.get(index);
+            var newIndex = indexMapping[oldIndex];
             if (newIndex == -1) {
-                newIndex = paletteIndex++;
-                newPalette.add(entry);
+                // The old palette may contain the same entry more than once, all of them are mapped to the same new index
+                var entry = oldPalette.get(oldIndex);
+                var firstOldIndex = oldReverseIndex != null ? oldReverseIndex.getInt(entry) : indexOf(oldPalette, entry);
+                newIndex = indexMapping[firstOldIndex];
+                if (newIndex == -1) {
+                    newIndex = newPalette.size();
+                    newPalette.add(entry);
+                    indexMapping[firstOldIndex] = newIndex;
+                }
+                indexMapping[oldIndex] = newIndex;
             }
-            indexMapping[index] = newIndex;
+            indexes[index] = newIndex;
         }
 
-        var newbitArray = BitArrayVersion.getMinimalVersion(paletteIndex).createArray(SECTION_SIZE);
+        var newBitArray = BitArrayVersion.getMinimalVersion(newPalette.size()).createArray(SECTION_SIZE);
         for (int index = 0; index < SECTION_SIZE; index++) {
-            newbitArray.set(index, indexMapping[index]);
+            newBitArray.set(index, indexes[index]);
         }
 
+        this.reverseIndex = createReverseIndex(newPalette);
         this.palette = newPalette;
-        this.bitArray = newbitArray;
+        this.bitArray = newBitArray;
         this.dirty = true;
     }
 
@@ -332,13 +395,12 @@ public final class Palette<V> {
     }
 
     private int paletteIndexFor(V value) {
-        var index = this.palette.indexOf(value);
+        var index = this.indexOf(value);
         if (index != -1) {
             return index;
         }
 
-        index = this.palette.size();
-        this.palette.add(value);
+        index = this.addEntry(value);
 
         var version = this.bitArray.version();
         if (index > version.maxEntryIndex) {
@@ -353,6 +415,54 @@ public final class Palette<V> {
         return index;
     }
 
+    private int indexOf(V value) {
+        if (this.reverseIndex != null) {
+            return this.reverseIndex.getInt(value);
+        }
+
+        return indexOf(this.palette, value);
+    }
+
+    private static <V> int indexOf(List<V> palette, V value) {
+        var size = palette.size();
+        for (int i = 0; i < size; i++) {
+            if (palette.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int addEntry(V value) {
+        var index = this.palette.size();
+        this.palette.add(value);
+        if (this.reverseIndex != null) {
+            this.reverseIndex.putIfAbsent(value, index);
+        } else if (index + 1 > LINEAR_SCAN_THRESHOLD) {
+            this.rebuildReverseIndex();
+        }
+        return index;
+    }
+
+    private void rebuildReverseIndex() {
+        this.reverseIndex = createReverseIndex(this.palette);
+    }
+
+    private static <V> Reference2IntOpenHashMap<V> createReverseIndex(List<V> palette) {
+        var size = palette.size();
+        if (size <= LINEAR_SCAN_THRESHOLD) {
+            return null;
+        }
+
+        var index = new Reference2IntOpenHashMap<V>(size);
+        index.defaultReturnValue(-1);
+        for (int i = 0; i < size; i++) {
+            // Keep the first index if the palette contains the same entry more than once
+            index.putIfAbsent(palette.get(i), i);
+        }
+        return index;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -364,4 +474,22 @@ public final class Palette<V> {
     public int hashCode() {
         return Objects.hashCode(palette, bitArray);
     }
-}
\ No newline at end of file
+
+    /**
+     * Reusable arrays for {@link #compact()}, so that compacting a palette does not allocate.
+     */
+    private static final class CompactScratch {
+        // New palette index of each entry in the section
+        private final int[] indexes = new int[SECTION_SIZE];
+        // Old palette index -> new palette index, -1 if not mapped yet
+        private int[] indexMapping = new int[SECTION_SIZE];
+
+        private int[] indexMapping(int paletteSize) {
+            if (this.indexMapping.length < paletteSize) {
+                this.indexMapping = new int[paletteSize];
+            }
+            Arrays.fill(this.indexMapping, 0, paletteSize, -1);
+            return this.indexMapping;
+        }
+    }
+}
@@ -38,8 +38,12 @@ import org.allaymc.server.component.annotation.ComponentObject;
 import org.allaymc.server.component.annotation.Manager;
 import org.allaymc.server.component.annotation.OnInitFinish;
 import org.allaymc.server.entity.component.event.*;
+import org.allaymc.server.network.BroadcastPacket;
 import org.allaymc.server.pdc.AllayPersistentDataContainer;
+import org.allaymc.server.player.AllayPlayer;
 import org.allaymc.server.scheduler.AllayScheduler;
+import org.allaymc.server.world.manager.AllayEntityManager;
+import org.allaymc.server.world.manager.RegionEntityTicker;
 import org.cloudburstmc.nbt.NbtMap;
 import org.cloudburstmc.nbt.NbtMapBuilder;
 import org.cloudburstmc.nbt.NbtType;
@@ -173,12 +177,14 @@ public class EntityBaseComponentImpl implements EntityBaseComponent {
 
     @Override
     public boolean trySetLocation(Location3dc newLocation) {
-        var event = new EntityMoveEvent(thisEntity, location, newLocation);
-        if (!event.call()) {
-            return false;
-        }
+        if (Server.getInstance().getEventBus().hasListeners(EntityMoveEvent.class)) {
+            var event = new EntityMoveEvent(thisEntity, location, newLocation);
+            if (!event.call()) {
+                return false;
+            }
 
-        newLocation = event.getTo();
+            newLocation = event.getTo();
+        }
         if (this.immobile) {
             // immobile entity cannot move around, but is still allowed to look around
             var loc = new Location3d(newLocation);
@@ -241,11 +247,20 @@ public class EntityBaseComponentImpl implements EntityBaseComponent {
         }
 
         this.manager.callEvent(new CEntitySetLocationEvent(location, calculateFallDistance));
+        var oldChunkX = (int) this.location.x() >> 4;
+        var oldChunkZ = (int) this.location.z() >> 4;
         this.lastLocation.set(this.location);
         this.location.set(location);
         this.location.setYaw(location.yaw());
         this.location.setPitch(location.pitch());
         this.location.setDimension(location.dimension());
+
+        var dimension = location.dimension();
+        if (dimension != null && (oldChunkX != (int) location.x() >> 4 || oldChunkZ != (int) location.z() >> 4) &&
+            dimension.getEntityManager() instanceof AllayEntityManager entityManager) {
+            // Keep the chunk index of the entity manager up to date
+            entityManager.onEntityChunkChange(thisEntity);
+        }
     }
 
     @Override
@@ -337,7 +352,15 @@ public class EntityBaseComponentImpl implements EntityBaseComponent {
             return false;
         }
 
-        target = event.getTo();
+        var finalTarget = event.getTo();
+        if (!RegionEntityTicker.defer(() -> doTeleport(finalTarget))) {
+            doTeleport(finalTarget);
+        }
+
+        return true;
+    }
+
+    protected void doTeleport(Location3dc target) {
         beforeTeleport(target);
         if (this.location.dimension() == target.dimension()) {
             // Teleporting in the current same dimension,
@@ -346,8 +369,6 @@ public class EntityBaseComponentImpl implements EntityBaseComponent {
         } else {
             teleportOverDimension(target);
         }
-
-        return true;
     }
 
     protected void beforeTeleport(Location3dc target) {
@@ -407,9 +428,26 @@ public class EntityBaseComponentImpl implements EntityBaseComponent {
     }
 
     public void broadcastMoveToViewers(Location3dc newLocation, boolean teleporting) {
-        forEachViewers(viewer -> viewer.viewEntityLocation(thisEntity, lastSentLocation, newLocation, teleporting));
+        if (viewers.isEmpty()) {
+            return;
+        }
+
+        // The packets are the same for all the viewers, so they are created and encoded only once. Every
+        // move packet is created from a copy of the location that was sent last time, since creating the
+        // packet updates the given location. The packet is not created at all if none of the viewers is
+        // a player, so the last sent location is updated after the broadcast instead
+        var locationLastSent = new Location3d(lastSentLocation);
+        BroadcastPacket.broadcast(
+                () -> AllayPlayer.createMovePacket(thisEntity, new Location3d(locationLastSent), newLocation, teleporting), viewers,
+                viewer -> viewer.viewEntityLocation(thisEntity, new Location3d(locationLastSent), newLocation, teleporting)
+        );
+        AllayPlayer.updateLocationLastSent(thisEntity, lastSentLocation, newLocation);
         if (thisEntity instanceof EntityPhysicsComponent physicsComponent) {
-            forEachViewers(viewer -> viewer.viewEntityMotion((Entity & EntityPhysicsComponent) thisEntity, physicsComponent.getMotion()));
+            var motion = physicsComponent.getMotion();
+            BroadcastPacket.broadcast(
+                    () -> AllayPlayer.createMotionPacket(thisEntity, motion), viewers,
+                    viewer -> viewer.viewEntityMotion((Entity & EntityPhysicsComponent) thisEntity, motion)
+            );
         }
     }
 
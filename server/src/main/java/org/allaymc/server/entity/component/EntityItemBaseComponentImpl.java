@@ -1,5 +1,6 @@
 package org.allaymc.server.entity.component;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.allaymc.api.entity.Entity;
@@ -11,6 +12,7 @@ import org.allaymc.api.entity.interfaces.EntityItem;
 import org.allaymc.api.item.ItemStack;
 import org.allaymc.api.utils.NBTIO;
 import org.allaymc.server.component.annotation.Dependency;
+import org.allaymc.server.world.AllayDimension;
 import org.cloudburstmc.nbt.NbtMap;
 import org.joml.primitives.AABBd;
 import org.joml.primitives.AABBdc;
@@ -29,10 +31,46 @@ public class EntityItemBaseComponentImpl extends EntityPickableBaseComponentImpl
 
     protected ItemStack itemStack;
 
+    // The location where the hoppers below were woken up last time
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    protected double lastWakeUpX = Double.NaN, lastWakeUpY = Double.NaN, lastWakeUpZ = Double.NaN;
+
     public EntityItemBaseComponentImpl(EntityInitInfo info) {
         super(info);
     }
 
+    @Override
+    public void tick(long currentTick) {
+        super.tick(currentTick);
+        wakeUpHoppers();
+    }
+
+    /**
+     * Wake up the hoppers whose pickup area contains this item entity if the item entity has moved,
+     * since the hoppers may be sleeping.
+     */
+    protected void wakeUpHoppers() {
+        var loc = getLocation();
+        if (loc.x() == lastWakeUpX && loc.y() == lastWakeUpY && loc.z() == lastWakeUpZ) {
+            return;
+        }
+
+        lastWakeUpX = loc.x();
+        lastWakeUpY = loc.y();
+        lastWakeUpZ = loc.z();
+        var dimension = (AllayDimension) loc.dimension();
+        var aabb = getOffsetAABB();
+        // The pickup area of a hopper is two blocks high
+        for (int x = (int) Math.floor(aabb.minX()); x <= (int) Math.floor(aabb.maxX()); x++) {
+            for (int z = (int) Math.floor(aabb.minZ()); z <= (int) Math.floor(aabb.maxZ()); z++) {
+                for (int y = (int) Math.floor(aabb.minY()) - 1; y <= (int) Math.floor(aabb.maxY()); y++) {
+                    dimension.wakeUpBlockEntity(x, y, z);
+                }
+            }
+        }
+    }
+
     public void setItemStack(ItemStack itemStack) {
         // Stack network id shouldn't be kept
         if (itemStack != null) {
@@ -10,19 +10,31 @@ import org.allaymc.api.server.Server;
 import org.allaymc.server.utils.ReflectionUtils;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 /**
+ * The handlers that will receive an event class, including the handlers registered for the
+ * super classes of the event class, are cached as an immutable array snapshot. The snapshots are
+ * rebuilt under the lock of the event bus when a listener is registered or unregistered, so that
+ * {@link #callEvent(Event)} and {@link #hasListeners(Class)} never need to lock.
+ *
  * @author daoge_cmd
  */
 @RequiredArgsConstructor
 public class AllayEventBus implements EventBus {
 
+    protected static final AbstractEventHandler[] EMPTY_HANDLERS = new AbstractEventHandler[0];
+    protected static final Comparator<AbstractEventHandler> PRIORITY_COMPARATOR = (h1, h2) -> Integer.compare(h2.priority, h1.priority);
+
+    // The following two maps are guarded by the lock of the event bus
     protected final Map<Class<?>, List<AbstractEventHandler>> eventClassToHandlerMap = new Object2ObjectOpenHashMap<>();
     protected final Map<Object, List<AbstractEventHandler>> listenerToHandlerMap = new Object2ObjectOpenHashMap<>();
+    protected final Map<Class<?>, HandlerSnapshot> handlerSnapshots = new ConcurrentHashMap<>();
     protected final ExecutorService asyncExecutorService;
 
     public AllayEventBus() {
@@ -54,8 +66,9 @@ public class AllayEventBus implements EventBus {
             var handlers = eventClassToHandlerMap.computeIfAbsent(eventClass, k -> new ArrayList<>());
             var handler = new MethodEventHandler(annotation.async(), annotation.priority(), eventClass, asyncExecutorService, method, listener);
             handlers.add(handler);
-            handlers.sort((h1, h2) -> Integer.compare(h2.priority, h1.priority));
+            handlers.sort(PRIORITY_COMPARATOR);
             listenerToHandlerMap.computeIfAbsent(listener, k -> new ArrayList<>()).add(handler);
+            refreshSnapshots(eventClass);
         }
     }
 
@@ -66,7 +79,10 @@ public class AllayEventBus implements EventBus {
             return;
         }
 
-        handlers.forEach(handler -> eventClassToHandlerMap.get(handler.eventClass).remove(handler));
+        handlers.forEach(handler -> {
+            eventClassToHandlerMap.get(handler.eventClass).remove(handler);
+            refreshSnapshots(handler.eventClass);
+        });
         listenerToHandlerMap.remove(listener);
     }
 
@@ -75,7 +91,8 @@ public class AllayEventBus implements EventBus {
         var handlers = eventClassToHandlerMap.computeIfAbsent(eventClass, k -> new ArrayList<>());
         var handler = new LambdaEventHandler<>(async, priority, eventClass, asyncExecutorService, eventConsumer);
         handlers.add(handler);
-        handlers.sort((h1, h2) -> Integer.compare(h2.priority, h1.priority));
+        handlers.sort(PRIORITY_COMPARATOR);
+        refreshSnapshots(eventClass);
     }
 
     @Override
@@ -85,17 +102,79 @@ public class AllayEventBus implements EventBus {
             return;
         }
 
-        handlers.removeIf(handler -> handler instanceof LambdaEventHandler<?> h && h.eventConsumer == eventConsumer);
+        if (handlers.removeIf(handler -> handler instanceof LambdaEventHandler<?> h && h.eventConsumer == eventConsumer)) {
+            refreshSnapshots(eventClass);
+        }
+    }
+
+    @Override
+    public boolean hasListeners(Class<? extends Event> eventClass) {
+        return getSnapshot(eventClass).hasListeners;
     }
 
     @Override
     public <E extends Event> E callEvent(E event) {
-        var handlers = eventClassToHandlerMap.get(event.getClass());
-        if (handlers == null || handlers.isEmpty()) {
-            return event;
+        var handlers = getSnapshot(event.getClass()).handlers;
+        for (var handler : handlers) {
+            handler.invoke(event);
         }
-
-        handlers.forEach(handler -> handler.invoke(event));
         return event;
     }
+
+    protected HandlerSnapshot getSnapshot(Class<?> eventClass) {
+        var snapshot = handlerSnapshots.get(eventClass);
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        // Build the snapshot under the lock, so that it can't miss a listener that is being registered
+        synchronized (this) {
+            return handlerSnapshots.computeIfAbsent(eventClass, clazz -> new HandlerSnapshot(collectHandlers(clazz)));
+        }
+    }
+
+    /**
+     * Rebuild the snapshots of the event class and all its subclasses. Should be called with the lock held.
+     *
+     * @param changedEventClass the event class whose handlers are changed
+     */
+    protected void refreshSnapshots(Class<?> changedEventClass) {
+        handlerSnapshots.forEach((eventClass, snapshot) -> {
+            if (changedEventClass.isAssignableFrom(eventClass)) {
+                snapshot.update(collectHandlers(eventClass));
+            }
+        });
+    }
+
+    protected AbstractEventHandler[] collectHandlers(Class<?> eventClass) {
+        var result = new ArrayList<AbstractEventHandler>();
+        for (var clazz = eventClass; clazz != null && Event.class.isAssignableFrom(clazz); clazz = clazz.getSuperclass()) {
+            var handlers = eventClassToHandlerMap.get(clazz);
+            if (handlers != null) {
+                result.addAll(handlers);
+            }
+        }
+
+        if (result.isEmpty()) {
+            return EMPTY_HANDLERS;
+        }
+
+        // The sort is stable, handlers with the same priority keep the order they are registered in
+        result.sort(PRIORITY_COMPARATOR);
+        return result.toArray(AbstractEventHandler[]::new);
+    }
+
+    protected static final class HandlerSnapshot {
+        volatile AbstractEventHandler[] handlers;
+        volatile boolean hasListeners;
+
+        HandlerSnapshot(AbstractEventHandler[] handlers) {
+            update(handlers);
+        }
+
+        void update(AbstractEventHandler[] handlers) {
+            this.handlers = handlers;
+            this.hasListeners = handlers.length != 0;
+        }
+    }
 }
@@ -13,6 +13,7 @@ import org.allaymc.api.item.creative.CreativeItemRegistry;
 import org.allaymc.api.registry.Registries;
 import org.allaymc.api.utils.Utils;
 import org.allaymc.api.utils.identifier.Identifier;
+import org.allaymc.server.network.NetworkData;
 import org.cloudburstmc.nbt.NbtMap;
 import org.cloudburstmc.nbt.NbtType;
 import org.cloudburstmc.nbt.NbtUtils;
@@ -116,11 +117,13 @@ public class AllayCreativeItemRegistry implements CreativeItemRegistry {
     CreativeItemEntry assignIndexForEntry(CreativeItemGroup group, ItemStack itemStack) {
         var entry = new CreativeItemEntry(entries.size(), group, itemStack);
         entries.add(entry);
+        NetworkData.CREATIVE_CONTENT_PACKET.invalidate();
         return entry;
     }
 
     int assignIndexForGroup(CreativeItemGroup group) {
         groups.add(group);
+        NetworkData.CREATIVE_CONTENT_PACKET.invalidate();
         return groups.size() - 1;
     }
 }
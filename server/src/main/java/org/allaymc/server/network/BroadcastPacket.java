@@ -0,0 +1,125 @@
+package org.allaymc.server.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import org.allaymc.api.server.Server;
+import org.allaymc.api.world.WorldViewer;
+import org.allaymc.server.eventbus.event.network.PacketSendEvent;
+import org.allaymc.server.player.AllayPlayer;
+import org.cloudburstmc.protocol.bedrock.BedrockSession;
+import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket;
+import org.cloudburstmc.protocol.bedrock.packet.UnknownPacket;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * BroadcastPacket holds a packet that is sent to many players at once, for example the movement of an
+ * entity or a sound. The packet is encoded once per protocol version into a reference-counted buffer,
+ * and each session receives a retained slice of the buffer which is released after being written.
+ * <p>
+ * Unlike {@link EncodedPacketCache}, a BroadcastPacket is short-lived and should only be used by the
+ * thread that created it. Call {@link #release()} after the packet is sent to all the players.
+ *
+ * @author daoge_cmd
+ */
+public final class BroadcastPacket {
+
+    private final BedrockPacket packet;
+    // Usually all the players are using the same protocol version
+    private final Int2ObjectMap<ByteBuf> encoded;
+
+    public BroadcastPacket(BedrockPacket packet) {
+        this.packet = packet;
+        this.encoded = new Int2ObjectArrayMap<>(1);
+    }
+
+    /**
+     * Send a packet to the viewers. The packet is created and encoded at most once per protocol
+     * version for the viewers that are {@link AllayPlayer}s, and the fallback is called for the
+     * other viewers.
+     * <p>
+     * If there are listeners of {@link PacketSendEvent}, a new packet is created for each player
+     * instead, so that the listeners can still modify the packet of a single player.
+     *
+     * @param factory  the factory that creates the packet
+     * @param viewers  the viewers to send the packet to
+     * @param fallback the action for the viewers that are not {@link AllayPlayer}s
+     */
+    public static void broadcast(Supplier<? extends BedrockPacket> factory, Iterable<? extends WorldViewer> viewers, Consumer<WorldViewer> fallback) {
+        if (Server.getInstance().getEventBus().hasListeners(PacketSendEvent.class)) {
+            for (var viewer : viewers) {
+                if (viewer instanceof AllayPlayer player) {
+                    player.sendPacket(factory.get());
+                } else {
+                    fallback.accept(viewer);
+                }
+            }
+            return;
+        }
+
+        BroadcastPacket broadcastPacket = null;
+        try {
+            for (var viewer : viewers) {
+                if (viewer instanceof AllayPlayer player) {
+                    if (broadcastPacket == null) {
+                        broadcastPacket = new BroadcastPacket(factory.get());
+                    }
+                    player.sendBroadcastPacket(broadcastPacket);
+                } else {
+                    fallback.accept(viewer);
+                }
+            }
+        } finally {
+            if (broadcastPacket != null) {
+                broadcastPacket.release();
+            }
+        }
+    }
+
+    /**
+     * @return the packet, which should not be modified
+     */
+    public BedrockPacket getPacket() {
+        return packet;
+    }
+
+    /**
+     * Get the encoded packet for the protocol version of the session. The packet will be encoded
+     * with the codec and codec helper of the session if it isn't encoded for this version yet.
+     *
+     * @param session the session that the packet will be sent to
+     * @return a packet that holds a retained slice of the encoded bytes, which will be released after being sent
+     */
+    public BedrockPacket getEncoded(BedrockSession session) {
+        var codec = session.getCodec();
+        var buffer = encoded.get(codec.getProtocolVersion());
+        if (buffer == null) {
+            buffer = ByteBufAllocator.DEFAULT.ioBuffer();
+            try {
+                codec.tryEncode(session.getPeer().getCodecHelper(), buffer, packet);
+            } catch (Throwable t) {
+                buffer.release();
+                throw t;
+            }
+            encoded.put(codec.getProtocolVersion(), buffer);
+        }
+
+        var unknownPacket = new UnknownPacket();
+        unknownPacket.setPacketId(codec.getPacketDefinition(packet.getClass()).getId());
+        unknownPacket.setPayload(buffer.retainedSlice());
+        return unknownPacket;
+    }
+
+    /**
+     * Release the encoded buffers. The slices that are already handed to the sessions are not affected.
+     */
+    public void release() {
+        for (var buffer : encoded.values()) {
+            buffer.release();
+        }
+        encoded.clear();
+    }
+}
@@ -0,0 +1,97 @@
+package org.allaymc.server.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import org.cloudburstmc.protocol.bedrock.BedrockSession;
+import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket;
+import org.cloudburstmc.protocol.bedrock.packet.UnknownPacket;
+
+import java.util.function.Supplier;
+
+/**
+ * EncodedPacketCache memoizes a packet that is the same for every player, together with the encoded
+ * bytes of the packet for each protocol version, so that the packet is only serialized once per
+ * protocol version no matter how many players it is sent to.
+ * <p>
+ * The encoded bytes are sent through an {@link UnknownPacket}, which is written into the batch as is.
+ * Call {@link #invalidate()} if the data used to build the packet is changed, and the packet will be
+ * built and encoded again the next time it is used.
+ *
+ * @author daoge_cmd
+ */
+public final class EncodedPacketCache<T extends BedrockPacket> implements Supplier<T> {
+
+    private final Supplier<T> factory;
+    private volatile Entry<T> entry;
+
+    public EncodedPacketCache(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Get the cached packet, the packet will be built if it isn't built yet.
+     *
+     * @return the cached packet, which should not be modified
+     */
+    @Override
+    public T get() {
+        return getEntry().packet();
+    }
+
+    /**
+     * Get the encoded packet for the protocol version of the session. The packet will be encoded
+     * with the codec and codec helper of the session if it isn't encoded for this version yet.
+     *
+     * @param session the session that the packet will be sent to
+     * @return a packet that contains the encoded bytes and can be sent to the session directly
+     */
+    public BedrockPacket getEncoded(BedrockSession session) {
+        var current = getEntry();
+        var codec = session.getCodec();
+        var encoded = current.encoded().get(codec.getProtocolVersion());
+        if (encoded == null) {
+            synchronized (current) {
+                encoded = current.encoded().get(codec.getProtocolVersion());
+                if (encoded == null) {
+                    var buffer = Unpooled.buffer();
+                    codec.tryEncode(session.getPeer().getCodecHelper(), buffer, current.packet());
+                    // The buffer is shared by all sessions and will be freed by gc
+                    encoded = Unpooled.unreleasableBuffer(buffer.asReadOnly());
+                    current.encoded().put(codec.getProtocolVersion(), encoded);
+                }
+            }
+        }
+
+        var packet = new UnknownPacket();
+        packet.setPacketId(codec.getPacketDefinition(current.packet().getClass()).getId());
+        packet.setPayload(encoded.duplicate());
+        return packet;
+    }
+
+    /**
+     * Drop the cached packet and the encoded bytes.
+     */
+    public void invalidate() {
+        entry = null;
+    }
+
+    private Entry<T> getEntry() {
+        var current = entry;
+        if (current == null) {
+            synchronized (this) {
+                current = entry;
+                if (current == null) {
+                    current = new Entry<>(factory.get(), Int2ObjectMaps.synchronize(new Int2ObjectOpenHashMap<>()));
+                    entry = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private record Entry<T>(T packet, Int2ObjectMap<ByteBuf> encoded) {
+    }
+}
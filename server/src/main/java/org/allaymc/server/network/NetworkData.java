@@ -1,6 +1,8 @@
 package org.allaymc.server.network;
 
 import com.google.common.base.Suppliers;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import lombok.experimental.UtilityClass;
 import org.allaymc.api.item.ItemStack;
 import org.allaymc.api.item.recipe.*;
@@ -8,6 +10,7 @@ import org.allaymc.api.pack.Pack;
 import org.allaymc.api.pack.PackManifest;
 import org.allaymc.api.registry.Registries;
 import org.allaymc.api.utils.Utils;
+import org.allaymc.api.utils.identifier.Identifier;
 import org.allaymc.server.AllayServer;
 import org.allaymc.server.item.recipe.ComplexRecipe;
 import org.allaymc.server.registry.InternalRegistries;
@@ -39,6 +42,9 @@ import java.util.stream.Collectors;
  * These suppliers lazily compute and cache the results of their respective encoding operations,
  * simplifying access to precomputed data structures for use in other parts of the application.
  * <p>
+ * The large packets that are sent to every joining player are held by {@link EncodedPacketCache},
+ * which also caches their serialized bytes per protocol version.
+ * <p>
  * This class serves purposes such as defining items, blocks, experiments, crafting data,
  * biome definitions, and resource pack information. The encoded data is typically used
  * for network communication with clients.
@@ -55,16 +61,25 @@ public final class NetworkData {
     public static final Supplier<List<BlockDefinition>> BLOCK_DEFINITIONS = Suppliers.memoize(NetworkData::encodeBlockDefinitions);
     public static final Supplier<List<ExperimentData>> EXPERIMENT_DATA_LIST = Suppliers.memoize(NetworkData::encodeExperimentDataList);
 
-    public static final Supplier<ItemComponentPacket> ITEM_REGISTRY_PACKET = Suppliers.memoize(NetworkData::encodeItemRegistryPacket);
-    public static final Supplier<CreativeContentPacket> CREATIVE_CONTENT_PACKET = Suppliers.memoize(NetworkData::encodeCreativeContentPacket);
-    public static final Supplier<CraftingDataPacket> CRAFTING_DATA_PACKET = Suppliers.memoize(NetworkData::encodeCraftingDataPacket);
-    public static final Supplier<AvailableEntityIdentifiersPacket> AVAILABLE_ENTITY_IDENTIFIERS_PACKET = Suppliers.memoize(NetworkData::encodeAvailableEntityIdentifiersPacket);
-    public static final Supplier<BiomeDefinitionListPacket> BIOME_DEFINITION_LIST_PACKET = Suppliers.memoize(NetworkData::encodeBiomeDefinitionListPacket);
+    public static final EncodedPacketCache<ItemComponentPacket> ITEM_REGISTRY_PACKET = new EncodedPacketCache<>(NetworkData::encodeItemRegistryPacket);
+    public static final EncodedPacketCache<CreativeContentPacket> CREATIVE_CONTENT_PACKET = new EncodedPacketCache<>(NetworkData::encodeCreativeContentPacket);
+    public static final EncodedPacketCache<CraftingDataPacket> CRAFTING_DATA_PACKET = new EncodedPacketCache<>(NetworkData::encodeCraftingDataPacket);
+    public static final EncodedPacketCache<AvailableEntityIdentifiersPacket> AVAILABLE_ENTITY_IDENTIFIERS_PACKET = new EncodedPacketCache<>(NetworkData::encodeAvailableEntityIdentifiersPacket);
+    public static final EncodedPacketCache<BiomeDefinitionListPacket> BIOME_DEFINITION_LIST_PACKET = new EncodedPacketCache<>(NetworkData::encodeBiomeDefinitionListPacket);
     public static final Supplier<ResourcePacksInfoPacket> RESOURCE_PACKS_INFO_PACKET = Suppliers.memoize(NetworkData::encodeResourcePacksInfoPacket);
     public static final Supplier<ResourcePackStackPacket> RESOURCES_PACK_STACK_PACKET = Suppliers.memoize(NetworkData::encodeResourcesPackStackPacket);
-    public static final Supplier<TrimDataPacket> TRIM_DATA_PACKET = Suppliers.memoize(NetworkData::encodeTrimDataPacket);
+    public static final EncodedPacketCache<TrimDataPacket> TRIM_DATA_PACKET = new EncodedPacketCache<>(NetworkData::encodeTrimDataPacket);
+
+    /**
+     * The recipes that have a network id, the index of a recipe in this list is its network id minus one.
+     * The list is replaced when {@link #CRAFTING_DATA_PACKET} is built again. The slot of a recipe that
+     * was removed is {@code null}.
+     */
+    public static volatile List<Recipe> INDEXED_RECIPES = new ArrayList<>();
 
-    public static final List<Recipe> INDEXED_RECIPES = new ArrayList<>();
+    // Recipe identifier -> network id. Ids are never reused or moved, so that the ids known by
+    // the players who received an older crafting data packet still point to the same recipes
+    private static final Object2IntMap<Identifier> RECIPE_NETWORK_IDS = new Object2IntOpenHashMap<>();
 
     public static List<ItemDefinition> encodeItemDefinitions() {
         return Registries.ITEMS.getContent().values().stream().map(NetworkHelper::toNetwork).toList();
@@ -120,15 +135,15 @@ public final class NetworkData {
         return packet;
     }
 
-    private static CraftingDataPacket encodeCraftingDataPacket() {
+    private static synchronized CraftingDataPacket encodeCraftingDataPacket() {
         var packet = new CraftingDataPacket();
-        // NOTICE: network id is start at 1
-        int idCounter = 1;
+        // Recipes that are not registered anymore leave a null slot behind
+        var indexedRecipes = new ArrayList<Recipe>(Collections.nCopies(RECIPE_NETWORK_IDS.size(), null));
         for (var recipe : Registries.RECIPES.getContent().values()) {
             switch (recipe) {
                 // Indexed recipe (has network id)
                 case ShapedRecipe shaped -> {
-                    var id = idCounter++;
+                    var id = assignNetworkId(recipe, indexedRecipes);
                     var data = ShapedRecipeData.of(
                             CraftingDataType.SHAPED, shaped.getIdentifier().toString(),
                             shaped.getPattern()[0].length, shaped.getPattern().length,
@@ -136,10 +151,9 @@ public final class NetworkData {
                             UUID.randomUUID(), "crafting_table", shaped.getPriority(), id
                     );
                     packet.getCraftingData().add(data);
-                    NetworkData.INDEXED_RECIPES.add(recipe);
                 }
                 case ShapelessRecipe shapeless -> {
-                    var id = idCounter++;
+                    var id = assignNetworkId(recipe, indexedRecipes);
                     var data = ShapelessRecipeData.of(
                             CraftingDataType.SHAPELESS, shapeless.getIdentifier().toString(),
                             buildNetworkIngredients(shapeless), buildNetworkOutputs(shapeless.getOutputs()),
@@ -152,10 +166,9 @@ public final class NetworkData {
                             shapeless.getPriority(), id
                     );
                     packet.getCraftingData().add(data);
-                    NetworkData.INDEXED_RECIPES.add(recipe);
                 }
                 case SmithingTransformRecipe smithingTrans -> {
-                    var id = idCounter++;
+                    var id = assignNetworkId(recipe, indexedRecipes);
                     var data = SmithingTransformRecipeData.of(
                             smithingTrans.getIdentifier().toString(),
                             NetworkHelper.toNetworkWithCount(smithingTrans.getTemplate()),
@@ -165,10 +178,9 @@ public final class NetworkData {
                             "smithing_table", id
                     );
                     packet.getCraftingData().add(data);
-                    NetworkData.INDEXED_RECIPES.add(recipe);
                 }
                 case SmithingTrimRecipe smithingTrim -> {
-                    var id = idCounter++;
+                    var id = assignNetworkId(recipe, indexedRecipes);
                     var data = SmithingTrimRecipeData.of(
                             smithingTrim.getIdentifier().toString(),
                             NetworkHelper.toNetworkWithCount(smithingTrim.getBase()),
@@ -177,13 +189,11 @@ public final class NetworkData {
                             "smithing_table", id
                     );
                     packet.getCraftingData().add(data);
-                    NetworkData.INDEXED_RECIPES.add(recipe);
                 }
                 case ComplexRecipe complex -> {
-                    var id = idCounter++;
+                    var id = assignNetworkId(recipe, indexedRecipes);
                     var data = MultiRecipeData.of(complex.getUuid(), id);
                     packet.getCraftingData().add(data);
-                    NetworkData.INDEXED_RECIPES.add(recipe);
                 }
                 // Unindexed recipe (doesn't have network id)
                 case FurnaceRecipe furnace -> {
@@ -206,9 +216,23 @@ public final class NetworkData {
             }
         }
         packet.setCleanRecipes(true);
+        NetworkData.INDEXED_RECIPES = indexedRecipes;
         return packet;
     }
 
+    private static int assignNetworkId(Recipe recipe, List<Recipe> indexedRecipes) {
+        var identifier = recipe.getIdentifier();
+        var id = RECIPE_NETWORK_IDS.getInt(identifier);
+        if (id == 0) {
+            // NOTICE: network id is start at 1
+            id = RECIPE_NETWORK_IDS.size() + 1;
+            RECIPE_NETWORK_IDS.put(identifier, id);
+            indexedRecipes.add(null);
+        }
+        indexedRecipes.set(id - 1, recipe);
+        return id;
+    }
+
     private static List<ItemData> buildNetworkOutputs(ItemStack[] shaped) {
         return Arrays.stream(shaped).map(NetworkHelper::toNetwork).toList();
     }
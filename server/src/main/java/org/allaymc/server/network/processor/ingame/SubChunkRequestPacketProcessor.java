@@ -9,6 +9,9 @@ import org.allaymc.api.player.Player;
 import org.allaymc.api.world.chunk.OperationType;
 import org.allaymc.api.world.data.DimensionInfo;
 import org.allaymc.server.network.processor.PacketProcessor;
+import org.allaymc.server.player.AllayPlayer;
+import org.allaymc.server.player.ClientBlobCache;
+import org.allaymc.server.utils.XXHash64;
 import org.allaymc.server.world.chunk.AllayChunkSection;
 import org.allaymc.server.world.chunk.ChunkEncoder;
 import org.cloudburstmc.math.vector.Vector3i;
@@ -44,21 +47,24 @@ public class SubChunkRequestPacketProcessor extends PacketProcessor<SubChunkRequ
             return PacketSignal.HANDLED;
         }
 
+        var allayPlayer = (AllayPlayer) player;
+        var blobCache = allayPlayer.isClientCacheEnabled() ? allayPlayer.getClientBlobCache() : null;
         var centerPosition = packet.getSubChunkPosition();
         var responseData = new ArrayList<SubChunkData>(packet.getPositionOffsets().size());
         for (var offset : packet.getPositionOffsets()) {
-            responseData.add(createSubChunkDataForPlayer(player, dimensionInfo, centerPosition, offset));
+            responseData.add(createSubChunkDataForPlayer(player, blobCache, dimensionInfo, centerPosition, offset));
         }
 
         var subChunkPacket = new SubChunkPacket();
         subChunkPacket.setDimension(packet.getDimension());
         subChunkPacket.setCenterPosition(centerPosition);
+        subChunkPacket.setCacheEnabled(blobCache != null);
         subChunkPacket.setSubChunks(responseData);
         player.sendPacket(subChunkPacket);
         return PacketSignal.HANDLED;
     }
 
-    private SubChunkData createSubChunkDataForPlayer(Player player, DimensionInfo dimensionInfo, Vector3i center, Vector3i offset) {
+    private SubChunkData createSubChunkDataForPlayer(Player player, ClientBlobCache blobCache, DimensionInfo dimensionInfo, Vector3i center, Vector3i offset) {
         var entity = player.getControlledEntity();
         var subChunkData = new SubChunkData();
         subChunkData.setPosition(offset);
@@ -137,7 +143,16 @@ public class SubChunkRequestPacketProcessor extends PacketProcessor<SubChunkRequ
                 subChunkData.setResult(SubChunkRequestResult.SUCCESS);
 
                 var buffer = ByteBufAllocator.DEFAULT.ioBuffer();
-                ChunkEncoder.writeToNetwork(subChunk, buffer);
+                if (blobCache != null) {
+                    // The sub chunk is sent as a blob, only block entities are left in the payload
+                    var blob = ByteBufAllocator.DEFAULT.ioBuffer();
+                    ChunkEncoder.writeToNetwork(subChunk, blob);
+                    var blobId = XXHash64.hash(blob);
+                    subChunkData.setBlobId(blobId);
+                    blobCache.addPendingBlob(blobId, blob);
+                } else {
+                    ChunkEncoder.writeToNetwork(subChunk, buffer);
+                }
 
                 var blockEntities = chunk.getSectionBlockEntities(sectionY);
                 if (!blockEntities.isEmpty()) {
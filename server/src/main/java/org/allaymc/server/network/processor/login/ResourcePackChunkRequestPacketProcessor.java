@@ -34,7 +34,8 @@ public class ResourcePackChunkRequestPacketProcessor extends ILoginPacketProcess
         packet.setPackId(pack.getId());
         packet.setPackVersion(pack.getStringVersion());
         packet.setChunkIndex(chunkIndex);
-        packet.setData(Unpooled.wrappedBuffer(pack.getChunk(chunkSize * chunkIndex, chunkSize)));
+        // Wrap the slice of the pack directly, the data is written to the network without being copied to the heap
+        packet.setData(Unpooled.wrappedBuffer(pack.sliceChunk(chunkSize * chunkIndex, chunkSize)));
         packet.setProgress((long) chunkSize * chunkIndex);
         return packet;
     }
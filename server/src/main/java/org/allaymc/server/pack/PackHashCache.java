@@ -0,0 +1,97 @@
+package org.allaymc.server.pack;
+
+import com.google.gson.reflect.TypeToken;
+import lombok.extern.slf4j.Slf4j;
+import org.allaymc.server.utils.JSONUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A disk cache for the SHA-256 hashes of pack files. The hash of a pack file is only calculated again
+ * if the size or the last modified time of the file is changed, so that the packs don't need to be
+ * hashed every time the server starts.
+ *
+ * @author daoge_cmd
+ */
+@Slf4j
+public final class PackHashCache {
+
+    private static final Path CACHE_FILE = Path.of("resource_packs", "pack_hashes.json");
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static volatile boolean changed;
+
+    /**
+     * Load the cached hashes from the disk. Should be called before the packs are loaded.
+     */
+    public static void load() {
+        ENTRIES.clear();
+        changed = false;
+        if (!Files.exists(CACHE_FILE)) {
+            return;
+        }
+
+        try {
+            Map<String, Entry> entries = JSONUtils.from(CACHE_FILE.toFile(), new TypeToken<Map<String, Entry>>() {});
+            if (entries != null) {
+                ENTRIES.putAll(entries);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load the pack hash cache, all packs will be hashed again", e);
+        }
+    }
+
+    /**
+     * Save the cached hashes to the disk if they are changed. Should be called after the packs are loaded.
+     */
+    public static void save() {
+        if (!changed) {
+            return;
+        }
+
+        try {
+            JSONUtils.toFile(CACHE_FILE.toString(), new TreeMap<>(ENTRIES));
+            changed = false;
+        } catch (Exception e) {
+            log.warn("Failed to save the pack hash cache", e);
+        }
+    }
+
+    /**
+     * Get the SHA-256 hash of a pack file, the hash will be calculated and cached if the file
+     * isn't cached or has been changed since it was cached.
+     *
+     * @param path   the path of the pack file
+     * @param hasher the function that calculates the hash of the pack file
+     * @return the hash
+     */
+    public static byte[] getOrCompute(Path path, Supplier<byte[]> hasher) {
+        long size, lastModified;
+        try {
+            size = Files.size(path);
+            lastModified = Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            throw new ResourcePackException(e);
+        }
+
+        var key = path.toAbsolutePath().normalize().toString();
+        var entry = ENTRIES.get(key);
+        if (entry != null && entry.size() == size && entry.lastModified() == lastModified) {
+            return HexFormat.of().parseHex(entry.hash());
+        }
+
+        var hash = hasher.get();
+        ENTRIES.put(key, new Entry(size, lastModified, HexFormat.of().formatHex(hash)));
+        changed = true;
+        return hash;
+    }
+
+    private record Entry(long size, long lastModified, String hash) {
+    }
+}
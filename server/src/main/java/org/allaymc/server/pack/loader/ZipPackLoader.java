@@ -2,16 +2,20 @@ package org.allaymc.server.pack.loader;
 
 import lombok.SneakyThrows;
 import org.allaymc.api.pack.PackLoader;
+import org.allaymc.server.pack.PackHashCache;
 import org.allaymc.server.pack.PackUtils;
 import org.allaymc.server.pack.ResourcePackException;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 
 /**
@@ -58,6 +62,21 @@ public class ZipPackLoader implements PackLoader {
         }
     }
 
+    @Override
+    public ByteBuffer mapAllBytes() {
+        try (var channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new ResourcePackException(e);
+        }
+    }
+
+    @Override
+    public byte[] computeHash(ByteBuffer content) {
+        return PackHashCache.getOrCompute(this.path, () -> PackLoader.super.computeHash(content));
+    }
+
     @Override
     public String getContentKey() {
         var keyFilePath = path.getParent().resolve(path.getFileName() + ".key");
@@ -5,6 +5,7 @@ import lombok.NoArgsConstructor;
 import org.allaymc.api.player.PlayerData;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author daoge_cmd
@@ -15,13 +16,14 @@ public class AllayEmptyPlayerStorage extends AllayPlayerStorage {
     public static final AllayEmptyPlayerStorage INSTANCE = new AllayEmptyPlayerStorage();
 
     @Override
-    public PlayerData readPlayerData(UUID uuid) {
-        return PlayerData.createEmpty();
+    public CompletableFuture<PlayerData> readPlayerData(UUID uuid) {
+        return CompletableFuture.completedFuture(PlayerData.createEmpty());
     }
 
     @Override
-    public void savePlayerData(UUID uuid, PlayerData playerData) {
+    public CompletableFuture<Void> savePlayerData(UUID uuid, PlayerData playerData) {
         // Do nothing
+        return CompletableFuture.completedFuture(null);
     }
 
     @Override
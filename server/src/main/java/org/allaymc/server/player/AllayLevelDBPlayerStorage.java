@@ -0,0 +1,90 @@
+package org.allaymc.server.player;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.allaymc.api.player.PlayerData;
+import org.allaymc.api.utils.AllayNBTUtils;
+import org.iq80.leveldb.CompressionType;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.Options;
+import org.iq80.leveldb.WriteOptions;
+import org.iq80.leveldb.impl.Iq80DBFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stores the data of all players in a single LevelDB database. Each batch is written in a single
+ * {@link org.iq80.leveldb.WriteBatch} and synced to the disk once.
+ *
+ * @author daoge_cmd
+ */
+@Slf4j
+public class AllayLevelDBPlayerStorage extends AllayWriteBehindPlayerStorage {
+
+    protected static final WriteOptions SYNC_WRITE = new WriteOptions().sync(true);
+
+    protected final DB db;
+
+    @SneakyThrows
+    public AllayLevelDBPlayerStorage(Path path) {
+        super("Player Storage");
+        this.db = new Iq80DBFactory().open(path.toFile(), new Options().createIfMissing(true).compressionType(CompressionType.ZLIB_RAW));
+    }
+
+    @Override
+    protected PlayerData readPlayerDataSync(UUID uuid) {
+        var bytes = db.get(toKey(uuid));
+        if (bytes == null) {
+            return PlayerData.createEmpty();
+        }
+
+        try {
+            return PlayerData.fromNBT(AllayNBTUtils.bytesToNbtLE(bytes));
+        } catch (Throwable e) {
+            log.error("Error while reading player data {}", uuid, e);
+            return PlayerData.createEmpty();
+        }
+    }
+
+    @Override
+    protected void writePlayerDataSync(Map<UUID, PlayerData> playerData) throws IOException {
+        try (var batch = db.createWriteBatch()) {
+            playerData.forEach((uuid, data) -> batch.put(toKey(uuid), AllayNBTUtils.nbtToBytesLE(data.toNBT())));
+            db.write(batch, SYNC_WRITE);
+        }
+    }
+
+    @Override
+    protected boolean removePlayerDataSync(UUID uuid) {
+        var key = toKey(uuid);
+        if (db.get(key) == null) {
+            return false;
+        }
+
+        db.delete(key, SYNC_WRITE);
+        return true;
+    }
+
+    @Override
+    protected boolean hasPlayerDataSync(UUID uuid) {
+        return db.get(toKey(uuid)) != null;
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        try {
+            db.close();
+        } catch (IOException e) {
+            log.error("Error while closing player database", e);
+        }
+    }
+
+    protected static byte[] toKey(UUID uuid) {
+        return ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+    }
+}
@@ -6,29 +6,57 @@ import org.allaymc.api.player.PlayerData;
 import org.cloudburstmc.nbt.NbtMap;
 import org.cloudburstmc.nbt.NbtUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
 import java.util.UUID;
 
 /**
+ * Stores the data of each player in a GZIP nbt file.
+ * <p>
+ * The data is written into a temporary file and synced to the disk first, and then the temporary
+ * file is atomically moved to replace the old file, so a crash never leaves a truncated file. The
+ * directory is synced once for each batch.
+ *
  * @author daoge_cmd
  */
 @Slf4j
-public class AllayNBTFilePlayerStorage extends AllayPlayerStorage {
+public class AllayNBTFilePlayerStorage extends AllayWriteBehindPlayerStorage {
+
+    protected static final String TMP_FILE_SUFFIX = ".nbt.tmp";
+    // Left by the older versions which renamed the current file before writing the new one
+    protected static final String OLD_FILE_SUFFIX = "_old.nbt";
+
     protected Path dataFolderPath;
 
     @SneakyThrows
     public AllayNBTFilePlayerStorage(Path dataFolderPath) {
+        super("Player Storage");
         this.dataFolderPath = dataFolderPath;
         if (!Files.exists(dataFolderPath)) Files.createDirectory(dataFolderPath);
+        deleteTmpFiles();
     }
 
     @Override
-    public PlayerData readPlayerData(UUID uuid) {
+    protected PlayerData readPlayerDataSync(UUID uuid) {
         var path = buildPlayerDataFilePath(uuid);
-        if (!Files.exists(path)) return PlayerData.createEmpty();
+        if (!Files.exists(path)) {
+            var oldPath = path.resolveSibling(uuid + OLD_FILE_SUFFIX);
+            if (!Files.exists(oldPath)) return PlayerData.createEmpty();
+
+            // The server crashed while writing the file in the older versions
+            log.warn("Player data {} is recovered from the undeleted old file", uuid);
+            path = oldPath;
+        }
 
-        try (var reader = NbtUtils.createGZIPReader(Files.newInputStream(path))) {
+        try (var reader = NbtUtils.createGZIPReader(new ByteArrayInputStream(Files.readAllBytes(path)))) {
             return PlayerData.fromNBT((NbtMap) reader.readTag());
         } catch (Throwable e) {
             log.error("Error while reading player data {}", uuid, e);
@@ -36,48 +64,70 @@ public class AllayNBTFilePlayerStorage extends AllayPlayerStorage {
         }
     }
 
-    @SneakyThrows
     @Override
-    public void savePlayerData(UUID uuid, PlayerData playerData) {
-        var path = buildPlayerDataFilePath(uuid);
-
-        var oldPath = path.resolveSibling(uuid + "_old.nbt");
-        if (Files.exists(oldPath)) {
-            // The old file
-            log.warn("Undeleted tmp player data file is found, which may caused by incorrect shutdown. File: {}", oldPath);
-            Files.delete(oldPath);
-        }
+    protected void writePlayerDataSync(Map<UUID, PlayerData> playerData) {
+        for (var entry : playerData.entrySet()) {
+            var uuid = entry.getKey();
+            var path = buildPlayerDataFilePath(uuid);
+            var tmpPath = path.resolveSibling(uuid + TMP_FILE_SUFFIX);
+            try {
+                var bytes = new ByteArrayOutputStream();
+                try (var writer = NbtUtils.createGZIPWriter(bytes)) {
+                    writer.writeTag(entry.getValue().toNBT());
+                }
 
-        // Rename current file to uuid_old.nbt
-        var currentFileExists = Files.exists(path);
-        if (currentFileExists) Files.move(path, oldPath);
+                try (var channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    var buffer = ByteBuffer.wrap(bytes.toByteArray());
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    // The data must reach the disk before the file is renamed
+                    channel.force(true);
+                }
 
-        try (var writer = NbtUtils.createGZIPWriter(Files.newOutputStream(path))) {
-            writer.writeTag(playerData.toNBT());
-        } catch (Throwable e) {
-            if (currentFileExists) {
-                // error, rename uuid_old.nbt file to uuid.nbt
-                Files.move(oldPath, path);
+                Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Files.deleteIfExists(path.resolveSibling(uuid + OLD_FILE_SUFFIX));
+            } catch (Throwable e) {
+                log.error("Error while writing player data {}", uuid, e);
             }
-            log.error("Error while writing player data {}", uuid, e);
         }
 
-        // delete uuid_old.nbt file
-        Files.deleteIfExists(oldPath);
+        syncDataFolder();
     }
 
     @SneakyThrows
     @Override
-    public boolean removePlayerData(UUID uuid) {
+    protected boolean removePlayerDataSync(UUID uuid) {
         return Files.deleteIfExists(buildPlayerDataFilePath(uuid));
     }
 
     @Override
-    public boolean hasPlayerData(UUID uuid) {
+    protected boolean hasPlayerDataSync(UUID uuid) {
         return Files.exists(buildPlayerDataFilePath(uuid));
     }
 
     protected Path buildPlayerDataFilePath(UUID uuid) {
         return dataFolderPath.resolve(uuid.toString() + ".nbt");
     }
+
+    protected void syncDataFolder() {
+        // Make the renames durable. Directories can't be opened on some platforms (for example, Windows), in
+        // which case the renames are made durable by the file system itself
+        try (var channel = FileChannel.open(dataFolderPath, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    protected void deleteTmpFiles() throws IOException {
+        try (var files = Files.list(dataFolderPath)) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(TMP_FILE_SUFFIX)) {
+                    // The server crashed while writing the file, and the complete data is still in the original file
+                    log.warn("Incomplete player data file is found, which may be caused by incorrect shutdown. File: {}", file);
+                    Files.delete(file);
+                }
+            }
+        }
+    }
 }
@@ -6,6 +6,8 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import it.unimi.dsi.fastutil.bytes.Byte2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import lombok.Getter;
@@ -96,6 +98,8 @@ import org.allaymc.server.entity.component.player.EntityPlayerBaseComponentImpl;
 import org.allaymc.server.entity.impl.EntityPlayerImpl;
 import org.allaymc.server.eventbus.event.network.PacketReceiveEvent;
 import org.allaymc.server.eventbus.event.network.PacketSendEvent;
+import org.allaymc.server.network.BroadcastPacket;
+import org.allaymc.server.network.EncodedPacketCache;
 import org.allaymc.server.network.NetworkData;
 import org.allaymc.server.network.NetworkHelper;
 import org.allaymc.server.network.ProtocolInfo;
@@ -107,6 +111,7 @@ import org.allaymc.server.world.AllayDimension;
 import org.allaymc.server.world.AllayWorld;
 import org.allaymc.server.world.chunk.AllayUnsafeChunk;
 import org.allaymc.server.world.chunk.ChunkEncoder;
+import org.allaymc.server.world.chunk.ChunkPacketCache;
 import org.cloudburstmc.math.vector.Vector2f;
 import org.cloudburstmc.math.vector.Vector3f;
 import org.cloudburstmc.math.vector.Vector3i;
@@ -184,6 +189,11 @@ public class AllayPlayer implements Player {
 
     protected final PacketProcessorHolder packetProcessorHolder;
     protected final AtomicInteger fullyJoinChunkThreshold;
+    /**
+     * The player data that is read when the player spawns, which will be loaded by the player entity after
+     * the player fully joins. Will be cleared after being loaded.
+     */
+    protected volatile PlayerData joinPlayerData;
     @Getter
     protected final BedrockServerSession session;
 
@@ -198,6 +208,8 @@ public class AllayPlayer implements Player {
     @Getter
     @Setter
     protected boolean clientCacheEnabled;
+    @Getter
+    protected final ClientBlobCache clientBlobCache;
     protected boolean shouldSendCommands;
     @Getter
     @Setter
@@ -232,6 +244,7 @@ public class AllayPlayer implements Player {
         this.speed = DEFAULT_SPEED;
         this.flySpeed = DEFAULT_FLY_SPEED;
         this.verticalFlySpeed = DEFAULT_VERTICAL_FLY_SPEED;
+        this.clientBlobCache = new ClientBlobCache();
 
         // Container
         this.containerIdCounter = 1;
@@ -252,17 +265,25 @@ public class AllayPlayer implements Player {
         this.hiddenHudElements = EnumSet.noneOf(HudElement.class);
     }
 
-    public static LevelChunkPacket createSubChunkLevelChunkPacket(AllayUnsafeChunk chunk) {
+    public static LevelChunkPacket createSubChunkLevelChunkPacket(AllayUnsafeChunk chunk, ChunkPacketCache cache, ClientBlobCache blobCache) {
         var dimensionInfo = chunk.getDimensionInfo();
         var packet = new LevelChunkPacket();
         packet.setDimension(dimensionInfo.dimensionId());
         packet.setChunkX(chunk.getX());
         packet.setChunkZ(chunk.getZ());
-        packet.setCachingEnabled(false);
         packet.setRequestSubChunks(true);
         // NOTICE: Sub chunk limit is bigger than zero
         packet.setSubChunkLimit(findHighestNonAirSectionY(chunk) - dimensionInfo.minSectionY());
-        packet.setData(ChunkEncoder.writeToNetworkBiomeOnly(chunk));
+        var blobs = blobCache != null ? cache.getChunkBlobs(chunk, true) : null;
+        if (blobs != null) {
+            packet.setCachingEnabled(true);
+            addBlobIds(packet, blobs, blobCache);
+            // Biomes are sent as a blob, only the border block count is left
+            packet.setData(Unpooled.wrappedBuffer(new byte[]{0}));
+        } else {
+            packet.setCachingEnabled(false);
+            packet.setData(cache.getBiomeOnlyChunkData(chunk));
+        }
         return packet;
     }
 
@@ -277,19 +298,37 @@ public class AllayPlayer implements Player {
         return dimensionInfo.minSectionY();
     }
 
-    public static LevelChunkPacket createFullLevelChunkPacketChunk(AllayUnsafeChunk chunk) {
+    public static LevelChunkPacket createFullLevelChunkPacketChunk(AllayUnsafeChunk chunk, ChunkPacketCache cache, ClientBlobCache blobCache) {
         var dimensionInfo = chunk.getDimensionInfo();
         var packet = new LevelChunkPacket();
         packet.setDimension(dimensionInfo.dimensionId());
         packet.setChunkX(chunk.getX());
         packet.setChunkZ(chunk.getZ());
-        packet.setCachingEnabled(false);
         packet.setRequestSubChunks(false);
         packet.setSubChunksLength(dimensionInfo.chunkSectionCount());
-        packet.setData(ChunkEncoder.writeToNetwork(chunk));
+        var blobs = blobCache != null ? cache.getChunkBlobs(chunk, false) : null;
+        if (blobs != null) {
+            packet.setCachingEnabled(true);
+            addBlobIds(packet, blobs, blobCache);
+            // Sub chunks and biomes are sent as blobs, only the border block count and block entities are left
+            var data = ByteBufAllocator.DEFAULT.ioBuffer();
+            data.writeByte(0);
+            ChunkEncoder.writeBlockEntities(chunk, data);
+            packet.setData(data);
+        } else {
+            packet.setCachingEnabled(false);
+            packet.setData(cache.getFullChunkData(chunk));
+        }
         return packet;
     }
 
+    private static void addBlobIds(LevelChunkPacket packet, ChunkPacketCache.Blobs blobs, ClientBlobCache blobCache) {
+        for (var blobId : blobs.ids()) {
+            packet.getBlobIds().add(blobId);
+        }
+        blobCache.addPendingBlobs(blobs);
+    }
+
     protected static int toNetworkBreakTime(double breakTime) {
         return breakTime == 0 ? 65535 : (int) (65535 / (breakTime * 20));
     }
@@ -333,7 +372,9 @@ public class AllayPlayer implements Player {
         var playerManager = server.getPlayerManager();
         var world = this.controlledEntity.getWorld();
 
-        this.controlledEntity.loadNBT(playerManager.getPlayerStorage().readPlayerData(this).getNbt());
+        // The player data is already read when the player spawns, so no need to read it again in the world thread
+        this.controlledEntity.loadNBT(this.joinPlayerData.getNbt());
+        this.joinPlayerData = null;
 
         viewEntityState(this.controlledEntity);
         viewPlayerGameMode(this.controlledEntity);
@@ -463,41 +504,49 @@ public class AllayPlayer implements Player {
 
     @Override
     public void viewEntityLocation(Entity entity, Location3d locationLastSent, Location3dc newLocation, boolean teleporting) {
-        BedrockPacket packet;
+        sendPacket(createMovePacket(entity, locationLastSent, newLocation, teleporting));
+    }
+
+    /**
+     * Create the packet that moves an entity on the client side. The packet doesn't depend on the viewer,
+     * so it can be created once and broadcast to all the viewers of the entity.
+     *
+     * @param entity           the entity that moved
+     * @param locationLastSent the location that was sent last time, which will be updated to the new location
+     * @param newLocation      the new location of the entity
+     * @param teleporting      whether the entity is teleporting
+     * @return the move packet
+     */
+    public static BedrockPacket createMovePacket(Entity entity, Location3d locationLastSent, Location3dc newLocation, boolean teleporting) {
         if (AllayServer.getSettings().entitySettings().physicsEngineSettings().useDeltaMovePacket()) {
-            packet = createDeltaMovePacket(entity, locationLastSent, newLocation, teleporting);
+            return createDeltaMovePacket(entity, locationLastSent, newLocation, teleporting);
         } else {
-            packet = createAbsoluteMovePacket(entity, locationLastSent, newLocation, teleporting);
+            return createAbsoluteMovePacket(entity, locationLastSent, newLocation, teleporting);
         }
-        sendPacket(packet);
     }
 
-    protected BedrockPacket createDeltaMovePacket(Entity entity, Location3d locationLastSent, Location3dc newLocation, boolean teleporting) {
+    protected static BedrockPacket createDeltaMovePacket(Entity entity, Location3d locationLastSent, Location3dc newLocation, boolean teleporting) {
         var packet = new MoveEntityDeltaPacket();
         packet.setRuntimeEntityId(entity.getRuntimeId());
         var moveFlags = computeMoveFlags(entity, locationLastSent, newLocation);
         packet.getFlags().addAll(moveFlags);
         if (moveFlags.contains(HAS_X)) {
             packet.setX((float) newLocation.x());
-            locationLastSent.x = newLocation.x();
         }
         if (moveFlags.contains(HAS_Y)) {
             packet.setY((float) newLocation.y() + NETWORK_OFFSETS.get().getOrDefault(entity.getEntityType(), 0.0f));
-            locationLastSent.y = newLocation.y();
         }
         if (moveFlags.contains(HAS_Z)) {
             packet.setZ((float) newLocation.z());
-            locationLastSent.z = newLocation.z();
         }
         if (moveFlags.contains(HAS_PITCH)) {
             packet.setPitch((float) newLocation.pitch());
-            locationLastSent.pitch = newLocation.pitch();
         }
         if (moveFlags.contains(HAS_YAW)) {
             packet.setYaw((float) newLocation.yaw());
             packet.setHeadYaw((float) newLocation.yaw());
-            locationLastSent.yaw = newLocation.yaw();
         }
+        updateLocationLastSent(locationLastSent, newLocation, moveFlags);
         if (teleporting) {
             packet.getFlags().add(TELEPORTING);
         }
@@ -507,7 +556,37 @@ public class AllayPlayer implements Player {
         return packet;
     }
 
-    protected Set<MoveEntityDeltaPacket.Flag> computeMoveFlags(Entity entity, Location3d locationLastSent, Location3dc newLocation) {
+    /**
+     * Update the location that was sent last time in the same way as {@link #createMovePacket} does, without
+     * creating the packet. This is used when the move is sent to the viewers without creating the packet.
+     *
+     * @param entity           the entity that moved
+     * @param locationLastSent the location that was sent last time, which will be updated to the new location
+     * @param newLocation      the new location of the entity
+     */
+    public static void updateLocationLastSent(Entity entity, Location3d locationLastSent, Location3dc newLocation) {
+        if (AllayServer.getSettings().entitySettings().physicsEngineSettings().useDeltaMovePacket()) {
+            updateLocationLastSent(locationLastSent, newLocation, computeMoveFlags(entity, locationLastSent, newLocation));
+        } else {
+            updateLocationLastSent(locationLastSent, newLocation);
+        }
+    }
+
+    protected static void updateLocationLastSent(Location3d locationLastSent, Location3dc newLocation, Set<MoveEntityDeltaPacket.Flag> moveFlags) {
+        if (moveFlags.contains(HAS_X)) locationLastSent.x = newLocation.x();
+        if (moveFlags.contains(HAS_Y)) locationLastSent.y = newLocation.y();
+        if (moveFlags.contains(HAS_Z)) locationLastSent.z = newLocation.z();
+        if (moveFlags.contains(HAS_PITCH)) locationLastSent.pitch = newLocation.pitch();
+        if (moveFlags.contains(HAS_YAW)) locationLastSent.yaw = newLocation.yaw();
+    }
+
+    protected static void updateLocationLastSent(Location3d locationLastSent, Location3dc newLocation) {
+        locationLastSent.set(newLocation);
+        locationLastSent.setPitch(newLocation.pitch());
+        locationLastSent.setYaw(newLocation.yaw());
+    }
+
+    protected static Set<MoveEntityDeltaPacket.Flag> computeMoveFlags(Entity entity, Location3d locationLastSent, Location3dc newLocation) {
         var flags = EnumSet.noneOf(MoveEntityDeltaPacket.Flag.class);
         var settings = AllayServer.getSettings().entitySettings().physicsEngineSettings();
         var diffPositionThreshold = settings.diffPositionThreshold();
@@ -520,10 +599,8 @@ public class AllayPlayer implements Player {
         return flags;
     }
 
-    protected BedrockPacket createAbsoluteMovePacket(Entity entity, Location3d locationLastSent, Location3dc newLocation, boolean teleporting) {
-        locationLastSent.set(newLocation);
-        locationLastSent.setPitch(newLocation.pitch());
-        locationLastSent.setYaw(newLocation.yaw());
+    protected static BedrockPacket createAbsoluteMovePacket(Entity entity, Location3d locationLastSent, Location3dc newLocation, boolean teleporting) {
+        updateLocationLastSent(locationLastSent, newLocation);
 
         var packet = new MoveEntityAbsolutePacket();
         packet.setRuntimeEntityId(entity.getRuntimeId());
@@ -539,10 +616,14 @@ public class AllayPlayer implements Player {
 
     @Override
     public <T extends Entity & EntityPhysicsComponent> void viewEntityMotion(T entity, Vector3dc motion) {
+        sendPacket(createMotionPacket(entity, motion));
+    }
+
+    public static BedrockPacket createMotionPacket(Entity entity, Vector3dc motion) {
         var packet = new SetEntityMotionPacket();
         packet.setRuntimeEntityId(entity.getRuntimeId());
         packet.setMotion(Vector3f.from(motion.x(), motion.y(), motion.z()));
-        sendPacket(packet);
+        return packet;
     }
 
     @Override
@@ -904,6 +985,16 @@ public class AllayPlayer implements Player {
         }
     }
 
+    /**
+     * Send the chunk to the client again without respawning the entities in it. Used when most of
+     * the blocks in the chunk are changed at once, which is cheaper than sending the block updates.
+     *
+     * @param chunk the chunk to resend
+     */
+    public void resendChunk(Chunk chunk) {
+        sendPacket(createLevelChunkPacket(chunk));
+    }
+
     protected NetworkChunkPublisherUpdatePacket createNetworkChunkPublisherUpdatePacket() {
         var packet = new NetworkChunkPublisherUpdatePacket();
         var location = this.controlledEntity.getLocation();
@@ -914,11 +1005,13 @@ public class AllayPlayer implements Player {
 
     protected LevelChunkPacket createLevelChunkPacket(Chunk chunk) {
         var lcp = new LevelChunkPacket[1];
+        var cache = ((AllayDimension) this.controlledEntity.getDimension()).getChunkPacketCache();
+        var blobCache = this.clientCacheEnabled ? this.clientBlobCache : null;
         chunk.applyOperation(unsafeChunk -> {
             if (AllayServer.getSettings().worldSettings().useSubChunkSendingSystem()) {
-                lcp[0] = createSubChunkLevelChunkPacket((AllayUnsafeChunk) unsafeChunk);
+                lcp[0] = createSubChunkLevelChunkPacket((AllayUnsafeChunk) unsafeChunk, cache, blobCache);
             } else {
-                lcp[0] = createFullLevelChunkPacketChunk((AllayUnsafeChunk) unsafeChunk);
+                lcp[0] = createFullLevelChunkPacketChunk((AllayUnsafeChunk) unsafeChunk, cache, blobCache);
             }
         }, OperationType.READ, OperationType.READ);
         return lcp[0];
@@ -1050,6 +1143,19 @@ public class AllayPlayer implements Player {
 
     @Override
     public void viewSound(Sound sound, Vector3dc p, boolean relative) {
+        sendPacket(createSoundPacket(sound, p, relative));
+    }
+
+    /**
+     * Create the packet that plays a sound. The packet doesn't depend on the viewer, so it can be
+     * created once and broadcast to all the players that can hear the sound.
+     *
+     * @param sound    the sound
+     * @param p        the position of the sound
+     * @param relative whether the sound is relative
+     * @return the sound packet
+     */
+    public static BedrockPacket createSoundPacket(Sound sound, Vector3dc p, boolean relative) {
         LevelSoundEventPacket packet = new LevelSoundEventPacket();
         var pos = toNetwork(MathUtils.toVec3f(p));
         packet.setPosition(pos);
@@ -1106,22 +1212,19 @@ public class AllayPlayer implements Player {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_ITEMFRAME_PLACE);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.GLOW_INK_SAC_USED -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_INK_SACE_USED);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.DOOR_CRASH -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_ZOMBIE_DOOR_CRASH);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.EXPLOSION -> {
                 packet.setSound(SoundEvent.EXPLODE);
@@ -1140,113 +1243,97 @@ public class AllayPlayer implements Player {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_CLICK);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.WAXED -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.PARTICLE_WAX_ON);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.WAX_REMOVED -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.PARTICLE_WAX_OFF);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.COPPER_SCRAPED -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.PARTICLE_SCRAPE);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.POP -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_INFINITY_ARROW_PICKUP);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.ITEM_ADD -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_ITEMFRAME_ITEM_ADD);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.ITEM_FRAME_REMOVE -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_ITEMFRAME_ITEM_REMOVE);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.ITEM_FRAME_ROTATE -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_ITEMFRAME_ITEM_ROTATE);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.GHAST_WARNING -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_GHAST_WARNING);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.GHAST_SHOOT -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_GHAST_FIREBALL);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.TNT -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_FUSE);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.ANVIL_LAND -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_ANVIL_LAND);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.ANVIL_USE -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_ANVIL_USED);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.ANVIL_BREAK -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_ANVIL_BROKEN);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.FIRE_CHARGE -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_BLAZE_FIREBALL);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.TOTEM -> {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_TOTEM_USED);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case SimpleSound.ITEM_THROW -> {
                 packet.setSound(SoundEvent.THROW);
@@ -1260,8 +1347,7 @@ public class AllayPlayer implements Player {
                 LevelEventPacket levelEvent = new LevelEventPacket();
                 levelEvent.setType(LevelEvent.SOUND_EXPERIENCE_ORB_PICKUP);
                 levelEvent.setPosition(pos.toFloat());
-                sendPacket(levelEvent);
-                return;
+                return levelEvent;
             }
             case EquipItemSound so -> packet.setSound(getEquipSound(so.itemType()));
             case NoteSound so -> {
@@ -1381,8 +1467,7 @@ public class AllayPlayer implements Player {
                 playSound.setPosition(pos);
                 playSound.setVolume(1.0f);
                 playSound.setPitch(0.7f + 0.5f * (float) so.progress());
-                sendPacket(playSound);
-                return;
+                return playSound;
             }
             case CustomSound so -> {
                 PlaySoundPacket playSound = new PlaySoundPacket();
@@ -1390,13 +1475,12 @@ public class AllayPlayer implements Player {
                 playSound.setPosition(pos);
                 playSound.setVolume(so.volume());
                 playSound.setPitch(so.pitch());
-                sendPacket(playSound);
-                return;
+                return playSound;
             }
             default -> throw new IllegalArgumentException("Unhandled sound type: " + sound.getClass().getSimpleName());
         }
 
-        sendPacket(packet);
+        return packet;
     }
 
     @Override
@@ -1407,7 +1491,7 @@ public class AllayPlayer implements Player {
         sendPacket(packet);
     }
 
-    protected SoundEvent getEquipSound(ItemType<?> itemType) {
+    protected static SoundEvent getEquipSound(ItemType<?> itemType) {
         if (itemType == ItemTypes.ELYTRA) {
             return SoundEvent.ARMOR_EQUIP_ELYTRA;
         }
@@ -1424,6 +1508,19 @@ public class AllayPlayer implements Player {
 
     @Override
     public void viewParticle(Particle particle, Vector3dc p) {
+        sendPacket(createParticlePacket(particle, p, this.controlledEntity.getDimension().getDimensionInfo().dimensionId()));
+    }
+
+    /**
+     * Create the packet that shows a particle. The packet doesn't depend on the viewer, so it can be
+     * created once and broadcast to all the players that can see the particle.
+     *
+     * @param particle    the particle
+     * @param p           the position of the particle
+     * @param dimensionId the id of the dimension that the particle is in
+     * @return the particle packet
+     */
+    public static BedrockPacket createParticlePacket(Particle particle, Vector3dc p, int dimensionId) {
         var pos = toNetwork(MathUtils.toVec3f(p));
         var packet = new LevelEventPacket();
         packet.setPosition(pos);
@@ -1447,12 +1544,11 @@ public class AllayPlayer implements Player {
             case SimpleParticle.SMASH_ATTACK_GROUND_DUST -> packet.setType(LevelEvent.PARTICLE_SMASH_ATTACK_GROUND_DUST);
             case CustomParticle pa -> {
                 var pk = new SpawnParticleEffectPacket();
-                pk.setDimensionId(this.controlledEntity.getDimension().getDimensionInfo().dimensionId());
+                pk.setDimensionId(dimensionId);
                 pk.setIdentifier(pa.particleName());
                 pk.setMolangVariablesJson(Optional.ofNullable(pa.moLangVariables()));
                 pk.setPosition(pos);
-                sendPacket(pk);
-                return;
+                return pk;
             }
             case DragonEggTeleportParticle pa -> {
                 int xSign = pa.diff().x() < 0 ? 1 << 24 : 0;
@@ -1470,8 +1566,7 @@ public class AllayPlayer implements Player {
                 pk.setBlockPosition(Vector3i.from((int) p.x(), (int) p.y(), (int) p.z()));
                 pk.setEventType(pa.instrument().ordinal());
                 pk.setEventData(pa.pitch());
-                sendPacket(pk);
-                return;
+                return pk;
             }
             case BlockBreakParticle pa -> {
                 packet.setType(LevelEvent.PARTICLE_DESTROY_BLOCK);
@@ -1510,7 +1605,7 @@ public class AllayPlayer implements Player {
             }
             default -> throw new IllegalArgumentException("Unhandled particle type: " + particle.getClass().getSimpleName());
         }
-        sendPacket(packet);
+        return packet;
     }
 
     @Override
@@ -2156,12 +2251,12 @@ public class AllayPlayer implements Player {
             return;
         }
 
-        var event = new PacketSendEvent(this, packet);
-        if (!event.call()) {
+        packet = callPacketSendEvent(packet);
+        if (packet == null) {
             return;
         }
 
-        this.session.sendPacket(event.getPacket());
+        this.session.sendPacket(packet);
     }
 
     @Override
@@ -2174,12 +2269,71 @@ public class AllayPlayer implements Player {
             return;
         }
 
-        var event = new PacketSendEvent(this, packet);
-        if (!event.call()) {
+        packet = callPacketSendEvent(packet);
+        if (packet == null) {
             return;
         }
 
-        this.session.sendPacketImmediately(event.getPacket());
+        this.session.sendPacketImmediately(packet);
+    }
+
+    /**
+     * Send a packet that is cached by {@link EncodedPacketCache}. The bytes that are already
+     * encoded for the protocol version of this player will be sent if the packet isn't replaced
+     * in {@link PacketSendEvent}.
+     *
+     * @param cache the packet cache
+     */
+    public void sendCachedPacket(EncodedPacketCache<?> cache) {
+        sendEncodedPacket(cache.get(), () -> cache.getEncoded(this.session));
+    }
+
+    /**
+     * Send a packet that is broadcast to many players. The bytes that are already encoded for
+     * the protocol version of this player will be sent if the packet isn't replaced in
+     * {@link PacketSendEvent}.
+     *
+     * @param packet the broadcast packet
+     */
+    public void sendBroadcastPacket(BroadcastPacket packet) {
+        sendEncodedPacket(packet.getPacket(), () -> packet.getEncoded(this.session));
+    }
+
+    protected void sendEncodedPacket(BedrockPacket packet, Supplier<BedrockPacket> encoded) {
+        if (!getClientState().canHandlePackets()) {
+            return;
+        }
+
+        if (Server.getInstance().getEventBus().hasListeners(PacketSendEvent.class)) {
+            // Each player still gets its own event, and the packet that is replaced by a
+            // listener is encoded separately for this player
+            var replaced = callPacketSendEvent(packet);
+            if (replaced == null) {
+                return;
+            }
+
+            if (replaced != packet) {
+                this.session.sendPacket(replaced);
+                return;
+            }
+        }
+
+        this.session.sendPacket(encoded.get());
+    }
+
+    /**
+     * Call {@link PacketSendEvent} for a packet. The event won't be created if no one listens to it.
+     *
+     * @param packet the packet that is going to be sent
+     * @return the packet that should be sent, or {@code null} if the event is cancelled
+     */
+    protected BedrockPacket callPacketSendEvent(BedrockPacket packet) {
+        if (!Server.getInstance().getEventBus().hasListeners(PacketSendEvent.class)) {
+            return packet;
+        }
+
+        var event = new PacketSendEvent(this, packet);
+        return event.call() ? event.getPacket() : null;
     }
 
     protected CommandData encodeCommand(Command command) {
@@ -2280,6 +2434,7 @@ public class AllayPlayer implements Player {
     protected void onDisconnect(String disconnectReason) {
         new PlayerDisconnectEvent(this, disconnectReason).call();
         closeAllOpenedContainers();
+        this.clientBlobCache.clear();
         ((AllayPlayerManager) Server.getInstance().getPlayerManager()).removePlayer(this);
     }
 
@@ -2463,15 +2618,35 @@ public class AllayPlayer implements Player {
         sendPacket(packet);
     }
 
+    /**
+     * Reads the player data asynchronously and then spawns the player entity, see {@link #spawnEntityPlayer(PlayerData)}.
+     */
+    public void spawnEntityPlayer() {
+        var playerManager = (AllayPlayerManager) Server.getInstance().getPlayerManager();
+        // Read the player data without blocking, and continue in the network thread of this player
+        playerManager.getPlayerStorage().readPlayerData(this).whenCompleteAsync((playerData, t) -> {
+            if (getClientState() == ClientState.DISCONNECTED) {
+                return;
+            }
+
+            if (t != null) {
+                log.error("Failed to read player data of {}", getOriginName(), t);
+                disconnect(TrKeys.MC_DISCONNECTIONSCREEN_NOREASON);
+                return;
+            }
+
+            spawnEntityPlayer(playerData);
+        }, this.session.getPeer().getChannel().eventLoop());
+    }
+
     /**
      * Reads all the data in {@link PlayerData} except nbt. To be more exact, this method will validate and set
      * the player entity's current pos and then spawn it. The nbt will be used in EntityPlayer::loadNBT() later in
-     * doFirstSpawn() method instead of here because some packets must be sent after the player fully joined the server.
+     * onFullyJoin() method instead of here because some packets must be sent after the player fully joined the server.
      */
-    public void spawnEntityPlayer() {
+    protected void spawnEntityPlayer(PlayerData playerData) {
         var server = Server.getInstance();
         var playerManager = (AllayPlayerManager) server.getPlayerManager();
-        var playerData = playerManager.getPlayerStorage().readPlayerData(this);
 
         // Validate and set player pos
         AllayDimension dimension;
@@ -2513,18 +2688,19 @@ public class AllayPlayer implements Player {
             return;
         }
 
+        this.joinPlayerData = playerData;
         this.packetProcessorHolder.setClientState(ClientState.SPAWNED);
         dimension.addPlayer(this);
         playerManager.addPlayer(this);
 
         startGame(dimension.getWorld(), playerData, dimension);
 
-        sendPacket(NetworkData.ITEM_REGISTRY_PACKET.get());
-        sendPacket(NetworkData.CREATIVE_CONTENT_PACKET.get());
-        sendPacket(NetworkData.AVAILABLE_ENTITY_IDENTIFIERS_PACKET.get());
-        sendPacket(NetworkData.BIOME_DEFINITION_LIST_PACKET.get());
-        sendPacket(NetworkData.CRAFTING_DATA_PACKET.get());
-        sendPacket(NetworkData.TRIM_DATA_PACKET.get());
+        sendCachedPacket(NetworkData.ITEM_REGISTRY_PACKET);
+        sendCachedPacket(NetworkData.CREATIVE_CONTENT_PACKET);
+        sendCachedPacket(NetworkData.AVAILABLE_ENTITY_IDENTIFIERS_PACKET);
+        sendCachedPacket(NetworkData.BIOME_DEFINITION_LIST_PACKET);
+        sendCachedPacket(NetworkData.CRAFTING_DATA_PACKET);
+        sendCachedPacket(NetworkData.TRIM_DATA_PACKET);
     }
 
     /**
@@ -0,0 +1,218 @@
+package org.allaymc.server.player;
+
+import lombok.extern.slf4j.Slf4j;
+import org.allaymc.api.player.PlayerData;
+import org.allaymc.server.AllayServer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AllayWriteBehindPlayerStorage is the base of the player storages that do the io in a dedicated thread.
+ * <p>
+ * Saves are put into a queue first, and a save of a player replaces the previous one of the same player
+ * if the previous one is still in the queue. The queue is written in a single batch every
+ * {@code player-data-write-interval} ticks, so the storage only needs to sync the disk once for each batch.
+ * Reads are served from the queue if the player has a queued save, otherwise they are done in the io thread
+ * after the batches that are already submitted. Only one batch is written at a time.
+ *
+ * @author daoge_cmd
+ */
+@Slf4j
+public abstract class AllayWriteBehindPlayerStorage extends AllayPlayerStorage {
+
+    protected final ExecutorService ioExecutor;
+    private final LinkedHashMap<UUID, PendingSave> pendingSaves;
+
+    private CompletableFuture<Void> inFlightWrite;
+    private boolean closed;
+
+    protected AllayWriteBehindPlayerStorage(String threadName) {
+        this.ioExecutor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name(threadName).factory());
+        this.pendingSaves = new LinkedHashMap<>();
+        this.inFlightWrite = CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<PlayerData> readPlayerData(UUID uuid) {
+        synchronized (this) {
+            var pending = pendingSaves.get(uuid);
+            if (pending != null) {
+                return CompletableFuture.completedFuture(copy(pending.playerData));
+            }
+        }
+
+        return CompletableFuture.supplyAsync(() -> readPlayerDataSync(uuid), ioExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> savePlayerData(UUID uuid, PlayerData playerData) {
+        synchronized (this) {
+            if (!closed) {
+                var pending = pendingSaves.get(uuid);
+                if (pending != null) {
+                    // Coalesce with the save that hasn't been written yet
+                    pending.playerData = playerData;
+                    return pending.future;
+                }
+
+                pending = new PendingSave(playerData);
+                pendingSaves.put(uuid, pending);
+                return pending.future;
+            }
+        }
+
+        // The io thread has been shut down, write the data in the current thread
+        log.warn("Player data {} is saved after the player storage is shut down", uuid);
+        try {
+            writePlayerDataSync(Map.of(uuid, playerData));
+            return CompletableFuture.completedFuture(null);
+        } catch (Throwable t) {
+            log.error("Error while writing player data {}", uuid, t);
+            return CompletableFuture.failedFuture(t);
+        }
+    }
+
+    @Override
+    public boolean removePlayerData(UUID uuid) {
+        PendingSave pending;
+        synchronized (this) {
+            pending = pendingSaves.remove(uuid);
+        }
+
+        if (pending != null) {
+            // The save is dropped since the data is removed
+            pending.future.complete(null);
+        }
+        return CompletableFuture.supplyAsync(() -> removePlayerDataSync(uuid), ioExecutor).join() || pending != null;
+    }
+
+    @Override
+    public boolean hasPlayerData(UUID uuid) {
+        synchronized (this) {
+            if (pendingSaves.containsKey(uuid)) {
+                return true;
+            }
+        }
+
+        return CompletableFuture.supplyAsync(() -> hasPlayerDataSync(uuid), ioExecutor).join();
+    }
+
+    @Override
+    public synchronized void tick(long currentTick) {
+        var writeInterval = Math.max(AllayServer.getSettings().storageSettings().playerDataWriteInterval(), 1);
+        if (pendingSaves.isEmpty() || !inFlightWrite.isDone() || currentTick % writeInterval != 0) {
+            return;
+        }
+
+        submitPendingSaves();
+    }
+
+    /**
+     * Write all the queued saves and wait for them to be written.
+     */
+    public void flush() {
+        CompletableFuture<Void> write;
+        synchronized (this) {
+            if (!pendingSaves.isEmpty()) {
+                submitPendingSaves();
+            }
+            write = inFlightWrite;
+        }
+
+        write.join();
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (this) {
+            if (!pendingSaves.isEmpty()) {
+                submitPendingSaves();
+            }
+            closed = true;
+        }
+
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.error("Timed out while waiting for the player data to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Read the player data, called in the io thread.
+     *
+     * @param uuid the uuid of the player
+     * @return the player data, or an empty player data if the data doesn't exist
+     */
+    protected abstract PlayerData readPlayerDataSync(UUID uuid);
+
+    /**
+     * Write the player data of a batch, called in the io thread.
+     *
+     * @param playerData the player data to write
+     * @throws Exception if the batch failed to be written
+     */
+    protected abstract void writePlayerDataSync(Map<UUID, PlayerData> playerData) throws Exception;
+
+    /**
+     * Remove the player data, called in the io thread.
+     *
+     * @param uuid the uuid of the player
+     * @return {@code true} if the player data was removed
+     */
+    protected abstract boolean removePlayerDataSync(UUID uuid);
+
+    /**
+     * Check if the player data exists, called in the io thread.
+     *
+     * @param uuid the uuid of the player
+     * @return {@code true} if the player data exists
+     */
+    protected abstract boolean hasPlayerDataSync(UUID uuid);
+
+    private void submitPendingSaves() {
+        var saves = new LinkedHashMap<>(pendingSaves);
+        pendingSaves.clear();
+        inFlightWrite = CompletableFuture.runAsync(() -> write(saves), ioExecutor);
+    }
+
+    private void write(Map<UUID, PendingSave> saves) {
+        var playerData = new LinkedHashMap<UUID, PlayerData>(saves.size());
+        saves.forEach((uuid, save) -> playerData.put(uuid, save.playerData));
+        try {
+            writePlayerDataSync(playerData);
+            saves.values().forEach(save -> save.future.complete(null));
+        } catch (Throwable t) {
+            log.error("Error while writing the data of {} players", saves.size(), t);
+            saves.values().forEach(save -> save.future.completeExceptionally(t));
+        }
+    }
+
+    private static PlayerData copy(PlayerData playerData) {
+        // The nbt is immutable, so only the outer object needs to be copied
+        return PlayerData.builder()
+                .nbt(playerData.getNbt())
+                .world(playerData.getWorld())
+                .dimension(playerData.getDimension())
+                .build();
+    }
+
+    private static final class PendingSave {
+        final CompletableFuture<Void> future;
+        PlayerData playerData;
+
+        PendingSave(PlayerData playerData) {
+            this.future = new CompletableFuture<>();
+            this.playerData = playerData;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.allaymc.server.player;
+
+import io.netty.buffer.ByteBuf;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongList;
+import lombok.Getter;
+import org.allaymc.server.world.chunk.ChunkPacketCache;
+import org.cloudburstmc.protocol.bedrock.packet.ClientCacheMissResponsePacket;
+
+/**
+ * ClientBlobCache tracks the blobs that have been announced to a client which supports blob cache.
+ * <p>
+ * When a chunk is sent with caching enabled, only the blob ids are sent. The client then replies with
+ * a {@code ClientCacheBlobStatusPacket}, telling the server which blobs it already has (acks) and
+ * which blobs are missing (naks). The missing blobs are sent back in a {@link ClientCacheMissResponsePacket}.
+ * The blobs are kept here until the client reports their status.
+ * <p>
+ * The same blob may be announced multiple times (for example, identical sub chunks in different chunks),
+ * and the client reports the status of the blob once per announcement, so the pending blobs are reference
+ * counted per announcement. The ids of the blobs acked recently are remembered, and these blobs are not
+ * kept when they are announced again since the client already has them.
+ *
+ * @author daoge_cmd
+ */
+public final class ClientBlobCache {
+
+    /**
+     * The maximum count of the acked blob ids remembered for a client. The oldest ids are forgotten first.
+     */
+    private static final int MAX_ACKED_BLOB_COUNT = 4096;
+
+    private final Long2ObjectMap<PendingBlob> pendingBlobs;
+    private final LongLinkedOpenHashSet ackedBlobIds;
+    @Getter
+    private long hitCount;
+    @Getter
+    private long missCount;
+
+    public ClientBlobCache() {
+        this.pendingBlobs = new Long2ObjectOpenHashMap<>();
+        this.ackedBlobIds = new LongLinkedOpenHashSet();
+    }
+
+    /**
+     * Remember the blobs that are going to be announced to the client. The ownership of the
+     * blobs is transferred to this cache.
+     *
+     * @param blobs the blobs
+     */
+    public synchronized void addPendingBlobs(ChunkPacketCache.Blobs blobs) {
+        var ids = blobs.ids();
+        for (int i = 0; i < ids.length; i++) {
+            addPendingBlob(ids[i], blobs.blobs()[i]);
+        }
+    }
+
+    /**
+     * Remember the blob that is going to be announced to the client. The ownership of the
+     * blob is transferred to this cache.
+     *
+     * @param id   the blob id
+     * @param blob the blob
+     */
+    public synchronized void addPendingBlob(long id, ByteBuf blob) {
+        if (ackedBlobIds.contains(id)) {
+            // The client has the blob, and is going to ack it again
+            blob.release();
+            return;
+        }
+
+        var pendingBlob = pendingBlobs.get(id);
+        if (pendingBlob == null) {
+            pendingBlobs.put(id, new PendingBlob(blob));
+        } else {
+            // Only one copy is kept for all the announcements
+            pendingBlob.refCount++;
+            blob.release();
+        }
+    }
+
+    /**
+     * Handle the blob status reported by the client.
+     *
+     * @param acks the ids of the blobs that the client already has
+     * @param naks the ids of the blobs that the client is missing
+     * @return the packet that contains the missing blobs, or {@code null} if nothing is missing
+     */
+    public synchronized ClientCacheMissResponsePacket onBlobStatus(LongList acks, LongList naks) {
+        for (int i = 0; i < acks.size(); i++) {
+            var id = acks.getLong(i);
+            hitCount++;
+            ackedBlobIds.addAndMoveToLast(id);
+            if (ackedBlobIds.size() > MAX_ACKED_BLOB_COUNT) {
+                ackedBlobIds.removeFirstLong();
+            }
+
+            var pendingBlob = pendingBlobs.get(id);
+            if (pendingBlob != null && --pendingBlob.refCount == 0) {
+                pendingBlobs.remove(id);
+                pendingBlob.blob.release();
+            }
+        }
+
+        if (naks.isEmpty()) {
+            return null;
+        }
+
+        var packet = new ClientCacheMissResponsePacket();
+        for (int i = 0; i < naks.size(); i++) {
+            var id = naks.getLong(i);
+            // The client doesn't have the blob anymore, so it will be kept when announced next time
+            ackedBlobIds.remove(id);
+            var blob = takePendingBlob(id);
+            if (blob == null) {
+                continue;
+            }
+
+            missCount++;
+            // The packet takes the ownership and will release the blob after being sent
+            var old = packet.getBlobs().put(id, blob);
+            if (old != null) {
+                old.release();
+            }
+        }
+
+        return packet.getBlobs().isEmpty() ? null : packet;
+    }
+
+    /**
+     * Take the blob of an announcement that the client reported as missing.
+     *
+     * @param id the blob id
+     * @return the blob, which should be released by the caller, or {@code null} if the blob is not pending
+     */
+    private ByteBuf takePendingBlob(long id) {
+        var pendingBlob = pendingBlobs.get(id);
+        if (pendingBlob == null) {
+            return null;
+        }
+
+        if (--pendingBlob.refCount > 0) {
+            // Still needed by the other announcements
+            return pendingBlob.blob.retainedDuplicate();
+        }
+
+        pendingBlobs.remove(id);
+        return pendingBlob.blob;
+    }
+
+    /**
+     * @return the count of blobs that are waiting for the status from the client
+     */
+    public synchronized int getPendingBlobCount() {
+        return pendingBlobs.size();
+    }
+
+    /**
+     * Release all pending blobs. Should be called when the client disconnects.
+     */
+    public synchronized void clear() {
+        pendingBlobs.values().forEach(pendingBlob -> pendingBlob.blob.release());
+        pendingBlobs.clear();
+        ackedBlobIds.clear();
+    }
+
+    private static final class PendingBlob {
+        private final ByteBuf blob;
+        // The count of the announcements that the client hasn't reported yet
+        private int refCount;
+
+        private PendingBlob(ByteBuf blob) {
+            this.blob = blob;
+            this.refCount = 1;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.allaymc.server.registry;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.allaymc.api.item.ItemStack;
+import org.allaymc.api.item.recipe.FurnaceRecipe;
+import org.allaymc.api.item.recipe.PotionRecipe;
+import org.allaymc.api.item.recipe.Recipe;
+import org.allaymc.api.item.type.ItemType;
+import org.allaymc.api.registry.SimpleMappedRegistry;
+import org.allaymc.api.server.Server;
+import org.allaymc.api.server.ServerState;
+import org.allaymc.api.utils.identifier.Identifier;
+import org.allaymc.server.network.NetworkData;
+import org.allaymc.server.player.AllayPlayer;
+import org.allaymc.server.registry.loader.RecipeRegistryLoader;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * The recipe registry, which invalidates the cached {@link NetworkData#CRAFTING_DATA_PACKET}
+ * when recipes are registered, so that the players who join later will receive the new recipes.
+ * If the server is running, the rebuilt packet is also sent to the online players in the next tick.
+ * <p>
+ * Furnace and potion recipes are also indexed by the item types of their inputs, so that furnaces
+ * and brewing stands can find the recipe without building an identifier every tick. The lookups are
+ * lock-free, and a registered recipe is added to the index in place. Registrations are serialized, and
+ * the whole index is only rebuilt when an indexed recipe is replaced or the map is changed in bulk.
+ *
+ * @author daoge_cmd
+ */
+public class AllayRecipeRegistry extends SimpleMappedRegistry<Identifier, Recipe> {
+
+    protected final AtomicBoolean craftingDataResendScheduled = new AtomicBoolean();
+    protected volatile RecipeIndex index;
+
+    public AllayRecipeRegistry() {
+        super(null, new RecipeRegistryLoader());
+        this.index = new RecipeIndex(content.values());
+    }
+
+    @Override
+    public synchronized Recipe register(Identifier key, Recipe value) {
+        var old = super.register(key, value);
+        if (isIndexed(old) && old != value) {
+            // Another recipe may have the same input as the replaced one, which can only be found
+            // by going through all the recipes. Replacing a recipe is rare, so just rebuild the index
+            index = new RecipeIndex(content.values());
+        } else if (isIndexed(value)) {
+            index.add(value);
+        }
+        onRecipesChanged();
+        return old;
+    }
+
+    @Override
+    public synchronized void register(Consumer<Map<Identifier, Recipe>> consumer) {
+        super.register(consumer);
+        // The consumer can change the map in any way, so the whole index is rebuilt
+        index = new RecipeIndex(content.values());
+        onRecipesChanged();
+    }
+
+    protected void onRecipesChanged() {
+        NetworkData.CRAFTING_DATA_PACKET.invalidate();
+        var server = Server.getInstance();
+        // Players who are not online yet will receive the new packet when they join. Many
+        // recipes may be registered in one tick, so the packet is only sent once per tick
+        if (server == null || server.getState() != ServerState.RUNNING || !craftingDataResendScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        server.getScheduler().runLater(server, () -> {
+            craftingDataResendScheduled.set(false);
+            server.getPlayerManager().getPlayers().values().forEach(player -> ((AllayPlayer) player).sendCachedPacket(NetworkData.CRAFTING_DATA_PACKET));
+        });
+    }
+
+    /**
+     * Find the furnace recipe of the given type for the ingredient. Recipes of type
+     * {@link FurnaceRecipe.Type#FURNACE} are not returned for other types, the caller
+     * should fall back to them if needed.
+     *
+     * @param ingredient the item type of the ingredient
+     * @param type       the type of the furnace recipe
+     * @return the furnace recipe, or {@code null} if not found
+     */
+    public FurnaceRecipe getFurnaceRecipe(ItemType<?> ingredient, FurnaceRecipe.Type type) {
+        return index.furnaceRecipes.get(type).get(ingredient);
+    }
+
+    /**
+     * Find the potion recipe for the ingredient and the reagent. The item types and
+     * the metas of both items are compared.
+     *
+     * @param ingredient the ingredient, which is the potion being brewed
+     * @param reagent    the reagent, which is the item put into the top slot
+     * @return the potion recipe, or {@code null} if not found
+     */
+    public PotionRecipe getPotionRecipe(ItemStack ingredient, ItemStack reagent) {
+        var byReagent = index.potionRecipes.get(ingredient.getItemType());
+        if (byReagent == null) {
+            return null;
+        }
+
+        var byMeta = byReagent.get(reagent.getItemType());
+        if (byMeta == null) {
+            return null;
+        }
+
+        return byMeta.get(packMetas(ingredient.getMeta(), reagent.getMeta()));
+    }
+
+    protected static boolean isIndexed(Recipe recipe) {
+        return recipe instanceof FurnaceRecipe || recipe instanceof PotionRecipe;
+    }
+
+    protected static long packMetas(int ingredientMeta, int reagentMeta) {
+        return ((long) ingredientMeta << 32) | (reagentMeta & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The index can be read by any thread while a recipe is being added. The furnace recipes and the
+     * first two levels of the potion recipes are stored in concurrent maps, and the small maps of the
+     * metas are replaced by new maps when a potion recipe is added.
+     */
+    protected static final class RecipeIndex {
+        final EnumMap<FurnaceRecipe.Type, Map<ItemType<?>, FurnaceRecipe>> furnaceRecipes;
+        // Ingredient type -> reagent type -> packed metas -> recipe
+        final Map<ItemType<?>, Map<ItemType<?>, Long2ObjectMap<PotionRecipe>>> potionRecipes;
+
+        RecipeIndex(Iterable<Recipe> recipes) {
+            // Not changed after being created, so that it can be read concurrently
+            this.furnaceRecipes = new EnumMap<>(FurnaceRecipe.Type.class);
+            for (var type : FurnaceRecipe.Type.values()) {
+                this.furnaceRecipes.put(type, new ConcurrentHashMap<>());
+            }
+            this.potionRecipes = new ConcurrentHashMap<>();
+
+            for (var recipe : recipes) {
+                add(recipe);
+            }
+        }
+
+        void add(Recipe recipe) {
+            if (recipe instanceof FurnaceRecipe furnaceRecipe) {
+                furnaceRecipes.get(furnaceRecipe.getType()).put(furnaceRecipe.getIngredient().getItemType(), furnaceRecipe);
+            } else if (recipe instanceof PotionRecipe potionRecipe) {
+                var ingredient = potionRecipe.getIngredient();
+                var reagent = potionRecipe.getReagent();
+                potionRecipes
+                        .computeIfAbsent(ingredient.getItemType(), $ -> new ConcurrentHashMap<>())
+                        .compute(reagent.getItemType(), ($, byMeta) -> {
+                            var newByMeta = byMeta != null ? new Long2ObjectOpenHashMap<>(byMeta) : new Long2ObjectOpenHashMap<PotionRecipe>();
+                            newByMeta.put(packMetas(ingredient.getMeta(), reagent.getMeta()), potionRecipe);
+                            return newByMeta;
+                        });
+            }
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.allaymc.api.pack.PackManifest;
 import org.allaymc.api.registry.RegistryLoader;
 import org.allaymc.server.AllayServer;
 import org.allaymc.server.pack.PackEncryptor;
+import org.allaymc.server.pack.PackHashCache;
 import org.allaymc.server.pack.PackUtils;
 import org.allaymc.server.pack.defaults.ResourcePack;
 import org.allaymc.server.pack.loader.InPluginPackLoader;
@@ -22,6 +23,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author daoge_cmd
@@ -89,7 +91,12 @@ public class PackRegistryLoader implements RegistryLoader<Void, Map<UUID, Pack>>
 
         foundedLoaders.clear();
 
-        loader2manifest.forEach((loader, manifest) -> {
+        // Packs are hashed when they are created, create them in parallel
+        PackHashCache.load();
+        var createdPacks = new ConcurrentHashMap<UUID, Pack>();
+        loader2manifest.entrySet().parallelStream().forEach(entry -> {
+            var loader = entry.getKey();
+            var manifest = entry.getValue();
             var module = manifest.getModules().getFirst();
             var factory = this.packFactories.get(module.getType());
             if (factory == null) {
@@ -99,10 +106,12 @@ public class PackRegistryLoader implements RegistryLoader<Void, Map<UUID, Pack>>
 
             var uuid = manifest.getHeader().getUuid();
             var pack = factory.create(loader, manifest);
-            packs.put(uuid, pack);
+            createdPacks.put(uuid, pack);
 
             log.info(I18n.get().tr(TrKeys.ALLAY_PACK_LOADED_ENTRY, pack.getName()));
         });
+        PackHashCache.save();
+        packs.putAll(createdPacks);
         log.info(I18n.get().tr(TrKeys.ALLAY_PACK_LOADED, packs.size()));
         return packs;
     }
@@ -125,32 +134,43 @@ public class PackRegistryLoader implements RegistryLoader<Void, Map<UUID, Pack>>
     @SneakyThrows
     private void encryptPacks() {
         // Only encrypt packs in the normal packs path
+        var zipPacks = new ArrayList<Path>();
         try (var stream = Files.newDirectoryStream(NORMAL_PACKS_PATH)) {
             for (var zipPack : stream) {
                 if (!PackUtils.isZipPack(zipPack)) continue;
 
+                // Packs that have a key file have been encrypted
                 var keyPath = NORMAL_PACKS_PATH.resolve(zipPack.getFileName().toString() + ".key");
                 if (Files.exists(keyPath)) continue;
 
-                log.info(I18n.get().tr(TrKeys.ALLAY_PACK_ENCRYPTING, zipPack.getFileName()));
-                var backupPath = NORMAL_PACKS_PATH.resolve(zipPack.getFileName().toString() + ".bak");
-                Files.copy(zipPack, backupPath, StandardCopyOption.REPLACE_EXISTING);
-
-                var tmpPath = NORMAL_PACKS_PATH.resolve(zipPack.getFileName().toString() + ".tmp");
-                Files.deleteIfExists(tmpPath);
+                zipPacks.add(zipPack);
+            }
+        }
 
-                String key;
-                try {
-                    Files.move(zipPack, tmpPath);
-                    key = PackEncryptor.encrypt(tmpPath, zipPack);
-                } finally {
-                    Files.delete(tmpPath);
-                }
+        // Packs are independent of each other, encrypt them in parallel
+        zipPacks.parallelStream().forEach(this::encryptPack);
+    }
 
-                Files.writeString(keyPath, key);
-                log.info(I18n.get().tr(TrKeys.ALLAY_PACK_ENCRYPTED, zipPack.getFileName(), key));
-            }
+    @SneakyThrows
+    private void encryptPack(Path zipPack) {
+        var keyPath = NORMAL_PACKS_PATH.resolve(zipPack.getFileName().toString() + ".key");
+        log.info(I18n.get().tr(TrKeys.ALLAY_PACK_ENCRYPTING, zipPack.getFileName()));
+        var backupPath = NORMAL_PACKS_PATH.resolve(zipPack.getFileName().toString() + ".bak");
+        Files.copy(zipPack, backupPath, StandardCopyOption.REPLACE_EXISTING);
+
+        var tmpPath = NORMAL_PACKS_PATH.resolve(zipPack.getFileName().toString() + ".tmp");
+        Files.deleteIfExists(tmpPath);
+
+        String key;
+        try {
+            Files.move(zipPack, tmpPath);
+            key = PackEncryptor.encrypt(tmpPath, zipPack);
+        } finally {
+            Files.delete(tmpPath);
         }
+
+        Files.writeString(keyPath, key);
+        log.info(I18n.get().tr(TrKeys.ALLAY_PACK_ENCRYPTED, zipPack.getFileName(), key));
     }
 
     private PackLoader findLoader(Path path) throws IOException {
@@ -3,22 +3,42 @@ package org.allaymc.server.scheduler;
 import org.allaymc.api.scheduler.Scheduler;
 import org.allaymc.api.scheduler.Task;
 import org.allaymc.api.scheduler.TaskCreator;
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MpscUnboundedArrayQueue;
 
-import java.util.Comparator;
+import java.util.ArrayDeque;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * AllayScheduler keeps the tasks in a hierarchical timing wheel keyed on the tick number.
+ * <p>
+ * The wheel has {@link #LEVEL_COUNT} levels of {@link #SLOT_COUNT} slots, and a slot in level {@code n} covers
+ * {@code SLOT_COUNT^n} ticks. A task is put into the lowest level that can hold its delay, and when the ticks of a
+ * slot in a higher level begin, the tasks in that slot are moved down to the lower levels. This makes scheduling and
+ * firing a task O(1) no matter how many tasks there are. Cancelled tasks stay in the wheel and are dropped when
+ * their slot is reached.
+ * <p>
+ * The wheel is only accessed by the thread that calls {@link #tick()}. New tasks are put into a MPSC queue first,
+ * so tasks can be scheduled from any thread without locking.
+ *
  * @author daoge_cmd
  */
 public class AllayScheduler implements Scheduler {
 
-    protected static final Comparator<RunningTaskInfo> COMPARATOR = Comparator.comparing(RunningTaskInfo::getNextRunTick);
-    protected static final int INITIAL_CAPACITY = 11;
+    protected static final int SLOT_BITS = 6;
+    protected static final int SLOT_COUNT = 1 << SLOT_BITS;
+    protected static final int SLOT_MASK = SLOT_COUNT - 1;
+    // 6 levels cover 2^36 ticks, which is larger than the max delay
+    protected static final int LEVEL_COUNT = 6;
+    protected static final int INTAKE_CHUNK_SIZE = 1024;
 
     protected final ExecutorService asyncTaskExecutor;
-    protected final PriorityBlockingQueue<RunningTaskInfo> queue = new PriorityBlockingQueue<>(INITIAL_CAPACITY, COMPARATOR);
+    protected final MessagePassingQueue<RunningTaskInfo> intake = new MpscUnboundedArrayQueue<>(INTAKE_CHUNK_SIZE);
+    // The tasks in each slot are linked through RunningTaskInfo.next, in the order they were added
+    protected final RunningTaskInfo[][] slotHeads = new RunningTaskInfo[LEVEL_COUNT][SLOT_COUNT];
+    protected final RunningTaskInfo[][] slotTails = new RunningTaskInfo[LEVEL_COUNT][SLOT_COUNT];
+    protected final ArrayDeque<RunningTaskInfo> dueTasks = new ArrayDeque<>();
     protected long tickCounter;
     protected AtomicInteger taskCount = new AtomicInteger(0);
 
@@ -28,22 +48,33 @@ public class AllayScheduler implements Scheduler {
 
     @Override
     public void tick() {
+        // Put the tasks scheduled since the last tick into the wheel before moving it forward
+        drainIntake();
         tickCounter++;
-        while (!queue.isEmpty() && queue.peek().getNextRunTick() <= tickCounter) {
-            var taskInfo = queue.poll();
-            // 1. Confirm validity
-            if (taskInfo.isCancelled() || !taskInfo.getCreator().isValid()) {
-                cancelTask(taskInfo);
-                continue;
+        cascade();
+        takeSlot(0, (int) (tickCounter & SLOT_MASK));
+
+        do {
+            RunningTaskInfo taskInfo;
+            while ((taskInfo = dueTasks.poll()) != null) {
+                // 1. Confirm validity
+                if (taskInfo.isCancelled() || !taskInfo.getCreator().isValid()) {
+                    cancelTask(taskInfo);
+                    continue;
+                }
+
+                // 2. Run it
+                if (taskInfo.isAsync()) {
+                    var info = taskInfo;
+                    asyncTaskExecutor.submit(() -> runTask(info));
+                } else {
+                    runTask(taskInfo);
+                }
             }
 
-            // 2. Run it
-            if (taskInfo.isAsync()) {
-                asyncTaskExecutor.submit(() -> runTask(taskInfo));
-            } else {
-                runTask(taskInfo);
-            }
-        }
+            // Tasks scheduled without delay by the tasks above should also be run in this tick
+            drainIntake();
+        } while (!dueTasks.isEmpty());
     }
 
     @Override
@@ -68,8 +99,22 @@ public class AllayScheduler implements Scheduler {
 
     @Override
     public void shutdown() {
-        queue.forEach(this::cancelTask);
-        queue.clear();
+        drainIntake();
+        dueTasks.forEach(this::cancelTask);
+        dueTasks.clear();
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            for (int slot = 0; slot < SLOT_COUNT; slot++) {
+                var taskInfo = slotHeads[level][slot];
+                while (taskInfo != null) {
+                    var next = taskInfo.next;
+                    taskInfo.next = null;
+                    cancelTask(taskInfo);
+                    taskInfo = next;
+                }
+                slotHeads[level][slot] = null;
+                slotTails[level][slot] = null;
+            }
+        }
     }
 
     protected void runTask(RunningTaskInfo info) {
@@ -109,9 +154,68 @@ public class AllayScheduler implements Scheduler {
 
     protected void addTask(RunningTaskInfo taskInfo, boolean firstTime) {
         taskInfo.setNextRunTick(tickCounter + (taskInfo.isRepeating() ? taskInfo.getPeriod() : taskInfo.getDelay()));
-        queue.offer(taskInfo);
+        intake.offer(taskInfo);
         if (firstTime) {
             taskCount.incrementAndGet();
         }
     }
+
+    protected void drainIntake() {
+        intake.drain(this::insert);
+    }
+
+    /**
+     * Move the tasks in the higher level slots which begin at the current tick down to the lower levels.
+     * The higher levels are cascaded first, since their tasks may be moved into the lower level slots
+     * that also begin at the current tick.
+     */
+    protected void cascade() {
+        for (int level = LEVEL_COUNT - 1; level > 0; level--) {
+            var shift = SLOT_BITS * level;
+            if ((tickCounter & ((1L << shift) - 1)) != 0) {
+                continue;
+            }
+
+            var slot = (int) ((tickCounter >>> shift) & SLOT_MASK);
+            var taskInfo = slotHeads[level][slot];
+            slotHeads[level][slot] = null;
+            slotTails[level][slot] = null;
+            while (taskInfo != null) {
+                var next = taskInfo.next;
+                taskInfo.next = null;
+                insert(taskInfo);
+                taskInfo = next;
+            }
+        }
+    }
+
+    protected void insert(RunningTaskInfo taskInfo) {
+        var delay = taskInfo.getNextRunTick() - tickCounter;
+        if (delay <= 0) {
+            dueTasks.add(taskInfo);
+            return;
+        }
+
+        var level = Math.min((63 - Long.numberOfLeadingZeros(delay)) / SLOT_BITS, LEVEL_COUNT - 1);
+        var slot = (int) ((taskInfo.getNextRunTick() >>> (SLOT_BITS * level)) & SLOT_MASK);
+        var tail = slotTails[level][slot];
+        if (tail == null) {
+            slotHeads[level][slot] = taskInfo;
+        } else {
+            tail.next = taskInfo;
+        }
+        slotTails[level][slot] = taskInfo;
+    }
+
+    protected void takeSlot(int level, int slot) {
+        var taskInfo = slotHeads[level][slot];
+        slotHeads[level][slot] = null;
+        slotTails[level][slot] = null;
+        while (taskInfo != null) {
+            var next = taskInfo.next;
+            taskInfo.next = null;
+            dueTasks.add(taskInfo);
+            taskInfo = next;
+        }
+    }
 }
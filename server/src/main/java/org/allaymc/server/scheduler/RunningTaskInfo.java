@@ -31,6 +31,10 @@ public final class RunningTaskInfo {
     @Setter
     private long nextRunTick;
 
+    // The next task in the same slot of the timing wheel, only accessed by the thread that ticks the scheduler
+    @Getter(AccessLevel.NONE)
+    RunningTaskInfo next;
+
     public boolean isCancelled() {
         return cancelled.get();
     }
@@ -0,0 +1,108 @@
+package org.allaymc.server.utils;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A pure java implementation of the xxHash64 algorithm, which is used by the client
+ * blob cache to identify blobs. See <a href="https://github.com/Cyan4973/xxHash">xxHash</a>.
+ *
+ * @author daoge_cmd
+ */
+public final class XXHash64 {
+
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    private XXHash64() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Compute the xxHash64 value of the readable bytes in the buffer with seed {@code 0}.
+     * The reader index of the buffer won't be changed.
+     *
+     * @param buf the buffer
+     * @return the hash value
+     */
+    public static long hash(ByteBuf buf) {
+        return hash(buf, buf.readerIndex(), buf.readableBytes(), 0);
+    }
+
+    /**
+     * Compute the xxHash64 value of the specified region in the buffer.
+     *
+     * @param buf    the buffer
+     * @param offset the start index of the region
+     * @param length the length of the region
+     * @param seed   the seed
+     * @return the hash value
+     */
+    public static long hash(ByteBuf buf, int offset, int length, long seed) {
+        int end = offset + length;
+        long hash;
+
+        if (length >= 32) {
+            int limit = end - 32;
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+            do {
+                v1 = round(v1, buf.getLongLE(offset));
+                v2 = round(v2, buf.getLongLE(offset + 8));
+                v3 = round(v3, buf.getLongLE(offset + 16));
+                v4 = round(v4, buf.getLongLE(offset + 24));
+                offset += 32;
+            } while (offset <= limit);
+
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = seed + PRIME64_5;
+        }
+
+        hash += length;
+
+        while (offset + 8 <= end) {
+            hash ^= round(0, buf.getLongLE(offset));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+            offset += 8;
+        }
+
+        if (offset + 4 <= end) {
+            hash ^= (buf.getIntLE(offset) & 0xFFFFFFFFL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            offset += 4;
+        }
+
+        while (offset < end) {
+            hash ^= (buf.getByte(offset) & 0xFFL) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+            offset++;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME64_1;
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * PRIME64_1 + PRIME64_4;
+    }
+}
@@ -3,6 +3,8 @@ package org.allaymc.server.world;
 import com.google.common.base.Preconditions;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.allaymc.api.block.component.BlockBlockEntityHolderComponent;
+import org.allaymc.api.block.data.BlockFace;
 import org.allaymc.api.block.dto.Block;
 import org.allaymc.api.block.dto.PlayerInteractInfo;
 import org.allaymc.api.block.type.BlockState;
@@ -17,23 +19,38 @@ import org.allaymc.api.player.ClientState;
 import org.allaymc.api.player.Player;
 import org.allaymc.api.scheduler.Scheduler;
 import org.allaymc.api.server.Server;
+import org.allaymc.api.utils.function.TriFunction;
 import org.allaymc.api.world.Dimension;
 import org.allaymc.api.world.WorldViewer;
+import org.allaymc.api.world.chunk.OperationType;
 import org.allaymc.api.world.data.DimensionInfo;
 import org.allaymc.api.world.generator.WorldGenerator;
 import org.allaymc.api.world.particle.BlockBreakParticle;
+import org.allaymc.api.world.particle.Particle;
+import org.allaymc.api.world.sound.Sound;
+import org.allaymc.server.AllayServer;
+import org.allaymc.server.network.BroadcastPacket;
 import org.allaymc.server.network.processor.login.SetLocalPlayerAsInitializedPacketProcessor;
+import org.allaymc.server.player.AllayPlayer;
 import org.allaymc.server.scheduler.AllayScheduler;
 import org.allaymc.server.world.chunk.AllayUnsafeChunk;
+import org.allaymc.server.world.chunk.ChunkPacketCache;
 import org.allaymc.server.world.light.AllayLightEngine;
 import org.allaymc.server.world.manager.AllayBlockUpdateManager;
 import org.allaymc.server.world.manager.AllayChunkManager;
 import org.allaymc.server.world.manager.AllayEntityManager;
+import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket;
 import org.jctools.maps.NonBlockingHashSet;
 import org.jetbrains.annotations.UnmodifiableView;
+import org.joml.Vector3d;
+import org.joml.Vector3i;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.allaymc.api.block.type.BlockTypes.AIR;
 
@@ -52,6 +69,7 @@ public class AllayDimension implements Dimension {
     protected final AllayBlockUpdateManager blockUpdateManager;
     protected final Scheduler scheduler;
     protected final AllayLightEngine lightEngine;
+    protected final ChunkPacketCache chunkPacketCache;
     protected final Set<Player> players;
     protected final Set<DebugShape> debugShapes;
 
@@ -64,6 +82,7 @@ public class AllayDimension implements Dimension {
         this.blockUpdateManager = new AllayBlockUpdateManager(this);
         this.scheduler = new AllayScheduler(Server.getInstance().getVirtualThreadPool());
         this.lightEngine = new AllayLightEngine(this);
+        this.chunkPacketCache = new ChunkPacketCache(AllayServer.getSettings().worldSettings().chunkPacketCacheSize() * 1024L * 1024L);
         this.players = new NonBlockingHashSet<>();
         this.debugShapes = new NonBlockingHashSet<>();
         worldGenerator.setDimension(this);
@@ -88,12 +107,14 @@ public class AllayDimension implements Dimension {
     public void shutdown() {
         this.scheduler.shutdown();
         // Shutdown light service first, because when unloading chunks, chunk service
-        // will send updates to light service which is meaningless
+        // will send updates to light service which is meaningless. The light in the
+        // loaded chunks is saved by the light service before it is stopped
         this.lightEngine.shutdown();
         this.chunkManager.shutdown();
         // EntityService should be shutdown after chunk service, because it requires
         // the callback AllayEntityService.onChunkUnload() to be called
         this.entityManager.shutdown();
+        this.chunkPacketCache.invalidateAll();
     }
 
     public void addPlayer(Player player) {
@@ -193,6 +214,21 @@ public class AllayDimension implements Dimension {
         this.debugShapes.clear();
     }
 
+    /**
+     * Wake up the block entity at the specified position, so that it will be ticked again if it is sleeping.
+     * Does nothing if the chunk is not loaded or there is no block entity at the position.
+     *
+     * @param x the x coordinate of the block entity
+     * @param y the y coordinate of the block entity
+     * @param z the z coordinate of the block entity
+     */
+    public void wakeUpBlockEntity(int x, int y, int z) {
+        var chunk = getChunkManager().getChunkByDimensionPos(x, z);
+        if (chunk != null) {
+            ((AllayUnsafeChunk) chunk.toUnsafeChunk()).wakeUpBlockEntity(x & 15, y, z & 15);
+        }
+    }
+
     @Override
     public boolean setBlockState(int x, int y, int z, BlockState blockState, int layer, boolean send, boolean update, boolean callBlockBehavior, PlayerInteractInfo placementInfo) {
         var chunk = getChunkManager().getChunkByDimensionPos(x, z);
@@ -230,6 +266,182 @@ public class AllayDimension implements Dimension {
         return true;
     }
 
+    @Override
+    public int setBlockStatesInBulk(int x, int y, int z, int sizeX, int sizeY, int sizeZ, int layer, boolean update, TriFunction<Integer, Integer, Integer, BlockState> blockStateSupplier) {
+        var minY = Math.max(y, dimensionInfo.minHeight());
+        var maxY = Math.min(y + sizeY - 1, dimensionInfo.maxHeight());
+        if (sizeX < 1 || sizeZ < 1 || minY > maxY) {
+            return 0;
+        }
+
+        var maxX = x + sizeX - 1;
+        var maxZ = z + sizeZ - 1;
+        var count = 0;
+        // The blocks that have or will have block entities, which are set through setBlockState() later
+        // so that the block entities are created and removed by the block behaviors
+        var blockEntityHolders = new ArrayList<Block>();
+        for (int chunkX = x >> 4; chunkX <= maxX >> 4; chunkX++) {
+            var cX = chunkX << 4;
+            for (int chunkZ = z >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                var cZ = chunkZ << 4;
+                var chunk = getChunkManager().getChunk(chunkX, chunkZ);
+                if (chunk == null) {
+                    // Chunk is not loaded
+                    continue;
+                }
+
+                var minLocalX = Math.max(x - cX, 0);
+                var maxLocalX = Math.min(maxX - cX, 15);
+                var minLocalZ = Math.max(z - cZ, 0);
+                var maxLocalZ = Math.min(maxZ - cZ, 15);
+                var lengthY = maxY - minY + 1;
+                var lengthZ = maxLocalZ - minLocalZ + 1;
+                // The supplier is called before the chunk is locked, since the lock is not reentrant
+                // and the supplier may read the blocks in the dimension
+                var blockStates = new BlockState[(maxLocalX - minLocalX + 1) * lengthY * lengthZ];
+                for (int localX = minLocalX, index = 0; localX <= maxLocalX; localX++) {
+                    for (int globalY = minY; globalY <= maxY; globalY++) {
+                        for (int localZ = minLocalZ; localZ <= maxLocalZ; localZ++) {
+                            blockStates[index++] = blockStateSupplier.apply(cX + localX, globalY, cZ + localZ);
+                        }
+                    }
+                }
+
+                var changed = new int[1];
+                var changedBlocks = update ? new BitSet(blockStates.length) : null;
+                chunk.applyOperation(c -> {
+                    var unsafeChunk = (AllayUnsafeChunk) c;
+                    changed[0] = unsafeChunk.setBlockStates(
+                            minLocalX, minY, minLocalZ, maxLocalX, maxY, maxLocalZ,
+                            layer, true, (localX, globalY, localZ) -> {
+                                var index = ((localX - minLocalX) * lengthY + (globalY - minY)) * lengthZ + (localZ - minLocalZ);
+                                var blockState = blockStates[index];
+                                var oldBlockState = unsafeChunk.getBlockState(localX, globalY, localZ, layer);
+                                if (blockState == null || blockState == oldBlockState) {
+                                    // The array holds the block states after this operation, which are used by the updates
+                                    blockStates[index] = oldBlockState;
+                                    return null;
+                                }
+
+                                if (layer == 0 && (blockState.getBehavior() instanceof BlockBlockEntityHolderComponent<?> ||
+                                                   unsafeChunk.getBlockEntity(localX, globalY, localZ) != null)) {
+                                    blockEntityHolders.add(new Block(blockState, new Position3i(cX + localX, globalY, cZ + localZ, this), layer));
+                                    blockStates[index] = oldBlockState;
+                                    return null;
+                                }
+
+                                if (changedBlocks != null) {
+                                    changedBlocks.set(index);
+                                }
+                                return blockState;
+                            }
+                    );
+                }, OperationType.WRITE, OperationType.NONE);
+                count += changed[0];
+                if (changedBlocks != null && changed[0] != 0) {
+                    updateChangedBlocks(
+                            blockStates, changedBlocks, layer,
+                            cX + minLocalX, cZ + minLocalZ, cX + maxLocalX, cZ + maxLocalZ,
+                            x, minY, z, maxX, maxY, maxZ
+                    );
+                }
+            }
+        }
+
+        for (var block : blockEntityHolders) {
+            var pos = block.getPosition();
+            if (setBlockState(pos.x(), pos.y(), pos.z(), block.getBlockState(), layer, true, update, true, null)) {
+                count++;
+            }
+        }
+
+        if (update && count != 0) {
+            updateRegionBoundary(x, minY, z, maxX, maxY, maxZ);
+        }
+
+        return count;
+    }
+
+    /**
+     * Update the changed blocks in a chunk after the blocks in a region are set in bulk, together with
+     * their neighbors in the region. A changed block and its neighbor are only updated if they are different
+     * block states, so the inside of a region that is filled with the same block won't be updated. The
+     * neighbors outside the region are updated by {@link #updateRegionBoundary}.
+     *
+     * @param blockStates   the block states in the part of the region in the chunk after being set, indexed by x, y and then z
+     * @param changedBlocks the indexes of the changed blocks in {@code blockStates}
+     */
+    protected void updateChangedBlocks(
+            BlockState[] blockStates, BitSet changedBlocks, int layer,
+            int chunkMinX, int chunkMinZ, int chunkMaxX, int chunkMaxZ,
+            int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        var lengthY = maxY - minY + 1;
+        var lengthZ = chunkMaxZ - chunkMinZ + 1;
+        for (int index = changedBlocks.nextSetBit(0); index >= 0; index = changedBlocks.nextSetBit(index + 1)) {
+            var blockState = blockStates[index];
+            var pos = new Vector3i(
+                    chunkMinX + index / (lengthY * lengthZ),
+                    minY + (index / lengthZ) % lengthY,
+                    chunkMinZ + index % lengthZ
+            );
+            for (var face : BlockFace.values()) {
+                var neighborPos = face.offsetPos(pos);
+                var neighborX = neighborPos.x();
+                var neighborY = neighborPos.y();
+                var neighborZ = neighborPos.z();
+                if (neighborX < minX || neighborX > maxX || neighborY < minY || neighborY > maxY || neighborZ < minZ || neighborZ > maxZ) {
+                    // Updated by updateRegionBoundary()
+                    continue;
+                }
+
+                BlockState neighborBlockState;
+                if (neighborX >= chunkMinX && neighborX <= chunkMaxX && neighborZ >= chunkMinZ && neighborZ <= chunkMaxZ) {
+                    neighborBlockState = blockStates[((neighborX - chunkMinX) * lengthY + (neighborY - minY)) * lengthZ + (neighborZ - chunkMinZ)];
+                } else {
+                    // The neighbor is in another chunk. If that chunk is changed later, the pair will be checked
+                    // again with the new block state of the neighbor when updating that chunk
+                    neighborBlockState = getBlockState(neighborX, neighborY, neighborZ, layer);
+                }
+
+                if (neighborBlockState != blockState) {
+                    blockUpdateManager.neighborBlockUpdate(neighborPos, pos, face.opposite());
+                    blockUpdateManager.neighborBlockUpdate(pos, neighborPos, face);
+                }
+            }
+        }
+    }
+
+    /**
+     * Update the blocks on both sides of the boundary of the region, which is used instead of updating
+     * the neighbors of every block when the blocks in the region are changed in bulk.
+     */
+    protected void updateRegionBoundary(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (var face : BlockFace.values()) {
+            var offset = face.getOffset();
+            // The layer of the region on this face
+            var fromX = offset.x() > 0 ? maxX : minX;
+            var toX = offset.x() < 0 ? minX : maxX;
+            var fromY = offset.y() > 0 ? maxY : minY;
+            var toY = offset.y() < 0 ? minY : maxY;
+            var fromZ = offset.z() > 0 ? maxZ : minZ;
+            var toZ = offset.z() < 0 ? minZ : maxZ;
+            if (fromY + offset.y() < dimensionInfo.minHeight() || fromY + offset.y() > dimensionInfo.maxHeight()) {
+                continue;
+            }
+
+            for (int x = fromX; x <= toX; x++) {
+                for (int y = fromY; y <= toY; y++) {
+                    for (int z = fromZ; z <= toZ; z++) {
+                        var pos = new Vector3i(x, y, z);
+                        var neighborPos = face.offsetPos(pos);
+                        blockUpdateManager.neighborBlockUpdate(neighborPos, pos, face.opposite());
+                        blockUpdateManager.neighborBlockUpdate(pos, neighborPos, face);
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public boolean breakBlock(int x, int y, int z, ItemStack usedItem, Entity entity, boolean sendParticle) {
         var block = getBlockState(x, y, z);
@@ -263,6 +475,43 @@ public class AllayDimension implements Dimension {
         return true;
     }
 
+    @Override
+    public void addParticle(double x, double y, double z, Particle particle) {
+        var pos = new Vector3d(x, y, z);
+        broadcastToChunkLoaders(
+                x, z, () -> AllayPlayer.createParticlePacket(particle, pos, this.dimensionInfo.dimensionId()),
+                viewer -> viewer.viewParticle(particle, pos)
+        );
+    }
+
+    @Override
+    public void addSound(double x, double y, double z, Sound sound, boolean relative) {
+        var pos = new Vector3d(x, y, z);
+        broadcastToChunkLoaders(
+                x, z, () -> AllayPlayer.createSoundPacket(sound, pos, relative),
+                viewer -> viewer.viewSound(sound, pos, relative)
+        );
+    }
+
+    /**
+     * Send a packet to the players that are loading the chunk at the specified pos. The packet
+     * is only created and encoded once, see {@link BroadcastPacket}.
+     */
+    protected void broadcastToChunkLoaders(double x, double z, Supplier<? extends BedrockPacket> factory, Consumer<WorldViewer> fallback) {
+        var chunk = getChunkManager().getChunkByDimensionPos((int) x, (int) z);
+        if (chunk == null) {
+            return;
+        }
+
+        var viewers = new ArrayList<WorldViewer>();
+        chunk.forEachChunkLoaders(loader -> {
+            if (loader instanceof EntityPlayer player && player.isActualPlayer()) {
+                viewers.add(player.getController());
+            }
+        });
+        BroadcastPacket.broadcast(factory, viewers, fallback);
+    }
+
     @Override
     public String toString() {
         return "world=" + this.world.getName() + " dimId=" + this.dimensionInfo.dimensionId();
@@ -167,8 +167,9 @@ public class AllayWorld implements World {
 
         var dimensions = dimensionMap.values();
         if (TICK_DIMENSION_IN_PARALLEL && dimensions.size() > 1) {
+            // Each dimension is heavy enough to be ticked in its own task
             Utils.forEachInParallel(
-                    dimensions, Server.getInstance().getComputeThreadPool(),
+                    dimensions, Server.getInstance().getComputeThreadPool(), 1,
                     dimension -> ((AllayDimension) dimension).tick(currentTick)
             ).join();
         } else {
@@ -53,6 +53,23 @@ public class AllayChunk implements Chunk {
 
         AllayUnsafeChunk.checkXZ(x, z);
         var sectionY = y >> 4;
+        var stamp = blockLocks.tryOptimisticReadAt(sectionY);
+        if (stamp != 0) {
+            try {
+                var blockState = unsafeChunk.getBlockState(x, y, z, layer);
+                if (blockLocks.validateAt(sectionY, stamp)) {
+                    return blockState;
+                }
+            } catch (RuntimeException e) {
+                // The palette may be in an inconsistent state if it is being written at the same
+                // time, which should be caught by the validation. Otherwise, it is a real error
+                if (blockLocks.validateAt(sectionY, stamp)) {
+                    throw e;
+                }
+            }
+        }
+
+        // Fall back to the read lock if the section was written during the optimistic read
         blockLocks.lockReadLockAt(sectionY);
         try {
             return unsafeChunk.getBlockState(x, y, z, layer);
@@ -82,6 +99,20 @@ public class AllayChunk implements Chunk {
 
         AllayUnsafeChunk.checkXZ(x, z);
         var sectionY = y >> 4;
+        var stamp = biomeLocks.tryOptimisticReadAt(sectionY);
+        if (stamp != 0) {
+            try {
+                var biome = unsafeChunk.getBiome(x, y, z);
+                if (biomeLocks.validateAt(sectionY, stamp)) {
+                    return biome;
+                }
+            } catch (RuntimeException e) {
+                if (biomeLocks.validateAt(sectionY, stamp)) {
+                    throw e;
+                }
+            }
+        }
+
         biomeLocks.lockReadLockAt(sectionY);
         try {
             return unsafeChunk.getBiome(x, y, z);
@@ -194,6 +225,10 @@ public class AllayChunk implements Chunk {
 
         int getZ();
 
+        long getVersion();
+
+        long getSectionVersion(int sectionY);
+
         BlockEntity removeBlockEntity(int x, int y, int z);
 
         BlockEntity getBlockEntity(int x, int y, int z);
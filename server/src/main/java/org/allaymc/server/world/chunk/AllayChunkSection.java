@@ -2,12 +2,15 @@ package org.allaymc.server.world.chunk;
 
 import org.allaymc.api.annotation.NotThreadSafe;
 import org.allaymc.api.block.type.BlockState;
+import org.allaymc.api.utils.function.TriFunction;
 import org.allaymc.api.world.biome.BiomeType;
 import org.allaymc.api.world.biome.BiomeTypes;
 import org.allaymc.api.world.chunk.ChunkSection;
 import org.allaymc.server.datastruct.palette.Palette;
 import org.allaymc.server.world.storage.leveldb.ChunkSectionVersion;
 
+import java.util.function.IntConsumer;
+
 import static org.allaymc.api.block.type.BlockTypes.AIR;
 import static org.allaymc.api.utils.hash.HashUtils.hashChunkSectionXYZ;
 
@@ -18,7 +21,8 @@ import static org.allaymc.api.utils.hash.HashUtils.hashChunkSectionXYZ;
 public record AllayChunkSection(
         byte sectionY,
         Palette<BlockState>[] blockLayers,
-        Palette<BiomeType> biomes
+        Palette<BiomeType> biomes,
+        RandomUpdateBitMap randomUpdateBitMap
 ) implements ChunkSection {
     public static final int LAYER_COUNT = 2;
     public static final int CURRENT_CHUNK_SECTION_VERSION = ChunkSectionVersion.PALETTED_MULTI_WITH_OFFSET.ordinal();
@@ -32,6 +36,14 @@ public record AllayChunkSection(
         this(sectionY, blockLayer, new Palette<>(BiomeTypes.PLAINS));
     }
 
+    /**
+     * Please note that the random update bit map is empty after construction. If the given block
+     * layers are not empty, {@link #recalculateRandomUpdateBitMap()} should be called.
+     */
+    public AllayChunkSection(byte sectionY, Palette<BlockState>[] blockLayer, Palette<BiomeType> biomes) {
+        this(sectionY, blockLayer, biomes, new RandomUpdateBitMap());
+    }
+
     @Override
     public BlockState getBlockState(int x, int y, int z, int layer) {
         return blockLayers[layer].get(hashChunkSectionXYZ(x, y, z));
@@ -39,7 +51,63 @@ public record AllayChunkSection(
 
     @Override
     public void setBlockState(int x, int y, int z, BlockState blockState, int layer) {
-        blockLayers[layer].set(hashChunkSectionXYZ(x, y, z), blockState);
+        var index = hashChunkSectionXYZ(x, y, z);
+        blockLayers[layer].set(index, blockState);
+        if (layer == 0) {
+            randomUpdateBitMap.set(index, blockState.getBehavior().canRandomUpdate());
+        }
+    }
+
+    /**
+     * Set the block states in the given box of this section in bulk. Unlike {@link #setBlockState}, the palette
+     * index is only looked up when the block state differs from the previous written one, and is written to the
+     * palette directly.
+     *
+     * @param minX               the min x coordinate of the box, inclusive
+     * @param minY               the min y coordinate of the box, inclusive
+     * @param minZ               the min z coordinate of the box, inclusive
+     * @param maxX               the max x coordinate of the box, inclusive
+     * @param maxY               the max y coordinate of the box, inclusive
+     * @param maxZ               the max z coordinate of the box, inclusive
+     * @param layer              the layer
+     * @param blockStateSupplier the supplier of the block state at the local position, returning {@code null} keeps the block unchanged
+     * @param changeConsumer     the consumer of the index of each changed block, see {@link org.allaymc.api.utils.hash.HashUtils#hashChunkSectionXYZ}
+     * @return the count of the changed blocks
+     */
+    public int setBlockStates(
+            int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int layer,
+            TriFunction<Integer, Integer, Integer, BlockState> blockStateSupplier, IntConsumer changeConsumer) {
+        var blockLayer = blockLayers[layer];
+        BlockState lastBlockState = null;
+        var lastPaletteIndex = 0;
+        var count = 0;
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                // y is the lowest part of the index
+                var columnIndex = hashChunkSectionXYZ(x, 0, z);
+                for (int y = minY; y <= maxY; y++) {
+                    var blockState = blockStateSupplier.apply(x, y, z);
+                    var index = columnIndex + y;
+                    if (blockState == null || blockLayer.get(index) == blockState) {
+                        continue;
+                    }
+
+                    if (blockState != lastBlockState) {
+                        lastBlockState = blockState;
+                        lastPaletteIndex = blockLayer.getOrAddPaletteIndex(blockState);
+                    }
+
+                    blockLayer.setPaletteIndex(index, lastPaletteIndex);
+                    if (layer == 0) {
+                        randomUpdateBitMap.set(index, blockState.getBehavior().canRandomUpdate());
+                    }
+                    changeConsumer.accept(index);
+                    count++;
+                }
+            }
+        }
+
+        return count;
     }
 
     @Override
@@ -57,6 +125,14 @@ public record AllayChunkSection(
         return blockLayers[0].oneEntryOnly();
     }
 
+    /**
+     * Recalculate the random update bit map from the first block layer. Should be called
+     * after the block layer is changed without going through {@link #setBlockState}.
+     */
+    public void recalculateRandomUpdateBitMap() {
+        randomUpdateBitMap.recalculate(blockLayers[0]);
+    }
+
     public boolean hasDirtyBlockLayer() {
         for (var layer : blockLayers) {
             if (layer.isDirty()) {
@@ -3,6 +3,7 @@ package org.allaymc.server.world.chunk;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Sets;
 import io.netty.util.internal.PlatformDependent;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +15,8 @@ import org.allaymc.api.entity.interfaces.EntityPlayer;
 import org.allaymc.api.eventbus.event.block.BlockRandomUpdateEvent;
 import org.allaymc.api.eventbus.event.block.BlockScheduleUpdateEvent;
 import org.allaymc.api.math.position.Position3i;
+import org.allaymc.api.server.Server;
+import org.allaymc.api.utils.function.TriFunction;
 import org.allaymc.api.utils.hash.HashUtils;
 import org.allaymc.api.world.Dimension;
 import org.allaymc.api.world.WorldViewer;
@@ -26,14 +29,20 @@ import org.allaymc.api.world.storage.WorldStorage;
 import org.allaymc.server.AllayServer;
 import org.allaymc.server.blockentity.component.BlockEntityBaseComponentImpl;
 import org.allaymc.server.blockentity.impl.BlockEntityImpl;
+import org.allaymc.server.player.AllayPlayer;
+import org.allaymc.server.world.AllayDimension;
 import org.allaymc.server.world.light.AllayLightEngine;
+import org.allaymc.server.world.light.ChunkLightData;
 import org.allaymc.server.world.manager.AllayEntityManager;
+import org.allaymc.server.world.storage.leveldb.AllayLevelDBWorldStorage;
 import org.jctools.maps.NonBlockingHashMap;
 import org.jetbrains.annotations.Range;
 import org.jetbrains.annotations.VisibleForTesting;
 
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.stream.Collectors;
 
 /**
@@ -43,6 +52,8 @@ import java.util.stream.Collectors;
 public class AllayUnsafeChunk implements UnsafeChunk {
 
     protected static final int LCG_CONSTANT = 1013904223;
+    // The count of changed blocks in a section above which the whole chunk is resent
+    protected static final int RESEND_THRESHOLD = 16 * 16 * 16 / 2;
 
     @Getter
     protected final int x, z;
@@ -53,20 +64,49 @@ public class AllayUnsafeChunk implements UnsafeChunk {
     @Getter
     protected final NonBlockingHashMap<Integer, ScheduledUpdateInfo> scheduledUpdates;
     protected final NonBlockingHashMap<Integer, BlockEntity> blockEntities;
+    // The block entities that need to be ticked. Sleeping block entities are removed from this map
+    protected final NonBlockingHashMap<Integer, BlockEntity> awakeBlockEntities;
     protected final ChunkBitMap heightMapDirtyFlags;
     protected final Set<ChunkLoader> chunkLoaders;
     protected final Queue<WorldViewer.BlockUpdate> blockUpdates;
     protected final Queue<WorldViewer.BlockUpdate> extraBlockUpdates;
     protected final Queue<Runnable> chunkTaskQueue;
     protected final AllayChunk safeChunk;
+    /**
+     * Bumped every time a block or biome in this chunk is changed. Used by {@link ChunkPacketCache} to know
+     * whether the cached network payload of this chunk is still valid.
+     */
+    protected final AtomicLong version;
+    /**
+     * The same as {@link #version}, but for each section.
+     */
+    protected final AtomicLongArray sectionVersions;
+    /**
+     * Records what has been saved and what has been changed since then, shared by auto save and the world storage.
+     */
+    @Getter
+    protected final ChunkSaveState saveState;
     @Getter
     @Setter
     protected volatile ChunkState state;
     @Setter
     protected BlockChangeCallback blockChangeCallback;
+    // Used to notify the light engine of the blocks changed in bulk, null if the chunk is not loaded
+    protected AllayLightEngine lightEngine;
+    /**
+     * Whether the whole chunk should be resent to the viewers instead of the queued block updates,
+     * see {@link #setBlockStates}.
+     */
+    protected volatile boolean resendRequested;
     @Getter
     protected volatile boolean loaded;
     protected int autoSaveTimer = 0;
+    /**
+     * The light read from the world storage, which will be taken by the light engine when the chunk is loaded.
+     */
+    @Getter
+    @Setter
+    protected volatile ChunkLightData lightData;
     protected int updateLCG = ThreadLocalRandom.current().nextInt();
 
     /**
@@ -94,11 +134,20 @@ public class AllayUnsafeChunk implements UnsafeChunk {
         this.scheduledUpdates = scheduledUpdates;
         this.state = state;
         this.blockEntities = blockEntities;
+        this.awakeBlockEntities = new NonBlockingHashMap<>();
+        blockEntities.forEach((key, blockEntity) -> {
+            if (getBaseComponent(blockEntity).isTickable()) {
+                awakeBlockEntities.put(key, blockEntity);
+            }
+        });
         this.heightMapDirtyFlags = new ChunkBitMap();
         this.chunkLoaders = Sets.newConcurrentHashSet();
         this.blockUpdates = PlatformDependent.newMpscQueue();
         this.extraBlockUpdates = PlatformDependent.newMpscQueue();
         this.chunkTaskQueue = PlatformDependent.newMpscQueue();
+        this.version = new AtomicLong();
+        this.sectionVersions = new AtomicLongArray(sections.length);
+        this.saveState = new ChunkSaveState();
         this.safeChunk = new AllayChunk(this);
     }
 
@@ -126,7 +175,7 @@ public class AllayUnsafeChunk implements UnsafeChunk {
     }
 
     public void tick(long currentTick, Dimension dimension) {
-        blockEntities.values().forEach(blockEntity -> ((BlockEntityBaseComponentImpl) ((BlockEntityImpl) blockEntity).getBaseComponent()).tick(currentTick));
+        awakeBlockEntities.values().forEach(blockEntity -> getBaseComponent(blockEntity).tick(currentTick));
         tickScheduledUpdates(currentTick, dimension);
         tickRandomUpdates(dimension);
     }
@@ -134,9 +183,55 @@ public class AllayUnsafeChunk implements UnsafeChunk {
     public void checkAutoSave(WorldStorage worldStorage) {
         autoSaveTimer++;
         if (autoSaveTimer >= AllayServer.getSettings().storageSettings().chunkAutoSaveCycle()) {
-            worldStorage.writeChunk(safeChunk);
             autoSaveTimer = 0;
+            if (!isChangedSinceLastSave()) {
+                return;
+            }
+
+            if (worldStorage instanceof AllayLevelDBWorldStorage levelDBWorldStorage) {
+                // Let the save scheduler spread the writes across ticks. The storage updates
+                // the save state when the chunk is actually written
+                levelDBWorldStorage.getChunkSaveScheduler().schedule(safeChunk);
+            } else {
+                // Record the save state before writing, so that the changes made during
+                // writing will be saved next time
+                saveState.update(version.get(), state, !blockEntities.isEmpty(), !scheduledUpdates.isEmpty());
+                worldStorage.writeChunk(safeChunk).exceptionally(t -> {
+                    markAllDataUnsaved();
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Check if this chunk should be saved by auto save.
+     *
+     * @return {@code true} if this chunk has been changed since the last auto save
+     */
+    protected boolean isChangedSinceLastSave() {
+        return saveState.isChanged(version.get(), state);
+    }
+
+    /**
+     * Mark the block entities in this chunk as changed, so that they will be written by the next save.
+     * Called when a block entity in this chunk is marked as dirty.
+     */
+    public void markBlockEntitiesChanged() {
+        saveState.markBlockEntitiesChanged();
+    }
+
+    /**
+     * Mark all data in this chunk as not saved, so that the whole chunk will be written next time.
+     * Should be called if writing the chunk failed.
+     */
+    public void markAllDataUnsaved() {
+        for (var section : sections) {
+            for (var layer : section.blockLayers()) {
+                layer.setDirty(true);
+            }
         }
+        saveState.reset();
     }
 
     protected void tickScheduledUpdates(long currentTick, Dimension dimension) {
@@ -147,6 +242,9 @@ public class AllayUnsafeChunk implements UnsafeChunk {
                 scheduledUpdates.remove(entry.getKey());
             }
         }
+        if (!positions.isEmpty()) {
+            saveState.markScheduledUpdatesChanged();
+        }
 
         positions.forEach(info -> {
             var pos = info.getPos();
@@ -168,31 +266,30 @@ public class AllayUnsafeChunk implements UnsafeChunk {
         }
 
         for (var section : sections) {
-            if (section.isAirSection()) {
-                continue;
-            }
-            // Check the entry list of this section, and
-            // if there is no block that support random tick
+            var randomUpdateBitMap = section.randomUpdateBitMap();
+            // If there is no block that support random tick
             // in this section, we can just skip this section
-            if (section.blockLayers()[0].allEntriesMatch(blockState -> !blockState.getBehavior().canRandomUpdate())) {
+            if (randomUpdateBitMap.isEmpty()) {
                 continue;
             }
 
             int sectionY = section.sectionY();
+            var callEvent = Server.getInstance().getEventBus().hasListeners(BlockRandomUpdateEvent.class);
             for (int i = 0; i < randomTickSpeed * 3; i++) {
                 int lcg = nextUpdateLCG();
                 int localX = lcg & 0x0f;
                 int localZ = lcg >>> 8 & 0x0f;
                 int localY = lcg >>> 16 & 0x0f;
-                // TODO: instead of get the block state from palette and check if it supports random tick,
-                // we can add a bitset to every chunk section to mark whether a block pos contains a block
-                // that supports random tick, this would be much quicker
-                var blockState = getBlockState(localX, sectionY * 16 + localY, localZ, 0);
-                if (blockState.getBehavior().canRandomUpdate()) {
-                    var block = new Block(blockState, new Position3i(localX + (this.x << 4), localY + (sectionY << 4), localZ + (this.z << 4), dimension), 0);
-                    if (new BlockRandomUpdateEvent(block).call()) {
-                        blockState.getBehavior().onRandomUpdate(block);
-                    }
+                // Check the bit map first, so that we don't need to look up
+                // the palette for the positions that can't be random updated
+                if (!randomUpdateBitMap.get(HashUtils.hashChunkSectionXYZ(localX, localY, localZ))) {
+                    continue;
+                }
+
+                var blockState = section.getBlockState(localX, localY, localZ, 0);
+                var block = new Block(blockState, new Position3i(localX + (this.x << 4), localY + (sectionY << 4), localZ + (this.z << 4), dimension), 0);
+                if (!callEvent || new BlockRandomUpdateEvent(block).call()) {
+                    blockState.getBehavior().onRandomUpdate(block);
                 }
             }
         }
@@ -203,7 +300,8 @@ public class AllayUnsafeChunk implements UnsafeChunk {
     }
 
     public void onChunkLoad(Dimension dimension) {
-        ((AllayLightEngine) dimension.getLightEngine()).onChunkLoad(toSafeChunk());
+        lightEngine = (AllayLightEngine) dimension.getLightEngine();
+        lightEngine.onChunkLoad(toSafeChunk());
         setBlockChangeCallback((x, y, z, blockState, layer) -> {
             if (layer == 0) {
                 ((AllayLightEngine) dimension.getLightEngine()).onBlockChange(x + (this.x << 4), y, z + (this.z << 4), blockState.getBlockStateData().lightEmission(), blockState.getBlockStateData().lightDampening());
@@ -216,8 +314,10 @@ public class AllayUnsafeChunk implements UnsafeChunk {
 
     public void onChunkUnload(Dimension dimension) {
         ((AllayLightEngine) dimension.getLightEngine()).onChunkUnload(safeChunk);
+        ((AllayDimension) dimension).getChunkPacketCache().invalidate(this.x, this.z);
         ((AllayEntityManager) dimension.getEntityManager()).onChunkUnload(this.x, this.z);
         blockChangeCallback = null;
+        lightEngine = null;
     }
 
     @Override
@@ -244,6 +344,7 @@ public class AllayUnsafeChunk implements UnsafeChunk {
         checkXYZ(x, y, z);
         var key = HashUtils.hashChunkXYZ(x, y, z);
         scheduledUpdates.put(key, new ScheduledUpdateInfo(new org.joml.Vector3i((this.x << 4) + x, y, (this.z << 4) + z), time));
+        saveState.markScheduledUpdatesChanged();
     }
 
     @Override
@@ -253,6 +354,104 @@ public class AllayUnsafeChunk implements UnsafeChunk {
         return scheduledUpdateInfo != null;
     }
 
+    /**
+     * Set the block states in the given box of this chunk in bulk, section by section. The block states are
+     * written to the palettes directly, and the versions, the height map and the light engine are notified
+     * once per section instead of once per block. If more than half of the blocks in a section are changed,
+     * the whole chunk will be resent to the viewers instead of sending the block updates.
+     * <p>
+     * Block behaviors are not called and block entities are not created or removed by this method, so the
+     * caller should set the blocks that have (or will have) block entities through {@link #setBlockState}.
+     *
+     * @param minX               the min x coordinate of the box in this chunk, inclusive
+     * @param minY               the min y coordinate of the box, inclusive
+     * @param minZ               the min z coordinate of the box in this chunk, inclusive
+     * @param maxX               the max x coordinate of the box in this chunk, inclusive
+     * @param maxY               the max y coordinate of the box, inclusive
+     * @param maxZ               the max z coordinate of the box in this chunk, inclusive
+     * @param layer              the layer
+     * @param send               whether to send the changes to the viewers
+     * @param blockStateSupplier the supplier of the block state at the position in this chunk, returning
+     *                           {@code null} keeps the block unchanged
+     * @return the count of the changed blocks
+     */
+    public int setBlockStates(
+            int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int layer, boolean send,
+            TriFunction<Integer, Integer, Integer, BlockState> blockStateSupplier) {
+        checkXYZ(minX, minY, minZ);
+        checkXYZ(maxX, maxY, maxZ);
+        Preconditions.checkArgument(layer >= 0 && layer < AllayChunkSection.LAYER_COUNT, "Unsupported layer: " + layer);
+
+        var count = 0;
+        var changes = new IntArrayList();
+        for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+            var section = getSection(sectionY);
+            var sectionMinY = sectionY << 4;
+            changes.clear();
+            var changed = section.setBlockStates(
+                    minX, Math.max(minY, sectionMinY) - sectionMinY, minZ,
+                    maxX, Math.min(maxY, sectionMinY + 15) - sectionMinY, maxZ,
+                    layer, (x, y, z) -> blockStateSupplier.apply(x, sectionMinY + y, z), changes::add
+            );
+            if (changed == 0) {
+                continue;
+            }
+
+            count += changed;
+            sectionVersions.incrementAndGet(sectionY - dimensionInfo.minSectionY());
+            if (layer == 0) {
+                for (int x = minX; x <= maxX; x++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        heightMapDirtyFlags.set(x, z, true);
+                    }
+                }
+                notifyLightEngine(section, sectionY, changes);
+            }
+
+            if (send && loaded && !resendRequested) {
+                if (changed > RESEND_THRESHOLD) {
+                    resendRequested = true;
+                } else {
+                    queueBlockUpdates(section, sectionY, layer, changes);
+                }
+            }
+        }
+
+        if (count != 0) {
+            version.incrementAndGet();
+        }
+        return count;
+    }
+
+    protected void notifyLightEngine(AllayChunkSection section, int sectionY, IntArrayList changes) {
+        var lightEngine = this.lightEngine;
+        if (lightEngine == null) {
+            return;
+        }
+
+        var packedChanges = new int[changes.size()];
+        for (int i = 0; i < packedChanges.length; i++) {
+            var index = changes.getInt(i);
+            var data = section.blockLayers()[0].get(index).getBlockStateData();
+            packedChanges[i] = AllayLightEngine.packBlockChange(index, data.lightEmission(), data.lightDampening());
+        }
+        lightEngine.onBlockChanges(this.x, sectionY, this.z, packedChanges);
+    }
+
+    protected void queueBlockUpdates(AllayChunkSection section, int sectionY, int layer, IntArrayList changes) {
+        var queue = layer == 0 ? blockUpdates : extraBlockUpdates;
+        for (int i = 0; i < changes.size(); i++) {
+            var index = changes.getInt(i);
+            // See HashUtils.hashChunkSectionXYZ()
+            queue.offer(new WorldViewer.BlockUpdate(
+                    (this.x << 4) + (index >>> 8),
+                    (sectionY << 4) + (index & 0xF),
+                    (this.z << 4) + ((index >>> 4) & 0xF),
+                    section.blockLayers()[layer].get(index)
+            ));
+        }
+    }
+
     @Override
     public BlockState getBlockState(int x, int y, int z, int layer) {
         if (y < dimensionInfo.minHeight() || y > dimensionInfo.maxHeight()) {
@@ -267,6 +466,8 @@ public class AllayUnsafeChunk implements UnsafeChunk {
     public void setBlockState(int x, int y, int z, BlockState blockState, int layer, boolean send) {
         checkXYZ(x, y, z);
         this.getSection(y >> 4).setBlockState(x, y & 0xf, z, blockState, layer);
+        sectionVersions.incrementAndGet((y >> 4) - dimensionInfo.minSectionY());
+        version.incrementAndGet();
 
         if (layer == 0) {
             // Mark the height map at this position as dirty
@@ -277,6 +478,11 @@ public class AllayUnsafeChunk implements UnsafeChunk {
             blockChangeCallback.onBlockChange(x, y, z, blockState, layer);
         }
 
+        if (layer == 0 && !blockEntities.isEmpty()) {
+            // The block entity may be waiting for a change of its block state, for example a hopper being enabled
+            wakeUpBlockEntity(x, y, z);
+        }
+
         if (send && loaded) {
             var update = new WorldViewer.BlockUpdate((this.x << 4) + x, y, (this.z << 4) + z, blockState);
             switch (layer) {
@@ -368,6 +574,19 @@ public class AllayUnsafeChunk implements UnsafeChunk {
     public void setBiome(int x, int y, int z, BiomeType biomeType) {
         checkXYZ(x, y, z);
         this.getSection(y >> 4).setBiomeType(x, y & 0xf, z, biomeType);
+        sectionVersions.incrementAndGet((y >> 4) - dimensionInfo.minSectionY());
+        version.incrementAndGet();
+    }
+
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public long getSectionVersion(int sectionY) {
+        checkSectionY(sectionY);
+        return sectionVersions.get(sectionY - dimensionInfo.minSectionY());
     }
 
     @Override
@@ -386,13 +605,69 @@ public class AllayUnsafeChunk implements UnsafeChunk {
         var pos = blockEntity.getPosition();
         var key = HashUtils.hashChunkXYZ(pos.x() & 15, pos.y(), pos.z() & 15);
         blockEntities.put(key, blockEntity);
+        if (getBaseComponent(blockEntity).isTickable()) {
+            awakeBlockEntities.put(key, blockEntity);
+        }
+        saveState.markBlockEntitiesChanged();
     }
 
     @Override
     public BlockEntity removeBlockEntity(int x, int y, int z) {
         checkXYZ(x, y, z);
         var key = HashUtils.hashChunkXYZ(x, y, z);
-        return blockEntities.remove(key);
+        var removed = blockEntities.remove(key);
+        awakeBlockEntities.remove(key);
+        if (removed != null) {
+            saveState.markBlockEntitiesChanged();
+        }
+        return removed;
+    }
+
+    /**
+     * Wake up the block entity at the specified position, so that it will be ticked again. Does nothing if
+     * there is no block entity at the position or the block entity doesn't need to be ticked.
+     *
+     * @param x the x coordinate of the block entity
+     * @param y the y coordinate of the block entity
+     * @param z the z coordinate of the block entity
+     */
+    public void wakeUpBlockEntity(int x, int y, int z) {
+        if (y < dimensionInfo.minHeight() || y > dimensionInfo.maxHeight()) {
+            return;
+        }
+
+        var key = HashUtils.hashChunkXYZ(x, y, z);
+        var blockEntity = blockEntities.get(key);
+        if (blockEntity != null && getBaseComponent(blockEntity).isTickable()) {
+            awakeBlockEntities.put(key, blockEntity);
+        }
+    }
+
+    /**
+     * Stop ticking the block entity at the specified position until it is woken up.
+     *
+     * @param x the x coordinate of the block entity
+     * @param y the y coordinate of the block entity
+     * @param z the z coordinate of the block entity
+     */
+    public void sleepBlockEntity(int x, int y, int z) {
+        awakeBlockEntities.remove(HashUtils.hashChunkXYZ(x, y, z));
+    }
+
+    /**
+     * Check if the block entity at the specified position is awake.
+     *
+     * @param x the x coordinate of the block entity
+     * @param y the y coordinate of the block entity
+     * @param z the z coordinate of the block entity
+     * @return {@code true} if the block entity is awake
+     */
+    public boolean isBlockEntityAwake(int x, int y, int z) {
+        return awakeBlockEntities.containsKey(HashUtils.hashChunkXYZ(x, y, z));
+    }
+
+    protected static BlockEntityBaseComponentImpl getBaseComponent(BlockEntity blockEntity) {
+        return (BlockEntityBaseComponentImpl) ((BlockEntityImpl) blockEntity).getBaseComponent();
     }
 
     @Override
@@ -415,6 +690,20 @@ public class AllayUnsafeChunk implements UnsafeChunk {
         if (chunkLoaders.isEmpty()) {
             blockUpdates.clear();
             extraBlockUpdates.clear();
+            resendRequested = false;
+            return;
+        }
+
+        if (resendRequested) {
+            resendRequested = false;
+            // The resent chunk already contains all the queued block updates
+            blockUpdates.clear();
+            extraBlockUpdates.clear();
+            chunkLoaders.forEach(loader -> {
+                if (loader instanceof EntityPlayer player && player.isActualPlayer()) {
+                    ((AllayPlayer) player.getController()).resendChunk(toSafeChunk());
+                }
+            });
             return;
         }
 
@@ -45,6 +45,19 @@ public final class ChunkEncoder {
         }
     }
 
+    public static void writeToNetworkWithoutBlockEntities(AllayUnsafeChunk chunk, ByteBuf byteBuf) {
+        writeBlocks(chunk, byteBuf);
+        writeBiomes(chunk, byteBuf);
+        // Length of 1 byte for the border block count
+        byteBuf.writeByte(0);
+    }
+
+    public static void writeToNetworkBiomeOnly(AllayUnsafeChunk chunk, ByteBuf byteBuf) {
+        writeBiomes(chunk, byteBuf);
+        // Length of 1 byte for the border block count
+        byteBuf.writeByte(0);
+    }
+
     public static void writeToNetwork(AllayChunkSection section, ByteBuf byteBuf) {
         byteBuf.writeByte(AllayChunkSection.CURRENT_CHUNK_SECTION_VERSION);
         // Block layer count
@@ -64,7 +77,7 @@ public final class ChunkEncoder {
         }
     }
 
-    private static void writeBiomes(AllayUnsafeChunk chunk, ByteBuf byteBuf) {
+    public static void writeBiomes(AllayUnsafeChunk chunk, ByteBuf byteBuf) {
         Palette<BiomeType> last = null;
         for (var s : chunk.getSections()) {
             var section = (AllayChunkSection) s;
@@ -74,7 +87,7 @@ public final class ChunkEncoder {
         }
     }
 
-    private static void writeBlockEntities(AllayUnsafeChunk chunk, ByteBuf byteBuf) {
+    public static void writeBlockEntities(AllayUnsafeChunk chunk, ByteBuf byteBuf) {
         var blockEntities = chunk.getBlockEntities().values();
         if (!blockEntities.isEmpty()) {
             try (var writer = NbtUtils.createNetworkWriter(new ByteBufOutputStream(byteBuf))) {
@@ -0,0 +1,297 @@
+package org.allaymc.server.world.chunk;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.IllegalReferenceCountException;
+import lombok.extern.slf4j.Slf4j;
+import org.allaymc.api.utils.hash.HashUtils;
+import org.allaymc.server.utils.XXHash64;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ChunkPacketCache caches the encoded network payload of chunks in a dimension, so that a chunk
+ * is only encoded once per change instead of once per viewer.
+ * <p>
+ * Each entry is bound to the chunk instance and the {@link AllayUnsafeChunk#getVersion() version}
+ * of the chunk at the moment it was encoded. Entries are evicted once the total size of the cached
+ * payloads exceeds the memory budget. Block entities are not cached because their data can change
+ * without bumping the chunk version, they are encoded for each viewer and appended to the cached payload.
+ * <p>
+ * All methods in this class are expected to be called while holding at least the read locks of the
+ * chunk, so that the chunk version won't change during encoding.
+ *
+ * @author daoge_cmd
+ */
+@Slf4j
+public final class ChunkPacketCache {
+
+    private final Cache<Key, Entry> cache;
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+
+    /**
+     * Create a new chunk packet cache.
+     *
+     * @param maxSizeInBytes the memory budget of the cache. Caching is disabled if the value <= 0
+     */
+    public ChunkPacketCache(long maxSizeInBytes) {
+        this.cache = maxSizeInBytes > 0 ? Caffeine.newBuilder()
+                .maximumWeight(maxSizeInBytes)
+                .<Key, Entry>weigher((key, entry) -> entry.data().capacity())
+                // Release the buffer in the thread that evicted the entry, so that memory is freed immediately
+                .executor(Runnable::run)
+                .removalListener((key, entry, cause) -> {
+                    if (entry != null) {
+                        entry.data().release();
+                    }
+                })
+                .build() : null;
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+    }
+
+    /**
+     * Get the full network payload of the chunk, which is used when the sub chunk sending system is disabled.
+     *
+     * @param chunk the chunk
+     * @return a new buffer that should be released by the caller
+     */
+    public ByteBuf getFullChunkData(AllayUnsafeChunk chunk) {
+        var terrain = getEntry(chunk, Type.FULL, (entry, data) -> data);
+        if (chunk.getBlockEntities().isEmpty()) {
+            return terrain;
+        }
+
+        var blockEntities = ByteBufAllocator.DEFAULT.ioBuffer();
+        ChunkEncoder.writeBlockEntities(chunk, blockEntities);
+        return Unpooled.wrappedBuffer(terrain, blockEntities);
+    }
+
+    /**
+     * Get the biome only network payload of the chunk, which is used when the sub chunk sending system is enabled.
+     *
+     * @param chunk the chunk
+     * @return a new buffer that should be released by the caller
+     */
+    public ByteBuf getBiomeOnlyChunkData(AllayUnsafeChunk chunk) {
+        return getEntry(chunk, Type.BIOME_ONLY, (entry, data) -> data);
+    }
+
+    /**
+     * Get the blobs of the chunk, which are used when the client supports blob cache. The blobs are
+     * the sub chunks from the lowest to the highest, followed by the biomes of the whole chunk.
+     *
+     * @param chunk     the chunk
+     * @param biomeOnly {@code true} if only the biome blob is needed, which is the case when the
+     *                  sub chunk sending system is enabled
+     * @return the blobs, which should be released by the caller, or {@code null} if the chunk failed to
+     * be encoded, in which case the chunk should be sent without blob cache
+     */
+    public Blobs getChunkBlobs(AllayUnsafeChunk chunk, boolean biomeOnly) {
+        return getEntry(chunk, biomeOnly ? Type.BIOME_BLOB : Type.BLOBS, (entry, data) -> {
+            if (entry.blobIds() == null) {
+                data.release();
+                return null;
+            }
+
+            var blobs = new ByteBuf[entry.blobIds().length];
+            try {
+                for (int i = 0; i < blobs.length; i++) {
+                    var offset = entry.blobOffsets()[i];
+                    blobs[i] = data.retainedSlice(offset, entry.blobOffsets()[i + 1] - offset);
+                }
+            } finally {
+                data.release();
+            }
+            return new Blobs(entry.blobIds(), blobs);
+        });
+    }
+
+    /**
+     * Invalidate the cached payloads of all types of the chunk at the specified position.
+     *
+     * @param x the x coordinate of the chunk
+     * @param z the z coordinate of the chunk
+     */
+    public void invalidate(int x, int z) {
+        if (cache != null) {
+            var pos = HashUtils.hashXZ(x, z);
+            for (var type : Type.values()) {
+                cache.invalidate(new Key(pos, type));
+            }
+        }
+    }
+
+    /**
+     * Invalidate all the cached payloads.
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * @return how many times the cached payload was reused
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return how many times a chunk had to be encoded
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return the total size of the cached payloads in bytes
+     */
+    public long getSizeInBytes() {
+        if (cache == null) {
+            return 0;
+        }
+
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    private <T> T getEntry(AllayUnsafeChunk chunk, Type type, EntryReader<T> reader) {
+        if (cache == null) {
+            missCount.increment();
+            return readUncached(chunk, type, reader);
+        }
+
+        // Each type has its own slot, so that viewers that need different types of
+        // payload of the same chunk won't evict each other's entry
+        var key = new Key(HashUtils.hashXZ(chunk.getX(), chunk.getZ()), type);
+        var version = chunk.getVersion();
+        var entry = cache.getIfPresent(key);
+        var encoded = new boolean[1];
+        if (entry == null || !entry.matches(chunk, version, type)) {
+            // Compute is atomic per key, so viewers that are loading the same chunk at
+            // the same time will wait for the first one instead of encoding it again
+            entry = cache.asMap().compute(key, (k, old) -> {
+                if (old != null && old.matches(chunk, version, type)) {
+                    return old;
+                }
+
+                encoded[0] = true;
+                return encode(chunk, version, type);
+            });
+        }
+
+        ByteBuf data;
+        try {
+            data = entry.data().retainedSlice();
+        } catch (IllegalReferenceCountException ignored) {
+            // The entry was evicted and released before we retained it
+            missCount.increment();
+            return readUncached(chunk, type, reader);
+        }
+
+        (encoded[0] ? missCount : hitCount).increment();
+        return reader.read(entry, data);
+    }
+
+    private static <T> T readUncached(AllayUnsafeChunk chunk, Type type, EntryReader<T> reader) {
+        var entry = encode(chunk, chunk.getVersion(), type);
+        // The reader takes the ownership of the buffer
+        return reader.read(entry, entry.data());
+    }
+
+    private static Entry encode(AllayUnsafeChunk chunk, long version, Type type) {
+        var dimensionInfo = chunk.getDimensionInfo();
+        var sectionCount = type == Type.BLOBS ? dimensionInfo.chunkSectionCount() : 0;
+        var blobOffsets = type == Type.BLOBS || type == Type.BIOME_BLOB ? new int[sectionCount + 2] : null;
+        var encoded = ByteBufAllocator.DEFAULT.ioBuffer();
+        try {
+            switch (type) {
+                case FULL -> ChunkEncoder.writeToNetworkWithoutBlockEntities(chunk, encoded);
+                case BIOME_ONLY -> ChunkEncoder.writeToNetworkBiomeOnly(chunk, encoded);
+                case BLOBS, BIOME_BLOB -> {
+                    for (int i = 0; i < sectionCount; i++) {
+                        blobOffsets[i] = encoded.writerIndex();
+                        ChunkEncoder.writeToNetwork(chunk.getSection(dimensionInfo.minSectionY() + i), encoded);
+                    }
+                    blobOffsets[sectionCount] = encoded.writerIndex();
+                    ChunkEncoder.writeBiomes(chunk, encoded);
+                    blobOffsets[sectionCount + 1] = encoded.writerIndex();
+                }
+            }
+
+            // Copy the payload into an unpooled buffer with exact capacity. The buffer must not be
+            // pooled, otherwise a released buffer may be recycled and retained by a stale reader
+            var data = Unpooled.directBuffer(encoded.readableBytes()).writeBytes(encoded);
+            return new Entry(chunk, version, type, data, blobOffsets, computeBlobIds(data, blobOffsets));
+        } catch (Throwable t) {
+            log.error("Error while encoding chunk(x={}, z={})!", chunk.getX(), chunk.getZ(), t);
+            // Use an invalid version so that the chunk will be encoded again next time. No blob is
+            // provided, so that the ids of empty blobs won't be announced to the clients
+            return new Entry(chunk, -1, type, Unpooled.EMPTY_BUFFER, null, null);
+        } finally {
+            encoded.release();
+        }
+    }
+
+    private static long[] computeBlobIds(ByteBuf data, int[] blobOffsets) {
+        if (blobOffsets == null) {
+            return null;
+        }
+
+        var blobIds = new long[blobOffsets.length - 1];
+        for (int i = 0; i < blobIds.length; i++) {
+            blobIds[i] = XXHash64.hash(data, blobOffsets[i], blobOffsets[i + 1] - blobOffsets[i], 0);
+        }
+        return blobIds;
+    }
+
+    private enum Type {
+        FULL,
+        BIOME_ONLY,
+        BLOBS,
+        BIOME_BLOB
+    }
+
+    @FunctionalInterface
+    private interface EntryReader<T> {
+        /**
+         * Read the entry.
+         *
+         * @param entry the entry
+         * @param data  a retained slice of the entry data, the ownership of which is transferred to the reader
+         * @return the result
+         */
+        T read(Entry entry, ByteBuf data);
+    }
+
+    private record Key(long pos, Type type) {
+    }
+
+    private record Entry(AllayUnsafeChunk chunk, long version, Type type, ByteBuf data, int[] blobOffsets, long[] blobIds) {
+        boolean matches(AllayUnsafeChunk chunk, long version, Type type) {
+            return this.chunk == chunk && this.version == version && this.type == type;
+        }
+    }
+
+    /**
+     * The blobs of a chunk.
+     *
+     * @param ids   the blob ids, which are the xxHash64 values of the blobs
+     * @param blobs the blobs
+     */
+    public record Blobs(long[] ids, ByteBuf[] blobs) {
+        /**
+         * Release all the blobs.
+         */
+        public void release() {
+            for (var blob : blobs) {
+                blob.release();
+            }
+        }
+    }
+}
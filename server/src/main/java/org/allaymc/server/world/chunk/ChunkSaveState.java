@@ -0,0 +1,95 @@
+package org.allaymc.server.world.chunk;
+
+import lombok.Getter;
+import org.allaymc.api.world.chunk.ChunkState;
+
+/**
+ * ChunkSaveState records what has been written to the world storage for a chunk instance and what has
+ * been changed since then. It is used by auto save to skip the unchanged chunks, and by the storage to
+ * skip the records that haven't been changed since the last write.
+ *
+ * @author daoge_cmd
+ */
+@Getter
+public final class ChunkSaveState {
+
+    /**
+     * The version of the chunk when it was written last time, or {@code -1} if it was never written.
+     */
+    private volatile long writtenVersion = -1;
+    /**
+     * The state of the chunk when it was written last time, or {@code null} if it was never written.
+     */
+    private volatile ChunkState writtenState;
+    /**
+     * Whether the chunk had block entities when it was written last time.
+     */
+    private volatile boolean blockEntitiesWritten = true;
+    /**
+     * Whether the chunk had scheduled updates when it was written last time.
+     */
+    private volatile boolean scheduledUpdatesWritten = true;
+    /**
+     * Whether a block entity has been added, removed or marked as dirty since the last write.
+     */
+    private volatile boolean blockEntitiesChanged = true;
+    /**
+     * Whether a scheduled update has been added or removed since the last write.
+     */
+    private volatile boolean scheduledUpdatesChanged = true;
+
+    /**
+     * Check if the chunk has been changed since it was written last time.
+     *
+     * @param version the current version of the chunk
+     * @param state   the current state of the chunk
+     *
+     * @return {@code true} if the chunk has been changed
+     */
+    public boolean isChanged(long version, ChunkState state) {
+        return version != writtenVersion || state != writtenState || blockEntitiesChanged || scheduledUpdatesChanged;
+    }
+
+    /**
+     * Mark the block entities in the chunk as changed.
+     */
+    public void markBlockEntitiesChanged() {
+        this.blockEntitiesChanged = true;
+    }
+
+    /**
+     * Mark the scheduled updates in the chunk as changed.
+     */
+    public void markScheduledUpdatesChanged() {
+        this.scheduledUpdatesChanged = true;
+    }
+
+    /**
+     * Record the data that is going to be written to the storage. Should be called before the data is
+     * encoded, so that the changes made during encoding will be written next time, and {@link #reset()}
+     * should be called if the write failed.
+     *
+     * @param version                 the version of the chunk
+     * @param state                   the state of the chunk
+     * @param blockEntitiesWritten    whether the chunk has block entities
+     * @param scheduledUpdatesWritten whether the chunk has scheduled updates
+     */
+    public void update(long version, ChunkState state, boolean blockEntitiesWritten, boolean scheduledUpdatesWritten) {
+        this.writtenVersion = version;
+        this.writtenState = state;
+        this.blockEntitiesWritten = blockEntitiesWritten;
+        this.scheduledUpdatesWritten = scheduledUpdatesWritten;
+        this.blockEntitiesChanged = false;
+        this.scheduledUpdatesChanged = false;
+    }
+
+    /**
+     * Forget what has been written, so that all records will be written next time. Should be
+     * called if the write failed.
+     */
+    public void reset() {
+        update(-1, null, true, true);
+        this.blockEntitiesChanged = true;
+        this.scheduledUpdatesChanged = true;
+    }
+}
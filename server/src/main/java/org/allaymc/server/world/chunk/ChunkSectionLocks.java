@@ -2,16 +2,35 @@ package org.allaymc.server.world.chunk;
 
 import org.allaymc.api.world.data.DimensionInfo;
 
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 
 /**
+ * ChunkSectionLocks holds a {@link StampedLock} for each section in a chunk.
+ * <p>
+ * Single reads should use {@link #tryOptimisticReadAt(int)} and {@link #validateAt(int, long)} first,
+ * and only fall back to the read lock if the validation failed, so that reads won't write to the
+ * shared lock state in most cases.
+ * <p>
+ * {@link StampedLock} is not reentrant, while the chunk may be accessed again by the thread that is
+ * holding the locks (for example, a block update that reads the neighbor blocks while the chunk is
+ * being ticked). To keep the behavior of the previous {@code ReentrantReadWriteLock}, the owner of
+ * the write lock is recorded, and locking a section that is write locked by the current thread is a
+ * no-op. Read locks are acquired through {@link StampedLock#tryReadLock()} first, which won't queue
+ * behind a waiting writer, so a thread that is already holding a read lock can lock it again.
+ *
  * @author daoge_cmd
  */
 public final class ChunkSectionLocks {
 
     private final int minSectionY;
-    private final ReadWriteLock[] locks;
+    private final StampedLock[] locks;
+    // The thread that is holding the write lock of each section. Only the owner thread
+    // writes its own reference here, so it always sees the correct value for itself
+    private final Thread[] writeOwners;
+    // How many times the owner thread locked the write lock again
+    private final int[] writeHolds;
+    // The stamp of the write lock held by the owner thread
+    private final long[] writeStamps;
 
     public ChunkSectionLocks(DimensionInfo dimensionInfo) {
         this(dimensionInfo.minSectionY(), dimensionInfo.chunkSectionCount());
@@ -19,49 +38,122 @@ public final class ChunkSectionLocks {
 
     public ChunkSectionLocks(int minSectionY, int sectionCount) {
         this.minSectionY = minSectionY;
-        this.locks = new ReentrantReadWriteLock[sectionCount];
+        this.locks = new StampedLock[sectionCount];
+        this.writeOwners = new Thread[sectionCount];
+        this.writeHolds = new int[sectionCount];
+        this.writeStamps = new long[sectionCount];
         for (int i = 0; i < sectionCount; i++) {
-            locks[i] = new ReentrantReadWriteLock();
+            locks[i] = new StampedLock();
         }
     }
 
+    /**
+     * Get a stamp for an optimistic read of the section.
+     *
+     * @param sectionY the section y
+     * @return the stamp, or {@code 0} if the section is write locked
+     */
+    public long tryOptimisticReadAt(int sectionY) {
+        return locks[sectionY - minSectionY].tryOptimisticRead();
+    }
+
+    /**
+     * Check whether the section was not write locked since the stamp was issued.
+     *
+     * @param sectionY the section y
+     * @param stamp    the stamp returned by {@link #tryOptimisticReadAt(int)}
+     * @return {@code true} if the data read after getting the stamp is valid
+     */
+    public boolean validateAt(int sectionY, long stamp) {
+        return stamp != 0 && locks[sectionY - minSectionY].validate(stamp);
+    }
+
     public void lockReadLockAt(int sectionY) {
-        locks[sectionY - minSectionY].readLock().lock();
+        lockRead(sectionY - minSectionY);
     }
 
     public void lockAllReadLocks() {
-        for (var lock : locks) {
-            lock.readLock().lock();
+        for (int i = 0; i < locks.length; i++) {
+            lockRead(i);
         }
     }
 
     public void unlockReadLockAt(int sectionY) {
-        locks[sectionY - minSectionY].readLock().unlock();
+        unlockRead(sectionY - minSectionY);
     }
 
     public void unlockAllReadLocks() {
-        for (var lock : locks) {
-            lock.readLock().unlock();
+        for (int i = 0; i < locks.length; i++) {
+            unlockRead(i);
         }
     }
 
     public void lockWriteLockAt(int sectionY) {
-        locks[sectionY - minSectionY].writeLock().lock();
+        lockWrite(sectionY - minSectionY);
     }
 
     public void lockAllWriteLocks() {
-        for (var lock : locks) {
-            lock.writeLock().lock();
+        for (int i = 0; i < locks.length; i++) {
+            lockWrite(i);
         }
     }
 
     public void unlockWriteLockAt(int sectionY) {
-        locks[sectionY - minSectionY].writeLock().unlock();
+        unlockWrite(sectionY - minSectionY);
     }
 
     public void unlockAllWriteLocks() {
-        for (var lock : locks) {
-            lock.writeLock().unlock();
+        for (int i = 0; i < locks.length; i++) {
+            unlockWrite(i);
+        }
+    }
+
+    private void lockRead(int index) {
+        if (writeOwners[index] == Thread.currentThread()) {
+            // Reading while holding the write lock
+            return;
+        }
+
+        var lock = locks[index];
+        if (lock.tryReadLock() == 0) {
+            lock.readLock();
+        }
+    }
+
+    private void unlockRead(int index) {
+        if (writeOwners[index] == Thread.currentThread()) {
+            return;
         }
+
+        // Read locks are shared, so the stamp of the current thread is not tracked. However, an
+        // unbalanced unlock is still a bug in the caller and should not be silently ignored
+        if (!locks[index].tryUnlockRead()) {
+            throw new IllegalMonitorStateException("The read lock of section " + (index + minSectionY) + " is not held");
+        }
+    }
+
+    private void lockWrite(int index) {
+        var currentThread = Thread.currentThread();
+        if (writeOwners[index] == currentThread) {
+            writeHolds[index]++;
+            return;
+        }
+
+        writeStamps[index] = locks[index].writeLock();
+        writeOwners[index] = currentThread;
+    }
+
+    private void unlockWrite(int index) {
+        if (writeOwners[index] != Thread.currentThread()) {
+            throw new IllegalMonitorStateException("The write lock of section " + (index + minSectionY) + " is not held by the current thread");
+        }
+
+        if (writeHolds[index] > 0) {
+            writeHolds[index]--;
+            return;
+        }
+
+        writeOwners[index] = null;
+        locks[index].unlockWrite(writeStamps[index]);
     }
 }
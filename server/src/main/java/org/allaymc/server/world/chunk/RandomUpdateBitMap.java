@@ -0,0 +1,95 @@
+package org.allaymc.server.world.chunk;
+
+import org.allaymc.api.annotation.NotThreadSafe;
+import org.allaymc.api.block.type.BlockState;
+import org.allaymc.server.datastruct.palette.Palette;
+
+import java.util.Arrays;
+
+/**
+ * RandomUpdateBitMap marks the positions in a chunk section whose block supports random update,
+ * and keeps the count of these positions so that sections without such blocks can be skipped.
+ * <p>
+ * The index of a position is the same as the index used by {@link Palette}, see
+ * {@link org.allaymc.api.utils.hash.HashUtils#hashChunkSectionXYZ(int, int, int)}.
+ *
+ * @author daoge_cmd
+ */
+@NotThreadSafe
+public final class RandomUpdateBitMap {
+
+    private static final int SECTION_SIZE = 16 * 16 * 16;
+
+    // 4096 positions, 64 positions per long
+    private final long[] bitMap = new long[SECTION_SIZE >> 6];
+    private int count;
+
+    /**
+     * Set whether the block at the specified position supports random update.
+     *
+     * @param index the index of the position
+     * @param value {@code true} if the block supports random update
+     */
+    public void set(int index, boolean value) {
+        var word = index >> 6;
+        var mask = 1L << index;
+        var old = (bitMap[word] & mask) != 0;
+        if (old == value) {
+            return;
+        }
+
+        if (value) {
+            bitMap[word] |= mask;
+            count++;
+        } else {
+            bitMap[word] &= ~mask;
+            count--;
+        }
+    }
+
+    /**
+     * Check whether the block at the specified position supports random update.
+     *
+     * @param index the index of the position
+     * @return {@code true} if the block supports random update
+     */
+    public boolean get(int index) {
+        return (bitMap[index >> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @return the count of the positions whose block supports random update
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return {@code true} if there is no block that supports random update
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Recalculate the whole bit map from the given palette. This should be called
+     * if the palette is changed without going through the chunk section.
+     *
+     * @param palette the block palette
+     */
+    public void recalculate(Palette<BlockState> palette) {
+        Arrays.fill(bitMap, 0L);
+        count = 0;
+        // Fast path for the most common case, for example sections that only contain air and stone
+        if (palette.allEntriesMatch(blockState -> !blockState.getBehavior().canRandomUpdate())) {
+            return;
+        }
+
+        for (int index = 0; index < SECTION_SIZE; index++) {
+            if (palette.get(index).getBehavior().canRandomUpdate()) {
+                bitMap[index >> 6] |= 1L << index;
+                count++;
+            }
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package org.allaymc.server.world.light;
 
 import com.google.common.base.Preconditions;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.util.internal.PlatformDependent;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import lombok.extern.slf4j.Slf4j;
 import org.allaymc.api.block.data.BlockFace;
 import org.allaymc.api.math.MathUtils;
 import org.allaymc.api.utils.hash.HashUtils;
@@ -16,23 +21,31 @@ import org.allaymc.api.world.light.LightEngine;
 import org.allaymc.server.AllayServer;
 import org.allaymc.server.datastruct.ChunkSectionNibbleArray;
 import org.allaymc.server.datastruct.collections.queue.BlockingQueueWrapper;
+import org.allaymc.server.utils.XXHash64;
 import org.allaymc.server.world.chunk.AllayChunkSection;
+import org.allaymc.server.world.chunk.AllayUnsafeChunk;
 import org.allaymc.server.world.chunk.HeightMap;
+import org.allaymc.server.world.storage.leveldb.AllayLevelDBWorldStorage;
 import org.jctools.maps.NonBlockingHashMapLong;
 import org.jctools.maps.NonBlockingHashSet;
 import org.jetbrains.annotations.Range;
 import org.jetbrains.annotations.VisibleForTesting;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
  * @author daoge_cmd
  */
+@Slf4j
 public class AllayLightEngine implements LightEngine {
 
+    protected static final int SHUTDOWN_SAVE_TIMEOUT_SECONDS = 30;
+
     protected final DimensionInfo dimensionInfo;
     protected final String worldName;
     protected final AtomicBoolean isRunning;
@@ -49,6 +62,29 @@ public class AllayLightEngine implements LightEngine {
      * neighbor chunks are loaded.
      */
     protected final Set<Long> awaitingLightCalculationChunks;
+    /**
+     * Stores the chunks whose light calculation has been dispatched. Only the light in these chunks
+     * is complete and can be taken as a snapshot. Will only be read and wrote in chunk & block update thread.
+     */
+    protected final Set<Long> lightCalculatedChunks;
+    /**
+     * Stores the light snapshots of the loaded chunks whose light haven't been calculated yet. The
+     * snapshots are either read from the world storage, or taken when the chunks need to be recalculated
+     * because their neighbor chunks are unloaded. A snapshot will be used instead of calculating the
+     * light from scratch if it is still valid when the light in the chunk can be calculated. Will only
+     * be read and wrote in chunk & block update thread.
+     */
+    protected final Long2ObjectOpenHashMap<ChunkLightData> lightSnapshots;
+    /**
+     * Caches the content hash of each chunk, see {@link #getContentHash(long)}. Will only be read and
+     * wrote in chunk & block update thread.
+     */
+    protected final Long2LongOpenHashMap contentHashes;
+    protected final ByteBuf contentHashBuffer;
+    /**
+     * The storage that the light snapshots of the unloaded chunks are written to, can be {@code null}.
+     */
+    protected final AllayLevelDBWorldStorage lightStorage;
     protected final NonBlockingHashMapLong<ChunkSectionNibbleArray[]> lightDampening;
     protected final NonBlockingHashMapLong<ChunkSectionNibbleArray[]> lightEmission;
     protected final NonBlockingHashMapLong<ChunkSectionNibbleArray[]> blockLight;
@@ -85,15 +121,19 @@ public class AllayLightEngine implements LightEngine {
     protected LightPropagator skyLightPropagator;
 
     public AllayLightEngine(Dimension dimension) {
-        this(dimension.getDimensionInfo(), dimension.getWorld().getName(), dimension.getWorld().getWorldData()::getTimeOfDay, dimension.getWorld()::getWeather, AllayServer.getSettings().worldSettings().maxLightUpdateCountPerDimension());
+        this(
+                dimension.getDimensionInfo(), dimension.getWorld().getName(), dimension.getWorld().getWorldData()::getTimeOfDay, dimension.getWorld()::getWeather,
+                AllayServer.getSettings().worldSettings().maxLightUpdateCountPerDimension(),
+                dimension.getWorld().getWorldStorage() instanceof AllayLevelDBWorldStorage storage ? storage : null
+        );
     }
 
     @VisibleForTesting
     public AllayLightEngine(DimensionInfo dimensionInfo, String worldName, Supplier<Integer> timeSupplier, Supplier<Weather> weatherSupplier) {
-        this(dimensionInfo, worldName, timeSupplier, weatherSupplier, Integer.MAX_VALUE);
+        this(dimensionInfo, worldName, timeSupplier, weatherSupplier, Integer.MAX_VALUE, null);
     }
 
-    protected AllayLightEngine(DimensionInfo dimensionInfo, String worldName, Supplier<Integer> timeSupplier, Supplier<Weather> weatherSupplier, int maxUpdateCount) {
+    protected AllayLightEngine(DimensionInfo dimensionInfo, String worldName, Supplier<Integer> timeSupplier, Supplier<Weather> weatherSupplier, int maxUpdateCount, AllayLevelDBWorldStorage lightStorage) {
         this.dimensionInfo = dimensionInfo;
         this.worldName = worldName;
         this.isRunning = new AtomicBoolean(true);
@@ -105,6 +145,11 @@ public class AllayLightEngine implements LightEngine {
         this.chunks = new NonBlockingHashSet<>();
         // Will only be read and wrote in chunk & block update thread, so no need to use a thread-safe set
         this.awaitingLightCalculationChunks = new LongOpenHashSet();
+        this.lightCalculatedChunks = new LongOpenHashSet();
+        this.lightSnapshots = new Long2ObjectOpenHashMap<>();
+        this.contentHashes = new Long2LongOpenHashMap();
+        this.contentHashBuffer = Unpooled.buffer();
+        this.lightStorage = lightStorage;
         this.lightDampening = new NonBlockingHashMapLong<>();
         this.lightEmission = new NonBlockingHashMapLong<>();
         this.blockLight = new NonBlockingHashMapLong<>();
@@ -169,9 +214,54 @@ public class AllayLightEngine implements LightEngine {
     }
 
     public void shutdown() {
+        if (!this.isRunning.get()) {
+            return;
+        }
+
+        // Chunk unloads are ignored once the engine is stopped, so the light in the
+        // loaded chunks must be saved here before the calculating threads are stopped
+        if (lightStorage != null) {
+            try {
+                saveAllLightData().get(SHUTDOWN_SAVE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("Failed to save the light data of dimension {} in world {}", dimensionInfo, worldName, e);
+            }
+        }
         this.isRunning.set(false);
     }
 
+    /**
+     * Save the light in all loaded chunks. The light in a chunk is saved if it is calculated, otherwise
+     * the snapshot of the chunk is saved if there is one.
+     *
+     * @return a future that is completed after the light data of all chunks is passed to the storage
+     */
+    protected CompletableFuture<Void> saveAllLightData() {
+        var future = new CompletableFuture<Void>();
+        chunkAndBlockUpdateQueue.offer(() -> {
+            for (var hash : lightCalculatedChunks) {
+                var chunkX = HashUtils.getXFromHashXZ(hash);
+                var chunkZ = HashUtils.getZFromHashXZ(hash);
+                takeLightSnapshot(chunkX, chunkZ, false, lightData -> saveLightData(chunkX, chunkZ, lightData));
+            }
+            for (var entry : lightSnapshots.long2ObjectEntrySet()) {
+                var hash = entry.getLongKey();
+                saveLightData(HashUtils.getXFromHashXZ(hash), HashUtils.getZFromHashXZ(hash), entry.getValue());
+            }
+
+            // Each queue is handled by one thread in order, so the snapshots offered above
+            // are all saved once the tasks below have reached the end of the queues
+            blockLightUpdateQueue.offer(() -> {
+                if (dimensionInfo.hasSkyLight()) {
+                    skyLightUpdateQueue.offer(() -> future.complete(null));
+                } else {
+                    future.complete(null);
+                }
+            });
+        });
+        return future;
+    }
+
     protected void startCalculatingThread(String name, BlockingQueueWrapper<Runnable> queue) {
         Thread.ofPlatform().name(name).start(() -> {
             while (isRunning.get()) {
@@ -239,6 +329,16 @@ public class AllayLightEngine implements LightEngine {
             skyLightInBorder.put(hash, createNibbleArrays());
         }
         chunks.add(hash);
+
+        if (chunk instanceof AllayUnsafeChunk allayChunk) {
+            // The light read from the world storage, which will be validated before
+            // being used since the neighbor chunks may be changed after it was saved
+            var lightData = allayChunk.getLightData();
+            if (lightData != null) {
+                allayChunk.setLightData(null);
+                lightSnapshots.put(hash, lightData);
+            }
+        }
     }
 
     protected void tryCalculateChunkLightAt(int chunkX, int chunkZ, Runnable afterCalculated) {
@@ -253,24 +353,170 @@ public class AllayLightEngine implements LightEngine {
             return;
         }
 
-        for (int worldY = dimensionInfo.maxHeight(); worldY >= dimensionInfo.minHeight(); worldY--) {
-            for (int x = 0; x < 16; x++) {
-                for (int z = 0; z < 16; z++) {
-                    final int worldX = (chunkX << 4) + x;
-                    final int worldZ = (chunkZ << 4) + z;
-                    calculateBlockLightAt(worldX, worldY, worldZ);
-                    if (dimensionInfo.hasSkyLight()) {
-                        calculateSkyLightAt(worldX, worldZ);
+        var chunkHash = HashUtils.hashXZ(chunkX, chunkZ);
+        var snapshot = lightSnapshots.remove(chunkHash);
+        if (snapshot != null && snapshot.isValidFor(computeNeighborhoodHashes(chunkX, chunkZ))) {
+            restoreChunkLight(chunkX, chunkZ, snapshot);
+        } else {
+            for (int worldY = dimensionInfo.maxHeight(); worldY >= dimensionInfo.minHeight(); worldY--) {
+                for (int x = 0; x < 16; x++) {
+                    for (int z = 0; z < 16; z++) {
+                        final int worldX = (chunkX << 4) + x;
+                        final int worldZ = (chunkZ << 4) + z;
+                        calculateBlockLightAt(worldX, worldY, worldZ);
+                        if (dimensionInfo.hasSkyLight()) {
+                            calculateSkyLightAt(worldX, worldZ);
+                        }
                     }
                 }
             }
         }
+        lightCalculatedChunks.add(chunkHash);
 
         if (afterCalculated != null) {
             afterCalculated.run();
         }
     }
 
+    protected void restoreChunkLight(int chunkX, int chunkZ, ChunkLightData snapshot) {
+        blockLightUpdateQueue.offer(() -> restoreLight(blockLight, blockLightPropagator, chunkX, chunkZ, snapshot.blockLight()));
+        if (dimensionInfo.hasSkyLight()) {
+            skyLightUpdateQueue.offer(() -> restoreLight(skyLightInBorder, skyLightPropagator, chunkX, chunkZ, snapshot.skyLight()));
+        }
+    }
+
+    protected void restoreLight(NonBlockingHashMapLong<ChunkSectionNibbleArray[]> target, LightPropagator propagator, int chunkX, int chunkZ, ChunkSectionNibbleArray[] savedLight) {
+        var light = target.get(HashUtils.hashXZ(chunkX, chunkZ));
+        if (light == null) {
+            // The chunk is unloaded
+            return;
+        }
+
+        // The light may already be propagated into this chunk from the neighbor chunks, and will never be
+        // brighter than the saved light which is the result when all the neighbor chunks are calculated
+        for (int i = 0; i < light.length; i++) {
+            light[i].mergeMax(savedLight[i]);
+        }
+
+        // The light inside the chunk is already complete, only the light at the border of the
+        // chunk needs to be propagated to the neighbor chunks that are calculated from scratch
+        var minX = chunkX << 4;
+        var minZ = chunkZ << 4;
+        for (int i = 0; i < light.length; i++) {
+            if (light[i].isEmpty()) {
+                continue;
+            }
+
+            var minY = dimensionInfo.minHeight() + (i << 4);
+            for (int y = minY; y < minY + 16; y++) {
+                for (int j = 0; j < 16; j++) {
+                    propagator.queueExistingLight(minX + j, y, minZ);
+                    propagator.queueExistingLight(minX + j, y, minZ + 15);
+                    propagator.queueExistingLight(minX, y, minZ + j);
+                    propagator.queueExistingLight(minX + 15, y, minZ + j);
+                }
+            }
+        }
+        propagator.propagateQueuedLight();
+    }
+
+    /**
+     * Take a snapshot of the light in a chunk whose light has been calculated. The light is copied after
+     * the light updates that are already queued are finished. Should be called in chunk & block update thread.
+     *
+     * @param chunkX          the x coordinate of the chunk
+     * @param chunkZ          the z coordinate of the chunk
+     * @param resetBlockLight whether to reset the block light in the chunk after it is copied
+     * @param callback        the callback that will be called in block light or sky light calculating thread
+     */
+    protected void takeLightSnapshot(int chunkX, int chunkZ, boolean resetBlockLight, Consumer<ChunkLightData> callback) {
+        var hash = HashUtils.hashXZ(chunkX, chunkZ);
+        var neighborhoodHashes = computeNeighborhoodHashes(chunkX, chunkZ);
+        // Keep the references of the arrays, since they may be removed from the maps before being copied
+        var chunkBlockLight = blockLight.get(hash);
+        var chunkSkyLight = dimensionInfo.hasSkyLight() ? skyLightInBorder.get(hash) : null;
+        blockLightUpdateQueue.offer(() -> {
+            var blockLightCopy = copyNibbleArrays(chunkBlockLight);
+            if (resetBlockLight) {
+                for (var array : chunkBlockLight) {
+                    array.reset();
+                }
+            }
+
+            if (chunkSkyLight == null) {
+                callback.accept(new ChunkLightData(neighborhoodHashes, blockLightCopy, null));
+                return;
+            }
+
+            skyLightUpdateQueue.offer(() -> callback.accept(new ChunkLightData(neighborhoodHashes, blockLightCopy, copyNibbleArrays(chunkSkyLight))));
+        });
+    }
+
+    protected void saveLightData(int chunkX, int chunkZ, ChunkLightData lightData) {
+        if (lightStorage != null) {
+            lightStorage.writeLightData(chunkX, chunkZ, dimensionInfo, lightData);
+        }
+    }
+
+    protected long[] computeNeighborhoodHashes(int chunkX, int chunkZ) {
+        var hashes = new long[ChunkLightData.NEIGHBORHOOD_SIZE];
+        var index = 0;
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                hashes[index++] = getContentHash(HashUtils.hashXZ(chunkX + i, chunkZ + j));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Get the content hash of a loaded chunk, which is computed from the light dampening and the light
+     * emission in the chunk. The light in a chunk only depends on the content of the chunk and its
+     * neighbor chunks, so it won't change as long as the content hashes of these chunks are the same.
+     *
+     * @param chunkHash the hash of the chunk position
+     * @return the content hash
+     */
+    protected long getContentHash(long chunkHash) {
+        if (contentHashes.containsKey(chunkHash)) {
+            return contentHashes.get(chunkHash);
+        }
+
+        var chunkLightDampening = lightDampening.get(chunkHash);
+        if (chunkLightDampening == null) {
+            // The chunk is not loaded
+            return 0;
+        }
+
+        contentHashBuffer.clear();
+        writeNibbleArraysForHash(chunkLightDampening);
+        writeNibbleArraysForHash(lightEmission.get(chunkHash));
+        var hash = XXHash64.hash(contentHashBuffer);
+        contentHashes.put(chunkHash, hash);
+        return hash;
+    }
+
+    protected void writeNibbleArraysForHash(ChunkSectionNibbleArray[] arrays) {
+        for (var array : arrays) {
+            var bytes = array.getByteArray();
+            if (bytes != null) {
+                contentHashBuffer.writeByte(1);
+                contentHashBuffer.writeBytes(bytes);
+            } else {
+                // All the nibbles are 0 or 15
+                contentHashBuffer.writeByte(array.isEmpty() ? 0 : 2);
+            }
+        }
+    }
+
+    protected static ChunkSectionNibbleArray[] copyNibbleArrays(ChunkSectionNibbleArray[] arrays) {
+        var result = new ChunkSectionNibbleArray[arrays.length];
+        for (int i = 0; i < arrays.length; i++) {
+            result[i] = arrays[i].copy();
+        }
+        return result;
+    }
+
     protected void calculateBlockLightAt(int x, int y, int z) {
         // Cast to byte to save memory
         byte lightEmissionValue = (byte) lightDataAccessor.getLightEmission(x, y, z);
@@ -403,74 +649,123 @@ public class AllayLightEngine implements LightEngine {
         // Reduce memory usage by packing light data into a single byte
         var packedLightData = packLightData(le, ld);
         chunkAndBlockUpdateQueue.offer(() -> {
-            var chunkHash = HashUtils.hashXZ(x >> 4, z >> 4);
-            if (!chunks.contains(chunkHash)) {
-                // Chunk is not loaded
-                return;
+            if (chunks.contains(HashUtils.hashXZ(x >> 4, z >> 4))) {
+                handleBlockChange(x, y, z, packedLightData);
             }
+        });
+    }
 
-            var lightDampening = unpackLightDampening(packedLightData);
-            var lightEmissionValue = unpackLightEmission(packedLightData);
-            int oldLightHeight = dimensionInfo.hasSkyLight() ? getLightHeight(x, z) : 0;
-            var oldBlockDampening = lightDataAccessor.getLightDampening(x, y, z);
-            var oldBlockEmission = lightDataAccessor.getLightEmission(x, y, z);
+    /**
+     * The same as {@link #onBlockChange(int, int, int, int, int)}, but for many blocks in the same section,
+     * which are handled in a single task instead of one task per block.
+     *
+     * @param sectionX the x coordinate of the section
+     * @param sectionY the y coordinate of the section
+     * @param sectionZ the z coordinate of the section
+     * @param changes  the changes, each is packed by {@link #packBlockChange(int, int, int)}
+     */
+    public void onBlockChanges(int sectionX, int sectionY, int sectionZ, int[] changes) {
+        if (!isRunning.get() || changes.length == 0) {
+            return;
+        }
 
-            if (oldBlockDampening != lightDampening) {
-                setLightDampening(x, y, z, lightDampening);
+        chunkAndBlockUpdateQueue.offer(() -> {
+            if (!chunks.contains(HashUtils.hashXZ(sectionX, sectionZ))) {
+                // Chunk is not loaded
+                return;
             }
 
-            if (oldBlockEmission != lightEmissionValue) {
-                lightDataAccessor.setLightEmission(x, y, z, lightEmissionValue);
+            for (var change : changes) {
+                var index = change >>> 8;
+                handleBlockChange(
+                        (sectionX << 4) + (index >>> 8),
+                        (sectionY << 4) + (index & 0xF),
+                        (sectionZ << 4) + ((index >>> 4) & 0xF),
+                        (byte) change
+                );
             }
+        });
+    }
 
-            var chunkLightCalculated = !awaitingLightCalculationChunks.contains(chunkHash);
-            if (!chunkLightCalculated || (oldBlockDampening == lightDampening && oldBlockEmission == lightEmissionValue)) {
-                return;
-            }
+    /**
+     * Pack a block change for {@link #onBlockChanges(int, int, int, int[])}.
+     *
+     * @param index the index of the block in the section, see {@link HashUtils#hashChunkSectionXYZ}
+     * @param le    the light emission of the new block
+     * @param ld    the light dampening of the new block
+     * @return the packed block change
+     */
+    public static int packBlockChange(int index, int le, int ld) {
+        return (index << 8) | (packLightData(le, ld) & 0xFF);
+    }
 
-            blockLightUpdateQueue.offer(() -> blockLightPropagator.setLightAndPropagate(x, y, z, getBlockLight(x, y, z), lightEmissionValue));
-            if (!dimensionInfo.hasSkyLight() || oldBlockDampening == lightDampening) {
-                // No change in light dampening, so no need to recalculate the sky light because
-                // sky light is only related to block dampening
-                return;
-            }
+    protected void handleBlockChange(int x, int y, int z, byte packedLightData) {
+        var chunkHash = HashUtils.hashXZ(x >> 4, z >> 4);
+        var lightDampening = unpackLightDampening(packedLightData);
+        var lightEmissionValue = unpackLightEmission(packedLightData);
+        int oldLightHeight = dimensionInfo.hasSkyLight() ? getLightHeight(x, z) : 0;
+        var oldBlockDampening = lightDataAccessor.getLightDampening(x, y, z);
+        var oldBlockEmission = lightDataAccessor.getLightEmission(x, y, z);
 
-            var newLightHeight = getLightHeight(x, z);
-            if (newLightHeight == oldLightHeight) {
-                // No change to light height, only need to make sure the sky light can be re-propagated to the changed block's position
-                skyLightUpdateQueue.offer(() -> skyLightPropagator.setLightAndPropagate(x, y, z, lightDataAccessor.getLight(x, y, z), 0));
-            } else {
-                var min = Math.min(oldLightHeight, newLightHeight);
-                var max = Math.max(oldLightHeight, newLightHeight);
+        if (oldBlockDampening != lightDampening) {
+            setLightDampening(x, y, z, lightDampening);
+        }
+
+        if (oldBlockEmission != lightEmissionValue) {
+            lightDataAccessor.setLightEmission(x, y, z, lightEmissionValue);
+        }
+
+        if (oldBlockDampening != lightDampening || oldBlockEmission != lightEmissionValue) {
+            contentHashes.remove(chunkHash);
+        }
+
+        var chunkLightCalculated = !awaitingLightCalculationChunks.contains(chunkHash);
+        if (!chunkLightCalculated || (oldBlockDampening == lightDampening && oldBlockEmission == lightEmissionValue)) {
+            return;
+        }
+
+        blockLightUpdateQueue.offer(() -> blockLightPropagator.setLightAndPropagate(x, y, z, getBlockLight(x, y, z), lightEmissionValue));
+        if (!dimensionInfo.hasSkyLight() || oldBlockDampening == lightDampening) {
+            // No change in light dampening, so no need to recalculate the sky light because
+            // sky light is only related to block dampening
+            return;
+        }
 
-                // Remove old skylight sources responsible for horizontal skylight propagation
-                for (int i = min; i <= max; i++) {
-                    var skyLightSourceY = i;
+        var newLightHeight = getLightHeight(x, z);
+        if (newLightHeight == oldLightHeight) {
+            // No change to light height, only need to make sure the sky light can be re-propagated to the changed block's position
+            skyLightUpdateQueue.offer(() -> skyLightPropagator.setLightAndPropagate(x, y, z, lightDataAccessor.getLight(x, y, z), 0));
+        } else {
+            var min = Math.min(oldLightHeight, newLightHeight);
+            var max = Math.max(oldLightHeight, newLightHeight);
+
+            // Remove old skylight sources responsible for horizontal skylight propagation
+            for (int i = min; i <= max; i++) {
+                var skyLightSourceY = i;
+                skyLightUpdateQueue.offer(() -> {
+                    if (lightDataAccessor.getLight(x, skyLightSourceY, z) == 15) {
+                        skyLightPropagator.setLightAndPropagate(x, skyLightSourceY, z, 15, 0);
+                    }
+                });
+                for (var face : BlockFace.getHorizontalBlockFaces()) {
+                    var ox = x + face.getOffset().x();
+                    var oz = z + face.getOffset().z();
                     skyLightUpdateQueue.offer(() -> {
-                        if (lightDataAccessor.getLight(x, skyLightSourceY, z) == 15) {
-                            skyLightPropagator.setLightAndPropagate(x, skyLightSourceY, z, 15, 0);
+                        if (lightDataAccessor.getLight(ox, skyLightSourceY, oz) == 15) {
+                            skyLightPropagator.setLightAndPropagate(ox, skyLightSourceY, oz, 15, 0);
                         }
                     });
-                    for (var face : BlockFace.getHorizontalBlockFaces()) {
-                        var ox = x + face.getOffset().x();
-                        var oz = z + face.getOffset().z();
-                        skyLightUpdateQueue.offer(() -> {
-                            if (lightDataAccessor.getLight(ox, skyLightSourceY, oz) == 15) {
-                                skyLightPropagator.setLightAndPropagate(ox, skyLightSourceY, oz, 15, 0);
-                            }
-                        });
-                    }
                 }
+            }
 
-                // Recalculate skylight
-                calculateSkyLightAt(x, z);
-                for (var face : BlockFace.getHorizontalBlockFaces()) {
-                    var neighborX = x + face.getOffset().x();
-                    var neighborZ = z + face.getOffset().z();
-                    calculateSkyLightAt(neighborX, neighborZ);
-                }
+            // Recalculate skylight
+            calculateSkyLightAt(x, z);
+            for (var face : BlockFace.getHorizontalBlockFaces()) {
+                var neighborX = x + face.getOffset().x();
+                var neighborZ = z + face.getOffset().z();
+                calculateSkyLightAt(neighborX, neighborZ);
             }
-        });
+        }
     }
 
     public void onChunkLoad(Chunk chunk) {
@@ -516,6 +811,41 @@ public class AllayLightEngine implements LightEngine {
 
         chunkAndBlockUpdateQueue.offer(() -> {
             var hash = HashUtils.hashXZ(chunk.getX(), chunk.getZ());
+            // Save the light in this chunk and take the snapshots of the neighbor chunks
+            // before the light dampening and emission of this chunk are removed
+            if (lightCalculatedChunks.remove(hash)) {
+                takeLightSnapshot(chunk.getX(), chunk.getZ(), false, lightData -> saveLightData(chunk.getX(), chunk.getZ(), lightData));
+            } else {
+                var snapshot = lightSnapshots.get(hash);
+                if (snapshot != null) {
+                    saveLightData(chunk.getX(), chunk.getZ(), snapshot);
+                }
+            }
+            var snapshotNeighborChunks = new LongOpenHashSet();
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    if (i == 0 && j == 0) {
+                        continue;
+                    }
+
+                    var neighborChunkX = chunk.getX() + i;
+                    var neighborChunkZ = chunk.getZ() + j;
+                    var neighborChunkHash = HashUtils.hashXZ(neighborChunkX, neighborChunkZ);
+                    if (lightCalculatedChunks.remove(neighborChunkHash)) {
+                        snapshotNeighborChunks.add(neighborChunkHash);
+                        // The neighbor chunk needs to be recalculated once this chunk is loaded back, take a snapshot
+                        // of its light so that the light can be restored if this chunk is not changed
+                        takeLightSnapshot(neighborChunkX, neighborChunkZ, true, lightData -> chunkAndBlockUpdateQueue.offer(() -> {
+                            if (!chunks.contains(neighborChunkHash)) {
+                                saveLightData(neighborChunkX, neighborChunkZ, lightData);
+                            } else if (awaitingLightCalculationChunks.contains(neighborChunkHash)) {
+                                lightSnapshots.put(neighborChunkHash, lightData);
+                            }
+                        }));
+                    }
+                }
+            }
+
             lightDampening.remove(hash);
             lightEmission.remove(hash);
             blockLight.remove(hash);
@@ -525,6 +855,8 @@ public class AllayLightEngine implements LightEngine {
             }
             chunks.remove(hash);
             awaitingLightCalculationChunks.remove(hash);
+            lightSnapshots.remove(hash);
+            contentHashes.remove(hash);
 
             // Add the loaded neighbor chunk to the awaiting light calculation chunks, since
             // their neighbor chunk has been unloaded. Once the neighbor chunk is loaded back,
@@ -538,7 +870,10 @@ public class AllayLightEngine implements LightEngine {
                     var neighborChunkHash = HashUtils.hashXZ(chunk.getX() + i, chunk.getZ() + j);
                     if (chunks.contains(neighborChunkHash) && !awaitingLightCalculationChunks.contains(neighborChunkHash)) {
                         awaitingLightCalculationChunks.add(neighborChunkHash);
-                        resetBlockAndSkyLightInChunk(neighborChunkHash);
+                        if (!snapshotNeighborChunks.contains(neighborChunkHash)) {
+                            // The block light will be reset after the snapshot is taken if there is a snapshot
+                            resetBlockAndSkyLightInChunk(neighborChunkHash);
+                        }
                     }
                 }
             }
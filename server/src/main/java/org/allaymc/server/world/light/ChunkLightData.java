@@ -0,0 +1,39 @@
+package org.allaymc.server.world.light;
+
+import org.allaymc.server.datastruct.ChunkSectionNibbleArray;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of the light in a chunk, which is taken by {@link AllayLightEngine} and can be
+ * persisted together with the chunk.
+ * <p>
+ * Since the light in a chunk depends on the blocks in the chunk and its neighbor chunks, the
+ * snapshot is tagged with the content hashes of the 3x3 chunks around the chunk. The snapshot is
+ * only valid if the content hashes are still the same when it is going to be used.
+ *
+ * @param neighborhoodHashes the content hashes of the 3x3 chunks around the chunk, ordered by x first and then z
+ * @param blockLight         the block light of each section
+ * @param skyLight           the sky light of each section, or {@code null} if the dimension doesn't have sky light
+ * @author daoge_cmd
+ */
+public record ChunkLightData(
+        long[] neighborhoodHashes,
+        ChunkSectionNibbleArray[] blockLight,
+        ChunkSectionNibbleArray[] skyLight
+) {
+    /**
+     * The count of the chunks around a chunk (including the chunk itself).
+     */
+    public static final int NEIGHBORHOOD_SIZE = 9;
+
+    /**
+     * Check if this snapshot is still valid for the given content hashes.
+     *
+     * @param currentNeighborhoodHashes the current content hashes of the 3x3 chunks around the chunk
+     * @return {@code true} if the snapshot is still valid, otherwise {@code false}
+     */
+    public boolean isValidFor(long[] currentNeighborhoodHashes) {
+        return Arrays.equals(neighborhoodHashes, currentNeighborhoodHashes);
+    }
+}
@@ -42,6 +42,25 @@ public class LightPropagator {
         }
     }
 
+    /**
+     * Queue the existing light at the given position, so that it will be propagated to the neighbors
+     * by {@link #propagateQueuedLight()}. This can only increase the light of the neighbors.
+     */
+    public void queueExistingLight(int x, int y, int z) {
+        var lightValue = lightDataAccessor.getLight(x, y, z);
+        if (lightValue > 1) {
+            lightIncreaseQueue.add(x, y, z, lightValue);
+        }
+    }
+
+    public void propagateQueuedLight() {
+        try {
+            propagateIncrease();
+        } catch (NullPointerException ignored) {
+            // See setLightAndPropagate()
+        }
+    }
+
     protected void propagateIncrease() {
         while (!lightIncreaseQueue.isEmpty()) {
             lightIncreaseQueue.poll(this.entry);
@@ -1,6 +1,7 @@
 package org.allaymc.server.world.manager;
 
 import io.netty.util.internal.PlatformDependent;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.allaymc.api.block.data.BlockFace;
@@ -8,14 +9,26 @@ import org.allaymc.api.block.dto.Block;
 import org.allaymc.api.block.interfaces.BlockLiquidBehavior;
 import org.allaymc.api.eventbus.event.block.BlockNeighborUpdateEvent;
 import org.allaymc.api.math.position.Position3i;
+import org.allaymc.api.server.Server;
 import org.allaymc.api.world.Dimension;
 import org.allaymc.api.world.gamerule.GameRule;
 import org.allaymc.api.world.manager.BlockUpdateManager;
+import org.allaymc.server.datastruct.collections.queue.MpscLongRingBuffer;
+import org.allaymc.server.world.AllayDimension;
+import org.joml.Vector3i;
 import org.joml.Vector3ic;
 
 import java.util.Queue;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * AllayBlockUpdateManager manages the scheduled updates and the neighbor updates in a dimension.
+ * <p>
+ * Neighbor updates whose changed neighbour is next to the updated block (which are all the
+ * updates sent by {@link Dimension#updateAtFace(Vector3ic, BlockFace)}) are packed into a
+ * single long and queued in a primitive ring buffer, other updates are queued as objects.
+ * Identical (pos, face) updates are only processed once per tick.
+ *
  * @author daoge_cmd
  */
 @Slf4j
@@ -23,8 +36,27 @@ import java.util.Queue;
 public class AllayBlockUpdateManager implements BlockUpdateManager {
     public static final int MAX_NEIGHBOR_UPDATE_PER_TICK = 65535;
 
+    // Enough for the updates of two ticks
+    private static final int NEIGHBOR_UPDATE_QUEUE_CAPACITY = 1 << 17;
+
+    // Layout of a packed neighbor update: x (26 bits) | z (26 bits) | y - minHeight (9 bits) | face (3 bits)
+    private static final int PACKED_XZ_BITS = 26;
+    private static final int PACKED_Y_BITS = 9;
+    private static final int PACKED_FACE_BITS = 3;
+    private static final int PACKED_XZ_MIN = -(1 << (PACKED_XZ_BITS - 1));
+    private static final int PACKED_XZ_MAX = (1 << (PACKED_XZ_BITS - 1)) - 1;
+    private static final long PACKED_XZ_MASK = (1L << PACKED_XZ_BITS) - 1;
+    private static final long PACKED_Y_MASK = (1L << PACKED_Y_BITS) - 1;
+    private static final long PACKED_FACE_MASK = (1L << PACKED_FACE_BITS) - 1;
+    private static final BlockFace[] FACES = BlockFace.values();
+
     protected final Dimension dimension;
+    protected final MpscLongRingBuffer packedNeighborUpdates = new MpscLongRingBuffer(NEIGHBOR_UPDATE_QUEUE_CAPACITY);
     protected final Queue<NeighborUpdate> neighborUpdates = PlatformDependent.newMpscQueue();
+    // The packed updates that have been processed in the current tick
+    protected final LongOpenHashSet processedNeighborUpdates = new LongOpenHashSet();
+    protected final LongAdder droppedNeighborUpdateCount = new LongAdder();
+    protected long lastDroppedNeighborUpdateCount;
 
     public void tick() {
         tickNeighborUpdates();
@@ -63,60 +95,133 @@ public class AllayBlockUpdateManager implements BlockUpdateManager {
 
     @Override
     public void neighborBlockUpdate(Vector3ic pos, Vector3ic changedNeighbour, BlockFace blockFace) {
-        neighborUpdates.add(new NeighborUpdate(pos, changedNeighbour, blockFace));
+        var packed = pack(pos, changedNeighbour, blockFace);
+        if (packed == MpscLongRingBuffer.EMPTY) {
+            neighborUpdates.add(new NeighborUpdate(pos, changedNeighbour, blockFace));
+            return;
+        }
+
+        if (!packedNeighborUpdates.offer(packed)) {
+            droppedNeighborUpdateCount.increment();
+        }
+    }
+
+    /**
+     * Get the count of neighbor updates that were dropped because the queue was full.
+     *
+     * @return the count of dropped neighbor updates since the dimension was loaded
+     */
+    public long getDroppedNeighborUpdateCount() {
+        return droppedNeighborUpdateCount.sum();
     }
 
     protected void tickNeighborUpdates() {
+        var dropped = droppedNeighborUpdateCount.sum();
+        if (dropped != lastDroppedNeighborUpdateCount) {
+            log.warn("{} neighbor updates were dropped in world {} dimension {} because the queue was full", dropped - lastDroppedNeighborUpdateCount, dimension.getWorld().getName(), dimension.getDimensionInfo().dimensionId());
+            lastDroppedNeighborUpdateCount = dropped;
+        }
+
         int count = 0;
         // There may be new neighbor updates being added into the queue during the
         // loop, however these updates should be processed in the next tick.
-        int initialNeighborUpdateCount = neighborUpdates.size();
+        int initialPackedCount = packedNeighborUpdates.size();
+        var minHeight = dimension.getDimensionInfo().minHeight();
+        var pos = new Vector3i();
+        var neighborPos = new Vector3i();
+        for (int i = 0; i < initialPackedCount && count < MAX_NEIGHBOR_UPDATE_PER_TICK; i++) {
+            var packed = packedNeighborUpdates.poll();
+            if (packed == MpscLongRingBuffer.EMPTY) {
+                break;
+            }
+
+            if (!processedNeighborUpdates.add(packed)) {
+                // The same update has been processed in this tick
+                continue;
+            }
+
+            var blockFace = FACES[(int) (packed & PACKED_FACE_MASK)];
+            pos.set(
+                    (int) (packed >> (64 - PACKED_XZ_BITS)),
+                    (int) ((packed >>> (PACKED_Y_BITS + PACKED_FACE_BITS)) & PACKED_Y_MASK) + minHeight,
+                    (int) ((packed << PACKED_XZ_BITS) >> (64 - PACKED_XZ_BITS))
+            );
+            pos.add(blockFace.getOffset(), neighborPos);
+            processNeighborUpdate(pos, neighborPos, blockFace);
+            count++;
+        }
+        processedNeighborUpdates.clear();
+
+        int initialCount = neighborUpdates.size();
         NeighborUpdate update;
-        while (count < initialNeighborUpdateCount && count < MAX_NEIGHBOR_UPDATE_PER_TICK && (update = neighborUpdates.poll()) != null) {
-            var blockFace = update.blockFace();
-            var pos = update.pos();
-            var neighborPos = update.neighborPos();
+        for (int i = 0; i < initialCount && count < MAX_NEIGHBOR_UPDATE_PER_TICK && (update = neighborUpdates.poll()) != null; i++) {
+            processNeighborUpdate(update.pos(), update.neighborPos(), update.blockFace());
+            count++;
+        }
+    }
 
-            var layer0 = dimension.getBlockState(pos);
-            var layer1 = dimension.getBlockState(pos, 1);
+    protected void processNeighborUpdate(Vector3ic pos, Vector3ic neighborPos, BlockFace blockFace) {
+        // The block entity may be sleeping until something changes around it
+        ((AllayDimension) dimension).wakeUpBlockEntity(pos.x(), pos.y(), pos.z());
 
-            var block0 = new Block(layer0, new Position3i(pos, dimension), 0);
-            var neighborBlock0 = new Block(dimension.getBlockState(neighborPos), new Position3i(neighborPos, dimension), 0);
+        var layer0 = dimension.getBlockState(pos);
+        var layer1 = dimension.getBlockState(pos, 1);
 
-            if (!callNeighborUpdateEvent(block0, neighborBlock0, blockFace)) {
-                return;
-            }
+        var block0 = new Block(layer0, new Position3i(pos, dimension), 0);
+        var neighborBlock0 = new Block(dimension.getBlockState(neighborPos), new Position3i(neighborPos, dimension), 0);
 
+        if (callNeighborUpdateEvent(block0, neighborBlock0, blockFace)) {
             layer0.getBehavior().onNeighborUpdate(
                     block0,
                     neighborBlock0,
                     blockFace
             );
+        }
 
-            // Only update second layer block if it's a liquid block for better performance,
-            // because only liquid blocks need to be updated in the second layer.
-            if (layer1.getBehavior() instanceof BlockLiquidBehavior) {
-                var block1 = new Block(layer1, new Position3i(pos, dimension), 1);
-
-                if (!callNeighborUpdateEvent(block1, neighborBlock0, blockFace)) {
-                    return;
-                }
-
+        // Only update second layer block if it's a liquid block for better performance,
+        // because only liquid blocks need to be updated in the second layer.
+        if (layer1.getBehavior() instanceof BlockLiquidBehavior) {
+            var block1 = new Block(layer1, new Position3i(pos, dimension), 1);
+            if (callNeighborUpdateEvent(block1, neighborBlock0, blockFace)) {
                 layer1.getBehavior().onNeighborUpdate(
                         block1,
                         neighborBlock0,
                         blockFace
                 );
             }
-
-            count++;
         }
     }
 
     protected boolean callNeighborUpdateEvent(Block block, Block neighborBlock, BlockFace blockFace) {
+        if (!Server.getInstance().getEventBus().hasListeners(BlockNeighborUpdateEvent.class)) {
+            return true;
+        }
+
         return new BlockNeighborUpdateEvent(block, neighborBlock, blockFace).call();
     }
 
+    /**
+     * Pack a neighbor update into a long.
+     *
+     * @return the packed update, or {@link MpscLongRingBuffer#EMPTY} if the update can't be packed
+     */
+    protected long pack(Vector3ic pos, Vector3ic neighborPos, BlockFace blockFace) {
+        var x = pos.x();
+        var y = pos.y() - dimension.getDimensionInfo().minHeight();
+        var z = pos.z();
+        var offset = blockFace.getOffset();
+        if (x < PACKED_XZ_MIN || x > PACKED_XZ_MAX || z < PACKED_XZ_MIN || z > PACKED_XZ_MAX ||
+            y < 0 || y > PACKED_Y_MASK ||
+            neighborPos.x() != x + offset.x() || neighborPos.y() != pos.y() + offset.y() || neighborPos.z() != z + offset.z()) {
+            return MpscLongRingBuffer.EMPTY;
+        }
+
+        return ((x & PACKED_XZ_MASK) << (64 - PACKED_XZ_BITS)) |
+               ((z & PACKED_XZ_MASK) << (PACKED_Y_BITS + PACKED_FACE_BITS)) |
+               ((long) y << PACKED_FACE_BITS) |
+               blockFace.ordinal();
+    }
+
     protected record NeighborUpdate(Vector3ic pos, Vector3ic neighborPos, BlockFace blockFace) {
     }
 }
@@ -2,6 +2,7 @@ package org.allaymc.server.world.manager;
 
 import io.netty.util.internal.PlatformDependent;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongPredicate;
 import lombok.extern.slf4j.Slf4j;
 import org.allaymc.api.entity.Entity;
 import org.allaymc.api.entity.EntityState;
@@ -24,7 +25,6 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Queue;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
 
 /**
  * @author Cool_Loong| daoge_cmd
@@ -37,6 +37,9 @@ public class AllayEntityManager implements EntityManager {
     protected final AllayEntityPhysicsEngine physicsService;
     protected final Queue<Runnable> queue;
     protected final Long2ObjectOpenHashMap<Entity> entities;
+    protected final EntityChunkIndex entityChunkIndex;
+    // Null if the entities are ticked serially
+    protected final RegionEntityTicker regionEntityTicker;
     protected long autoSaveTimer = 0;
 
     public AllayEntityManager(Dimension dimension, WorldStorage worldStorage) {
@@ -45,6 +48,9 @@ public class AllayEntityManager implements EntityManager {
         this.physicsService = new AllayEntityPhysicsEngine(dimension);
         this.queue = PlatformDependent.newMpscQueue();
         this.entities = new Long2ObjectOpenHashMap<>();
+        this.entityChunkIndex = new EntityChunkIndex();
+        var entitySettings = AllayServer.getSettings().entitySettings();
+        this.regionEntityTicker = entitySettings.tickEntitiesInParallel() ? new RegionEntityTicker(entitySettings.parallelTickRegionSize()) : null;
     }
 
     public void tick(long currentTick) {
@@ -61,7 +67,7 @@ public class AllayEntityManager implements EntityManager {
         // processQueue() here because the ticking-thread have been stopped.
         // Do this before removing entities to handle potential add entity tasks first
         processQueue();
-        removeAndSaveEntitiesIf($ -> true, false);
+        removeAndSaveEntitiesInChunksIf($ -> true, false);
         // Do it again to handle new tasks due to the previous removeAndSaveEntitiesIf() call
         processQueue();
     }
@@ -78,17 +84,12 @@ public class AllayEntityManager implements EntityManager {
         // Run the check in ticking thread
         this.queue.offer(() -> {
             // Check if there is no entity in this chunk, and if so, remove the old saved entities in this chunk
-            for (var entry : entities.long2ObjectEntrySet()) {
-                var entity = entry.getValue();
-                if (!entity.isPersistent()) {
-                    // Discard entities that are not persistent
-                    continue;
-                }
-
-                var loc = entity.getLocation();
-                if (chunkX == (int) loc.x() >> 4 && chunkZ == (int) loc.z() >> 4) {
+            for (var runtimeId : entityChunkIndex.getEntitiesInChunk(HashUtils.hashXZ(chunkX, chunkZ))) {
+                var entity = entities.get(runtimeId);
+                if (entity != null && entity.isPersistent()) {
                     // There are still entities in this chunk, so we don't remove the old saved entities
                     // since the old saved entities will be overwritten by the new entities.
+                    // Entities that are not persistent are discarded
                     return;
                 }
             }
@@ -111,8 +112,29 @@ public class AllayEntityManager implements EntityManager {
     }
 
     protected void tickEntities(long currentTick) {
+        if (regionEntityTicker != null) {
+            regionEntityTicker.tick(entities.values(), entity -> tickEntity(entity, currentTick));
+            return;
+        }
+
         for (var entity : entities.values()) {
-            ((EntityBaseComponentImpl) ((EntityImpl) entity).getBaseComponent()).tick(currentTick);
+            tickEntity(entity, currentTick);
+        }
+    }
+
+    protected void tickEntity(Entity entity, long currentTick) {
+        ((EntityBaseComponentImpl) ((EntityImpl) entity).getBaseComponent()).tick(currentTick);
+    }
+
+    /**
+     * Add a task to the queue. If the entities are being ticked in parallel, the task is added in the merge
+     * phase instead, so that the order of the tasks doesn't depend on the order the regions are ticked in.
+     *
+     * @param task the task
+     */
+    protected void addToQueue(Runnable task) {
+        if (!RegionEntityTicker.defer(() -> queue.add(task))) {
+            queue.add(task);
         }
     }
 
@@ -120,46 +142,38 @@ public class AllayEntityManager implements EntityManager {
         autoSaveTimer++;
         if (autoSaveTimer >= AllayServer.getSettings().storageSettings().entityAutoSaveCycle()) {
             autoSaveTimer = 0;
-            removeAndSaveEntitiesIf(entity -> {
-                var loc = entity.getLocation();
-                var hashXZ = HashUtils.hashXZ(((int) loc.x()) >> 4, ((int) loc.z()) >> 4);
-                return !dimension.getChunkManager().isChunkLoaded(hashXZ);
-            }, true);
+            removeAndSaveEntitiesInChunksIf(hashXZ -> !dimension.getChunkManager().isChunkLoaded(hashXZ), true);
         }
     }
 
-    protected void removeAndSaveEntitiesIf(Predicate<Entity> predicate, boolean asyncWrite) {
-        // Removed entities grouped by chunk index
-        var removedEntities = new Long2ObjectOpenHashMap<Long2ObjectOpenHashMap<Entity>>();
+    protected void removeAndSaveEntitiesInChunksIf(LongPredicate chunkPredicate, boolean asyncWrite) {
+        for (var hashXZ : entityChunkIndex.getChunks(chunkPredicate)) {
+            // Find entities that should be removed in this chunk
+            var removedEntities = new Long2ObjectOpenHashMap<Entity>();
+            for (var runtimeId : entityChunkIndex.getEntitiesInChunk(hashXZ)) {
+                var entity = entities.get(runtimeId);
+                if (entity == null || !entity.isPersistent()) {
+                    continue;
+                }
 
-        // Find entities that should be removed
-        for (var entity : entities.values()) {
-            if (!entity.isPersistent()) {
-                continue;
+                removedEntities.put(entity.getUniqueId().getLeastSignificantBits(), entity);
+                removeEntity(entity);
             }
 
-            var loc = entity.getLocation();
-            var hashXZ = HashUtils.hashXZ(((int) loc.x()) >> 4, ((int) loc.z()) >> 4);
-            if (predicate.test(entity)) {
-                removedEntities
-                        .computeIfAbsent(hashXZ, $ -> new Long2ObjectOpenHashMap<>())
-                        .put(entity.getUniqueId().getLeastSignificantBits(), entity);
-                removeEntity(entity);
+            if (removedEntities.isEmpty()) {
+                continue;
             }
-        }
 
-        // Save the removed entities
-        for (var entry : removedEntities.long2ObjectEntrySet()) {
-            var hashXZ = entry.getLongKey();
+            // Save the removed entities
             if (asyncWrite) {
                 worldStorage.writeEntities(
                         HashUtils.getXFromHashXZ(hashXZ), HashUtils.getZFromHashXZ(hashXZ),
-                        dimension.getDimensionInfo(), entry.getValue()
+                        dimension.getDimensionInfo(), removedEntities
                 );
             } else {
                 worldStorage.writeEntitiesSync(
                         HashUtils.getXFromHashXZ(hashXZ), HashUtils.getZFromHashXZ(hashXZ),
-                        dimension.getDimensionInfo(), entry.getValue()
+                        dimension.getDimensionInfo(), removedEntities
                 );
             }
         }
@@ -173,7 +187,7 @@ public class AllayEntityManager implements EntityManager {
         }
 
         if (((EntityBaseComponentImpl) ((EntityImpl) entity).getBaseComponent()).setState(EntityState.SPAWNED_NEXT_TICK)) {
-            queue.add(() -> {
+            addToQueue(() -> {
                 addEntityImmediately(entity);
                 callback.run();
             });
@@ -189,6 +203,7 @@ public class AllayEntityManager implements EntityManager {
         }
 
         physicsService.addEntity(entity);
+        entityChunkIndex.add(entity);
         var chunk = entity.getCurrentChunk();
         if (chunk != null) {
             chunk.getChunkLoaders().forEach(loader -> {
@@ -203,7 +218,7 @@ public class AllayEntityManager implements EntityManager {
     @Override
     public void removeEntity(Entity entity, Runnable callback) {
         if (((EntityBaseComponentImpl) ((EntityImpl) entity).getBaseComponent()).setState(EntityState.DESPAWNED_NEXT_TICK)) {
-            queue.add(() -> {
+            addToQueue(() -> {
                 removeEntityImmediately(entity);
                 callback.run();
             });
@@ -214,6 +229,7 @@ public class AllayEntityManager implements EntityManager {
         new EntityDespawnEvent(entity).call();
 
         entities.remove(entity.getRuntimeId());
+        entityChunkIndex.remove(entity);
         physicsService.removeEntity(entity);
         entity.despawnFromAll();
 
@@ -232,20 +248,60 @@ public class AllayEntityManager implements EntityManager {
 
     @Override
     public void forEachEntitiesInChunk(int chunkX, int chunkZ, Consumer<Entity> consumer) {
-        queue.add(() -> forEachEntitiesInChunkImmediately(chunkX, chunkZ, consumer));
+        addToQueue(() -> forEachEntitiesInChunkImmediately(chunkX, chunkZ, consumer));
     }
 
     @Override
     public void forEachEntitiesInChunkImmediately(int chunkX, int chunkZ, Consumer<Entity> consumer) {
-        for (var entry : entities.long2ObjectEntrySet()) {
-            var entity = entry.getValue();
-            var loc = entity.getLocation();
-            if (chunkX == (int) loc.x() >> 4 && chunkZ == (int) loc.z() >> 4) {
+        for (var runtimeId : entityChunkIndex.getEntitiesInChunk(HashUtils.hashXZ(chunkX, chunkZ))) {
+            var entity = entities.get(runtimeId);
+            if (entity != null) {
                 consumer.accept(entity);
             }
         }
     }
 
+    /**
+     * For-each the entities in the chunks that intersect with the given area on the x-z plane. The entities
+     * in these chunks but outside the area are also passed to the consumer, so the caller should check the
+     * exact location if needed.
+     * <p>
+     * If the area covers more chunks than there are entities in this dimension, all entities are iterated
+     * instead since it is cheaper than looking up so many chunks.
+     *
+     * @param minX     the min x coordinate of the area
+     * @param minZ     the min z coordinate of the area
+     * @param maxX     the max x coordinate of the area
+     * @param maxZ     the max z coordinate of the area
+     * @param consumer the consumer
+     */
+    public void forEachEntitiesInAreaImmediately(double minX, double minZ, double maxX, double maxZ, Consumer<Entity> consumer) {
+        // Use the same rounding as EntityChunkIndex.computeChunkHash()
+        var minChunkX = (int) minX >> 4;
+        var minChunkZ = (int) minZ >> 4;
+        var maxChunkX = (int) maxX >> 4;
+        var maxChunkZ = (int) maxZ >> 4;
+        if ((long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1) > entities.size()) {
+            entities.values().forEach(consumer);
+            return;
+        }
+
+        for (var chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (var chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                forEachEntitiesInChunkImmediately(chunkX, chunkZ, consumer);
+            }
+        }
+    }
+
+    /**
+     * Called when the entity's location is changed and the entity has moved into another chunk.
+     *
+     * @param entity the entity
+     */
+    public void onEntityChunkChange(Entity entity) {
+        entityChunkIndex.update(entity);
+    }
+
     @Override
     public EntityPhysicsEngine getPhysicsService() {
         return physicsService;
@@ -0,0 +1,129 @@
+package org.allaymc.server.world.manager;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongPredicate;
+import org.allaymc.api.entity.Entity;
+import org.allaymc.api.utils.hash.HashUtils;
+
+/**
+ * EntityChunkIndex indexes the runtime ids of entities by the chunk they are in, so that
+ * the entities in a chunk can be found without iterating over all entities in the dimension.
+ * <p>
+ * The index is updated from the physics threads when entities cross chunk borders, so
+ * all methods in this class are synchronized.
+ *
+ * @author daoge_cmd
+ */
+public final class EntityChunkIndex {
+
+    private static final long NOT_INDEXED = Long.MIN_VALUE;
+
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> chunkToEntities;
+    private final Long2LongOpenHashMap entityToChunk;
+
+    public EntityChunkIndex() {
+        this.chunkToEntities = new Long2ObjectOpenHashMap<>();
+        this.entityToChunk = new Long2LongOpenHashMap();
+        this.entityToChunk.defaultReturnValue(NOT_INDEXED);
+    }
+
+    /**
+     * Compute the chunk hash of the chunk which the entity is currently in.
+     *
+     * @param entity the entity
+     * @return the chunk hash
+     */
+    public static long computeChunkHash(Entity entity) {
+        var loc = entity.getLocation();
+        return HashUtils.hashXZ((int) loc.x() >> 4, (int) loc.z() >> 4);
+    }
+
+    /**
+     * Add the entity to the index.
+     *
+     * @param entity the entity
+     */
+    public synchronized void add(Entity entity) {
+        var runtimeId = entity.getRuntimeId();
+        var chunkHash = computeChunkHash(entity);
+        var old = entityToChunk.put(runtimeId, chunkHash);
+        if (old != NOT_INDEXED) {
+            removeFromChunk(old, runtimeId);
+        }
+        chunkToEntities.computeIfAbsent(chunkHash, $ -> new LongOpenHashSet()).add(runtimeId);
+    }
+
+    /**
+     * Update the indexed chunk of the entity. Does nothing if the entity is not indexed.
+     *
+     * @param entity the entity
+     */
+    public synchronized void update(Entity entity) {
+        var runtimeId = entity.getRuntimeId();
+        var old = entityToChunk.get(runtimeId);
+        if (old == NOT_INDEXED) {
+            return;
+        }
+
+        var chunkHash = computeChunkHash(entity);
+        if (old == chunkHash) {
+            return;
+        }
+
+        removeFromChunk(old, runtimeId);
+        entityToChunk.put(runtimeId, chunkHash);
+        chunkToEntities.computeIfAbsent(chunkHash, $ -> new LongOpenHashSet()).add(runtimeId);
+    }
+
+    /**
+     * Remove the entity from the index.
+     *
+     * @param entity the entity
+     */
+    public synchronized void remove(Entity entity) {
+        var runtimeId = entity.getRuntimeId();
+        var old = entityToChunk.remove(runtimeId);
+        if (old != NOT_INDEXED) {
+            removeFromChunk(old, runtimeId);
+        }
+    }
+
+    /**
+     * Get the runtime ids of the entities in the specified chunk.
+     *
+     * @param chunkHash the chunk hash
+     * @return a copy of the runtime ids, or an empty array if there is no entity in the chunk
+     */
+    public synchronized long[] getEntitiesInChunk(long chunkHash) {
+        var set = chunkToEntities.get(chunkHash);
+        return set != null ? set.toLongArray() : new long[0];
+    }
+
+    /**
+     * Get the hashes of the chunks that contain entities and match the predicate.
+     *
+     * @param predicate the predicate
+     * @return the chunk hashes
+     */
+    public synchronized long[] getChunks(LongPredicate predicate) {
+        var result = new LongArrayList();
+        var iterator = chunkToEntities.keySet().iterator();
+        while (iterator.hasNext()) {
+            var chunkHash = iterator.nextLong();
+            if (predicate.test(chunkHash)) {
+                result.add(chunkHash);
+            }
+        }
+        return result.toLongArray();
+    }
+
+    private void removeFromChunk(long chunkHash, long runtimeId) {
+        var set = chunkToEntities.get(chunkHash);
+        if (set != null && set.remove(runtimeId) && set.isEmpty()) {
+            chunkToEntities.remove(chunkHash);
+        }
+    }
+}
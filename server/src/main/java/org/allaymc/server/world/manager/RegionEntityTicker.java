@@ -0,0 +1,123 @@
+package org.allaymc.server.world.manager;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import org.allaymc.api.entity.Entity;
+import org.allaymc.api.entity.interfaces.EntityPlayer;
+import org.allaymc.api.server.Server;
+import org.allaymc.api.utils.Utils;
+import org.allaymc.api.utils.hash.HashUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * RegionEntityTicker ticks the entities of a dimension in parallel by splitting the dimension into square regions
+ * of {@code regionSize * regionSize} chunks.
+ * <p>
+ * The regions are ticked in four phases like a checkerboard, and the regions in the same phase are ticked in
+ * parallel. Two regions in the same phase are always separated by a whole region, so the entities that are ticked at
+ * the same time never interact with each other as long as the interaction range is smaller than a region. Players
+ * are ticked in the world thread before the regions, since they are driven by the client.
+ * <p>
+ * The actions that affect other regions, such as spawning, removing and teleporting entities, are deferred through
+ * {@link #defer(Runnable)} when they are requested during the parallel phases. The deferred actions are run in the
+ * world thread after all the phases, in the order of the phases and the regions, so the result doesn't depend on
+ * the order the regions are ticked in.
+ *
+ * @author daoge_cmd
+ */
+public final class RegionEntityTicker {
+
+    private static final ThreadLocal<Region> CURRENT_REGION = new ThreadLocal<>();
+    private static final int PHASE_COUNT = 4;
+
+    private final int regionSize;
+
+    public RegionEntityTicker(int regionSize) {
+        this.regionSize = Math.max(regionSize, 1);
+    }
+
+    /**
+     * Defer the action to the merge phase if the current thread is ticking a region.
+     *
+     * @param action the action to defer
+     * @return {@code true} if the action is deferred, {@code false} if the caller should run the action directly
+     */
+    public static boolean defer(Runnable action) {
+        var region = CURRENT_REGION.get();
+        if (region == null) {
+            return false;
+        }
+
+        region.deferredActions.add(action);
+        return true;
+    }
+
+    /**
+     * Tick the entities.
+     *
+     * @param entities the entities to tick, which must not be changed until this method returns
+     * @param ticker   the action that ticks an entity
+     */
+    public void tick(Collection<Entity> entities, Consumer<Entity> ticker) {
+        var phases = new ArrayList<List<Region>>(PHASE_COUNT);
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            phases.add(new ArrayList<>());
+        }
+
+        var regions = new Long2ObjectLinkedOpenHashMap<Region>();
+        for (var entity : entities) {
+            if (entity instanceof EntityPlayer) {
+                ticker.accept(entity);
+                continue;
+            }
+
+            var loc = entity.getLocation();
+            var regionX = Math.floorDiv((int) loc.x() >> 4, regionSize);
+            var regionZ = Math.floorDiv((int) loc.z() >> 4, regionSize);
+            var regionHash = HashUtils.hashXZ(regionX, regionZ);
+            var region = regions.get(regionHash);
+            if (region == null) {
+                region = new Region();
+                regions.put(regionHash, region);
+                phases.get(((regionX & 1) << 1) | (regionZ & 1)).add(region);
+            }
+            region.entities.add(entity);
+        }
+
+        try {
+            for (var phase : phases) {
+                Utils.forEachInParallel(phase, Server.getInstance().getComputeThreadPool(), 1, region -> {
+                    // The thread may be ticking another region already, when this is called by a task that is
+                    // nested in a region (or is stolen by a thread that is waiting in a region), so the previous
+                    // region should be restored instead of being cleared
+                    var previousRegion = CURRENT_REGION.get();
+                    CURRENT_REGION.set(region);
+                    try {
+                        region.entities.forEach(ticker);
+                    } finally {
+                        if (previousRegion != null) {
+                            CURRENT_REGION.set(previousRegion);
+                        } else {
+                            CURRENT_REGION.remove();
+                        }
+                    }
+                }).join();
+            }
+        } finally {
+            // Merge phase
+            for (var phase : phases) {
+                for (var region : phase) {
+                    region.deferredActions.forEach(Runnable::run);
+                }
+            }
+        }
+    }
+
+    private static final class Region {
+        final List<Entity> entities = new ArrayList<>();
+        final List<Runnable> deferredActions = new ArrayList<>();
+    }
+}
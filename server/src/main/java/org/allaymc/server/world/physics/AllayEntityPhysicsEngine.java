@@ -52,6 +52,7 @@ public class AllayEntityPhysicsEngine implements EntityPhysicsEngine {
 
     public static final double MOTION_THRESHOLD;
     public static final double BLOCK_COLLISION_MOTION;
+    public static final int PARALLEL_GRAIN_SIZE;
     /**
      * When the min distance of entity to the collision shape of block is smaller than FAT_AABB_MARGIN,
      * the entity will be considered as collided with the block. This is used to prevent floating point
@@ -70,6 +71,7 @@ public class AllayEntityPhysicsEngine implements EntityPhysicsEngine {
         var settings = AllayServer.getSettings().entitySettings().physicsEngineSettings();
         MOTION_THRESHOLD = settings.motionThreshold();
         BLOCK_COLLISION_MOTION = settings.blockCollisionMotion();
+        PARALLEL_GRAIN_SIZE = Math.max(settings.parallelGrainSize(), 1);
     }
 
     protected Map<Long, Entity> entities = new Long2ObjectOpenHashMap<>();
@@ -89,7 +91,7 @@ public class AllayEntityPhysicsEngine implements EntityPhysicsEngine {
         handleClientMoveQueue();
         cacheEntityCollisionResult();
         var updatedEntities = new NonBlockingHashMapLong<Entity>();
-        Utils.forEachInParallel(entities.values(), Server.getInstance().getComputeThreadPool(), entity -> {
+        Utils.forEachInParallel(entities.values(), Server.getInstance().getComputeThreadPool(), PARALLEL_GRAIN_SIZE, entity -> {
             if (!(entity instanceof EntityPhysicsComponent physicsComponent)) {
                 return;
             }
@@ -129,7 +131,7 @@ public class AllayEntityPhysicsEngine implements EntityPhysicsEngine {
                     updatedEntities.put(entity.getRuntimeId(), entity);
                 }
             }
-        });
+        }).join();
         updatedEntities.values().forEach(entityAABBTree::update);
     }
 
@@ -139,13 +141,13 @@ public class AllayEntityPhysicsEngine implements EntityPhysicsEngine {
         // Compute colliding entities in parallel, because computeCollidingEntities()
         // will be an expensive method if there are a lot of entities. Method
         // computeCollidingEntities() should be safe to call in parallel
-        Utils.forEachInParallel(entities.values(), Server.getInstance().getComputeThreadPool(), entity -> {
+        Utils.forEachInParallel(entities.values(), Server.getInstance().getComputeThreadPool(), PARALLEL_GRAIN_SIZE, entity -> {
             var collidedEntities = computeCollidingEntities(entity, true);
             if (collidedEntities.isEmpty()) {
                 return;
             }
             map.put(entity, collidedEntities);
-        });
+        }).join();
         map.forEach((entity, collidedEntities) -> {
             // These two operations is not thread-safe, so simply do them synchronously
             // as the two operations shouldn't be slow
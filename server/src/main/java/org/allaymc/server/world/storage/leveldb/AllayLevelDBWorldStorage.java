@@ -3,6 +3,7 @@ package org.allaymc.server.world.storage.leveldb;
 import com.google.common.base.Preconditions;
 import io.netty.buffer.*;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.allaymc.api.block.type.BlockState;
 import org.allaymc.api.block.type.BlockTypes;
@@ -25,6 +26,7 @@ import org.allaymc.api.world.data.DimensionInfo;
 import org.allaymc.api.world.storage.WorldStorage;
 import org.allaymc.api.world.storage.WorldStorageException;
 import org.allaymc.server.AllayServer;
+import org.allaymc.server.datastruct.ChunkSectionNibbleArray;
 import org.allaymc.server.datastruct.palette.Palette;
 import org.allaymc.server.datastruct.palette.PaletteException;
 import org.allaymc.server.datastruct.palette.PaletteUtils;
@@ -34,6 +36,7 @@ import org.allaymc.server.pdc.AllayPersistentDataContainer;
 import org.allaymc.server.world.AllayWorldData;
 import org.allaymc.server.world.chunk.*;
 import org.allaymc.server.world.gamerule.AllayGameRules;
+import org.allaymc.server.world.light.ChunkLightData;
 import org.allaymc.updater.block.BlockStateUpdaters;
 import org.cloudburstmc.nbt.NBTInputStream;
 import org.cloudburstmc.nbt.NbtMap;
@@ -56,10 +59,13 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import static org.allaymc.server.network.NetworkHelper.toNetwork;
@@ -113,10 +119,15 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
     private static final String TAG_FORCE_GAME_TYPE = "ForceGameType";
 
     private static final int HEIGHTMAP_SIZE = 256;
+    private static final int LIGHT_DATA_FORMAT_VERSION = 1;
 
     private final Path path;
     private final String worldName;
     private final DB db;
+    @Getter
+    private final ChunkSaveScheduler chunkSaveScheduler;
+    // The light writes that are not finished yet, which are waited for before the db is closed
+    private final Set<CompletableFuture<Void>> pendingLightWrites;
 
     private World world;
 
@@ -142,6 +153,8 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
         } catch (IOException e) {
             throw new WorldStorageException(e);
         }
+        this.chunkSaveScheduler = new ChunkSaveScheduler(this);
+        this.pendingLightWrites = ConcurrentHashMap.newKeySet();
     }
 
     private static AllayWorldData readWorldDataFromNBT(NbtMap nbt) {
@@ -179,7 +192,7 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
                 .build();
     }
 
-    private static void serializeSections(WriteBatch writeBatch, AllayUnsafeChunk chunk) {
+    private static void serializeSections(ChunkWriteBatch writeBatch, AllayUnsafeChunk chunk) {
         for (int ySection = chunk.getDimensionInfo().minSectionY(); ySection <= chunk.getDimensionInfo().maxSectionY(); ySection++) {
             var section = chunk.getSection(ySection);
             if (!section.hasDirtyBlockLayer()) {
@@ -195,7 +208,6 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
                         buffer.writeByte(finalYSection);
                         for (int i = 0; i < AllayChunkSection.LAYER_COUNT; i++) {
                             var palette = section.blockLayers()[i];
-                            palette.compact();
                             palette.writeToStorage(buffer, BlockState::getBlockStateNBT);
                             palette.setDirty(false);
                         }
@@ -247,6 +259,7 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
                         palette.readFromStorage(byteBuf, AllayLevelDBWorldStorage::fastBlockStateDeserializer);
                         palette.setDirty(false);
                     }
+                    section.recalculateRandomUpdateBitMap();
                     sections[ySection - minSectionY] = section;
                     break;
                 default:
@@ -305,7 +318,7 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
      *
      * @see <a href="https://github.com/bedrock-dev/bedrock-level/blob/main/src/include/data_3d.h#L115">Biome 3d</a>
      */
-    private static void serializeHeightAndBiome(WriteBatch writeBatch, AllayUnsafeChunk chunk) {
+    private static void serializeHeightAndBiome(ChunkWriteBatch writeBatch, AllayUnsafeChunk chunk) {
         writeBatch.put(LevelDBKey.DATA_3D.createKey(chunk.getX(), chunk.getZ(), chunk.getDimensionInfo()), withByteBufToArray(heightAndBiomesBuffer -> {
             // Serialize height map
             for (var height : chunk.calculateAndGetHeightMap().getHeights()) {
@@ -316,7 +329,6 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
             Palette<BiomeType> lastPalette = null;
             for (int y = chunk.getDimensionInfo().minSectionY(); y <= chunk.getDimensionInfo().maxSectionY(); y++) {
                 AllayChunkSection section = chunk.getSection(y);
-                section.biomes().compact();
                 section.biomes().writeToStorage(heightAndBiomesBuffer, BiomeType::getId, lastPalette);
                 // TODO: Fix client crash due to biome copy flag
                 // lastPalette = section.biomes();
@@ -389,7 +401,7 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
         }
     }
 
-    private static void serializeBlockEntities(WriteBatch writeBatch, AllayUnsafeChunk chunk) {
+    private static void serializeBlockEntities(ChunkWriteBatch writeBatch, AllayUnsafeChunk chunk) {
         var blockEntities = chunk.getBlockEntities().values();
         var blockEntitiesKey = LevelDBKey.BLOCK_ENTITIES.createKey(chunk.getX(), chunk.getZ(), chunk.getDimensionInfo());
         if (blockEntities.isEmpty()) {
@@ -408,7 +420,7 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
         }));
     }
 
-    private static void serializeScheduledUpdates(WriteBatch writeBatch, AllayUnsafeChunk chunk, World world) {
+    private static void serializeScheduledUpdates(ChunkWriteBatch writeBatch, AllayUnsafeChunk chunk, World world) {
         var scheduledUpdates = chunk.getScheduledUpdates().values();
         var key = LevelDBKey.PENDING_TICKS.createKey(chunk.getX(), chunk.getZ(), chunk.getDimensionInfo());
         if (scheduledUpdates.isEmpty()) {
@@ -448,6 +460,82 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
         builder.scheduledUpdates(scheduledUpdates);
     }
 
+    private static byte[] serializeLightData(ChunkLightData lightData) {
+        return withByteBufToArray(buf -> {
+            buf.writeByte(LIGHT_DATA_FORMAT_VERSION);
+            for (var hash : lightData.neighborhoodHashes()) {
+                buf.writeLongLE(hash);
+            }
+            buf.writeByte(lightData.blockLight().length);
+            serializeNibbleArrays(buf, lightData.blockLight());
+            buf.writeBoolean(lightData.skyLight() != null);
+            if (lightData.skyLight() != null) {
+                serializeNibbleArrays(buf, lightData.skyLight());
+            }
+        });
+    }
+
+    private static void serializeNibbleArrays(ByteBuf buf, ChunkSectionNibbleArray[] arrays) {
+        for (var array : arrays) {
+            var bytes = array.toByteArray();
+            // Empty arrays are very common, skip them to save space
+            buf.writeBoolean(bytes != null);
+            if (bytes != null) {
+                buf.writeBytes(bytes);
+            }
+        }
+    }
+
+    private static ChunkLightData deserializeLightData(DB db, int chunkX, int chunkZ, DimensionInfo dimensionInfo) {
+        var lightDataBytes = db.get(LevelDBKey.ALLAY_LIGHT.createKey(chunkX, chunkZ, dimensionInfo));
+        if (lightDataBytes == null) {
+            return null;
+        }
+
+        try {
+            var buf = Unpooled.wrappedBuffer(lightDataBytes);
+            var version = buf.readByte();
+            if (version != LIGHT_DATA_FORMAT_VERSION) {
+                // The light will be recalculated
+                return null;
+            }
+
+            var neighborhoodHashes = new long[ChunkLightData.NEIGHBORHOOD_SIZE];
+            for (int i = 0; i < neighborhoodHashes.length; i++) {
+                neighborhoodHashes[i] = buf.readLongLE();
+            }
+            var sectionCount = buf.readUnsignedByte();
+            if (sectionCount != dimensionInfo.chunkSectionCount()) {
+                return null;
+            }
+
+            var blockLight = deserializeNibbleArrays(buf, sectionCount);
+            var skyLight = buf.readBoolean() ? deserializeNibbleArrays(buf, sectionCount) : null;
+            if ((skyLight != null) != dimensionInfo.hasSkyLight()) {
+                return null;
+            }
+
+            return new ChunkLightData(neighborhoodHashes, blockLight, skyLight);
+        } catch (IndexOutOfBoundsException e) {
+            log.warn("Corrupted light data for chunk at ({}, {}), the light will be recalculated", chunkX, chunkZ);
+            return null;
+        }
+    }
+
+    private static ChunkSectionNibbleArray[] deserializeNibbleArrays(ByteBuf buf, int count) {
+        var arrays = new ChunkSectionNibbleArray[count];
+        for (int i = 0; i < count; i++) {
+            if (buf.readBoolean()) {
+                var bytes = new byte[ChunkSectionNibbleArray.BYTES_LENGTH];
+                buf.readBytes(bytes);
+                arrays[i] = new ChunkSectionNibbleArray(bytes);
+            } else {
+                arrays[i] = new ChunkSectionNibbleArray();
+            }
+        }
+        return arrays;
+    }
+
     private static BiomeType getBiomeByIdNonNull(int id) {
         try {
             return Registries.BIOMES.getByK1(id);
@@ -531,13 +619,39 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
         deserializeHeightAndBiome(this.db, builder);
         deserializeBlockEntities(this.db, builder);
         deserializeScheduledUpdates(this.db, builder);
-        return builder.build().toSafeChunk();
+        var chunk = builder.build();
+        // The records of the chunk are the same as the ones in the db now
+        chunk.getSaveState().update(chunk.getVersion(), chunk.getState(), !chunk.getBlockEntities().isEmpty(), !chunk.getScheduledUpdates().isEmpty());
+        chunk.setLightData(deserializeLightData(this.db, chunkX, chunkZ, dimensionInfo));
+        return chunk.toSafeChunk();
+    }
+
+    /**
+     * Write the light in a chunk asynchronously. The light is stored separately from the chunk
+     * because it is calculated by the light engine after the chunk is loaded.
+     *
+     * @param chunkX        the x coordinate of the chunk
+     * @param chunkZ        the z coordinate of the chunk
+     * @param dimensionInfo the dimension info of the chunk
+     * @param lightData     the light data to write
+     */
+    public void writeLightData(int chunkX, int chunkZ, DimensionInfo dimensionInfo, ChunkLightData lightData) {
+        var future = CompletableFuture
+                .runAsync(() -> this.db.put(LevelDBKey.ALLAY_LIGHT.createKey(chunkX, chunkZ, dimensionInfo), serializeLightData(lightData)), Server.getInstance().getVirtualThreadPool())
+                .exceptionally(t -> {
+                    log.error("Failed to write light data of chunk ({}, {})", chunkX, chunkZ, t);
+                    return null;
+                });
+        pendingLightWrites.add(future);
+        future.thenRun(() -> pendingLightWrites.remove(future));
     }
 
     @Override
     public CompletableFuture<Void> writeChunk(Chunk chunk) {
-        return CompletableFuture
-                .runAsync(() -> writeChunkSync(chunk), Server.getInstance().getVirtualThreadPool())
+        // Wait for the scheduled save of the chunk if it is being written, so that
+        // the older data won't overwrite the newer one
+        return chunkSaveScheduler.cancel(chunk)
+                .thenRunAsync(() -> writeChunks(Collections.singletonList(chunk)), Server.getInstance().getVirtualThreadPool())
                 .exceptionally(t -> {
                     log.error("Failed to write chunk ({}, {})", chunk.getX(), chunk.getZ(), t);
                     return null;
@@ -546,7 +660,74 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
 
     @Override
     public void writeChunkSync(Chunk chunk) {
-        try (var writeBatch = this.db.createWriteBatch()) {
+        chunkSaveScheduler.cancel(chunk).join();
+        writeChunks(Collections.singletonList(chunk));
+    }
+
+    /**
+     * Write the chunks in a single write batch.
+     *
+     * @param chunks the chunks to write
+     * @return the size of the written data in bytes
+     */
+    long writeChunks(Collection<Chunk> chunks) {
+        try (var batch = this.db.createWriteBatch()) {
+            var writeBatch = new ChunkWriteBatch(batch);
+            for (var chunk : chunks) {
+                writeChunkToBatch(writeBatch, chunk);
+            }
+            this.db.write(batch);
+            return writeBatch.getSize();
+        } catch (IOException e) {
+            markAllDataUnsaved(chunks);
+            throw new WorldStorageException(e);
+        } catch (RuntimeException | Error e) {
+            markAllDataUnsaved(chunks);
+            throw e;
+        }
+    }
+
+    /**
+     * Compact the palettes that are going to be written. Compacting replaces the entries and the bit array of
+     * a palette, which can't be done in the read operation that writes the chunk since other threads may read
+     * the palette at the same time, so the write locks of the sections are held instead.
+     *
+     * @param chunk         the chunk
+     * @param compactBiomes whether to compact the biome palettes, which are only written if the chunk version is changed
+     */
+    private static void compactPalettes(Chunk chunk, boolean compactBiomes) {
+        var unsafeChunk = (AllayUnsafeChunk) chunk.toUnsafeChunk();
+        var dimensionInfo = chunk.getDimensionInfo();
+        for (int sectionY = dimensionInfo.minSectionY(); sectionY <= dimensionInfo.maxSectionY(); sectionY++) {
+            var compactBlocks = unsafeChunk.getSection(sectionY).hasDirtyBlockLayer();
+            if (!compactBlocks && !compactBiomes) {
+                continue;
+            }
+
+            chunk.applyOperationInSection(sectionY, s -> {
+                var section = (AllayChunkSection) s;
+                if (compactBlocks) {
+                    for (var palette : section.blockLayers()) {
+                        palette.compact();
+                    }
+                }
+                if (compactBiomes) {
+                    section.biomes().compact();
+                }
+            }, compactBlocks ? OperationType.WRITE : OperationType.NONE, compactBiomes ? OperationType.WRITE : OperationType.NONE);
+        }
+    }
+
+    private static void markAllDataUnsaved(Collection<Chunk> chunks) {
+        // The dirty flags and the save states of the chunks may have been updated, restore them
+        // so that all the data of the chunks will be written next time
+        chunks.forEach(chunk -> ((AllayUnsafeChunk) chunk.toUnsafeChunk()).markAllDataUnsaved());
+    }
+
+    private void writeChunkToBatch(ChunkWriteBatch writeBatch, Chunk chunk) {
+        var saveState = ((AllayUnsafeChunk) chunk.toUnsafeChunk()).getSaveState();
+        var state = chunk.getState();
+        if (state != saveState.getWrittenState()) {
             writeBatch.put(LevelDBKey.VERSION.createKey(chunk.getX(), chunk.getZ(), chunk.getDimensionInfo()), new byte[]{(byte) CURRENT_CHUNK_VERSION});
             writeBatch.put(
                     LevelDBKey.CHUNK_FINALIZED_STATE.createKey(chunk.getX(), chunk.getZ(), chunk.getDimensionInfo()),
@@ -554,19 +735,34 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
             );
             writeBatch.put(
                     LevelDBKey.ALLAY_CHUNK_STATE.createKey(chunk.getX(), chunk.getZ(), chunk.getDimensionInfo()),
-                    chunk.getState().name().getBytes()
+                    state.name().getBytes()
             );
-            chunk.applyOperation(c -> {
-                var allayUnsafeChunk = (AllayUnsafeChunk) c;
-                serializeSections(writeBatch, allayUnsafeChunk);
+        }
+        compactPalettes(chunk, chunk.getVersion() != saveState.getWrittenVersion());
+        chunk.applyOperation(c -> {
+            var allayUnsafeChunk = (AllayUnsafeChunk) c;
+            // The chunk can't be modified while holding the read locks, so the version is accurate here
+            var version = allayUnsafeChunk.getVersion();
+            var hasBlockEntities = !allayUnsafeChunk.getBlockEntities().isEmpty();
+            var hasScheduledUpdates = !allayUnsafeChunk.getScheduledUpdates().isEmpty();
+            var writeHeightAndBiome = version != saveState.getWrittenVersion();
+            // The records are deleted if they were written before but are empty now
+            var writeBlockEntities = saveState.isBlockEntitiesChanged() && (hasBlockEntities || saveState.isBlockEntitiesWritten());
+            var writeScheduledUpdates = saveState.isScheduledUpdatesChanged() && (hasScheduledUpdates || saveState.isScheduledUpdatesWritten());
+            // Update the save state before encoding, so that the changes made during encoding will be
+            // written next time. The save state is reset by markAllDataUnsaved() if the write failed
+            saveState.update(version, state, hasBlockEntities, hasScheduledUpdates);
+            serializeSections(writeBatch, allayUnsafeChunk);
+            if (writeHeightAndBiome) {
                 serializeHeightAndBiome(writeBatch, allayUnsafeChunk);
+            }
+            if (writeBlockEntities) {
                 serializeBlockEntities(writeBatch, allayUnsafeChunk);
+            }
+            if (writeScheduledUpdates) {
                 serializeScheduledUpdates(writeBatch, allayUnsafeChunk, world);
-            }, OperationType.READ, OperationType.READ);
-            this.db.write(writeBatch);
-        } catch (IOException e) {
-            throw new WorldStorageException(e);
-        }
+            }
+        }, OperationType.READ, OperationType.READ);
     }
 
     @Override
@@ -809,8 +1005,16 @@ public class AllayLevelDBWorldStorage implements WorldStorage {
         return builder.build();
     }
 
+    @Override
+    public void tick(long currentTick) {
+        chunkSaveScheduler.tick();
+    }
+
     @Override
     public void shutdown() {
+        // Write the chunks that are still waiting to be saved
+        chunkSaveScheduler.flush();
+        CompletableFuture.allOf(pendingLightWrites.toArray(CompletableFuture[]::new)).join();
         try {
             this.db.close();
         } catch (IOException e) {
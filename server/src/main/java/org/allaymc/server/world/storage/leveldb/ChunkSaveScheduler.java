@@ -0,0 +1,168 @@
+package org.allaymc.server.world.storage.leveldb;
+
+import lombok.extern.slf4j.Slf4j;
+import org.allaymc.api.server.Server;
+import org.allaymc.api.utils.hash.HashUtils;
+import org.allaymc.api.world.chunk.Chunk;
+import org.allaymc.server.AllayServer;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ChunkSaveScheduler spreads the chunk auto saves of a {@link AllayLevelDBWorldStorage} across ticks.
+ * <p>
+ * Chunks that need to be saved are put into a queue, and a chunk that is already in the queue
+ * won't be queued again. Every tick, a part of the queue is taken and written in a single
+ * {@link org.iq80.leveldb.WriteBatch}, so that the chunks whose auto save timers are aligned
+ * (for example, the chunks that were loaded at the same time) won't be saved in the same tick.
+ * Only one batch is written at a time, so the writes of a chunk are always in order.
+ *
+ * @author daoge_cmd
+ */
+@Slf4j
+public final class ChunkSaveScheduler {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final AllayLevelDBWorldStorage storage;
+    private final LinkedHashMap<ChunkKey, Chunk> pendingChunks;
+    private final LongAdder bytesWritten;
+
+    private CompletableFuture<Void> inFlightWrite;
+    private Set<ChunkKey> inFlightChunks;
+
+    private long lastRateUpdateTime;
+    private long lastBytesWritten;
+    private volatile long bytesWrittenPerSecond;
+
+    ChunkSaveScheduler(AllayLevelDBWorldStorage storage) {
+        this.storage = storage;
+        this.pendingChunks = new LinkedHashMap<>();
+        this.bytesWritten = new LongAdder();
+        this.inFlightWrite = CompletableFuture.completedFuture(null);
+        this.inFlightChunks = Collections.emptySet();
+        this.lastRateUpdateTime = System.nanoTime();
+    }
+
+    /**
+     * Schedule a save of the chunk. Does nothing if the chunk is already waiting to be saved.
+     *
+     * @param chunk the chunk to save
+     */
+    public synchronized void schedule(Chunk chunk) {
+        pendingChunks.putIfAbsent(ChunkKey.of(chunk), chunk);
+    }
+
+    /**
+     * Remove the chunk from the queue, should be called before the chunk is written directly.
+     *
+     * @param chunk the chunk
+     * @return a future that completes once the batch that contains the chunk is written, or a
+     * completed future if the chunk is not being written. The direct write should be done
+     * after this future, otherwise the older data may overwrite the newer one
+     */
+    public synchronized CompletableFuture<Void> cancel(Chunk chunk) {
+        var key = ChunkKey.of(chunk);
+        pendingChunks.remove(key);
+        return inFlightChunks.contains(key) ? inFlightWrite : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Write a part of the queued chunks. Should be called every tick.
+     */
+    public synchronized void tick() {
+        updateRate();
+        if (pendingChunks.isEmpty() || !inFlightWrite.isDone()) {
+            return;
+        }
+
+        var settings = AllayServer.getSettings().storageSettings();
+        // Write the whole queue within the spread ticks
+        var count = Math.min(
+                (pendingChunks.size() + settings.chunkSaveSpreadTicks() - 1) / Math.max(settings.chunkSaveSpreadTicks(), 1),
+                settings.maxChunksPerSaveBatch()
+        );
+        var chunks = pollChunks(Math.max(count, 1));
+        inFlightWrite = CompletableFuture
+                .runAsync(() -> write(chunks.values()), Server.getInstance().getVirtualThreadPool())
+                .exceptionally(t -> {
+                    log.error("Failed to write {} chunks", chunks.size(), t);
+                    return null;
+                });
+        inFlightChunks = chunks.keySet();
+    }
+
+    /**
+     * Write all the queued chunks and wait for them to be written. Should be called before the storage is closed.
+     */
+    public void flush() {
+        CompletableFuture<Void> previous;
+        Map<ChunkKey, Chunk> chunks;
+        synchronized (this) {
+            previous = inFlightWrite;
+            chunks = pollChunks(pendingChunks.size());
+        }
+
+        previous.join();
+        if (!chunks.isEmpty()) {
+            write(chunks.values());
+        }
+    }
+
+    /**
+     * @return the count of chunks that are waiting to be saved
+     */
+    public synchronized int getQueueDepth() {
+        return pendingChunks.size();
+    }
+
+    /**
+     * @return the bytes written by this scheduler in the last second
+     */
+    public long getBytesWrittenPerSecond() {
+        return bytesWrittenPerSecond;
+    }
+
+    /**
+     * @return the total bytes written by this scheduler
+     */
+    public long getTotalBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    private Map<ChunkKey, Chunk> pollChunks(int count) {
+        Map<ChunkKey, Chunk> chunks = new HashMap<>(count);
+        var iterator = pendingChunks.entrySet().iterator();
+        while (iterator.hasNext() && chunks.size() < count) {
+            var entry = iterator.next();
+            chunks.put(entry.getKey(), entry.getValue());
+            iterator.remove();
+        }
+        return chunks;
+    }
+
+    private void write(Collection<Chunk> chunks) {
+        bytesWritten.add(storage.writeChunks(chunks));
+    }
+
+    private void updateRate() {
+        var now = System.nanoTime();
+        var elapsed = now - lastRateUpdateTime;
+        if (elapsed < NANOS_PER_SECOND) {
+            return;
+        }
+
+        var total = bytesWritten.sum();
+        bytesWrittenPerSecond = (total - lastBytesWritten) * NANOS_PER_SECOND / elapsed;
+        lastBytesWritten = total;
+        lastRateUpdateTime = now;
+    }
+
+    private record ChunkKey(int dimensionId, long chunkHash) {
+        static ChunkKey of(Chunk chunk) {
+            return new ChunkKey(chunk.getDimensionInfo().dimensionId(), HashUtils.hashXZ(chunk.getX(), chunk.getZ()));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.allaymc.server.world.storage.leveldb;
+
+import lombok.Getter;
+import org.iq80.leveldb.WriteBatch;
+
+/**
+ * ChunkWriteBatch wraps a {@link WriteBatch} and counts the bytes that are put into it.
+ *
+ * @author daoge_cmd
+ */
+final class ChunkWriteBatch {
+
+    @Getter
+    private final WriteBatch writeBatch;
+    @Getter
+    private long size;
+
+    ChunkWriteBatch(WriteBatch writeBatch) {
+        this.writeBatch = writeBatch;
+    }
+
+    void put(byte[] key, byte[] value) {
+        writeBatch.put(key, value);
+        size += key.length + value.length;
+    }
+
+    void delete(byte[] key) {
+        writeBatch.delete(key);
+        size += key.length;
+    }
+}
@@ -99,7 +99,12 @@ public enum LevelDBKey {
     /**
      * Stores a string which represents the state of the chunk. The string is consistent with the name in class {@link ChunkState}.
      */
-    ALLAY_CHUNK_STATE(-1);
+    ALLAY_CHUNK_STATE(-1),
+    /**
+     * Stores the block light and sky light that were calculated in the chunk, together with the content
+     * hashes of the chunk and its neighbor chunks at that time, which are used to check if the light is still valid.
+     */
+    ALLAY_LIGHT(-2);
 
     /**
      * Used in the <a href="https://learn.microsoft.com/en-us/minecraft/creator/documents/actorstorage?view=minecraft-bedrock-stable">New Actor Storage</a>.
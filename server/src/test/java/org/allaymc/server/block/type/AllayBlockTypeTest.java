@@ -11,6 +11,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.allaymc.api.block.type.BlockTypes.BLUE_CANDLE;
@@ -86,6 +87,35 @@ class AllayBlockTypeTest {
         assertEquals(TestEnum.B, state.getPropertyValue(TEST_ENUM_PROPERTY_TYPE));
     }
 
+    @Test
+    void testSetPropertyValues() {
+        var state = testBlockType1.getDefaultState().setPropertyValues(List.of(
+                TEST_BOOLEAN_PROPERTY_TYPE.createValue(true),
+                TEST_INT_PROPERTY_TYPE.createValue(7),
+                TEST_ENUM_PROPERTY_TYPE.createValue(TestEnum.B)
+        ));
+        assertTrue(state.getPropertyValue(TEST_BOOLEAN_PROPERTY_TYPE));
+        assertEquals(7, state.getPropertyValue(TEST_INT_PROPERTY_TYPE));
+        assertEquals(TestEnum.B, state.getPropertyValue(TEST_ENUM_PROPERTY_TYPE));
+        assertSame(state, state.setPropertyValue(TEST_INT_PROPERTY_TYPE, 7));
+        assertThrows(IllegalArgumentException.class, () -> BLUE_CANDLE.getDefaultState().setPropertyValues(List.of(TEST_INT_PROPERTY_TYPE.createValue(1))));
+    }
+
+    @Test
+    void testTransitionTable() {
+        // Every transition should lead to the same state as looking up the state by its property values
+        for (var state : COBBLED_DEEPSLATE_WALL.getAllStates()) {
+            for (var propertyType : COBBLED_DEEPSLATE_WALL.getProperties().values()) {
+                for (var value : propertyType.getValidValues()) {
+                    var newValue = propertyType.tryCreateValue(value);
+                    var values = new ArrayList<>(state.getPropertyValues().values());
+                    values.replaceAll(v -> v.getPropertyType() == propertyType ? newValue : v);
+                    assertSame(COBBLED_DEEPSLATE_WALL.ofState(values), state.setPropertyValue(newValue));
+                }
+            }
+        }
+    }
+
     @Test
     void testBlockStateHash() {
         var b1 = COBBLED_DEEPSLATE_WALL.getDefaultState();
@@ -0,0 +1,55 @@
+package org.allaymc.server.command.selector.args;
+
+import lombok.SneakyThrows;
+import org.allaymc.api.command.selector.SelectorSyntaxException;
+import org.allaymc.api.entity.Entity;
+import org.allaymc.api.math.location.Location3d;
+import org.allaymc.server.command.MockCommandSender;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.allaymc.api.command.selector.SelectorType.ALL_ENTITIES;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author daoge_cmd
+ */
+class CTest {
+    @Test
+    void testSelectNearest() {
+        var e1 = mockEntity(1);
+        var e2 = mockEntity(-2);
+        var e3 = mockEntity(3);
+        var e4 = mockEntity(-4);
+        var entities = List.of(e3, e1, e4, e2);
+        var basePos = new Location3d(0, 0, 0, null);
+
+        assertEquals(List.of(e1, e2), C.selectNearest(entities, basePos, 2, false));
+        assertEquals(List.of(e4, e3, e2), C.selectNearest(entities, basePos, 3, true));
+        assertEquals(List.of(e1, e2, e3, e4), C.selectNearest(entities, basePos, 10, false));
+        assertTrue(C.selectNearest(new ArrayList<>(), basePos, 1, false).isEmpty());
+    }
+
+    @SneakyThrows
+    @Test
+    void testFilterUsesCurrentBasePos() {
+        var e1 = mockEntity(1);
+        var e2 = mockEntity(10);
+        var entities = List.of(e1, e2);
+        var c = new C();
+        var sender = new MockCommandSender();
+
+        assertEquals(List.of(e1), c.getFilter(ALL_ENTITIES, sender, new Location3d(0, 0, 0, null), "1").apply(entities));
+        assertEquals(List.of(e2), c.getFilter(ALL_ENTITIES, sender, new Location3d(9, 0, 0, null), "1").apply(entities));
+        assertThrows(SelectorSyntaxException.class, () -> c.getFilter(ALL_ENTITIES, sender, new Location3d(0, 0, 0, null), "0"));
+    }
+
+    private static Entity mockEntity(double x) {
+        var entity = Mockito.mock(Entity.class);
+        Mockito.when(entity.getLocation()).thenReturn(new Location3d(x, 0, 0, null));
+        return entity;
+    }
+}
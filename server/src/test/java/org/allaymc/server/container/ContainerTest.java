@@ -4,6 +4,7 @@ import org.allaymc.api.container.*;
 import org.allaymc.api.container.interfaces.FakeContainer;
 import org.allaymc.api.item.ItemStack;
 import org.allaymc.server.container.impl.BaseContainer;
+import org.allaymc.server.container.impl.BlockContainerImpl;
 import org.allaymc.server.container.impl.DoubleChestContainerImpl;
 import org.allaymc.server.container.impl.FakeContainerImpl;
 import org.allaymc.testutils.AllayTestExtension;
@@ -15,6 +16,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -908,4 +910,35 @@ class ContainerTest {
             assertEquals(2, count.get());
         }
     }
+
+    @Nested
+    class ContainerDataTests {
+
+        @Test
+        void testOnlyChangedDataIsSent() {
+            var blockContainer = new BlockContainerImpl(ContainerTypes.FURNACE);
+            var sent = new ArrayList<int[]>();
+            var dataViewer = new FakeContainerViewer() {
+                @Override
+                public void viewContainerData(Container container, int property, int value) {
+                    sent.add(new int[]{property, value});
+                }
+            };
+            blockContainer.addViewer(dataViewer);
+
+            blockContainer.updateContainerData(0, 10);
+            blockContainer.updateContainerData(0, 10);
+            blockContainer.updateContainerData(1, 0);
+            blockContainer.updateContainerData(0, 11);
+            assertEquals(3, sent.size());
+
+            // The latest data is sent to the new viewer
+            sent.clear();
+            blockContainer.removeViewer(dataViewer);
+            blockContainer.addViewer(dataViewer);
+            assertEquals(2, sent.size());
+            assertArrayEquals(new int[]{0, 11}, sent.get(0));
+            assertArrayEquals(new int[]{1, 0}, sent.get(1));
+        }
+    }
 }
@@ -45,4 +45,45 @@ class ChunkSectionNibbleArrayTest {
         array.set(0, 0, 0, 0);
         assertNotNull(array.getByteArray());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSetInFullArray() {
+        var array = new ChunkSectionNibbleArray();
+        for (int i = 0; i < 4096; i++) {
+            array.set(i, 15);
+        }
+        array.set(0, 0, 0, 0);
+        assertEquals(0, array.get(0, 0, 0));
+        assertEquals(15, array.get(1, 0, 0));
+        assertEquals(15, array.get(0, 1, 0));
+    }
+
+    @Test
+    void testCopy() {
+        var array = new ChunkSectionNibbleArray();
+        assertNull(array.toByteArray());
+        array.set(1, 2, 3, 7);
+        array.set(4, 5, 6, 15);
+
+        var copy = array.copy();
+        assertEquals(7, copy.get(1, 2, 3));
+        assertEquals(15, copy.get(4, 5, 6));
+        assertEquals(0, copy.get(0, 0, 0));
+        assertArrayEquals(array.getByteArray(), copy.getByteArray());
+        assertNotSame(array.getByteArray(), copy.getByteArray());
+        assertTrue(new ChunkSectionNibbleArray(new byte[2048]).isEmpty());
+    }
+
+    @Test
+    void testMergeMax() {
+        var array = new ChunkSectionNibbleArray();
+        array.set(0, 0, 0, 5);
+        array.set(1, 0, 0, 10);
+        var other = new ChunkSectionNibbleArray();
+        other.set(0, 0, 0, 8);
+        other.set(1, 0, 0, 3);
+        array.mergeMax(other);
+        assertEquals(8, array.get(0, 0, 0));
+        assertEquals(10, array.get(1, 0, 0));
+    }
+}
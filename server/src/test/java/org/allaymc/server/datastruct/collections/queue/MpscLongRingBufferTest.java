@@ -0,0 +1,61 @@
+package org.allaymc.server.datastruct.collections.queue;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author daoge_cmd
+ */
+class MpscLongRingBufferTest {
+    @Test
+    void testOfferAndPoll() {
+        var buffer = new MpscLongRingBuffer(4);
+        assertEquals(MpscLongRingBuffer.EMPTY, buffer.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        // The buffer is full
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertEquals(MpscLongRingBuffer.EMPTY, buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @SneakyThrows
+    @Test
+    void testMultipleProducers() {
+        var buffer = new MpscLongRingBuffer(1 << 16);
+        var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            var base = t * 10000L;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    assertTrue(buffer.offer(base + i));
+                }
+            }));
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        var sum = 0L;
+        var count = 0;
+        long value;
+        while ((value = buffer.poll()) != MpscLongRingBuffer.EMPTY) {
+            sum += value;
+            count++;
+        }
+        assertEquals(40000, count);
+        assertEquals(40000L * 39999 / 2, sum);
+    }
+}
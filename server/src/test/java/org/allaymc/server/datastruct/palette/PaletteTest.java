@@ -35,6 +35,31 @@ class PaletteTest {
         assertEquals(e2, palette.get(2));
     }
 
+    @Test
+    void testPaletteIndex() {
+        var e0 = new Entry(0);
+        var e1 = new Entry(1);
+        var e2 = new Entry(2);
+        var palette = new Palette<>(e0, BitArrayVersion.V0);
+        assertEquals(0, palette.getOrAddPaletteIndex(e0));
+
+        var index1 = palette.getOrAddPaletteIndex(e1);
+        assertEquals(BitArrayVersion.V1, palette.getVersion());
+        palette.setPaletteIndex(1, index1);
+        palette.setPaletteIndex(2, index1);
+
+        // The index of e1 should be kept after resizing
+        var index2 = palette.getOrAddPaletteIndex(e2);
+        assertEquals(BitArrayVersion.V2, palette.getVersion());
+        assertEquals(index1, palette.getOrAddPaletteIndex(e1));
+        palette.setPaletteIndex(3, index2);
+
+        assertEquals(e0, palette.get(0));
+        assertEquals(e1, palette.get(1));
+        assertEquals(e1, palette.get(2));
+        assertEquals(e2, palette.get(3));
+    }
+
     @Test
     void testOneEntryOnly() {
         var e0 = new Entry(0);
@@ -87,6 +112,58 @@ class PaletteTest {
         assertArrayEquals(bytes0, bytes1);
     }
 
+    @Test
+    void testLargePalette() {
+        var entries = new Entry[100];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new Entry(i);
+        }
+
+        var palette = new Palette<>(entries[0], BitArrayVersion.V0);
+        for (int i = 0; i < 4096; i++) {
+            palette.set(i, entries[i % entries.length]);
+        }
+        // Setting existing entries again should not grow the palette
+        for (int i = 0; i < 4096; i++) {
+            palette.set(i, entries[(i + 1) % entries.length]);
+        }
+
+        assertEquals(BitArrayVersion.V8, palette.getVersion());
+        for (int i = 0; i < 4096; i++) {
+            assertSame(entries[(i + 1) % entries.length], palette.get(i));
+        }
+    }
+
+    @Test
+    void testCompact() {
+        var entries = new Entry[40];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new Entry(i);
+        }
+
+        var palette = new Palette<>(entries[0], BitArrayVersion.V0);
+        for (int i = 0; i < entries.length; i++) {
+            palette.set(i, entries[i]);
+        }
+        // Only keep the even entries
+        for (int i = 1; i < entries.length; i += 2) {
+            palette.set(i, entries[0]);
+        }
+
+        palette.compact();
+        assertEquals(BitArrayVersion.V5, palette.getVersion());
+        for (int i = 0; i < entries.length; i++) {
+            assertSame(i % 2 == 0 ? entries[i] : entries[0], palette.get(i));
+        }
+
+        // The palette should work as usual after compacting
+        palette.set(1, entries[1]);
+        palette.set(2, entries[3]);
+        assertSame(entries[1], palette.get(1));
+        assertSame(entries[3], palette.get(2));
+        assertSame(entries[4], palette.get(4));
+    }
+
     record Entry(int id) {
     }
 
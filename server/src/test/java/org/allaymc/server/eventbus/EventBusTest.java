@@ -389,6 +389,62 @@ class EventBusTest {
         }
     }
 
+    @Nested
+    class HasListenersTests {
+
+        @Test
+        void testHasListeners() {
+            Consumer<TestEvent> consumer = event -> {
+            };
+
+            assertFalse(eventBus.hasListeners(TestEvent.class));
+            eventBus.registerListenerFor(TestEvent.class, consumer);
+            assertTrue(eventBus.hasListeners(TestEvent.class));
+            assertFalse(eventBus.hasListeners(TestCancellableEvent.class));
+            eventBus.unregisterListenerFor(TestEvent.class, consumer);
+            assertFalse(eventBus.hasListeners(TestEvent.class));
+        }
+
+        @Test
+        void testHasListenersWithMethodListener() {
+            var listener = new TestListener();
+
+            eventBus.registerListener(listener);
+            assertTrue(eventBus.hasListeners(TestEvent.class));
+            eventBus.unregisterListener(listener);
+            assertFalse(eventBus.hasListeners(TestEvent.class));
+        }
+
+        @Test
+        void testHasListenersForSubclass() {
+            // Make sure that the snapshot of the subclass is cached before registering
+            assertFalse(eventBus.hasListeners(TestSubEvent.class));
+            eventBus.registerListenerFor(TestEvent.class, event -> {
+            });
+            assertTrue(eventBus.hasListeners(TestSubEvent.class));
+        }
+    }
+
+    @Nested
+    class HierarchyTests {
+
+        @Test
+        void testSuperclassListenerReceivesSubclassEvent() {
+            List<String> order = new ArrayList<>();
+
+            eventBus.registerListenerFor(TestSubEvent.class, event -> order.add("sub"), false, 0);
+            eventBus.registerListenerFor(TestEvent.class, event -> order.add("super-high"), false, 100);
+            eventBus.registerListenerFor(TestEvent.class, event -> order.add("super-low"), false, -100);
+
+            eventBus.callEvent(new TestSubEvent());
+            assertEquals(List.of("super-high", "sub", "super-low"), order);
+
+            order.clear();
+            eventBus.callEvent(new TestEvent());
+            assertEquals(List.of("super-high", "super-low"), order);
+        }
+    }
+
     @Nested
     class MixedListenerTests {
 
@@ -0,0 +1,7 @@
+package org.allaymc.server.eventbus;
+
+/**
+ * @author daoge_cmd
+ */
+public class TestSubEvent extends TestEvent {
+}
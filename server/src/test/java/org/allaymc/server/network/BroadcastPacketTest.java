@@ -0,0 +1,114 @@
+package org.allaymc.server.network;
+
+import io.netty.buffer.ByteBuf;
+import org.allaymc.api.world.WorldViewer;
+import org.allaymc.server.player.AllayPlayer;
+import org.allaymc.testutils.AllayTestExtension;
+import org.cloudburstmc.math.vector.Vector3f;
+import org.cloudburstmc.protocol.bedrock.BedrockPeer;
+import org.cloudburstmc.protocol.bedrock.BedrockSession;
+import org.cloudburstmc.protocol.bedrock.packet.SetEntityMotionPacket;
+import org.cloudburstmc.protocol.bedrock.packet.UnknownPacket;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author daoge_cmd
+ */
+@ExtendWith(AllayTestExtension.class)
+class BroadcastPacketTest {
+
+    static BedrockSession mockSession() {
+        var codec = ProtocolInfo.getLatestCodec();
+        var peer = Mockito.mock(BedrockPeer.class);
+        Mockito.when(peer.getCodecHelper()).thenReturn(codec.createHelper());
+        var session = Mockito.mock(BedrockSession.class);
+        Mockito.when(session.getCodec()).thenReturn(codec);
+        Mockito.when(session.getPeer()).thenReturn(peer);
+        return session;
+    }
+
+    static SetEntityMotionPacket createPacket() {
+        var packet = new SetEntityMotionPacket();
+        packet.setRuntimeEntityId(1);
+        packet.setMotion(Vector3f.from(0, 1, 0));
+        return packet;
+    }
+
+    @Test
+    void testEncodeOncePerProtocolVersion() {
+        var session = mockSession();
+        var broadcastPacket = new BroadcastPacket(createPacket());
+        var first = (UnknownPacket) broadcastPacket.getEncoded(session);
+        var second = (UnknownPacket) broadcastPacket.getEncoded(session);
+
+        var expectedId = session.getCodec().getPacketDefinition(SetEntityMotionPacket.class).getId();
+        assertEquals(expectedId, first.getPacketId());
+        assertEquals(expectedId, second.getPacketId());
+        assertEquals(first.getPayload(), second.getPayload());
+        // Both payloads are slices of the same encoded buffer, which is retained once per slice
+        var encoded = first.getPayload().unwrap();
+        assertSame(encoded, second.getPayload().unwrap());
+        assertEquals(3, encoded.refCnt());
+
+        first.getPayload().release();
+        assertEquals(2, encoded.refCnt());
+        // The slice that is still being sent can be read after the broadcast packet is released
+        broadcastPacket.release();
+        assertEquals(1, encoded.refCnt());
+        assertTrue(second.getPayload().isReadable());
+        second.getPayload().release();
+        assertEquals(0, encoded.refCnt());
+    }
+
+    @Test
+    void testBroadcast() {
+        var session = mockSession();
+        var payloads = new ArrayList<ByteBuf>();
+        var player1 = mockPlayer(session, payloads);
+        var player2 = mockPlayer(session, payloads);
+        var otherViewer = Mockito.mock(WorldViewer.class);
+        var factoryCalls = new AtomicInteger();
+        var fallbackViewers = new ArrayList<WorldViewer>();
+
+        BroadcastPacket.broadcast(() -> {
+            factoryCalls.incrementAndGet();
+            return createPacket();
+        }, List.of(player1, otherViewer, player2), fallbackViewers::add);
+
+        assertEquals(1, factoryCalls.get());
+        assertEquals(List.of(otherViewer), fallbackViewers);
+        assertEquals(2, payloads.size());
+        var encoded = payloads.getFirst().unwrap();
+        assertSame(encoded, payloads.get(1).unwrap());
+        // The broadcast packet released its own reference, only the slices of the players are left
+        assertEquals(2, encoded.refCnt());
+        payloads.forEach(ByteBuf::release);
+        assertEquals(0, encoded.refCnt());
+    }
+
+    @Test
+    void testBroadcastWithoutPlayers() {
+        var fallbackViewers = new ArrayList<WorldViewer>();
+        var viewer = Mockito.mock(WorldViewer.class);
+        BroadcastPacket.broadcast(() -> fail("The packet should not be created"), List.of(viewer), fallbackViewers::add);
+        assertEquals(List.of(viewer), fallbackViewers);
+    }
+
+    static AllayPlayer mockPlayer(BedrockSession session, List<ByteBuf> payloads) {
+        var player = Mockito.mock(AllayPlayer.class);
+        Mockito.doAnswer(invocation -> {
+            BroadcastPacket broadcastPacket = invocation.getArgument(0);
+            payloads.add(((UnknownPacket) broadcastPacket.getEncoded(session)).getPayload());
+            return null;
+        }).when(player).sendBroadcastPacket(Mockito.any(BroadcastPacket.class));
+        return player;
+    }
+}
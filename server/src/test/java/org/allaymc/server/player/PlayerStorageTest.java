@@ -0,0 +1,81 @@
+package org.allaymc.server.player;
+
+import org.allaymc.api.player.PlayerData;
+import org.allaymc.testutils.AllayTestExtension;
+import org.cloudburstmc.nbt.NbtMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author daoge_cmd
+ */
+@ExtendWith(AllayTestExtension.class)
+class PlayerStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testNBTFileStorage() throws Exception {
+        testStorage(new AllayNBTFilePlayerStorage(tempDir.resolve("players")));
+        // No temporary file is left after the writes
+        try (var files = Files.list(tempDir.resolve("players"))) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(AllayNBTFilePlayerStorage.TMP_FILE_SUFFIX)));
+        }
+    }
+
+    @Test
+    void testLevelDBStorage() {
+        testStorage(new AllayLevelDBPlayerStorage(tempDir.resolve("players_db")));
+    }
+
+    @Test
+    void testDeleteIncompleteFile() throws Exception {
+        var folder = tempDir.resolve("players");
+        Files.createDirectories(folder);
+        var tmpFile = folder.resolve(UUID.randomUUID() + AllayNBTFilePlayerStorage.TMP_FILE_SUFFIX);
+        Files.write(tmpFile, new byte[]{1, 2, 3});
+        var storage = new AllayNBTFilePlayerStorage(folder);
+        assertFalse(Files.exists(tmpFile));
+        storage.shutdown();
+    }
+
+    void testStorage(AllayWriteBehindPlayerStorage storage) {
+        var uuid = UUID.randomUUID();
+        assertFalse(storage.hasPlayerData(uuid));
+
+        // The saves are coalesced and the latest one is read back before being written
+        var first = storage.savePlayerData(uuid, createPlayerData("first"));
+        var second = storage.savePlayerData(uuid, createPlayerData("second"));
+        assertSame(first, second);
+        assertFalse(first.isDone());
+        assertTrue(storage.hasPlayerData(uuid));
+        assertEquals("second", storage.readPlayerData(uuid).join().getWorld());
+
+        storage.flush();
+        assertTrue(first.isDone());
+        assertEquals("second", storage.readPlayerData(uuid).join().getWorld());
+        assertEquals(1, storage.readPlayerData(uuid).join().getNbt().getInt("Test"));
+
+        // Shutdown writes the pending saves
+        var third = storage.savePlayerData(uuid, createPlayerData("third"));
+        storage.shutdown();
+        assertTrue(third.isDone());
+        assertFalse(third.isCompletedExceptionally());
+    }
+
+    protected static PlayerData createPlayerData(String world) {
+        return PlayerData.builder()
+                .nbt(NbtMap.builder().putInt("Test", 1).build())
+                .world(world)
+                .dimension(0)
+                .build();
+    }
+}
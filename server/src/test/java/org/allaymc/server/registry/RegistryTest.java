@@ -1,5 +1,8 @@
 package org.allaymc.server.registry;
 
+import org.allaymc.api.item.recipe.FurnaceRecipe;
+import org.allaymc.api.item.recipe.PotionRecipe;
+import org.allaymc.api.item.type.ItemTypes;
 import org.allaymc.api.registry.Registries;
 import org.allaymc.server.block.data.BlockId;
 import org.allaymc.server.item.data.ItemId;
@@ -8,7 +11,7 @@ import org.allaymc.testutils.AllayTestExtension;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author daoge_cmd
@@ -58,4 +61,18 @@ public class RegistryTest {
             assertNotNull(Registries.BIOMES.getByK2(id.getIdentifier()));
         }
     }
+
+    @Test
+    void testRecipeIndex() {
+        var recipes = (AllayRecipeRegistry) Registries.RECIPES;
+        for (var recipe : recipes.getContent().values()) {
+            if (recipe instanceof FurnaceRecipe furnaceRecipe) {
+                assertSame(furnaceRecipe, recipes.getFurnaceRecipe(furnaceRecipe.getIngredient().getItemType(), furnaceRecipe.getType()));
+            } else if (recipe instanceof PotionRecipe potionRecipe) {
+                assertSame(potionRecipe, recipes.getPotionRecipe(potionRecipe.getIngredient(), potionRecipe.getReagent()));
+            }
+        }
+        assertNull(recipes.getFurnaceRecipe(ItemTypes.AIR, FurnaceRecipe.Type.FURNACE));
+        assertNull(recipes.getPotionRecipe(ItemTypes.AIR.createItemStack(), ItemTypes.AIR.createItemStack()));
+    }
 }
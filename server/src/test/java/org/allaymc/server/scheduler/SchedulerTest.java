@@ -397,6 +397,49 @@ class SchedulerTest {
         assertEquals(2, counter.get());
     }
 
+    @Test
+    void testLongDelayExecutesAtCorrectTick() {
+        // The delays cross the slots of the higher levels of the timing wheel
+        int[] delays = {63, 64, 65, 4095, 4096, 4097, 300000};
+        var executionTicks = new long[delays.length];
+        for (int i = 0; i < delays.length; i++) {
+            var index = i;
+            scheduler.scheduleDelayed(VALID_TASK_CREATOR, () -> {
+                executionTicks[index] = scheduler.getTicks();
+                return false;
+            }, delays[i]);
+        }
+
+        while (scheduler.getRunningTaskCount() != 0) {
+            scheduler.tick();
+        }
+
+        for (int i = 0; i < delays.length; i++) {
+            assertEquals(delays[i], executionTicks[i]);
+        }
+    }
+
+    @Test
+    void testScheduleFromOtherThreads() throws InterruptedException {
+        AtomicInteger counter = new AtomicInteger(0);
+        var threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = Thread.ofPlatform().start(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    scheduler.scheduleDelayed(VALID_TASK_CREATOR, counter::incrementAndGet, j % 100);
+                }
+            });
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        while (scheduler.getRunningTaskCount() != 0) {
+            scheduler.tick();
+        }
+        assertEquals(4000, counter.get());
+    }
+
     private void runSchedulerUntilEmpty(int loopCountPerSec) {
         GameLoop.builder()
                 .loopCountPerSec(loopCountPerSec)
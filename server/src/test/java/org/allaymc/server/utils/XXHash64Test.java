@@ -0,0 +1,34 @@
+package org.allaymc.server.utils;
+
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author daoge_cmd
+ */
+public class XXHash64Test {
+
+    @Test
+    void testHash() {
+        assertEquals(0xEF46DB3751D8E999L, hash(""));
+        assertEquals(0xD24EC4F1A98C6E5BL, hash("a"));
+        assertEquals(0x44BC2CF5AD770999L, hash("abc"));
+        assertEquals(0xFBCEA83C8A378BF1L, hash("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    void testHashDoesNotChangeReaderIndex() {
+        var buf = Unpooled.wrappedBuffer("xxabc".getBytes(StandardCharsets.UTF_8));
+        buf.readerIndex(2);
+        assertEquals(0x44BC2CF5AD770999L, XXHash64.hash(buf));
+        assertEquals(2, buf.readerIndex());
+    }
+
+    private static long hash(String str) {
+        return XXHash64.hash(Unpooled.wrappedBuffer(str.getBytes(StandardCharsets.UTF_8)));
+    }
+}
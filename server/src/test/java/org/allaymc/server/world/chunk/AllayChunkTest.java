@@ -102,4 +102,75 @@ class AllayChunkTest {
         chunk.removeBlockEntity(11, 45, 14);
         assertNull(chunk.getBlockEntity(11, 45, 14));
     }
+
+    @Test
+    void testBlockEntitySleep() {
+        var unsafeChunk = (AllayUnsafeChunk) chunk.toUnsafeChunk();
+        var barrel = BlockEntityTypes.BARREL.createBlockEntity(BlockEntityInitInfo.builder().pos(1, 0, 1).build());
+        var hopper = BlockEntityTypes.HOPPER.createBlockEntity(BlockEntityInitInfo.builder().pos(2, 0, 2).build());
+        chunk.addBlockEntity(barrel);
+        chunk.addBlockEntity(hopper);
+        // Barrel doesn't need to be ticked
+        assertFalse(unsafeChunk.isBlockEntityAwake(1, 0, 1));
+        assertTrue(unsafeChunk.isBlockEntityAwake(2, 0, 2));
+
+        unsafeChunk.sleepBlockEntity(2, 0, 2);
+        assertFalse(unsafeChunk.isBlockEntityAwake(2, 0, 2));
+        unsafeChunk.wakeUpBlockEntity(2, 0, 2);
+        assertTrue(unsafeChunk.isBlockEntityAwake(2, 0, 2));
+
+        // Changing the block state wakes up the block entity
+        unsafeChunk.sleepBlockEntity(2, 0, 2);
+        chunk.setBlockState(2, 0, 2, HOPPER.getDefaultState());
+        assertTrue(unsafeChunk.isBlockEntityAwake(2, 0, 2));
+
+        unsafeChunk.wakeUpBlockEntity(1, 0, 1);
+        assertFalse(unsafeChunk.isBlockEntityAwake(1, 0, 1));
+        chunk.removeBlockEntity(2, 0, 2);
+        assertFalse(unsafeChunk.isBlockEntityAwake(2, 0, 2));
+    }
+
+    @Test
+    void testVersion() {
+        assertEquals(0, chunk.getVersion());
+        chunk.setBlockState(0, 0, 0, STONE.getDefaultState());
+        assertEquals(1, chunk.getVersion());
+        assertEquals(1, chunk.getSectionVersion(0));
+        assertEquals(0, chunk.getSectionVersion(1));
+
+        chunk.setBiome(0, 16, 0, BiomeTypes.DESERT);
+        assertEquals(2, chunk.getVersion());
+        assertEquals(1, chunk.getSectionVersion(0));
+        assertEquals(1, chunk.getSectionVersion(1));
+
+        assertThrows(IllegalArgumentException.class, () -> chunk.getSectionVersion(100));
+    }
+
+    @Test
+    void testSetBlockStatesInBulk() {
+        var unsafeChunk = (AllayUnsafeChunk) chunk.toUnsafeChunk();
+        // Keep the blocks at x = 0 unchanged
+        var count = unsafeChunk.setBlockStates(0, 0, 0, 15, 31, 15, 0, false, (x, y, z) -> x == 0 ? null : STONE.getDefaultState());
+        assertEquals(15 * 32 * 16, count);
+        assertEquals(STONE.getDefaultState(), chunk.getBlockState(1, 0, 1));
+        assertEquals(STONE.getDefaultState(), chunk.getBlockState(15, 31, 15));
+        assertEquals(AIR.getDefaultState(), chunk.getBlockState(0, 0, 0));
+        assertEquals(AIR.getDefaultState(), chunk.getBlockState(1, 32, 1));
+        assertEquals(31, chunk.getHeight(1, 1));
+        assertEquals(-64, chunk.getHeight(0, 0));
+        assertEquals(1, chunk.getVersion());
+        assertEquals(1, chunk.getSectionVersion(0));
+        assertEquals(1, chunk.getSectionVersion(1));
+        assertEquals(0, chunk.getSectionVersion(2));
+
+        // Nothing is changed
+        assertEquals(0, unsafeChunk.setBlockStates(1, 0, 0, 15, 31, 15, 0, false, (x, y, z) -> STONE.getDefaultState()));
+        assertEquals(1, chunk.getVersion());
+
+        assertEquals(16, unsafeChunk.setBlockStates(0, 0, 0, 15, 0, 0, 0, false, (x, y, z) -> DIRT.getDefaultState()));
+        assertEquals(DIRT.getDefaultState(), chunk.getBlockState(0, 0, 0));
+        assertEquals(DIRT.getDefaultState(), chunk.getBlockState(15, 0, 0));
+        assertEquals(STONE.getDefaultState(), chunk.getBlockState(15, 0, 1));
+        assertEquals(2, chunk.getVersion());
+    }
 }
@@ -0,0 +1,70 @@
+package org.allaymc.server.world.chunk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author daoge_cmd
+ */
+class ChunkSectionLocksTest {
+    @Test
+    void testReentrantWrite() {
+        var locks = new ChunkSectionLocks(-4, 24);
+        locks.lockAllWriteLocks();
+        // Locking again in the same thread should not dead lock
+        locks.lockWriteLockAt(0);
+        locks.lockReadLockAt(0);
+        locks.unlockReadLockAt(0);
+        locks.unlockWriteLockAt(0);
+        assertEquals(0, locks.tryOptimisticReadAt(0));
+        locks.unlockAllWriteLocks();
+        assertNotEquals(0, locks.tryOptimisticReadAt(0));
+    }
+
+    @Test
+    void testReentrantRead() throws Exception {
+        var locks = new ChunkSectionLocks(-4, 24);
+        locks.lockAllReadLocks();
+        // A writer is waiting for the read lock
+        var writer = CompletableFuture.runAsync(() -> {
+            locks.lockWriteLockAt(0);
+            locks.unlockWriteLockAt(0);
+        });
+        Thread.sleep(50);
+        locks.lockReadLockAt(0);
+        locks.unlockReadLockAt(0);
+        assertFalse(writer.isDone());
+        locks.unlockAllReadLocks();
+        writer.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testOptimisticRead() {
+        var locks = new ChunkSectionLocks(-4, 24);
+        var stamp = locks.tryOptimisticReadAt(0);
+        assertTrue(locks.validateAt(0, stamp));
+        locks.lockWriteLockAt(0);
+        locks.unlockWriteLockAt(0);
+        assertFalse(locks.validateAt(0, stamp));
+        // Other sections are not affected
+        var otherStamp = locks.tryOptimisticReadAt(1);
+        locks.lockWriteLockAt(0);
+        assertTrue(locks.validateAt(1, otherStamp));
+        locks.unlockWriteLockAt(0);
+    }
+
+    @Test
+    void testUnlockWithoutLock() {
+        var locks = new ChunkSectionLocks(-4, 24);
+        assertThrows(IllegalMonitorStateException.class, () -> locks.unlockWriteLockAt(0));
+        assertThrows(IllegalMonitorStateException.class, () -> locks.unlockReadLockAt(0));
+
+        locks.lockReadLockAt(0);
+        locks.unlockReadLockAt(0);
+        assertThrows(IllegalMonitorStateException.class, () -> locks.unlockReadLockAt(0));
+    }
+}
@@ -0,0 +1,41 @@
+package org.allaymc.server.world.chunk;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author daoge_cmd
+ */
+class RandomUpdateBitMapTest {
+    @Test
+    void test() {
+        var map = new RandomUpdateBitMap();
+        assertTrue(map.isEmpty());
+        for (var index = 0; index < 4096; index++) {
+            assertFalse(map.get(index));
+        }
+
+        for (var index = 0; index < 4096; index++) {
+            map.set(index, true);
+            assertTrue(map.get(index));
+        }
+        assertEquals(4096, map.getCount());
+
+        // Setting the same value again should not change the count
+        map.set(100, true);
+        assertEquals(4096, map.getCount());
+
+        for (var index = 0; index < 4096; index += 2) {
+            map.set(index, false);
+            assertFalse(map.get(index));
+            assertTrue(map.get(index + 1));
+        }
+        assertEquals(2048, map.getCount());
+
+        for (var index = 1; index < 4096; index += 2) {
+            map.set(index, false);
+        }
+        assertTrue(map.isEmpty());
+    }
+}
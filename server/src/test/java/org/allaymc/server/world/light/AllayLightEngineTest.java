@@ -1,5 +1,6 @@
 package org.allaymc.server.world.light;
 
+import org.allaymc.api.block.type.BlockTypes;
 import org.allaymc.api.world.WorldData;
 import org.allaymc.api.world.data.DimensionInfo;
 import org.allaymc.api.world.data.Weather;
@@ -63,6 +64,55 @@ class AllayLightEngineTest {
         lightService.shutdown();
     }
 
+    @Test
+    void testRestoreLightFromSnapshot() {
+        var lightService = new AllayLightEngine(DimensionInfo.OVERWORLD, "test_world", () -> WorldData.TIME_NOON, () -> Weather.CLEAR);
+        for (int x = -3; x <= 3; x++) {
+            for (int z = -3; z <= 3; z++) {
+                lightService.onChunkLoad(
+                        AllayUnsafeChunk
+                                .builder()
+                                .voidChunk(x, z, DimensionInfo.OVERWORLD)
+                                .toSafeChunk()
+                );
+            }
+        }
+        lightService.onBlockChange(16, 1, 0, 14, 0);
+        lightService.handleUpdateInAllQueues();
+        assertEquals(14, lightService.getBlockLight(16, 1, 0));
+        assertEquals(13, lightService.getBlockLight(15, 1, 0));
+
+        // Chunk (1, 0) will be restored from the snapshot that is taken when chunk (0, 0) is
+        // unloaded, since chunk (0, 0) is loaded back without any change
+        var chunk = AllayUnsafeChunk.builder().voidChunk(0, 0, DimensionInfo.OVERWORLD).toSafeChunk();
+        lightService.onChunkUnload(chunk);
+        // The snapshot is handed back to the chunk & block update queue after it is taken
+        lightService.handleUpdateInAllQueues();
+        lightService.handleUpdateInAllQueues();
+        assertEquals(1, lightService.lightSnapshots.size());
+        lightService.onChunkLoad(AllayUnsafeChunk.builder().voidChunk(0, 0, DimensionInfo.OVERWORLD).toSafeChunk());
+        lightService.handleUpdateInAllQueues();
+        assertEquals(0, lightService.lightSnapshots.size());
+        assertEquals(14, lightService.getBlockLight(16, 1, 0));
+        assertEquals(13, lightService.getBlockLight(17, 1, 0));
+        assertEquals(13, lightService.getBlockLight(15, 1, 0));
+        assertEquals(12, lightService.getBlockLight(14, 1, 0));
+
+        // The snapshot is invalid if the neighbor chunk is changed
+        lightService.onChunkUnload(chunk);
+        lightService.handleUpdateInAllQueues();
+        lightService.handleUpdateInAllQueues();
+        var changedChunk = AllayUnsafeChunk.builder().voidChunk(0, 0, DimensionInfo.OVERWORLD).toSafeChunk();
+        changedChunk.setBlockState(15, 1, 0, BlockTypes.STONE.getDefaultState());
+        lightService.onChunkLoad(changedChunk);
+        lightService.handleUpdateInAllQueues();
+        assertEquals(14, lightService.getBlockLight(16, 1, 0));
+        assertEquals(0, lightService.getBlockLight(15, 1, 0));
+        assertEquals(11, lightService.getBlockLight(14, 1, 1));
+
+        lightService.shutdown();
+    }
+
     @Test
     void testSkyLight() {
         var lightService = new AllayLightEngine(DimensionInfo.OVERWORLD, "test_world", () -> WorldData.TIME_NOON, () -> Weather.CLEAR);
@@ -0,0 +1,84 @@
+package org.allaymc.server.world.manager;
+
+import org.allaymc.api.entity.Entity;
+import org.allaymc.api.math.location.Location3d;
+import org.allaymc.testutils.AllayTestExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author daoge_cmd
+ */
+@ExtendWith(AllayTestExtension.class)
+class RegionEntityTickerTest {
+
+    static Entity mockEntityInChunk(int chunkX, int chunkZ) {
+        var entity = Mockito.mock(Entity.class);
+        Mockito.when(entity.getLocation()).thenReturn(new Location3d((chunkX << 4) + 8, 64, (chunkZ << 4) + 8, null));
+        return entity;
+    }
+
+    @Test
+    void testDeferOutsideRegion() {
+        assertFalse(RegionEntityTicker.defer(() -> fail("Should not be deferred")));
+    }
+
+    @Test
+    void testDeferredAddAndRemoveOrderAcrossRegions() {
+        var ticker = new RegionEntityTicker(1);
+        // Region (1, 1) is in the last phase, regions (0, 0) and (2, 0) are in the first phase and are ticked in parallel
+        var remover = mockEntityInChunk(1, 1);
+        var adder = mockEntityInChunk(0, 0);
+        var otherRemover = mockEntityInChunk(2, 0);
+        var spawned = Collections.synchronizedSet(new HashSet<String>());
+        var merged = Collections.synchronizedList(new ArrayList<String>());
+
+        ticker.tick(List.of(remover, adder, otherRemover), entity -> {
+            if (entity == adder) {
+                assertTrue(RegionEntityTicker.defer(() -> {
+                    spawned.add("a");
+                    spawned.add("b");
+                    merged.add("add");
+                }));
+            } else if (entity == otherRemover) {
+                assertTrue(RegionEntityTicker.defer(() -> {
+                    spawned.remove("a");
+                    merged.add("remove a");
+                }));
+            } else {
+                assertTrue(RegionEntityTicker.defer(() -> {
+                    spawned.remove("b");
+                    merged.add("remove b");
+                }));
+            }
+            // The deferred actions are not run until all phases are finished
+            assertTrue(spawned.isEmpty());
+        });
+
+        // The actions are run in the order of the phases, then in the order the regions are found
+        assertEquals(List.of("add", "remove a", "remove b"), merged);
+        assertTrue(spawned.isEmpty());
+    }
+
+    @Test
+    void testNestedTickRestoresRegion() {
+        var ticker = new RegionEntityTicker(1);
+        var outer = mockEntityInChunk(0, 0);
+        var inner = mockEntityInChunk(4, 4);
+        var merged = new ArrayList<String>();
+
+        ticker.tick(List.of(outer), entity -> {
+            // A single region is ticked in the caller thread, so the nested tick runs in the same thread as the outer region
+            ticker.tick(List.of(inner), $ -> assertTrue(RegionEntityTicker.defer(() -> merged.add("inner"))));
+            assertTrue(RegionEntityTicker.defer(() -> merged.add("outer")));
+        });
+
+        assertEquals(List.of("inner", "outer"), merged);
+        assertFalse(RegionEntityTicker.defer(() -> fail("Should not be deferred")));
+    }
+}